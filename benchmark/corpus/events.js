@@ -0,0 +1,51 @@
+// Benchmark corpus: closures, callbacks and a small event emitter.
+function Emitter() {
+    this.handlers = {};
+}
+
+Emitter.prototype.on = function (type, f) {
+    (this.handlers[type] = this.handlers[type] || []).push(f);
+    return this;
+};
+
+Emitter.prototype.emit = function (type, a, b) {
+    var hs = this.handlers[type] || [];
+    for (var i = 0; i < hs.length; i++)
+        hs[i].call(this, a, b);
+};
+
+function counter(start) {
+    var n = start;
+    return {
+        inc: function () { return ++n; },
+        get: function () { return n; }
+    };
+}
+
+var bus = new Emitter();
+var clicks = counter(0);
+var log = [];
+
+bus.on("click", function (x, y) {
+    clicks.inc();
+    log.push("click at " + x + "," + y);
+}).on("key", function (k) {
+    if (typeof k === "string")
+        log.push("key " + k.toUpperCase());
+    else
+        log.push("key code " + k);
+});
+
+function each(xs, f) {
+    for (var i = 0; i < xs.length; i++)
+        f(xs[i], i);
+}
+
+each([1, 2, 3, 4], function (v, i) {
+    if (v % 2 === 0)
+        bus.emit("click", v, i);
+    else
+        bus.emit("key", i > 1 ? "a" : 65);
+});
+
+var summary = log.join("\n") + " clicks=" + clicks.get();
@@ -0,0 +1,58 @@
+// Benchmark corpus: constructors, prototypes, property writes in loops.
+function Point(x, y) {
+    this.x = x;
+    this.y = y;
+}
+
+Point.prototype.add = function (other) {
+    return new Point(this.x + other.x, this.y + other.y);
+};
+
+Point.prototype.scale = function (k) {
+    return new Point(this.x * k, this.y * k);
+};
+
+Point.prototype.toString = function () {
+    return "(" + this.x + ", " + this.y + ")";
+};
+
+function Polygon(points) {
+    this.points = points;
+}
+
+Polygon.prototype.perimeter = function () {
+    var sum = 0;
+    for (var i = 0; i < this.points.length; i++) {
+        var a = this.points[i];
+        var b = this.points[(i + 1) % this.points.length];
+        var dx = a.x - b.x, dy = a.y - b.y;
+        sum += Math.sqrt(dx * dx + dy * dy);
+    }
+    return sum;
+};
+
+Polygon.prototype.translate = function (d) {
+    var res = [];
+    for (var i = 0; i < this.points.length; i++)
+        res.push(this.points[i].add(d));
+    return new Polygon(res);
+};
+
+var registry = {};
+
+function register(name, shape) {
+    if (registry[name])
+        throw new Error("duplicate " + name);
+    registry[name] = shape;
+    return shape;
+}
+
+var square = register("square", new Polygon([new Point(0, 0), new Point(1, 0), new Point(1, 1), new Point(0, 1)]));
+var triangle = register("triangle", new Polygon([new Point(0, 0), new Point(2, 0), new Point(1, 3)]));
+var moved = square.translate(new Point(Math.random(), 2)).translate(new Point(1, Math.random()));
+
+var total = 0;
+for (var name in registry) {
+    total += registry[name].perimeter();
+}
+var description = moved.points.map(function (p) { return p.scale(2).toString(); }).join(";");
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.brics.tajs.benchmark;
+
+import dk.brics.tajs.util.HybridArrayHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link HybridArrayHashMap} versus {@link HashMap}: building a map, then looking up all keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionsBenchmark {
+
+    @Param({"1", "4", "8", "32"})
+    public int size;
+
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        keys = new String[size];
+        for (int i = 0; i < size; i++)
+            keys[i] = "key" + i;
+    }
+
+    @Benchmark
+    public int hybridArrayHashMap() {
+        return fillAndRead(new HybridArrayHashMap<>());
+    }
+
+    @Benchmark
+    public int hashMap() {
+        return fillAndRead(new HashMap<>());
+    }
+
+    private int fillAndRead(Map<String, Integer> m) {
+        for (int i = 0; i < keys.length; i++)
+            m.put(keys[i], i);
+        int sum = 0;
+        for (String k : keys)
+            sum += m.get(k);
+        return sum;
+    }
+}
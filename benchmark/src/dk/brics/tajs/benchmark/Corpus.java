@@ -0,0 +1,79 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.brics.tajs.benchmark;
+
+import dk.brics.tajs.Main;
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static dk.brics.tajs.util.Collections.newList;
+
+/**
+ * Fixed corpus of JavaScript programs used by the benchmarks.
+ * The location can be set with the system property <code>tajs.benchmark.corpus</code>.
+ */
+final class Corpus {
+
+    private static final String DIR = System.getProperty("tajs.benchmark.corpus", "benchmark/corpus");
+
+    private Corpus() {
+    }
+
+    /**
+     * Returns the JavaScript files of the corpus, in name order.
+     */
+    static List<String> files() {
+        try (Stream<Path> s = Files.list(Paths.get(DIR))) {
+            return s.map(Path::toString).filter(f -> f.endsWith(".js")).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    /**
+     * Resets TAJS and prepares an analysis of the corpus with the given additional options.
+     */
+    static Analysis init(String... options) {
+        Main.initLogging();
+        Main.reset();
+        List<String> args = newList();
+        args.add("-quiet");
+        args.addAll(Arrays.asList(options));
+        args.addAll(files());
+        Analysis a = Main.init(args.toArray(new String[args.size()]), null);
+        if (a == null)
+            throw new AnalysisException("Unable to initialize analysis of " + DIR);
+        return a;
+    }
+
+    /**
+     * Resets TAJS and analyzes the corpus (without the scan phase).
+     */
+    static Analysis analyze() {
+        Analysis a = init();
+        a.getSolver().solve();
+        return a;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.brics.tajs.benchmark;
+
+import dk.brics.tajs.Main;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.HostEnvSources;
+import dk.brics.tajs.flowgraph.JavaScriptSource;
+import dk.brics.tajs.js2flowgraph.FlowGraphBuilder;
+import dk.brics.tajs.options.Options;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of parsing and flow graph construction for the bundled host environment sources.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowGraphBuilderBenchmark {
+
+    private List<JavaScriptSource> sources;
+
+    @Setup
+    public void setup() {
+        Main.initLogging();
+        Main.reset();
+        Options.get().enablePolyfillMDN();
+        Options.get().enablePolyfillES6Collections();
+        Options.get().enablePolyfillTypedArrays();
+        sources = HostEnvSources.get();
+    }
+
+    @Benchmark
+    public FlowGraph transformStandAloneCode() {
+        FlowGraphBuilder builder = new FlowGraphBuilder(null, "hostenv");
+        for (JavaScriptSource s : sources)
+            builder.transformStandAloneCode(s);
+        return builder.close();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.brics.tajs.benchmark;
+
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.analysis.InitialStateBuilder;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.lattice.CallEdge;
+import dk.brics.tajs.lattice.Context;
+import dk.brics.tajs.lattice.ObjectLabel;
+import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.lattice.UnknownValueResolver;
+import dk.brics.tajs.solver.IAnalysisLatticeElement;
+import dk.brics.tajs.util.AnalysisException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static dk.brics.tajs.util.Collections.newList;
+
+/**
+ * Benchmarks of abstract state operations, on the states at the fixpoint of the benchmark corpus.
+ * Each operation works on a fresh clone, so the cost of {@link #cloneStates} is included in the others.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateBenchmark {
+
+    /**
+     * Pairs of (target, source) states: the entry states of a block and a successor block, in the same context.
+     */
+    private List<State[]> joins;
+
+    /**
+     * Function entry states where the global object is unknown (due to lazy propagation).
+     */
+    private List<State> entries;
+
+    @Setup
+    public void setup() {
+        Analysis analysis = Corpus.analyze();
+        IAnalysisLatticeElement<State, Context, CallEdge> lattice = analysis.getSolver().getAnalysisLatticeElement();
+        joins = newList();
+        entries = newList();
+        for (Function f : analysis.getSolver().getFlowGraph().getFunctions()) {
+            for (BasicBlock b : f.getBlocks()) {
+                for (Map.Entry<Context, State> me : lattice.getStates(b).entrySet()) {
+                    for (BasicBlock succ : b.getSuccessors()) {
+                        State s = lattice.getStates(succ).get(me.getKey());
+                        if (s != null)
+                            joins.add(new State[]{s, me.getValue()});
+                    }
+                    if (b == f.getEntry() && !f.isMain() && me.getValue().getObject(InitialStateBuilder.GLOBAL, false).isUnknown())
+                        entries.add(me.getValue());
+                }
+            }
+        }
+        if (joins.isEmpty() || entries.isEmpty())
+            throw new AnalysisException("Benchmark corpus too small");
+    }
+
+    /**
+     * Clones all states, as done before every transfer function.
+     */
+    @Benchmark
+    public void cloneStates(Blackhole bh) {
+        for (State[] p : joins)
+            bh.consume(p[0].clone());
+    }
+
+    /**
+     * Joins each state into a clone of a successor state.
+     */
+    @Benchmark
+    public void propagate(Blackhole bh) {
+        for (State[] p : joins) {
+            State target = p[0].clone();
+            bh.consume(target.propagate(p[1], false));
+        }
+    }
+
+    /**
+     * Makes every object in a clone of each state writable (copy-on-write of {@link dk.brics.tajs.lattice.Obj}).
+     */
+    @Benchmark
+    public void copyOnWrite(Blackhole bh) {
+        for (State[] p : joins) {
+            State s = p[0].clone();
+            for (ObjectLabel l : newList(s.getStore().keySet()))
+                bh.consume(s.getObject(l, true));
+        }
+    }
+
+    /**
+     * Recovers the global object at function entries.
+     */
+    @Benchmark
+    public void recover(Blackhole bh) {
+        for (State s : entries)
+            bh.consume(UnknownValueResolver.getProperties(InitialStateBuilder.GLOBAL, s.clone()));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.brics.tajs.benchmark;
+
+import dk.brics.tajs.lattice.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Value} joins and canonicalization.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueBenchmark {
+
+    private static final int SIZE = 64;
+
+    private Value[] values;
+
+    private String[] strings;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        values = new Value[SIZE];
+        strings = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            strings[i] = "prop" + i;
+            switch (i % 4) {
+                case 0:
+                    values[i] = Value.makeNum(i);
+                    break;
+                case 1:
+                    values[i] = Value.makeStr(strings[i]);
+                    break;
+                case 2:
+                    values[i] = Value.makeBool(i % 8 == 2).joinUndef();
+                    break;
+                default:
+                    values[i] = Value.makeNum(i).join(Value.makeStr(strings[i])).joinNull();
+            }
+        }
+    }
+
+    /**
+     * Joins two values of mixed types.
+     */
+    @Benchmark
+    public Value join() {
+        int i = next++;
+        return values[i & (SIZE - 1)].join(values[(i * 7 + 3) & (SIZE - 1)]);
+    }
+
+    /**
+     * Creates a value that is already in the canonicalization cache.
+     */
+    @Benchmark
+    public Value canonicalizeExisting() {
+        return Value.makeStr(strings[next++ & (SIZE - 1)]);
+    }
+
+    /**
+     * Creates a value that is not in the canonicalization cache.
+     */
+    @Benchmark
+    public Value canonicalizeNew() {
+        return Value.makeNum(SIZE + next++);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.brics.tajs.benchmark;
+
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.monitoring.Monitoring;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solver throughput, in node transfers per second, with the priority queue work list and the bucketed work list.
+ * Flow graph construction and initial state setup are excluded from the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 10, time = 10)
+@Fork(1)
+public class WorkListBenchmark {
+
+    @Param({"false", "true"})
+    public boolean bucketed;
+
+    private Analysis analysis;
+
+    /**
+     * Node transfers performed by the measured invocations, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class NodeTransfers {
+
+        public long nodeTransfers;
+    }
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        analysis = bucketed ? Corpus.init("-bucketed-worklist") : Corpus.init();
+    }
+
+    @Benchmark
+    public Analysis solve(NodeTransfers counters) {
+        analysis.getSolver().solve();
+        counters.nodeTransfers += ((Monitoring) analysis.getMonitoring()).getNumberOfNodeTransfers();
+        return analysis;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs;
+
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.lattice.ObjectLabel;
+import dk.brics.tajs.monitoring.IAnalysisMonitoring;
+import dk.brics.tajs.monitoring.Monitoring;
+import dk.brics.tajs.options.ExperimentalOptions;
+import dk.brics.tajs.options.ExperimentalOptions.ExperimentalOptionsManager;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+import dk.brics.tajs.solver.SolverSynchronizer;
+import dk.brics.tajs.util.AnalysisException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Analysis session with its own options.
+ * <p>
+ * All work done through a session runs with the session options bound to the current thread,
+ * so different sessions can analyze programs concurrently on different threads.
+ * The value and scope chain canonicalization caches are shared between sessions;
+ * {@link Main#reset()} clears them for all sessions and should not be called while other sessions are running.
+ * Unless a smell report path is given, each session writes its smell report to its own file,
+ * <code>SmellReport-</code><i>N</i><code>.txt</code> where <i>N</i> is the session number,
+ * so concurrent sessions in the same working directory do not overwrite each other's reports.
+ * The object labels used by a session keep their IDs (see {@link ObjectLabel#getId()}) until the session is closed;
+ * closing it lets the IDs of object labels that no running session uses be recycled.
+ * A single session is not thread-safe.
+ */
+public class AnalysisSession implements AutoCloseable {
+
+    private static final AtomicInteger next_id = new AtomicInteger(1);
+
+    private final int id;
+
+    private OptionValues options;
+
+    private ExperimentalOptions experimental;
+
+    private final long object_label_session;
+
+    private boolean closed;
+
+    /**
+     * Constructs a new session with default options.
+     */
+    public AnalysisSession() {
+        this(new OptionValues(), new ExperimentalOptions());
+    }
+
+    /**
+     * Constructs a new session with (a copy of) the given options.
+     */
+    public AnalysisSession(OptionValues options, ExperimentalOptions experimental) {
+        this.options = new OptionValues(options);
+        this.experimental = experimental;
+        id = next_id.getAndIncrement();
+        object_label_session = ObjectLabel.beginSession();
+        if (this.options.getSmellReportPath() == null)
+            this.options.setSmellReportPath(Monitoring.getDefaultSmellReportFile(id));
+    }
+
+    /**
+     * Returns the number of this session, unique in this JVM.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the options of this session.
+     */
+    public OptionValues getOptions() {
+        return options;
+    }
+
+    /**
+     * Reads the input and prepares an analysis object, using the default monitoring.
+     *
+     * @see Main#init(String[], IAnalysisMonitoring, SolverSynchronizer)
+     */
+    public Analysis init(String[] args) throws AnalysisException {
+        return init(args, new Monitoring(), null);
+    }
+
+    /**
+     * Reads the input and prepares an analysis object.
+     * The command line arguments are parsed in addition to the options of this session.
+     *
+     * @see Main#init(String[], IAnalysisMonitoring, SolverSynchronizer)
+     */
+    public Analysis init(String[] args, IAnalysisMonitoring monitoring, SolverSynchronizer sync) throws AnalysisException {
+        return call(() -> Main.init(args, monitoring, sync));
+    }
+
+    /**
+     * Runs the analysis, which must have been created by this session.
+     *
+     * @see Main#run(Analysis)
+     */
+    public void run(Analysis analysis) throws AnalysisException {
+        call(() -> {
+            Main.run(analysis);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given computation with the options of this session bound to the current thread.
+     * Option changes made by the computation are kept in this session.
+     */
+    public <T> T call(Supplier<T> computation) {
+        OptionValues previousOptions = Options.bind(options);
+        ExperimentalOptions previousExperimental = ExperimentalOptionsManager.bind(experimental);
+        try {
+            return computation.get();
+        } finally {
+            options = Options.get();
+            experimental = ExperimentalOptionsManager.get();
+            if (previousOptions != null)
+                Options.bind(previousOptions);
+            else
+                Options.unbind();
+            if (previousExperimental != null)
+                ExperimentalOptionsManager.bind(previousExperimental);
+            else
+                ExperimentalOptionsManager.unbind();
+        }
+    }
+
+    /**
+     * Closes this session.
+     * Analysis results of the session must not be used after it has been closed.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            ObjectLabel.endSession(object_label_session);
+        }
+    }
+}
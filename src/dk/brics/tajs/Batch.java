@@ -0,0 +1,502 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs;
+
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.monitoring.AnalysisTimeLimiter;
+import dk.brics.tajs.monitoring.CompositeMonitoring;
+import dk.brics.tajs.monitoring.Monitoring;
+import dk.brics.tajs.monitoring.SmellReportWriter;
+import dk.brics.tajs.options.ExperimentalOptions;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.util.AnalysisException;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Strings.escapeJson;
+
+/**
+ * Batch analysis of many entry points.
+ * <p>
+ * Usage: <code>Batch [-threads N] [-job-time-limit S] [OPTION]... (DIRECTORY | MANIFEST)...</code>.
+ * Each HTML or JavaScript file below a directory is analyzed as a separate job.
+ * Each line of a manifest file contains the command line arguments of a job, as in {@link Daemon};
+ * empty lines and lines starting with <code>#</code> are ignored.
+ * The remaining options are used as defaults for all jobs.
+ * <p>
+ * The jobs run in separate {@link AnalysisSession}s on a work-stealing pool with N threads (default: the number of processors).
+ * They are started longest first, estimated by the total size of their input files, so that a long job is not started last.
+ * The dataflow analysis of a job is stopped when the job has run for S seconds (default: no limit), counting from
+ * the start of the job, and, if <code>-memory-budget</code> is given, when the heap exceeds the budget and context sensitivity
+ * cannot be reduced further. The findings up to that point are kept.
+ * A job that has still not finished after 2S seconds, for example because it does not terminate while parsing or
+ * scanning, is abandoned and reported without findings.
+ * The heap of a JVM is shared by the jobs running in it, so with more than one thread, a job with a memory budget
+ * runs in a separate JVM whose maximum heap size is the budget.
+ * Smell baselines (<code>-smell-baseline</code> and <code>-write-smell-baseline</code>) are not supported.
+ * <p>
+ * The smell reports of the jobs are aggregated into a single report (see <code>-smell-report</code>),
+ * in input order, with the status and time of each job. The text and JSON lines formats are supported.
+ */
+public class Batch {
+
+    private static Logger log = Logger.getLogger(Batch.class);
+
+    /**
+     * Outcome of a job.
+     */
+    public enum Status {
+
+        /**
+         * The analysis completed.
+         */
+        OK,
+
+        /**
+         * The analysis was stopped by the time limit, the results are partial,
+         * or the job was abandoned at twice the time limit, without results.
+         */
+        TIME_LIMIT,
+
+        /**
+         * The analysis was stopped by the memory budget, the results are partial.
+         */
+        MEMORY_LIMIT,
+
+        /**
+         * The job arguments were rejected.
+         */
+        INVALID,
+
+        /**
+         * The analysis failed with an exception.
+         */
+        FAILED
+    }
+
+    /**
+     * Analysis job.
+     */
+    private static final class Job {
+
+        final String name;
+
+        final String[] args;
+
+        final long cost;
+
+        Status status;
+
+        String message;
+
+        long time; // milliseconds
+
+        Path report;
+
+        volatile boolean abandoned;
+
+        Job(String name, String[] args) {
+            this.name = name;
+            this.args = args;
+            long size = 0;
+            for (String a : args) {
+                try {
+                    Path p = Paths.get(a);
+                    if (Files.isRegularFile(p))
+                        size += Files.size(p);
+                } catch (InvalidPathException | IOException e) {
+                    // not a file
+                }
+            }
+            cost = size;
+        }
+    }
+
+    private static final String SMELL_BASELINE_UNSUPPORTED = "-smell-baseline and -write-smell-baseline are not supported in batch mode";
+
+    private static final String USAGE = "Usage: Batch [-threads N] [-job-time-limit S] [OPTION]... (DIRECTORY | MANIFEST)...";
+
+    private final String[] default_args;
+
+    private final OptionValues defaults;
+
+    private final int threads;
+
+    private final int time_limit;
+
+    /**
+     * Constructs a new batch driver.
+     *
+     * @param defaultArgs default options for all jobs
+     * @param threads     number of jobs to run concurrently
+     * @param time_limit  seconds allowed for each job before its dataflow analysis is stopped, -1 if unlimited
+     * @throws AnalysisException if a smell baseline is given
+     */
+    public Batch(String[] defaultArgs, int threads, int time_limit) {
+        this.default_args = defaultArgs.clone();
+        this.defaults = new OptionValues(defaultArgs);
+        if (hasSmellBaseline(defaults))
+            throw new AnalysisException(SMELL_BASELINE_UNSUPPORTED);
+        this.threads = threads;
+        this.time_limit = time_limit;
+    }
+
+    /**
+     * Runs the jobs found in the given directories and manifest files.
+     * Terminates with System.exit.
+     */
+    public static void main(String[] args) throws IOException {
+        Main.initLogging();
+        if (args.length >= 3 && args[0].equals("-job")) {
+            runChildJob(args);
+            return;
+        }
+        int threads = -1;
+        int time_limit = -1;
+        while (args.length >= 2 && (args[0].equals("-threads") || args[0].equals("-job-time-limit"))) {
+            if (args[0].equals("-threads"))
+                threads = Integer.parseInt(args[1]);
+            else
+                time_limit = Integer.parseInt(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        List<String> inputs = newList(new OptionValues(args).getArguments());
+        if (threads == -1)
+            threads = Runtime.getRuntime().availableProcessors();
+        if (inputs.isEmpty() || threads < 1 || !Arrays.asList(args).subList(args.length - inputs.size(), args.length).equals(inputs)) {
+            System.err.println(USAGE);
+            System.exit(-1);
+        }
+        String[] default_args = Arrays.copyOf(args, args.length - inputs.size());
+        if (hasSmellBaseline(new OptionValues(default_args))) {
+            System.err.println(SMELL_BASELINE_UNSUPPORTED);
+            System.exit(-1);
+        }
+        List<Job> jobs = newList();
+        for (String input : inputs)
+            jobs.addAll(readJobs(Paths.get(input)));
+        Batch batch = new Batch(default_args, threads, time_limit);
+        System.exit(batch.run(jobs) ? 0 : 1);
+    }
+
+    /**
+     * Runs a single job in this JVM for a parent batch, see {@link #runInChildJvm(Job, int)}.
+     * Arguments: <code>-job REPORT TIME_LIMIT N</code>, N default arguments, and the job arguments.
+     * The status and message of the job are written as two lines to REPORT<code>.status</code>.
+     */
+    private static void runChildJob(String[] args) throws IOException {
+        Path report = Paths.get(args[1]);
+        int time_limit = Integer.parseInt(args[2]);
+        int n = Integer.parseInt(args[3]);
+        String[] default_args = Arrays.copyOfRange(args, 4, 4 + n);
+        String[] job_args = Arrays.copyOfRange(args, 4 + n, args.length);
+        Job job = new Job(String.join(" ", job_args), job_args);
+        job.report = report;
+        try {
+            new Batch(default_args, 1, time_limit).runInThisJvm(job);
+        } catch (Throwable e) {
+            fail(job, e);
+        }
+        Files.write(getStatusFile(report), Arrays.asList(job.status.toString(), job.message != null ? job.message : ""), StandardCharsets.UTF_8);
+        System.exit(0);
+    }
+
+    /**
+     * Reads the jobs of a directory or manifest file.
+     */
+    private static List<Job> readJobs(Path input) throws IOException {
+        List<Job> jobs = newList();
+        if (Files.isDirectory(input)) {
+            List<Path> files;
+            try (Stream<Path> s = Files.walk(input)) {
+                files = s.filter(Files::isRegularFile).filter(Batch::isEntryPoint).sorted().collect(Collectors.toList());
+            }
+            for (Path p : files)
+                jobs.add(new Job(p.toString(), new String[]{p.toString()}));
+        } else {
+            for (String line : Files.readAllLines(input, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    jobs.add(new Job(line, Daemon.tokenize(line)));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Checks whether the given options select a smell baseline.
+     * The findings of a batch are aggregated from separate jobs, so a single baseline cannot be compared with or written.
+     */
+    static boolean hasSmellBaseline(OptionValues options) {
+        return options.getSmellBaselinePath() != null || options.getWriteSmellBaselinePath() != null;
+    }
+
+    private static boolean isEntryPoint(Path p) {
+        String f = p.getFileName().toString().toLowerCase();
+        return f.endsWith(".html") || f.endsWith(".xhtml") || f.endsWith(".htm") || f.endsWith(".js");
+    }
+
+    /**
+     * Runs the given jobs and writes the aggregated report.
+     *
+     * @return true if all jobs were valid and completed without exceptions, possibly with partial results
+     */
+    private boolean run(List<Job> jobs) throws IOException {
+        Path report_path = Paths.get(defaults.getSmellReportPath() != null ? defaults.getSmellReportPath() : Monitoring.SMELL_REPORT_FILE);
+        SmellReportWriter.Format format = defaults.getSmellReportFormat() != null ? SmellReportWriter.Format.parse(defaults.getSmellReportFormat()) : SmellReportWriter.Format.TEXT;
+        if (format == SmellReportWriter.Format.SARIF)
+            throw new AnalysisException("The SARIF format is not supported for batch reports");
+        List<Job> order = newList(jobs);
+        order.sort((j1, j2) -> Long.compare(j2.cost, j1.cost));
+        AtomicInteger done = new AtomicInteger();
+        long time = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = newList();
+            for (Job j : order)
+                tasks.add(pool.submit(() -> {
+                    runJob(j, format);
+                    log.info("[" + done.incrementAndGet() + "/" + jobs.size() + "] " + j.name + ": " + j.status + " (" + j.time + "ms)");
+                }));
+            for (ForkJoinTask<?> t : tasks)
+                t.join();
+            log.info("Analyzed " + jobs.size() + " job(s) in " + (System.currentTimeMillis() - time) + "ms");
+            writeReport(report_path, format, jobs);
+        } finally {
+            pool.shutdown();
+            for (Job j : jobs)
+                if (j.report != null)
+                    Files.deleteIfExists(j.report); // if the report could not be written
+        }
+        boolean ok = true;
+        for (Job j : jobs)
+            if (j.status == Status.INVALID || j.status == Status.FAILED)
+                ok = false;
+        return ok;
+    }
+
+    /**
+     * Runs a single job, writing its smell report to a temporary file.
+     * If the job is invalid, fails or is abandoned, its report is deleted.
+     */
+    private void runJob(Job job, SmellReportWriter.Format format) {
+        long time = System.currentTimeMillis();
+        try {
+            job.report = Files.createTempFile("tajs-batch-", format == SmellReportWriter.Format.JSONL ? ".jsonl" : ".txt");
+            OptionValues options = new OptionValues(defaults, job.args);
+            if (hasSmellBaseline(options)) {
+                job.status = Status.INVALID;
+                job.message = SMELL_BASELINE_UNSUPPORTED;
+                return;
+            }
+            if (threads > 1 && options.getMemoryBudget() > 0)
+                runInChildJvm(job, options.getMemoryBudget());
+            else
+                runInThisJvm(job);
+        } catch (Throwable e) { // also errors, such as OutOfMemoryError and StackOverflowError, so that the other jobs can continue
+            fail(job, e);
+        } finally {
+            if ((job.status == Status.INVALID || job.status == Status.FAILED || job.abandoned) && job.report != null) {
+                try {
+                    Files.deleteIfExists(job.report);
+                } catch (IOException e) {
+                    log.error("Unable to delete " + job.report, e);
+                }
+                job.report = null;
+            }
+            job.time = System.currentTimeMillis() - time;
+        }
+    }
+
+    /**
+     * Runs a job in a fresh session in its own thread, and abandons it at twice the time limit.
+     */
+    private void runInThisJvm(Job job) throws InterruptedException {
+        Path report = job.report;
+        FutureTask<Status> task = new FutureTask<>(() -> {
+            try {
+                return analyze(job.args, report);
+            } finally {
+                if (job.abandoned)
+                    Files.deleteIfExists(report); // in case the report was written after the job was abandoned
+            }
+        });
+        Thread t = new Thread(task, "tajs-batch-job");
+        t.setDaemon(true);
+        t.start();
+        try {
+            job.status = time_limit < 0 ? task.get() : task.get(2L * time_limit, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } catch (TimeoutException e) {
+            job.abandoned = true;
+            task.cancel(true); // the analysis does not react to interrupts, but the thread is a daemon
+            abandon(job);
+        }
+    }
+
+    /**
+     * Runs a job in a separate JVM whose maximum heap size is the given memory budget,
+     * and kills it at twice the time limit.
+     */
+    private void runInChildJvm(Job job, int memory_budget) throws IOException, InterruptedException {
+        List<String> command = newList();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + memory_budget + "m");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Batch.class.getName());
+        command.add("-job");
+        command.add(job.report.toString());
+        command.add(Integer.toString(time_limit));
+        command.add(Integer.toString(default_args.length));
+        command.addAll(Arrays.asList(default_args));
+        command.addAll(Arrays.asList(job.args));
+        Path status_file = getStatusFile(job.report);
+        Process p = new ProcessBuilder(command).inheritIO().start();
+        try {
+            if (time_limit < 0)
+                p.waitFor();
+            else if (!p.waitFor(2L * time_limit, TimeUnit.SECONDS)) {
+                p.destroyForcibly().waitFor();
+                job.abandoned = true;
+                abandon(job);
+                return;
+            }
+            if (Files.isRegularFile(status_file)) {
+                List<String> lines = Files.readAllLines(status_file, StandardCharsets.UTF_8);
+                job.status = Status.valueOf(lines.get(0));
+                job.message = lines.size() > 1 && !lines.get(1).isEmpty() ? lines.get(1) : null;
+            } else {
+                job.status = Status.FAILED;
+                job.message = "The job JVM exited with status " + p.exitValue();
+            }
+        } finally {
+            if (p.isAlive())
+                p.destroyForcibly();
+            Files.deleteIfExists(status_file);
+        }
+    }
+
+    /**
+     * Analyzes a job in a fresh session, writing its smell report to the given file.
+     *
+     * @return the status of the job
+     */
+    private Status analyze(String[] args, Path report) {
+        OptionValues options = new OptionValues(defaults);
+        options.setSmellReportPath(report.toString());
+        if (new OptionValues(defaults, args).getMemoryBudget() > 0)
+            options.enableMemoryBudgetStop();
+        AnalysisTimeLimiter limiter = new AnalysisTimeLimiter(time_limit, false, true);
+        try (AnalysisSession session = new AnalysisSession(options, new ExperimentalOptions())) {
+            Analysis analysis = session.init(args, new CompositeMonitoring(new Monitoring(), limiter), null);
+            if (analysis == null)
+                return Status.INVALID;
+            session.run(analysis);
+            if (limiter.analysisExceededTimeLimit())
+                return Status.TIME_LIMIT;
+            if (analysis.isMemoryBudgetExceeded())
+                return Status.MEMORY_LIMIT;
+            return Status.OK;
+        }
+    }
+
+    private static void fail(Job job, Throwable e) {
+        log.error("Job " + job.name + " failed", e);
+        job.status = Status.FAILED;
+        job.message = e.getClass().getSimpleName() + ": " + String.valueOf(e.getMessage()).replace('\n', ' ');
+    }
+
+    private void abandon(Job job) {
+        log.error("Job " + job.name + " abandoned after " + 2 * time_limit + " seconds");
+        job.status = Status.TIME_LIMIT;
+        job.message = "Abandoned after " + 2 * time_limit + " seconds, without results";
+    }
+
+    private static Path getStatusFile(Path report) {
+        return Paths.get(report + ".status");
+    }
+
+    /**
+     * Writes the reports of the jobs, in the given order, and deletes the temporary files.
+     * If the file name ends with <code>.gz</code>, the output is gzip-compressed.
+     */
+    private static void writeReport(Path path, SmellReportWriter.Format format, List<Job> jobs) throws IOException {
+        OutputStream os = Files.newOutputStream(path);
+        if (path.getFileName().toString().endsWith(".gz"))
+            os = new GZIPOutputStream(os);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8)))) {
+            if (format == SmellReportWriter.Format.TEXT) {
+                int[] counts = new int[Status.values().length];
+                for (Job j : jobs)
+                    counts[j.status.ordinal()]++;
+                out.print("Batch analysis of " + jobs.size() + " job(s):");
+                for (Status s : Status.values())
+                    out.print(" " + s + " " + counts[s.ordinal()]);
+                out.println();
+            }
+            for (Job j : jobs) {
+                if (format == SmellReportWriter.Format.TEXT) {
+                    out.println();
+                    out.println("===== " + j.name + " (" + j.status + ", " + j.time + "ms) =====");
+                    if (j.message != null)
+                        out.println(j.message);
+                } else {
+                    out.println("{\"job\":\"" + escapeJson(j.name) + "\",\"status\":\"" + j.status + "\",\"time_ms\":" + j.time
+                            + (j.message != null ? ",\"message\":\"" + escapeJson(j.message) + "\"" : "") + "}");
+                }
+                if (j.report != null) {
+                    try (BufferedReader r = Files.newBufferedReader(j.report, StandardCharsets.UTF_8)) {
+                        String line;
+                        while ((line = r.readLine()) != null)
+                            out.println(line);
+                    }
+                    Files.deleteIfExists(j.report);
+                    j.report = null;
+                }
+            }
+            if (out.checkError())
+                throw new IOException("Unable to write batch report " + path);
+        }
+        log.info("Batch report written to " + path);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs;
+
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.monitoring.Monitoring;
+import dk.brics.tajs.options.ExperimentalOptions;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.util.AnalysisException;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static dk.brics.tajs.util.Collections.newList;
+
+/**
+ * Long-running analysis server.
+ * <p>
+ * Keeps the JVM, the loaded host environment sources, and the canonicalization caches warm across analysis jobs.
+ * A job is a single line containing the command line arguments for {@link Main} (options and files, separated by whitespace;
+ * double quotes may be used for arguments containing whitespace). For each job, the daemon replies with a line
+ * <code>OK &lt;milliseconds&gt; &lt;smell report path&gt;</code> or <code>ERROR &lt;message&gt;</code>.
+ * An empty line or <code>quit</code> ends the connection.
+ * Unless the job gives a <code>-smell-report</code> path, each job writes its smell report to its own new file
+ * (see {@link AnalysisSession}) in the working directory of the daemon.
+ * The daemon never deletes the smell reports; the client should delete them once it has read them,
+ * or give each job a <code>-smell-report</code> path it manages itself.
+ * <p>
+ * Usage: <code>Daemon [-port N] [OPTION]...</code>.
+ * Without <code>-port</code>, jobs are read from standard input and the replies are written to standard output;
+ * all other output, including the log, then goes to standard error, so standard output only contains replies.
+ * With <code>-port</code>, the daemon listens on the loopback
+ * interface and serves each connection in its own thread, using a separate {@link AnalysisSession}.
+ * The remaining options are used as defaults for all jobs.
+ * Smell baselines (<code>-smell-baseline</code> and <code>-write-smell-baseline</code>) are not supported,
+ * since concurrent jobs would compare with and replace the same baseline.
+ */
+public class Daemon {
+
+    private static Logger log = Logger.getLogger(Daemon.class);
+
+    private final OptionValues defaults;
+
+    private static final String SMELL_BASELINE_UNSUPPORTED = "-smell-baseline and -write-smell-baseline are not supported by the daemon";
+
+    /**
+     * Constructs a new daemon with the given default arguments.
+     *
+     * @throws AnalysisException if the arguments select a smell baseline
+     */
+    public Daemon(String[] defaultArgs) {
+        this.defaults = new OptionValues(defaultArgs);
+        if (Batch.hasSmellBaseline(defaults))
+            throw new AnalysisException(SMELL_BASELINE_UNSUPPORTED);
+    }
+
+    /**
+     * Starts the daemon.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = -1;
+        if (args.length >= 2 && args[0].equals("-port")) {
+            port = Integer.parseInt(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        PrintStream replies = System.out;
+        if (port < 0)
+            System.setOut(System.err); // keep the log and other output out of the replies, before the log is set up
+        Main.initLogging();
+        Daemon daemon = new Daemon(args);
+        if (port < 0) {
+            daemon.serve(new InputStreamReader(System.in, Charset.forName("UTF-8")), new OutputStreamWriter(replies, Charset.forName("UTF-8")));
+        } else {
+            daemon.listen(port);
+        }
+    }
+
+    /**
+     * Accepts connections on the given local port, forever.
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            log.info("TAJS daemon listening on port " + server.getLocalPort());
+            while (true) {
+                Socket socket = server.accept();
+                Thread t = new Thread(() -> {
+                    try (Socket s = socket) {
+                        serve(new InputStreamReader(s.getInputStream(), Charset.forName("UTF-8")), new OutputStreamWriter(s.getOutputStream(), Charset.forName("UTF-8")));
+                    } catch (IOException e) {
+                        log.error("Connection failed: " + e.getMessage());
+                    }
+                }, "tajs-daemon-" + socket.getPort());
+                t.setDaemon(true);
+                t.start();
+            }
+        }
+    }
+
+    /**
+     * Reads jobs from the given reader until end of input, an empty line, or <code>quit</code>.
+     */
+    public void serve(Reader in, Writer out) throws IOException {
+        BufferedReader r = new BufferedReader(in);
+        PrintWriter w = new PrintWriter(out, true);
+        String line;
+        while ((line = r.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.equals("quit"))
+                break;
+            w.println(runJob(tokenize(line)));
+        }
+        w.flush();
+    }
+
+    /**
+     * Runs a single job in a fresh session.
+     *
+     * @return the reply line
+     */
+    public String runJob(String[] jobArgs) {
+        long time = System.currentTimeMillis();
+        try (AnalysisSession session = new AnalysisSession(defaults, new ExperimentalOptions())) {
+            if (Batch.hasSmellBaseline(new OptionValues(defaults, jobArgs)))
+                return "ERROR " + SMELL_BASELINE_UNSUPPORTED;
+            Analysis analysis = session.init(jobArgs);
+            if (analysis == null)
+                return "ERROR invalid arguments";
+            session.run(analysis);
+            Path report = session.call(Monitoring::getSmellReportPath);
+            return "OK " + (System.currentTimeMillis() - time) + " " + report.toAbsolutePath();
+        } catch (Throwable e) { // also errors, such as StackOverflowError, so the client always gets a reply
+            log.error("Job failed", e);
+            return "ERROR " + e.getClass().getSimpleName() + ": " + String.valueOf(e.getMessage()).replace('\n', ' ');
+        }
+    }
+
+    /**
+     * Splits a job line into arguments.
+     */
+    static String[] tokenize(String line) {
+        List<String> args = newList();
+        StringBuilder b = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+                any = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (any)
+                    args.add(b.toString());
+                b.setLength(0);
+                any = false;
+            } else {
+                b.append(c);
+                any = true;
+            }
+        }
+        if (any)
+            args.add(b.toString());
+        return args.toArray(new String[args.size()]);
+    }
+}
@@ -24,7 +24,9 @@ import dk.brics.tajs.flowgraph.JavaScriptSource;
 import dk.brics.tajs.flowgraph.JavaScriptSource.Kind;
 import dk.brics.tajs.htmlparser.HTMLParser;
 import dk.brics.tajs.js2flowgraph.FlowGraphBuilder;
+import dk.brics.tajs.js2flowgraph.FlowGraphCache;
 import dk.brics.tajs.lattice.Obj;
+import dk.brics.tajs.lattice.ObjectLabel;
 import dk.brics.tajs.lattice.ScopeChain;
 import dk.brics.tajs.lattice.State;
 import dk.brics.tajs.lattice.Value;
@@ -36,7 +38,7 @@ import dk.brics.tajs.options.Options;
 import dk.brics.tajs.solver.SolverSynchronizer;
 import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Loader;
-import dk.brics.tajs.util.Strings;
+import dk.brics.tajs.util.ResultCache;
 import net.htmlparser.jericho.Source;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
@@ -49,6 +51,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
@@ -95,8 +98,8 @@ public class Main {
         State.reset();
         Value.reset();
         Obj.reset();
-        Strings.reset();
         ScopeChain.reset();
+        ObjectLabel.reset();
     }
 
     /**
@@ -147,33 +150,89 @@ public class Main {
                 } else
                     js_files.add(fn);
             }
-            FlowGraphBuilder builder = new FlowGraphBuilder(null, String.join(",", files));
-            builder.transformHostFunctionSources(HostEnvSources.get());
+            ResultCache cache = null;
+            if (Options.get().getResultCacheDir() != null) {
+                cache = new ResultCache(Paths.get(Options.get().getResultCacheDir()),
+                        describeAnalysisOptions() + " -smell-report-format " + Options.get().getSmellReportFormat());
+                analysis.setResultCache(cache);
+            }
+            List<JavaScriptSource> hostEnvSources = HostEnvSources.get();
+            if (cache != null)
+                for (JavaScriptSource js : hostEnvSources)
+                    cache.addEnvironment(js.getPrettyFileName(), js.getCode());
+            List<JavaScriptSource> sources = newList();
             if (!js_files.isEmpty()) {
                 if (htmlFileName != null)
                     throw new AnalysisException("Cannot analyze an HTML file and JavaScript files at the same time.");
-                // build flowgraph for JS files
+                // read JS files
                 for (String js_file : js_files) {
                     if (!Options.get().isQuietEnabled())
                         log.info("Loading " + js_file);
                     Path file = Paths.get(js_file).toAbsolutePath();
-                    builder.transformStandAloneCode(JavaScriptSource.makeFileCode(file.toUri().toURL(), js_file, Loader.getString(file, Charset.forName("UTF-8"))));
+                    String code = Loader.getString(file, Charset.forName("UTF-8"));
+                    if (cache != null)
+                        cache.addSource(js_file, code);
+                    sources.add(JavaScriptSource.makeFileCode(file.toUri().toURL(), js_file, code));
                 }
             } else {
-                // build flowgraph for JavaScript code in or referenced from HTML file
+                // read JavaScript code in or referenced from HTML file
                 Options.get().enableIncludeDom(); // always enable DOM if any HTML files are involved
                 if (!Options.get().isQuietEnabled())
                     log.info("Loading " + htmlFileName);
                 Path htmlFile = Paths.get(htmlFileName).toAbsolutePath();
                 HTMLParser p = new HTMLParser(htmlFile.toUri().toURL(), htmlFileName);
                 document = p.getHTML();
+                if (cache != null)
+                    cache.addSource(htmlFileName, document.toString());
                 for (JavaScriptSource js : p.getJavaScript()) {
+                    if (cache != null)
+                        cache.addSource(js.getPrettyFileName(), js.getCode());
                     if (!Options.get().isQuietEnabled() && js.getKind() == Kind.FILE)
                         log.info("Loading " + js.getPrettyFileName());
-                    builder.transformWebAppCode(js);
+                    sources.add(js);
+                }
+            }
+            if (cache != null && !Options.get().isLintEnabled() && Options.get().getResumePath() == null && cache.lookup()) {
+                // the results are replayed by run, so the program is neither parsed nor analyzed
+                leavePhase(AnalysisPhase.LOADING_FILES, analysis.getMonitoring());
+                return analysis;
+            }
+            String contentKey = null;
+            if (Options.get().getFlowGraphCacheDir() != null || Options.get().getCheckpointPath() != null || Options.get().getResumePath() != null) {
+                // identifies the sources and options, both for cached flow graphs and for checkpoints
+                List<JavaScriptSource> allSources = newList(hostEnvSources);
+                allSources.addAll(sources);
+                contentKey = FlowGraphCache.makeKey(describeAnalysisOptions(), allSources);
+                analysis.getSolver().setCheckpointKey(contentKey);
+            }
+            FlowGraphCache fgCache = null;
+            fg = null;
+            if (Options.get().getResumePath() != null) {
+                // the checkpoint contains the flow graph that was built from the sources
+                if (!Options.get().isQuietEnabled())
+                    log.info("Resuming from checkpoint " + Options.get().getResumePath());
+                analysis.getSolver().resume(Paths.get(Options.get().getResumePath()));
+                fg = analysis.getSolver().getFlowGraph();
+            } else if (Options.get().getFlowGraphCacheDir() != null) {
+                fgCache = new FlowGraphCache(Paths.get(Options.get().getFlowGraphCacheDir()), contentKey);
+                fg = fgCache.load();
+            }
+            if (fg == null) {
+                // build flowgraph
+                FlowGraphBuilder builder = new FlowGraphBuilder(null, String.join(",", files));
+                builder.transformHostFunctionSources(hostEnvSources);
+                for (JavaScriptSource js : sources) {
+                    if (document == null)
+                        builder.transformStandAloneCode(js);
+                    else
+                        builder.transformWebAppCode(js);
                 }
+                fg = builder.close();
+                if (fgCache != null)
+                    fgCache.store(fg);
             }
-            fg = builder.close();
+            for (JavaScriptSource js : sources)
+                fg.addSourceCode(js);
         } catch (IOException e) {
             log.error("Unable to parse " + e.getMessage());
             return null;
@@ -184,14 +243,31 @@ public class Main {
         if (Options.get().isFlowGraphEnabled())
             dumpFlowGraph(fg, false);
 
-        analysis.getSolver().init(fg, document);
+        if (Options.get().isLintEnabled()) {
+            analysis.getMonitoring().setFlowgraph(fg); // no dataflow analysis, so no call graph
+            return analysis;
+        }
+
+        if (Options.get().getResumePath() == null)
+            analysis.getSolver().init(fg, document);
 
-        monitoring.setFlowgraph(analysis.getSolver().getFlowGraph());
-        monitoring.setCallGraph(analysis.getSolver().getAnalysisLatticeElement().getCallGraph());
+        analysis.getMonitoring().setFlowgraph(analysis.getSolver().getFlowGraph());
+        analysis.getMonitoring().setCallGraph(analysis.getSolver().getAnalysisLatticeElement().getCallGraph());
 
         return analysis;
     }
 
+    /**
+     * Returns a description of the options and experimental options that may affect the analysis results.
+     */
+    private static String describeAnalysisOptions() {
+        List<String> experimental = newList();
+        for (ExperimentalOptions.ExperimentalOption option : ExperimentalOptions.ExperimentalOptionsManager.get().getEnabled())
+            experimental.add(option.toString());
+        Collections.sort(experimental);
+        return Options.get().getAnalysisOptionsDescription() + " " + String.join(" ", experimental);
+    }
+
     private static boolean isHTMLFileName(String fileName) {
         String f = fileName.toLowerCase();
         return f.endsWith(".html") || f.endsWith(".xhtml") || f.endsWith(".htm");
@@ -216,13 +292,39 @@ public class Main {
      */
     public static void run(Analysis analysis) throws AnalysisException {
         IAnalysisMonitoring monitoring = analysis.getMonitoring();
+        ResultCache cache = analysis.getResultCache();
+        Path smellReport = Monitoring.getSmellReportPath();
+
+        if (Options.get().isLintEnabled()) {
+            enterPhase(AnalysisPhase.LINT, monitoring);
+            leavePhase(AnalysisPhase.LINT, monitoring);
+            return;
+        }
+
+        if (cache != null) {
+            if (cache.isHit()) {
+                cache.replay(smellReport);
+                if (!Options.get().isQuietEnabled())
+                    log.info("Reusing cached results, no sources have changed");
+                return;
+            }
+            if (!Options.get().isQuietEnabled())
+                log.info("Changed sources: " + String.join(", ", cache.getChangedSources()));
+        }
 
         long time = System.currentTimeMillis();
 
+        int reused = 0;
+        if (cache != null && Options.get().getResumePath() == null)
+            reused = analysis.getSolver().reuseFixpoint(cache.getFixpointFile(), cache.getEnvironmentKey());
+
         enterPhase(AnalysisPhase.DATAFLOW_ANALYSIS, monitoring);
         analysis.getSolver().solve();
         leavePhase(AnalysisPhase.DATAFLOW_ANALYSIS, monitoring);
 
+        if (cache != null && reused == 0)
+            analysis.getSolver().storeFixpoint(cache.getFixpointFile(), cache.getEnvironmentKey());
+
         long elapsed = System.currentTimeMillis() - time;
         if (Options.get().isTimingEnabled())
             log.info("Analysis finished in " + elapsed + "ms");
@@ -230,9 +332,17 @@ public class Main {
         if (Options.get().isFlowGraphEnabled())
             dumpFlowGraph(analysis.getSolver().getFlowGraph(), true);
 
-        enterPhase(AnalysisPhase.SCAN, monitoring);
-        analysis.getSolver().scan();
-        leavePhase(AnalysisPhase.SCAN, monitoring);
+        Runnable stopRecording = cache != null ? cache.startRecording() : null;
+        try {
+            enterPhase(AnalysisPhase.SCAN, monitoring);
+            analysis.getSolver().scan();
+            leavePhase(AnalysisPhase.SCAN, monitoring);
+        } finally {
+            if (stopRecording != null)
+                stopRecording.run();
+        }
+        if (cache != null)
+            cache.store(smellReport);
     }
 
     /**
@@ -283,6 +393,8 @@ public class Main {
                 return "Data flow analysis";
             case SCAN:
                 return "Scan";
+            case LINT:
+                return "Lint";
             default:
                 throw new RuntimeException("Unhandled phase enum: " + phase);
         }
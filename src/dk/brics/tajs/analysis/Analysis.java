@@ -20,13 +20,21 @@ import dk.brics.tajs.flowgraph.FlowGraph;
 import dk.brics.tajs.lattice.AnalysisLatticeElement;
 import dk.brics.tajs.lattice.CallEdge;
 import dk.brics.tajs.lattice.Context;
+import dk.brics.tajs.lattice.ObjectLabel;
 import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.monitoring.CompositeMonitoring;
+import dk.brics.tajs.monitoring.DeferredMonitoring;
+import dk.brics.tajs.monitoring.FunctionProfiler;
 import dk.brics.tajs.monitoring.IAnalysisMonitoring;
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.solver.IAnalysis;
 import dk.brics.tajs.solver.IEdgeTransfer;
 import dk.brics.tajs.solver.IWorkListStrategy;
 import dk.brics.tajs.solver.SolverSynchronizer;
+import dk.brics.tajs.util.ResultCache;
+
+import java.io.Serializable;
+import java.nio.file.Paths;
 
 /**
  * Encapsulation of the analysis using {@link State}, {@link Context},
@@ -45,16 +53,38 @@ public final class Analysis implements IAnalysis<State, Context, CallEdge, IAnal
 
     private final IAnalysisMonitoring monitoring;
 
-    private final EvalCache eval_cache;
+    private EvalCache eval_cache;
 
     private IContextSensitivityStrategy context_sensitivity_strategy;
 
     private final PropVarOperations state_util;
 
+    private ResultCache result_cache;
+
+    private final MemoryGovernor memory_governor;
+
+    private final SolverTelemetry telemetry;
+
     /**
      * Constructs a new analysis object.
      */
     public Analysis(IAnalysisMonitoring monitoring, SolverSynchronizer sync) {
+        if (Options.get().getMemoryBudget() > 0) {
+            memory_governor = new MemoryGovernor(Options.get().getMemoryBudget(), Options.get().isMemoryBudgetStopEnabled());
+            monitoring = new CompositeMonitoring(monitoring, memory_governor);
+        } else
+            memory_governor = null;
+        if (Options.get().isTelemetryEnabled() || Options.get().getTelemetryFile() != null) {
+            telemetry = new SolverTelemetry(Options.get().isTelemetryEnabled(),
+                    Options.get().getTelemetryFile() != null ? Paths.get(Options.get().getTelemetryFile()) : null,
+                    Options.get().getTelemetryInterval());
+            monitoring = new CompositeMonitoring(monitoring, telemetry);
+        } else
+            telemetry = null;
+        if (Options.get().isProfileEnabled() || Options.get().getProfileStacksFile() != null)
+            monitoring = new CompositeMonitoring(monitoring, new FunctionProfiler(
+                    Options.get().getProfileStacksFile() != null ? Paths.get(Options.get().getProfileStacksFile()) : null,
+                    Options.get().getProfileTop()));
         this.monitoring = monitoring;
         initial_state_builder = new InitialStateBuilder();
         transfer = new Transfer();
@@ -76,6 +106,11 @@ public final class Analysis implements IAnalysis<State, Context, CallEdge, IAnal
         } else {
             context_sensitivity_strategy = new BasicContextSensitivityStrategy();
         }
+        if (memory_governor != null) {
+            CoarseningContextSensitivityStrategy coarsening = new CoarseningContextSensitivityStrategy(context_sensitivity_strategy);
+            memory_governor.setStrategy(coarsening);
+            context_sensitivity_strategy = coarsening;
+        }
     }
 
     @Override
@@ -103,11 +138,40 @@ public final class Analysis implements IAnalysis<State, Context, CallEdge, IAnal
         return monitoring;
     }
 
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return monitoring.makeScanMonitoring();
+    }
+
+    @Override
+    public void mergeScanMonitoring(IAnalysisMonitoring m) {
+        monitoring.mergeScanMonitoring(m);
+    }
+
+    @Override
+    public IAnalysisMonitoring makeDeferredMonitoring() {
+        return new DeferredMonitoring();
+    }
+
+    @Override
+    public void commitDeferredMonitoring(IAnalysisMonitoring m) {
+        ((DeferredMonitoring) m).commit(monitoring);
+    }
+
+    @Override
+    public void setTurnHook(Runnable hook) {
+        ObjectLabel.setIdAssignmentHook(hook);
+    }
+
     @Override
     public void setSolverInterface(Solver.SolverInterface c) {
         transfer.setSolverInterface(c);
         state_util.setSolverInterface(c);
         worklist_strategy.setCallGraph(c.getAnalysisLatticeElement().getCallGraph());
+        if (memory_governor != null)
+            memory_governor.setSolverInterface(c);
+        if (telemetry != null)
+            telemetry.setSolverInterface(c);
     }
 
     /**
@@ -129,6 +193,23 @@ public final class Analysis implements IAnalysis<State, Context, CallEdge, IAnal
         return new CallEdge(edge_state);
     }
 
+    @Override
+    public Serializable getCheckpointState() {
+        return new CheckpointState(eval_cache, context_sensitivity_strategy);
+    }
+
+    @Override
+    public void restoreCheckpointState(Serializable state) {
+        CheckpointState s = (CheckpointState) state;
+        eval_cache = s.eval_cache;
+        context_sensitivity_strategy = s.context_sensitivity_strategy;
+        if (memory_governor != null) {
+            if (!(context_sensitivity_strategy instanceof CoarseningContextSensitivityStrategy))
+                context_sensitivity_strategy = new CoarseningContextSensitivityStrategy(context_sensitivity_strategy);
+            memory_governor.setStrategy((CoarseningContextSensitivityStrategy) context_sensitivity_strategy);
+        }
+    }
+
     /**
      * Returns the context sensitivity strategy.
      */
@@ -142,4 +223,42 @@ public final class Analysis implements IAnalysis<State, Context, CallEdge, IAnal
     public PropVarOperations getPropVarOperations() {
         return state_util;
     }
+
+    /**
+     * Returns the result cache, or null if results are not cached.
+     */
+    public ResultCache getResultCache() {
+        return result_cache;
+    }
+
+    /**
+     * Sets the result cache.
+     */
+    public void setResultCache(ResultCache result_cache) {
+        this.result_cache = result_cache;
+    }
+
+    /**
+     * Returns true if the dataflow analysis was stopped because the memory budget was exceeded.
+     */
+    public boolean isMemoryBudgetExceeded() {
+        return memory_governor != null && memory_governor.isBudgetExceeded();
+    }
+
+    /**
+     * Analysis state that is saved in checkpoints.
+     */
+    private static final class CheckpointState implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final EvalCache eval_cache;
+
+        private final IContextSensitivityStrategy context_sensitivity_strategy;
+
+        CheckpointState(EvalCache eval_cache, IContextSensitivityStrategy context_sensitivity_strategy) {
+            this.eval_cache = eval_cache;
+            this.context_sensitivity_strategy = context_sensitivity_strategy;
+        }
+    }
 }
@@ -32,6 +32,7 @@ import dk.brics.tajs.options.Options;
 import dk.brics.tajs.util.Collections;
 import org.apache.log4j.Logger;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -45,7 +46,9 @@ import static dk.brics.tajs.util.Collections.newSet;
 /**
  * Basic call and heap context sensitivities.
  */
-public class BasicContextSensitivityStrategy implements IContextSensitivityStrategy {
+public class BasicContextSensitivityStrategy implements IContextSensitivityStrategy, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static Logger log = Logger.getLogger(BasicContextSensitivityStrategy.class);
 
@@ -97,7 +100,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
             // apply the parameter sensitivity on the chosen special vars
             if (!contextSensitiveParameterNames.isEmpty() && num_actuals_unknown) {
                 // sensitive in an unknown argument value
-                funArgs = new ContextArguments(unknown_arg, null);
+                funArgs = ContextArguments.make(unknown_arg, null);
             } else {
                 // sensitive in specific argument values
                 List<Value> contextSensitiveArguments = newList();
@@ -115,7 +118,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
                     }
                     contextSensitiveArguments.add(v);
                 }
-                funArgs = new ContextArguments(f.getParameterNames(), contextSensitiveArguments, null);
+                funArgs = ContextArguments.make(f.getParameterNames(), contextSensitiveArguments, null);
             }
         }
         return funArgs;
@@ -128,7 +131,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
 
     @Override
     public Context makeInitialContext() {
-        Context c = new Context(null, null, null, null, null);
+        Context c = Context.make(null, null, null, null, null);
         if (log.isDebugEnabled())
             log.debug("creating initial context " + c);
         return c;
@@ -147,7 +150,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
         ContextArguments contextArguments = makeContextArgumentsForCall(function, state, callInfo);
 
         // note: c.loopUnrolling and c.loopUnrollingsAtEntry are null by default, which will kill unrollings across calls
-        Context context = new Context(thisval, contextArguments, null, null, null);
+        Context context = Context.make(thisval, contextArguments, null, null, null);
 
         if (log.isDebugEnabled())
             log.debug("creating function entry context " + context);
@@ -170,7 +173,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
         }
 
         // for-in acts as entry, so update loopUnrollingsAtEntry
-        Context c = new Context(currentContext.getThisVal(), currentContext.getFunArgs(), specialRegs,
+        Context c = Context.make(currentContext.getThisVal(), currentContext.getFunArgs(), specialRegs,
                 currentContext.getLoopUnrolling(), currentContext.getLoopUnrolling());
 
         if (log.isDebugEnabled())
@@ -201,7 +204,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
         }
         loopUnrolling.put(node, nextUnrollingCount);
 
-        Context c = new Context(currentContext.getThisVal(), currentContext.getFunArgs(), currentContext.getSpecialRegisters(),
+        Context c = Context.make(currentContext.getThisVal(), currentContext.getFunArgs(), currentContext.getSpecialRegisters(),
                 loopUnrolling, currentContext.getLoopUnrollingsAtEntry());
 
         if (log.isDebugEnabled())
@@ -214,7 +217,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
 //     */
 //    public static Context makeForInExitContext(Context currentContext, EndForInNode n) { // TODO: currently unused...
 //        // inherit properties from currentContext
-//        Context c = new Context();
+//        Context c = Context.make();
 //        c.thisval = currentContext.thisval;
 //        c.funArgs = currentContext.funArgs;
 //        c.specialVars = currentContext.specialVars;
@@ -248,7 +251,7 @@ public class BasicContextSensitivityStrategy implements IContextSensitivityStrat
             loopUnrolling = null;
         }
 
-        Context c = new Context(currentContext.getThisVal(), currentContext.getFunArgs(), currentContext.getSpecialRegisters(),
+        Context c = Context.make(currentContext.getThisVal(), currentContext.getFunArgs(), currentContext.getSpecialRegisters(),
                 loopUnrolling, currentContext.getLoopUnrollingsAtEntry());
 
         if (log.isDebugEnabled())
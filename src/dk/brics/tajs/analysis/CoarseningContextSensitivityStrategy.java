@@ -0,0 +1,152 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.analysis;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.jsnodes.BeginForInNode;
+import dk.brics.tajs.flowgraph.jsnodes.BeginLoopNode;
+import dk.brics.tajs.flowgraph.jsnodes.EndLoopNode;
+import dk.brics.tajs.lattice.Context;
+import dk.brics.tajs.lattice.HeapContext;
+import dk.brics.tajs.lattice.ObjectLabel;
+import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.lattice.Value;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Collections.newSet;
+
+/**
+ * Context sensitivity strategy that can be coarsened per function.
+ * <p>
+ * Delegates to another strategy, except for degraded functions, which are analyzed context insensitively:
+ * calls to a degraded function all enter the same context, loops and for-in statements in the function are not unrolled,
+ * and objects allocated in the function get no heap context.
+ * Contexts and heap contexts that already exist are not affected.
+ */
+public class CoarseningContextSensitivityStrategy implements IContextSensitivityStrategy, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final IContextSensitivityStrategy base;
+
+    private final Set<Function> degraded = newSet();
+
+    private final List<Function> degraded_order = newList();
+
+    /**
+     * Constructs a new strategy that delegates to the given strategy.
+     */
+    public CoarseningContextSensitivityStrategy(IContextSensitivityStrategy base) {
+        this.base = base;
+    }
+
+    /**
+     * Makes the given function context insensitive from now on.
+     *
+     * @return false if the function was already degraded
+     */
+    public boolean degrade(Function f) {
+        if (!degraded.add(f))
+            return false;
+        degraded_order.add(f);
+        return true;
+    }
+
+    /**
+     * Checks whether the given function has been degraded.
+     */
+    public boolean isDegraded(Function f) {
+        return degraded.contains(f);
+    }
+
+    /**
+     * Returns the degraded functions, in the order they were degraded.
+     */
+    public List<Function> getDegradedFunctions() {
+        return Collections.unmodifiableList(degraded_order);
+    }
+
+    @Override
+    public HeapContext makeFunctionHeapContext(Function fun, Solver.SolverInterface c) {
+        if (degraded.contains(c.getNode().getBlock().getFunction()))
+            return null;
+        return base.makeFunctionHeapContext(fun, c);
+    }
+
+    @Override
+    public HeapContext makeActivationAndArgumentsHeapContext(State state, ObjectLabel function, Set<ObjectLabel> this_objs, FunctionCalls.CallInfo callInfo, Solver.SolverInterface c) {
+        if (degraded.contains(function.getFunction()))
+            return null;
+        return base.makeActivationAndArgumentsHeapContext(state, function, this_objs, callInfo, c);
+    }
+
+    @Override
+    public HeapContext makeConstructorHeapContext(State state, ObjectLabel function, FunctionCalls.CallInfo callInfo, Solver.SolverInterface c) {
+        if (degraded.contains(function.getFunction()))
+            return null;
+        return base.makeConstructorHeapContext(state, function, callInfo, c);
+    }
+
+    @Override
+    public HeapContext makeObjectLiteralHeapContext(AbstractNode node, State state) {
+        if (degraded.contains(node.getBlock().getFunction()))
+            return null;
+        return base.makeObjectLiteralHeapContext(node, state);
+    }
+
+    @Override
+    public Context makeInitialContext() {
+        return base.makeInitialContext();
+    }
+
+    @Override
+    public Context makeFunctionEntryContext(State state, ObjectLabel function, FunctionCalls.CallInfo callInfo, Set<ObjectLabel> this_objs, Solver.SolverInterface c) {
+        if (degraded.contains(function.getFunction()))
+            return Context.make(null, null, null, null, null);
+        return base.makeFunctionEntryContext(state, function, callInfo, this_objs, c);
+    }
+
+    @Override
+    public Context makeForInEntryContext(Context currentContext, BeginForInNode n, Value v) {
+        if (degraded.contains(n.getBlock().getFunction()))
+            return currentContext;
+        return base.makeForInEntryContext(currentContext, n, v);
+    }
+
+    @Override
+    public Context makeNextLoopUnrollingContext(Context currentContext, BeginLoopNode node) {
+        if (degraded.contains(node.getBlock().getFunction()))
+            return currentContext;
+        return base.makeNextLoopUnrollingContext(currentContext, node);
+    }
+
+    @Override
+    public Context makeLoopExitContext(Context currentContext, EndLoopNode node) {
+        return base.makeLoopExitContext(currentContext, node);
+    }
+
+    @Override
+    public void requestContextSensitiveParameter(Function function, String parameter) {
+        base.requestContextSensitiveParameter(function, parameter);
+    }
+}
@@ -607,7 +607,7 @@ public class Conversion {
         // primitive number to object
         if (!v.isNotNum()) {
             // Create a new Number object whose [[value]] property is set to the value of the number.
-            ObjectLabel lNum = new ObjectLabel(node, Kind.NUMBER);
+            ObjectLabel lNum = ObjectLabel.make(node, Kind.NUMBER);
             if (c != null) {
                 state.newObject(lNum);
                 state.writeInternalPrototype(lNum, Value.makeObject(InitialStateBuilder.NUMBER_PROTOTYPE));
@@ -619,7 +619,7 @@ public class Conversion {
         // primitive boolean to object
         if (!v.isNotBool()) {
             // Create a new Boolean object whose [[value]] property is set to the value of the boolean.
-            ObjectLabel lBool = new ObjectLabel(node, Kind.BOOLEAN);
+            ObjectLabel lBool = ObjectLabel.make(node, Kind.BOOLEAN);
             if (c != null) {
                 state.newObject(lBool);
                 state.writeInternalPrototype(lBool, Value.makeObject(InitialStateBuilder.BOOLEAN_PROTOTYPE));
@@ -633,7 +633,7 @@ public class Conversion {
             // Create a new String object whose [[value]] property is set to the value of the string.
             Value vstring = v.restrictToStr();
             Value vlength = vstring.isMaybeSingleStr() ? Value.makeNum(vstring.getStr().length()) : Value.makeAnyNumUInt();
-            ObjectLabel lString = new ObjectLabel(node, Kind.STRING);
+            ObjectLabel lString = ObjectLabel.make(node, Kind.STRING);
             if (c != null) {
                 state.newObject(lString);
                 state.writeInternalPrototype(lString, Value.makeObject(InitialStateBuilder.STRING_PROTOTYPE));
@@ -20,6 +20,7 @@ import dk.brics.tajs.flowgraph.FlowGraphFragment;
 import dk.brics.tajs.lattice.Context;
 import dk.brics.tajs.solver.NodeAndContext;
 
+import java.io.Serializable;
 import java.util.Map;
 
 import static dk.brics.tajs.util.Collections.newMap;
@@ -27,7 +28,9 @@ import static dk.brics.tajs.util.Collections.newMap;
 /**
  * Cache for the unevalizer.
  */
-public class EvalCache {
+public class EvalCache implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * A map from call sites to entries, where the call site is identified by the call node and context.
@@ -86,7 +86,7 @@ public class Exceptions {
      * Does not modify the given state.
      */
     private static Value makeException(ObjectLabel prototype, Solver.SolverInterface c) {
-        ObjectLabel ex = new ObjectLabel(c.getNode(), Kind.ERROR);
+        ObjectLabel ex = ObjectLabel.make(c.getNode(), Kind.ERROR);
         c.getState().newObject(ex);
         c.getState().writeInternalPrototype(ex, Value.makeObject(prototype));
         c.getAnalysis().getPropVarOperations().writeProperty(ex, "message", Value.makeAnyStr());
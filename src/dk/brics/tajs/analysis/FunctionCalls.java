@@ -329,6 +329,7 @@ public class FunctionCalls {
      * Enters a function described by a CallInfo.
      */
     public static void callFunction(CallInfo call, Solver.SolverInterface c) {
+        c.awaitTurn(); // calls read and update the call graph and the state of the native functions and context sensitivity strategy
         State caller_state = c.getState();
         Value funval = call.getFunctionValue();
         funval = UnknownValueResolver.getRealValue(funval, caller_state);
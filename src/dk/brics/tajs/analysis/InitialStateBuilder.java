@@ -138,23 +138,23 @@ public class InitialStateBuilder implements IInitialStateBuilder<State, Context,
     }
 
     private static void init() {
-        GLOBAL = new ObjectLabel(ECMAScriptObjects.GLOBAL, Kind.OBJECT);
-        OBJECT_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.OBJECT_PROTOTYPE, Kind.OBJECT);
-        FUNCTION_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.FUNCTION_PROTOTYPE, Kind.FUNCTION);
-        ARRAY_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.ARRAY_PROTOTYPE, Kind.ARRAY);
-        STRING_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.STRING_PROTOTYPE, Kind.STRING); // FIXME: as of ES6, String.prototype is an ordinary object, not a string object -- but not yet supported by Chrome...
-        BOOLEAN_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.BOOLEAN_PROTOTYPE, Kind.BOOLEAN);
-        NUMBER_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.NUMBER_PROTOTYPE, Kind.NUMBER);
-        DATE_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.DATE_PROTOTYPE, Kind.DATE);
-        REGEXP_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.REGEXP_PROTOTYPE, Kind.OBJECT);
-        ERROR_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.ERROR_PROTOTYPE, Kind.ERROR);
-        EVAL_ERROR_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.EVAL_ERROR_PROTOTYPE, Kind.ERROR);
-        RANGE_ERROR_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.RANGE_ERROR_PROTOTYPE, Kind.ERROR);
-        REFERENCE_ERROR_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.REFERENCE_ERROR_PROTOTYPE, Kind.ERROR);
-        SYNTAX_ERROR_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.SYNTAX_ERROR_PROTOTYPE, Kind.ERROR);
-        TYPE_ERROR_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.TYPE_ERROR_PROTOTYPE, Kind.ERROR);
-        URI_ERROR_PROTOTYPE = new ObjectLabel(ECMAScriptObjects.URI_ERROR_PROTOTYPE, Kind.ERROR);
-        JSON_OBJECT = new ObjectLabel(ECMAScriptObjects.JSON, Kind.OBJECT);
+        GLOBAL = ObjectLabel.make(ECMAScriptObjects.GLOBAL, Kind.OBJECT);
+        OBJECT_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.OBJECT_PROTOTYPE, Kind.OBJECT);
+        FUNCTION_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.FUNCTION_PROTOTYPE, Kind.FUNCTION);
+        ARRAY_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.ARRAY_PROTOTYPE, Kind.ARRAY);
+        STRING_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.STRING_PROTOTYPE, Kind.STRING); // FIXME: as of ES6, String.prototype is an ordinary object, not a string object -- but not yet supported by Chrome...
+        BOOLEAN_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.BOOLEAN_PROTOTYPE, Kind.BOOLEAN);
+        NUMBER_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.NUMBER_PROTOTYPE, Kind.NUMBER);
+        DATE_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.DATE_PROTOTYPE, Kind.DATE);
+        REGEXP_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.REGEXP_PROTOTYPE, Kind.OBJECT);
+        ERROR_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.ERROR_PROTOTYPE, Kind.ERROR);
+        EVAL_ERROR_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.EVAL_ERROR_PROTOTYPE, Kind.ERROR);
+        RANGE_ERROR_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.RANGE_ERROR_PROTOTYPE, Kind.ERROR);
+        REFERENCE_ERROR_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.REFERENCE_ERROR_PROTOTYPE, Kind.ERROR);
+        SYNTAX_ERROR_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.SYNTAX_ERROR_PROTOTYPE, Kind.ERROR);
+        TYPE_ERROR_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.TYPE_ERROR_PROTOTYPE, Kind.ERROR);
+        URI_ERROR_PROTOTYPE = ObjectLabel.make(ECMAScriptObjects.URI_ERROR_PROTOTYPE, Kind.ERROR);
+        JSON_OBJECT = ObjectLabel.make(ECMAScriptObjects.JSON, Kind.OBJECT);
     }
 
     /**
@@ -169,38 +169,38 @@ public class InitialStateBuilder implements IInitialStateBuilder<State, Context,
         s.newObject(global);
         s.setExecutionContext(new ExecutionContext(ScopeChain.make(global), singleton(global), singleton(global)));
 
-        ObjectLabel lObject = new ObjectLabel(ECMAScriptObjects.OBJECT, Kind.FUNCTION);
+        ObjectLabel lObject = ObjectLabel.make(ECMAScriptObjects.OBJECT, Kind.FUNCTION);
         s.newObject(lObject);
-        ObjectLabel lFunction = new ObjectLabel(ECMAScriptObjects.FUNCTION, Kind.FUNCTION);
+        ObjectLabel lFunction = ObjectLabel.make(ECMAScriptObjects.FUNCTION, Kind.FUNCTION);
         s.newObject(lFunction);
-        ObjectLabel lArray = new ObjectLabel(ECMAScriptObjects.ARRAY, Kind.FUNCTION);
+        ObjectLabel lArray = ObjectLabel.make(ECMAScriptObjects.ARRAY, Kind.FUNCTION);
         s.newObject(lArray);
-        ObjectLabel lString = new ObjectLabel(ECMAScriptObjects.STRING, Kind.FUNCTION);
+        ObjectLabel lString = ObjectLabel.make(ECMAScriptObjects.STRING, Kind.FUNCTION);
         s.newObject(lString);
-        ObjectLabel lBoolean = new ObjectLabel(ECMAScriptObjects.BOOLEAN, Kind.FUNCTION);
+        ObjectLabel lBoolean = ObjectLabel.make(ECMAScriptObjects.BOOLEAN, Kind.FUNCTION);
         s.newObject(lBoolean);
-        ObjectLabel lNumber = new ObjectLabel(ECMAScriptObjects.NUMBER, Kind.FUNCTION);
+        ObjectLabel lNumber = ObjectLabel.make(ECMAScriptObjects.NUMBER, Kind.FUNCTION);
         s.newObject(lNumber);
-        ObjectLabel lDate = new ObjectLabel(ECMAScriptObjects.DATE, Kind.FUNCTION);
+        ObjectLabel lDate = ObjectLabel.make(ECMAScriptObjects.DATE, Kind.FUNCTION);
         s.newObject(lDate);
-        ObjectLabel lRegExp = new ObjectLabel(ECMAScriptObjects.REGEXP, Kind.FUNCTION);
+        ObjectLabel lRegExp = ObjectLabel.make(ECMAScriptObjects.REGEXP, Kind.FUNCTION);
         s.newObject(lRegExp);
-        ObjectLabel lError = new ObjectLabel(ECMAScriptObjects.ERROR, Kind.FUNCTION);
+        ObjectLabel lError = ObjectLabel.make(ECMAScriptObjects.ERROR, Kind.FUNCTION);
         s.newObject(lError);
-        ObjectLabel lEvalError = new ObjectLabel(ECMAScriptObjects.EVAL_ERROR, Kind.FUNCTION);
+        ObjectLabel lEvalError = ObjectLabel.make(ECMAScriptObjects.EVAL_ERROR, Kind.FUNCTION);
         s.newObject(lEvalError);
-        ObjectLabel lRangeError = new ObjectLabel(ECMAScriptObjects.RANGE_ERROR, Kind.FUNCTION);
+        ObjectLabel lRangeError = ObjectLabel.make(ECMAScriptObjects.RANGE_ERROR, Kind.FUNCTION);
         s.newObject(lRangeError);
-        ObjectLabel lReferenceError = new ObjectLabel(ECMAScriptObjects.REFERENCE_ERROR, Kind.FUNCTION);
+        ObjectLabel lReferenceError = ObjectLabel.make(ECMAScriptObjects.REFERENCE_ERROR, Kind.FUNCTION);
         s.newObject(lReferenceError);
-        ObjectLabel lSyntaxError = new ObjectLabel(ECMAScriptObjects.SYNTAX_ERROR, Kind.FUNCTION);
+        ObjectLabel lSyntaxError = ObjectLabel.make(ECMAScriptObjects.SYNTAX_ERROR, Kind.FUNCTION);
         s.newObject(lSyntaxError);
-        ObjectLabel lTypeError = new ObjectLabel(ECMAScriptObjects.TYPE_ERROR, Kind.FUNCTION);
+        ObjectLabel lTypeError = ObjectLabel.make(ECMAScriptObjects.TYPE_ERROR, Kind.FUNCTION);
         s.newObject(lTypeError);
-        ObjectLabel lURIError = new ObjectLabel(ECMAScriptObjects.URI_ERROR, Kind.FUNCTION);
+        ObjectLabel lURIError = ObjectLabel.make(ECMAScriptObjects.URI_ERROR, Kind.FUNCTION);
         s.newObject(lURIError);
 
-        ObjectLabel lMath = new ObjectLabel(ECMAScriptObjects.MATH, Kind.MATH);
+        ObjectLabel lMath = ObjectLabel.make(ECMAScriptObjects.MATH, Kind.MATH);
         s.newObject(lMath);
 
         ObjectLabel lJson = JSON_OBJECT;
@@ -497,7 +497,7 @@ public class InitialStateBuilder implements IInitialStateBuilder<State, Context,
 
         // 15.10.6 properties of the RegExp prototype object
         s.writeInternalPrototype(lRegExpProto, Value.makeObject(lObjectPrototype));
-        pv.writePropertyWithAttributes(lRegExpProto, "valueOf", Value.makeObject(new ObjectLabel(ECMAScriptObjects.OBJECT_VALUEOF, Kind.FUNCTION))
+        pv.writePropertyWithAttributes(lRegExpProto, "valueOf", Value.makeObject(ObjectLabel.make(ECMAScriptObjects.OBJECT_VALUEOF, Kind.FUNCTION))
                 .setAttributes(true, false, false));
         pv.writePropertyWithAttributes(lRegExpProto, "constructor", Value.makeObject(lRegExp).setAttributes(true, false, false));
         pv.writePropertyWithAttributes(lRegExpProto, "multiline", Value.makeBool(false).setAttributes(true, true, true));
@@ -606,7 +606,7 @@ public class InitialStateBuilder implements IInitialStateBuilder<State, Context,
      * Creates a new built-in function.
      */
     public static void createPrimitiveFunction(ObjectLabel target, ObjectLabel internal_proto, HostObject primitive, String name, int arity, Solver.SolverInterface c) {
-        ObjectLabel objlabel = new ObjectLabel(primitive, Kind.FUNCTION);
+        ObjectLabel objlabel = ObjectLabel.make(primitive, Kind.FUNCTION);
         c.getState().newObject(objlabel);
         createPrimitiveFunctionOrConstructor(target, internal_proto, name, arity, objlabel, c);
     }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.analysis;
+
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.lattice.CallEdge;
+import dk.brics.tajs.lattice.Context;
+import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.monitoring.AnalysisPhase;
+import dk.brics.tajs.monitoring.DefaultAnalysisMonitoring;
+import dk.brics.tajs.monitoring.IAnalysisMonitoring;
+import dk.brics.tajs.options.Options;
+import dk.brics.tajs.solver.IAnalysisLatticeElement;
+import org.apache.log4j.Logger;
+
+/**
+ * Monitoring that keeps the analysis within a heap budget by coarsening context sensitivity.
+ * <p>
+ * The heap usage is measured every {@value #CHECK_INTERVAL} iterations of the fixpoint solver.
+ * When it exceeds the high-water mark (80% of the budget), even after a garbage collection,
+ * the function with the most contexts at its entry is degraded to context insensitivity
+ * (see {@link CoarseningContextSensitivityStrategy}).
+ * One function is degraded per check, so degradation is progressive.
+ * Merged contexts only free memory once their states are superseded, so after a degradation the next function is
+ * only degraded when the heap usage has grown by more than 5% of the budget since then.
+ * The garbage collection is only forced when the usage before it is above the level that would trigger an action.
+ * The forced garbage collections are at least {@value #GC_INTERVAL_MILLIS}ms apart, and the interval is doubled
+ * (up to {@value #MAX_GC_INTERVAL_MILLIS}ms) each time a collection leads to no action; checks in between are skipped.
+ * Optionally, the analysis is stopped (keeping the partial results) if the heap still exceeds the high-water mark
+ * when no function can be degraded further.
+ * <p>
+ * The heap is shared by all analyses in the JVM, so with concurrent analyses the budget applies to their total usage.
+ */
+public class MemoryGovernor extends DefaultAnalysisMonitoring {
+
+    private static Logger log = Logger.getLogger(MemoryGovernor.class);
+
+    private static final int CHECK_INTERVAL = 1000;
+
+    private static final long GC_INTERVAL_MILLIS = 1000;
+
+    private static final long MAX_GC_INTERVAL_MILLIS = 64000;
+
+    private final long high_water;
+
+    private final long degradation_delta;
+
+    private final boolean stop;
+
+    private CoarseningContextSensitivityStrategy strategy;
+
+    private Solver.SolverInterface c;
+
+    private boolean active;
+
+    private boolean exhausted;
+
+    private boolean stopped;
+
+    private int iterations;
+
+    private long last_gc;
+
+    private long gc_interval = GC_INTERVAL_MILLIS;
+
+    private long used_at_degradation;
+
+    /**
+     * Constructs a new governor.
+     *
+     * @param budget heap budget, in megabytes
+     * @param stop   if set, stop the analysis when the budget is exceeded and no function can be degraded
+     */
+    public MemoryGovernor(int budget, boolean stop) {
+        high_water = budget * 1024L * 1024L / 10 * 8;
+        degradation_delta = budget * 1024L * 1024L / 20;
+        this.stop = stop;
+    }
+
+    /**
+     * Returns true if the analysis has been stopped because the memory budget was exceeded.
+     */
+    public boolean isBudgetExceeded() {
+        return stopped;
+    }
+
+    /**
+     * Sets the strategy used for degrading functions.
+     */
+    public void setStrategy(CoarseningContextSensitivityStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Sets the solver interface.
+     */
+    public void setSolverInterface(Solver.SolverInterface c) {
+        this.c = c;
+    }
+
+    @Override
+    public void beginPhase(AnalysisPhase phase) {
+        active = phase == AnalysisPhase.DATAFLOW_ANALYSIS;
+    }
+
+    @Override
+    public void endPhase(AnalysisPhase phase) {
+        if (phase == AnalysisPhase.DATAFLOW_ANALYSIS) {
+            active = false;
+            if (strategy != null && !strategy.getDegradedFunctions().isEmpty() && !Options.get().isQuietEnabled())
+                log.info("Context sensitivity was reduced for " + strategy.getDegradedFunctions().size() + " function(s) due to the memory budget");
+        }
+    }
+
+    /**
+     * Returns this object, as the memory budget is only enforced during the dataflow analysis.
+     */
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return this;
+    }
+
+    @Override
+    public boolean allowNextIteration() {
+        if (stopped)
+            return false;
+        if (active && (!exhausted || stop) && strategy != null && c != null && ++iterations >= CHECK_INTERVAL) {
+            iterations = 0;
+            long now = System.currentTimeMillis();
+            long threshold = exhausted ? high_water : Math.max(high_water, used_at_degradation + degradation_delta);
+            if (getUsedMemory() > threshold && now - last_gc >= gc_interval) {
+                System.gc();
+                last_gc = now;
+                long used = getUsedMemory();
+                if (used > threshold) {
+                    gc_interval = GC_INTERVAL_MILLIS;
+                    if (!exhausted) {
+                        degradeNext(used);
+                        used_at_degradation = used;
+                    } else {
+                        stopped = true;
+                        if (!Options.get().isQuietEnabled())
+                            log.warn("Memory budget exceeded (" + toMegabytes(used) + "M used), stopping the analysis");
+                        return false;
+                    }
+                } else
+                    gc_interval = Math.min(2 * gc_interval, MAX_GC_INTERVAL_MILLIS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Degrades the function with the most contexts at its entry.
+     */
+    private void degradeNext(long used) {
+        IAnalysisLatticeElement<State, Context, CallEdge> lattice = c.getAnalysisLatticeElement();
+        Function max = null;
+        int max_contexts = 1;
+        for (Function f : c.getFlowGraph().getFunctions()) {
+            if (f.isMain() || strategy.isDegraded(f))
+                continue;
+            int contexts = lattice.getStates(f.getEntry()).size();
+            if (contexts > max_contexts) {
+                max = f;
+                max_contexts = contexts;
+            }
+        }
+        if (max == null) {
+            exhausted = true;
+            if (!Options.get().isQuietEnabled())
+                log.warn("Memory budget exceeded (" + toMegabytes(used) + "M used), but no function has more than one context");
+            return;
+        }
+        strategy.degrade(max);
+        if (!Options.get().isQuietEnabled())
+            log.warn("Memory budget exceeded (" + toMegabytes(used) + "M used), merging contexts of " + max + " at " + max.getSourceLocation() + " (" + max_contexts + " contexts)");
+    }
+
+    private static long getUsedMemory() {
+        Runtime r = Runtime.getRuntime();
+        return r.totalMemory() - r.freeMemory();
+    }
+
+    private static long toMegabytes(long bytes) {
+        return bytes / (1024L * 1024L);
+    }
+}
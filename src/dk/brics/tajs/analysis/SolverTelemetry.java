@@ -0,0 +1,383 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.analysis;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.lattice.ScopeChain;
+import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.lattice.Value;
+import dk.brics.tajs.monitoring.AnalysisPhase;
+import dk.brics.tajs.monitoring.DefaultAnalysisMonitoring;
+import dk.brics.tajs.monitoring.IAnalysisMonitoring;
+import dk.brics.tajs.util.WeakInterner;
+import org.apache.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Strings.escapeJson;
+
+/**
+ * Monitoring that publishes live statistics about the fixpoint solver.
+ * <p>
+ * During the dataflow analysis phase, the statistics are available as a JMX MBean
+ * (<code>dk.brics.tajs:type=SolverTelemetry,id=</code><i>N</i>, where <i>N</i> numbers the telemetry monitors
+ * of the JVM from 0, so concurrent analyses have separate MBeans)
+ * and/or appended as a JSON line to a file at a fixed interval. Rates are measured between consecutive snapshots.
+ * The counters are updated by the solver thread and read by the snapshot thread and JMX clients.
+ * <p>
+ * The cache hit rates and the number of states created come from process-wide counters
+ * (see {@link dk.brics.tajs.Main#reset()}), so they include all analyses that ran or are running in the JVM.
+ */
+public class SolverTelemetry extends DefaultAnalysisMonitoring implements SolverTelemetryMBean {
+
+    private static Logger log = Logger.getLogger(SolverTelemetry.class);
+
+    private static final int HOTTEST_FUNCTIONS = 10;
+
+    private static final int SHUTDOWN_TIMEOUT = 10;
+
+    private static final AtomicInteger next_id = new AtomicInteger();
+
+    private final boolean jmx;
+
+    private final Path file;
+
+    private final int interval;
+
+    private Solver.SolverInterface c;
+
+    private volatile boolean active;
+
+    private volatile int worklist_size;
+
+    private final LongAdder node_transfers = new LongAdder();
+
+    private final LongAdder block_transfers = new LongAdder();
+
+    private final LongAdder joins = new LongAdder();
+
+    private final Map<Function, LongAdder> function_block_transfers = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private ObjectName name;
+
+    private PrintWriter out;
+
+    private long start_time;
+
+    private long last_time;
+
+    private long last_node_transfers;
+
+    private long last_block_transfers;
+
+    private long last_joins;
+
+    private volatile double node_transfer_rate;
+
+    private volatile double block_transfer_rate;
+
+    private volatile double join_rate;
+
+    /**
+     * Constructs a new telemetry monitor.
+     *
+     * @param jmx      if set, register an MBean
+     * @param file     file to append snapshots to, null if none
+     * @param interval seconds between snapshots
+     */
+    public SolverTelemetry(boolean jmx, Path file, int interval) {
+        this.jmx = jmx;
+        this.file = file;
+        this.interval = Math.max(1, interval);
+    }
+
+    /**
+     * Sets the solver interface.
+     */
+    public void setSolverInterface(Solver.SolverInterface c) {
+        this.c = c;
+    }
+
+    @Override
+    public void beginPhase(AnalysisPhase phase) {
+        if (phase != AnalysisPhase.DATAFLOW_ANALYSIS)
+            return;
+        synchronized (this) {
+            start_time = last_time = System.currentTimeMillis();
+            if (file != null) {
+                try {
+                    out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+                } catch (IOException e) {
+                    log.error("Unable to write telemetry file " + file + ": " + e.getMessage());
+                }
+            }
+            if (jmx) {
+                try {
+                    name = new ObjectName("dk.brics.tajs:type=SolverTelemetry,id=" + next_id.getAndIncrement());
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+                } catch (JMException e) {
+                    log.error("Unable to register telemetry MBean: " + e.getMessage());
+                    name = null;
+                }
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "tajs-telemetry");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleAtFixedRate(this::snapshot, interval, interval, TimeUnit.SECONDS);
+            active = true;
+        }
+    }
+
+    @Override
+    public void endPhase(AnalysisPhase phase) {
+        if (phase != AnalysisPhase.DATAFLOW_ANALYSIS || !active)
+            return;
+        active = false;
+        // not shutdownNow, which would interrupt a snapshot being written and close the file channel under it
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS))
+                log.warn("Telemetry snapshot did not finish within " + SHUTDOWN_TIMEOUT + " seconds");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            snapshot();
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            if (name != null) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+                } catch (JMException e) {
+                    log.error("Unable to unregister telemetry MBean: " + e.getMessage());
+                }
+                name = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean allowNextIteration() {
+        if (active && c != null)
+            worklist_size = c.getWorkListSize();
+        return true;
+    }
+
+    /**
+     * Returns this object, as the counters that are updated in the scan phase are thread-safe.
+     */
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return this;
+    }
+
+    @Override
+    public void visitNodeTransfer(AbstractNode n) {
+        node_transfers.increment();
+    }
+
+    @Override
+    public void visitBlockTransfer(BasicBlock b, State s) {
+        block_transfers.increment();
+        if (active)
+            function_block_transfers.computeIfAbsent(b.getFunction(), f -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void visitJoin() {
+        joins.increment();
+    }
+
+    /**
+     * Updates the rates and appends a snapshot to the file, if any.
+     */
+    private synchronized void snapshot() {
+        long now = System.currentTimeMillis();
+        long nodes = node_transfers.sum();
+        long blocks = block_transfers.sum();
+        long js = joins.sum();
+        double seconds = Math.max(1, now - last_time) / 1000.0;
+        node_transfer_rate = (nodes - last_node_transfers) / seconds;
+        block_transfer_rate = (blocks - last_block_transfers) / seconds;
+        join_rate = (js - last_joins) / seconds;
+        last_time = now;
+        last_node_transfers = nodes;
+        last_block_transfers = blocks;
+        last_joins = js;
+        if (out == null)
+            return;
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        StringBuilder b = new StringBuilder();
+        b.append("{\"time\":").append(now)
+                .append(",\"elapsed_ms\":").append(now - start_time)
+                .append(",\"worklist_size\":").append(worklist_size)
+                .append(",\"node_transfers\":").append(nodes)
+                .append(",\"block_transfers\":").append(blocks)
+                .append(",\"joins\":").append(js)
+                .append(",\"node_transfer_rate\":").append(round(node_transfer_rate))
+                .append(",\"block_transfer_rate\":").append(round(block_transfer_rate))
+                .append(",\"join_rate\":").append(round(join_rate))
+                .append(",\"value_cache_hit_rate\":").append(round(getValueCacheHitRate()))
+                .append(",\"scope_chain_cache_hit_rate\":").append(round(getScopeChainCacheHitRate()))
+                .append(",\"states_created\":").append(State.getNumberOfStatesCreated())
+                .append(",\"heap_used\":").append(heap.getUsed())
+                .append(",\"heap_max\":").append(heap.getMax())
+                .append(",\"hottest_functions\":[");
+        boolean first = true;
+        for (Map.Entry<Function, Long> me : getHottest()) {
+            if (!first)
+                b.append(",");
+            first = false;
+            Function f = me.getKey();
+            b.append("{\"function\":\"").append(escapeJson(functionName(f)))
+                    .append("\",\"location\":\"").append(escapeJson(String.valueOf(f.getSourceLocation())))
+                    .append("\",\"block_transfers\":").append(me.getValue()).append("}");
+        }
+        b.append("]}");
+        out.println(b);
+        out.flush();
+        if (out.checkError()) {
+            log.error("Unable to write telemetry file " + file);
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * Returns the functions with the most block transfers, most first.
+     */
+    private List<Map.Entry<Function, Long>> getHottest() {
+        List<Map.Entry<Function, Long>> res = newList();
+        function_block_transfers.forEach((f, n) -> res.add(new AbstractMap.SimpleImmutableEntry<>(f, n.sum())));
+        res.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+        return res.size() > HOTTEST_FUNCTIONS ? res.subList(0, HOTTEST_FUNCTIONS) : res;
+    }
+
+    private static String functionName(Function f) {
+        if (f.isMain())
+            return "<main>";
+        return f.getName() != null ? f.getName() : "<anonymous>";
+    }
+
+    private static double round(double d) {
+        return Math.round(d * 1000) / 1000.0;
+    }
+
+    private static double hitRate(WeakInterner.Statistics s) {
+        long total = s.getHits() + s.getMisses();
+        return total == 0 ? 0 : (double) s.getHits() / total;
+    }
+
+    @Override
+    public int getWorkListSize() {
+        return worklist_size;
+    }
+
+    @Override
+    public long getNodeTransfers() {
+        return node_transfers.sum();
+    }
+
+    @Override
+    public long getBlockTransfers() {
+        return block_transfers.sum();
+    }
+
+    @Override
+    public long getJoins() {
+        return joins.sum();
+    }
+
+    @Override
+    public double getNodeTransferRate() {
+        return node_transfer_rate;
+    }
+
+    @Override
+    public double getBlockTransferRate() {
+        return block_transfer_rate;
+    }
+
+    @Override
+    public double getJoinRate() {
+        return join_rate;
+    }
+
+    @Override
+    public double getValueCacheHitRate() {
+        return hitRate(Value.getValueCacheStatistics());
+    }
+
+    @Override
+    public double getScopeChainCacheHitRate() {
+        return hitRate(ScopeChain.getCacheStatistics());
+    }
+
+    @Override
+    public int getStatesCreated() {
+        return State.getNumberOfStatesCreated();
+    }
+
+    @Override
+    public long getHeapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public long getHeapMax() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+    }
+
+    @Override
+    public String[] getHottestFunctions() {
+        List<Map.Entry<Function, Long>> hottest = getHottest();
+        String[] res = new String[hottest.size()];
+        for (int i = 0; i < res.length; i++) {
+            Function f = hottest.get(i).getKey();
+            res[i] = functionName(f) + " at " + f.getSourceLocation() + ": " + hottest.get(i).getValue();
+        }
+        return res;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.analysis;
+
+/**
+ * JMX view of {@link SolverTelemetry}.
+ * Rates are per second, measured over the most recent snapshot interval.
+ */
+public interface SolverTelemetryMBean {
+
+    /**
+     * Returns the number of pending work list entries.
+     */
+    int getWorkListSize();
+
+    /**
+     * Returns the number of node transfers so far.
+     */
+    long getNodeTransfers();
+
+    /**
+     * Returns the number of block transfers so far.
+     */
+    long getBlockTransfers();
+
+    /**
+     * Returns the number of abstract state joins so far.
+     */
+    long getJoins();
+
+    /**
+     * Returns the number of node transfers per second.
+     */
+    double getNodeTransferRate();
+
+    /**
+     * Returns the number of block transfers per second.
+     */
+    double getBlockTransferRate();
+
+    /**
+     * Returns the number of abstract state joins per second.
+     */
+    double getJoinRate();
+
+    /**
+     * Returns the fraction of {@link dk.brics.tajs.lattice.Value} canonicalizations that found an existing value.
+     * Counted for all analyses in the JVM since the last {@link dk.brics.tajs.Main#reset()}.
+     */
+    double getValueCacheHitRate();
+
+    /**
+     * Returns the fraction of {@link dk.brics.tajs.lattice.ScopeChain} canonicalizations that found an existing scope chain.
+     * Counted for all analyses in the JVM since the last {@link dk.brics.tajs.Main#reset()}.
+     */
+    double getScopeChainCacheHitRate();
+
+    /**
+     * Returns the number of abstract states created.
+     * Counted for all analyses in the JVM since the last {@link dk.brics.tajs.Main#reset()}.
+     */
+    int getStatesCreated();
+
+    /**
+     * Returns the used heap memory, in bytes.
+     */
+    long getHeapUsed();
+
+    /**
+     * Returns the maximum heap memory, in bytes.
+     */
+    long getHeapMax();
+
+    /**
+     * Returns the functions with the most block transfers, most first, with their block transfer counts.
+     */
+    String[] getHottestFunctions();
+}
@@ -33,10 +33,12 @@ import dk.brics.tajs.lattice.UnknownValueResolver;
 import dk.brics.tajs.lattice.Value;
 import dk.brics.tajs.options.Options;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static dk.brics.tajs.util.Collections.newList;
@@ -46,13 +48,15 @@ import static dk.brics.tajs.util.Collections.newSet;
 /**
  * Implementation of the heuristics for call- and heap-contexts according to "Determinacy in Static Analysis of jQuery", OOPSLA 2014.
  */
-public class StaticDeterminacyContextSensitivityStrategy implements IContextSensitivityStrategy {
+public class StaticDeterminacyContextSensitivityStrategy implements IContextSensitivityStrategy, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final SyntacticHints syntacticHints;
 
     private final PreciseInterestingValuePredicate determinateInterestingValue = new PreciseInterestingValuePredicate(1);
 
-    private final Map<HeapContext, Map<String, Value>> closureVariableValuesAtAllocation = newMap();
+    private final Map<HeapContext, Map<String, Value>> closureVariableValuesAtAllocation = new ConcurrentHashMap<>(); // also updated when functions are scanned in parallel
 
     private final BasicContextSensitivityStrategy basic = new BasicContextSensitivityStrategy();
 
@@ -194,7 +198,7 @@ public class StaticDeterminacyContextSensitivityStrategy implements IContextSens
 
         ContextArguments funArgs = decideCallContextArguments(function, callInfo, state, c);
 
-        return new Context(thisval, funArgs, null, null, null);
+        return Context.make(thisval, funArgs, null, null, null);
     }
 
     @Override
@@ -259,7 +263,7 @@ public class StaticDeterminacyContextSensitivityStrategy implements IContextSens
             }
         }
 
-        return new ContextArguments(obj_f.getFunction().getParameterNames(), selectedArguments, closureVariables);
+        return ContextArguments.make(obj_f.getFunction().getParameterNames(), selectedArguments, closureVariables);
     }
 
     private boolean isRecursiveHeapContext(ObjectLabel l) {
@@ -311,7 +315,7 @@ public class StaticDeterminacyContextSensitivityStrategy implements IContextSens
                 }
             }
         }
-        HeapContext heapContext = makeHeapContext(c.getNode(), new ContextArguments(null, map));
+        HeapContext heapContext = makeHeapContext(c.getNode(), ContextArguments.make(null, map));
         closureVariableValuesAtAllocation.put(heapContext, map);
         return heapContext;
     }
@@ -332,7 +336,9 @@ public class StaticDeterminacyContextSensitivityStrategy implements IContextSens
     /**
      * A value is precise ("determinate") if it is a single string value or a bounded number of abstract objects/functions/arrays.
      */
-    private static class PreciseInterestingValuePredicate {
+    private static class PreciseInterestingValuePredicate implements Serializable {
+
+        private static final long serialVersionUID = 1L;
 
         private final int objectLimit;
 
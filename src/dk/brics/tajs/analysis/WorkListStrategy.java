@@ -77,4 +77,10 @@ public class WorkListStrategy implements IWorkListStrategy<Context> {
         // strategy: breadth first
         return serial1 - serial2;
     }
+
+    @Override
+    public int getFunctionContextPriority(IEntry<Context> e) {
+        // most recently discovered function/context first, as in compare
+        return call_graph.getBlockContextOrder(BlockAndContext.makeEntry(e.getBlock(), e.getContext()));
+    }
 }
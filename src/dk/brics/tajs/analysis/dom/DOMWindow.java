@@ -73,10 +73,10 @@ public class DOMWindow {
 
     public static void build(Solver.SolverInterface c) {
         State s = c.getState();
-        HISTORY = new ObjectLabel(DOMObjects.WINDOW_HISTORY, Kind.OBJECT);
-        LOCATION = new ObjectLabel(DOMObjects.WINDOW_LOCATION, Kind.OBJECT);
-        NAVIGATOR = new ObjectLabel(DOMObjects.WINDOW_NAVIGATOR, Kind.OBJECT);
-        SCREEN = new ObjectLabel(DOMObjects.WINDOW_SCREEN, Kind.OBJECT);
+        HISTORY = ObjectLabel.make(DOMObjects.WINDOW_HISTORY, Kind.OBJECT);
+        LOCATION = ObjectLabel.make(DOMObjects.WINDOW_LOCATION, Kind.OBJECT);
+        NAVIGATOR = ObjectLabel.make(DOMObjects.WINDOW_NAVIGATOR, Kind.OBJECT);
+        SCREEN = ObjectLabel.make(DOMObjects.WINDOW_SCREEN, Kind.OBJECT);
 
         // NB: The WINDOW object has already been instantiated.
 
@@ -443,7 +443,7 @@ public class DOMWindow {
                                     e = FlowGraphMutator.extendFlowGraph(currFg, unevaled, unevaled, e, callNode, true, null);
                                 }
 
-                                ObjectLabel callbackUnevaled = new ObjectLabel(e.getEntryFunction());
+                                ObjectLabel callbackUnevaled = ObjectLabel.make(e.getEntryFunction());
                                 allCallbacks = allCallbacks.join(Value.makeObject(callbackUnevaled));
                                 evalCache.setCode(cc, e);
                                 if (Options.get().isFlowGraphEnabled()) {
@@ -49,9 +49,9 @@ public class DOMConfiguration {
     public static void build(Solver.SolverInterface c) {
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
-        CONSTRUCTOR = new ObjectLabel(DOMObjects.CONFIGURATION_CONSTRUCTOR, Kind.FUNCTION);
-        PROTOTYPE = new ObjectLabel(DOMObjects.CONFIGURATION_PROTOTYPE, Kind.OBJECT);
-        INSTANCES = new ObjectLabel(DOMObjects.CONFIGURATION_INSTANCES, Kind.OBJECT);
+        CONSTRUCTOR = ObjectLabel.make(DOMObjects.CONFIGURATION_CONSTRUCTOR, Kind.FUNCTION);
+        PROTOTYPE = ObjectLabel.make(DOMObjects.CONFIGURATION_PROTOTYPE, Kind.OBJECT);
+        INSTANCES = ObjectLabel.make(DOMObjects.CONFIGURATION_INSTANCES, Kind.OBJECT);
 
         // Constructor Object
         s.newObject(CONSTRUCTOR);
@@ -55,9 +55,9 @@ public class DOMDocument {
     public static void build(Solver.SolverInterface c) {
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
-        CONSTRUCTOR = new ObjectLabel(DOMObjects.DOCUMENT_CONSTRUCTOR, Kind.FUNCTION);
-        PROTOTYPE = new ObjectLabel(DOMObjects.DOCUMENT_PROTOTYPE, Kind.OBJECT);
-        INSTANCES = new ObjectLabel(DOMObjects.DOCUMENT_INSTANCES, Kind.OBJECT);
+        CONSTRUCTOR = ObjectLabel.make(DOMObjects.DOCUMENT_CONSTRUCTOR, Kind.FUNCTION);
+        PROTOTYPE = ObjectLabel.make(DOMObjects.DOCUMENT_PROTOTYPE, Kind.OBJECT);
+        INSTANCES = ObjectLabel.make(DOMObjects.DOCUMENT_INSTANCES, Kind.OBJECT);
 
         // Constructor Object
         s.newObject(CONSTRUCTOR);
@@ -156,14 +156,14 @@ public class DOMDocument {
             case DOCUMENT_CREATE_CDATASECTION: {
                 NativeFunctions.expectParameters(nativeobject, call, c, 1, 1);
                 Conversion.toString(NativeFunctions.readParameter(call, s, 0), c);
-                ObjectLabel label = new ObjectLabel(DOMObjects.CDATASECTION_INSTANCES, Kind.OBJECT);
+                ObjectLabel label = ObjectLabel.make(DOMObjects.CDATASECTION_INSTANCES, Kind.OBJECT);
                 s.newObject(label);
                 return Value.makeObject(label);
             }
             case DOCUMENT_CREATE_COMMENT: {
                 NativeFunctions.expectParameters(nativeobject, call, c, 1, 1);
                 Conversion.toString(NativeFunctions.readParameter(call, s, 0), c);
-                ObjectLabel label = new ObjectLabel(DOMObjects.COMMENT_INSTANCES, Kind.OBJECT);
+                ObjectLabel label = ObjectLabel.make(DOMObjects.COMMENT_INSTANCES, Kind.OBJECT);
                 s.newObject(label);
                 return Value.makeObject(label);
             }
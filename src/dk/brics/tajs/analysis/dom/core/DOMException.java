@@ -56,8 +56,8 @@ public class DOMException {
     }
 
     public static void build(Solver.SolverInterface c) {
-        DOMEXCEPTION = new ObjectLabel(DOMObjects.DOMEXCEPTION, Kind.OBJECT);
-        DOMEXCEPTION_PROTOTYPE = new ObjectLabel(DOMObjects.DOMEXCEPTION_PROTOTYPE, Kind.OBJECT);
+        DOMEXCEPTION = ObjectLabel.make(DOMObjects.DOMEXCEPTION, Kind.OBJECT);
+        DOMEXCEPTION_PROTOTYPE = ObjectLabel.make(DOMObjects.DOMEXCEPTION_PROTOTYPE, Kind.OBJECT);
 
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
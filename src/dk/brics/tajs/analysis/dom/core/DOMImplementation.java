@@ -49,9 +49,9 @@ public class DOMImplementation {
     public static void build(Solver.SolverInterface c) {
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
-        CONSTRUCTOR = new ObjectLabel(DOMObjects.DOMIMPLEMENTATION_CONSTRUCTOR, Kind.FUNCTION);
-        PROTOTYPE = new ObjectLabel(DOMObjects.DOMIMPLEMENTATION_PROTOTYPE, Kind.OBJECT);
-        INSTANCES = new ObjectLabel(DOMObjects.DOMIMPLEMENTATION_INSTANCES, Kind.OBJECT);
+        CONSTRUCTOR = ObjectLabel.make(DOMObjects.DOMIMPLEMENTATION_CONSTRUCTOR, Kind.FUNCTION);
+        PROTOTYPE = ObjectLabel.make(DOMObjects.DOMIMPLEMENTATION_PROTOTYPE, Kind.OBJECT);
+        INSTANCES = ObjectLabel.make(DOMObjects.DOMIMPLEMENTATION_INSTANCES, Kind.OBJECT);
 
         // Constructor Object
         s.newObject(CONSTRUCTOR);
@@ -47,9 +47,9 @@ public class HTMLElement {
     public static void build(Solver.SolverInterface c) {
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
-        ELEMENT = new ObjectLabel(DOMObjects.HTMLELEMENT, ObjectLabel.Kind.OBJECT);
-        ELEMENT_PROTOTYPE = new ObjectLabel(DOMObjects.HTMLELEMENT_PROTOTYPE, ObjectLabel.Kind.OBJECT);
-        ELEMENT_ATTRIBUTES = new ObjectLabel(DOMObjects.HTMLELEMENT_ATTRIBUTES, ObjectLabel.Kind.OBJECT);
+        ELEMENT = ObjectLabel.make(DOMObjects.HTMLELEMENT, ObjectLabel.Kind.OBJECT);
+        ELEMENT_PROTOTYPE = ObjectLabel.make(DOMObjects.HTMLELEMENT_PROTOTYPE, ObjectLabel.Kind.OBJECT);
+        ELEMENT_ATTRIBUTES = ObjectLabel.make(DOMObjects.HTMLELEMENT_ATTRIBUTES, ObjectLabel.Kind.OBJECT);
 
         // Prototype Object
         s.newObject(ELEMENT_PROTOTYPE);
@@ -53,14 +53,14 @@ public class CanvasRenderingContext2D {
     public static void build(Solver.SolverInterface c) {
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
-        CONTEXT2D = new ObjectLabel(DOMObjects.CANVASRENDERINGCONTEXT2D, ObjectLabel.Kind.OBJECT);
-        CONTEXT2D_PROTOTYPE = new ObjectLabel(DOMObjects.CANVASRENDERINGCONTEXT2D_PROTOTYPE, ObjectLabel.Kind.OBJECT);
-
-        GRADIENT = new ObjectLabel(DOMObjects.CANVASGRADIENT, ObjectLabel.Kind.OBJECT);
-        PATTERN = new ObjectLabel(DOMObjects.CANVASPATTERN, ObjectLabel.Kind.OBJECT);
-        PIXEL_ARRAY = new ObjectLabel(DOMObjects.CANVASPIXELARRAY, ObjectLabel.Kind.OBJECT);
-        IMAGE_DATA = new ObjectLabel(DOMObjects.IMAGEDATA, ObjectLabel.Kind.OBJECT);
-        TEXT_METRICS = new ObjectLabel(DOMObjects.TEXTMETRICS, ObjectLabel.Kind.OBJECT);
+        CONTEXT2D = ObjectLabel.make(DOMObjects.CANVASRENDERINGCONTEXT2D, ObjectLabel.Kind.OBJECT);
+        CONTEXT2D_PROTOTYPE = ObjectLabel.make(DOMObjects.CANVASRENDERINGCONTEXT2D_PROTOTYPE, ObjectLabel.Kind.OBJECT);
+
+        GRADIENT = ObjectLabel.make(DOMObjects.CANVASGRADIENT, ObjectLabel.Kind.OBJECT);
+        PATTERN = ObjectLabel.make(DOMObjects.CANVASPATTERN, ObjectLabel.Kind.OBJECT);
+        PIXEL_ARRAY = ObjectLabel.make(DOMObjects.CANVASPIXELARRAY, ObjectLabel.Kind.OBJECT);
+        IMAGE_DATA = ObjectLabel.make(DOMObjects.IMAGEDATA, ObjectLabel.Kind.OBJECT);
+        TEXT_METRICS = ObjectLabel.make(DOMObjects.TEXTMETRICS, ObjectLabel.Kind.OBJECT);
 
         // Prototype Object
         s.newObject(CONTEXT2D_PROTOTYPE);
@@ -41,9 +41,9 @@ public class ScriptProcessorNode {
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
 
-        CONSTRUCTOR = new ObjectLabel(DOMObjects.SCRIPTPROCESSORNODE_CONSTRUCTOR, ObjectLabel.Kind.FUNCTION);
-        PROTOTYPE = new ObjectLabel(DOMObjects.SCRIPTPROCESSORNODE_PROTOTYPE, ObjectLabel.Kind.OBJECT);
-        INSTANCES = new ObjectLabel(DOMObjects.SCRIPTPROCESSORNODE_INSTANCES, ObjectLabel.Kind.OBJECT);
+        CONSTRUCTOR = ObjectLabel.make(DOMObjects.SCRIPTPROCESSORNODE_CONSTRUCTOR, ObjectLabel.Kind.FUNCTION);
+        PROTOTYPE = ObjectLabel.make(DOMObjects.SCRIPTPROCESSORNODE_PROTOTYPE, ObjectLabel.Kind.OBJECT);
+        INSTANCES = ObjectLabel.make(DOMObjects.SCRIPTPROCESSORNODE_INSTANCES, ObjectLabel.Kind.OBJECT);
 
         // Constructor Object
         s.newObject(CONSTRUCTOR);
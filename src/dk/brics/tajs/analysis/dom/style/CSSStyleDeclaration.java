@@ -33,7 +33,7 @@ public class CSSStyleDeclaration {
     public static void build(Solver.SolverInterface c) {
         State s = c.getState();
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
-        STYLEDECLARATION = new ObjectLabel(DOMObjects.CSSSTYLEDECLARATION, ObjectLabel.Kind.OBJECT);
+        STYLEDECLARATION = ObjectLabel.make(DOMObjects.CSSSTYLEDECLARATION, ObjectLabel.Kind.OBJECT);
 
         s.newObject(STYLEDECLARATION);
         s.writeInternalPrototype(STYLEDECLARATION, Value.makeObject(InitialStateBuilder.OBJECT_PROTOTYPE));
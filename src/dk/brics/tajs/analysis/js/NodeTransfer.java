@@ -71,7 +71,6 @@ import dk.brics.tajs.lattice.State.Properties;
 import dk.brics.tajs.lattice.Str;
 import dk.brics.tajs.lattice.UnknownValueResolver;
 import dk.brics.tajs.lattice.Value;
-import dk.brics.tajs.monitoring.IAnalysisMonitoring;
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.solver.BlockAndContext;
 import dk.brics.tajs.solver.CallGraph;
@@ -101,8 +100,6 @@ public class NodeTransfer implements NodeVisitor {
 
     private PropVarOperations pv;
 
-    private IAnalysisMonitoring m;
-
     /**
      * Constructs a new TransferFunctions object.
      */
@@ -114,7 +111,6 @@ public class NodeTransfer implements NodeVisitor {
      */
     public void setSolverInterface(Solver.SolverInterface c) {
         this.c = c;
-        m = c.getMonitoring();
         pv = c.getAnalysis().getPropVarOperations();
     }
 
@@ -134,7 +130,8 @@ public class NodeTransfer implements NodeVisitor {
             kind = "Number";
         else
             ; // Maybe put more here?
-        if (kind != "Null") {
+        if (!kind.equals("Null")) {
+            c.awaitTurn(); // the variable types of the function are shared by the work list entries
             detectReassignment(n, kind);
             f.variableValueTypes.put(n.getVariableName(), kind);
         }
@@ -145,7 +142,7 @@ public class NodeTransfer implements NodeVisitor {
         if (!(f.variableValueTypes.containsKey(n.getVariableName())))
             return false;
         else
-            if (f.variableValueTypes.get(n.getVariableName()) != kind) {
+            if (!f.variableValueTypes.get(n.getVariableName()).equals(kind)) {
                 if (f.reassignedVariableStrings.add(n.getVariableName()))
                     f.reassignedVariables.add(n);
             }
@@ -241,7 +238,7 @@ public class NodeTransfer implements NodeVisitor {
     @Override
     public void visit(NewObjectNode n) {
         HeapContext heapContext = c.getAnalysis().getContextSensitivityStrategy().makeObjectLiteralHeapContext(n, c.getState());
-        ObjectLabel objlabel = new ObjectLabel(n, Kind.OBJECT, heapContext);
+        ObjectLabel objlabel = ObjectLabel.make(n, Kind.OBJECT, heapContext);
         c.getState().newObject(objlabel);
         c.getState().writeInternalPrototype(objlabel, Value.makeObject(InitialStateBuilder.OBJECT_PROTOTYPE));
         if (n.getResultRegister() != AbstractNode.NO_VALUE)
@@ -375,17 +372,17 @@ public class NodeTransfer implements NodeVisitor {
         if (varname.equals("this")) {
             // 11.1.1 read 'this' from the execution context
             v = c.getState().readThis();
-            m.visitReadThis(n, v, c.getState(), InitialStateBuilder.GLOBAL);
+            c.getMonitoring().visitReadThis(n, v, c.getState(), InitialStateBuilder.GLOBAL);
         } else { // ordinary variable
             int result_base_reg = n.getResultBaseRegister();
             Set<ObjectLabel> base_objs = null;
             if (c.isScanning() || result_base_reg != AbstractNode.NO_VALUE)
                 base_objs = newSet();
             v = pv.readVariable(varname, base_objs);
-            m.visitPropertyRead(n, base_objs, Value.makeTemporaryStr(varname), c.getState(), true);
-            m.visitVariableAsRead(n, v, c.getState());
-            m.visitVariableOrProperty(varname, n.getSourceLocation(), v, c.getState().getContext(), c.getState());
-            m.visitReadNonThisVariable(n, v);
+            c.getMonitoring().visitPropertyRead(n, base_objs, Value.makeTemporaryStr(varname), c.getState(), true);
+            c.getMonitoring().visitVariableAsRead(n, v, c.getState());
+            c.getMonitoring().visitVariableOrProperty(varname, n.getSourceLocation(), v, c.getState().getContext(), c.getState());
+            c.getMonitoring().visitReadNonThisVariable(n, v);
             if (v.isMaybeAbsent())
                 Exceptions.throwReferenceError(c);
             if (v.isNotPresent() && !Options.get().isPropagateDeadFlow()) {
@@ -394,8 +391,8 @@ public class NodeTransfer implements NodeVisitor {
             }
             if (result_base_reg != AbstractNode.NO_VALUE)
                 c.getState().writeRegister(result_base_reg, Value.makeObject(base_objs)); // see 10.1.4
-            m.visitRead(n, v, c.getState());
-            m.visitReadVariable(n, v, c.getState()); // TODO: combine some of these m.visitXYZ methods?
+            c.getMonitoring().visitRead(n, v, c.getState());
+            c.getMonitoring().visitReadVariable(n, v, c.getState()); // TODO: combine some of these m.visitXYZ methods?
         }
         if (v.isNotPresent() && !Options.get().isPropagateDeadFlow()) {
             c.getState().setToNone();
@@ -417,11 +414,11 @@ public class NodeTransfer implements NodeVisitor {
         } catch (AnalysisException ae) {}
         Set<ObjectLabel> objs = pv.writeVariable(n.getVariableName(), v, true);
         if (f.getParameterNames().contains(n.getVariableName())) { // TODO: review
-            ObjectLabel arguments_obj = new ObjectLabel(f.getEntry().getFirstNode(), Kind.ARGUMENTS);
+            ObjectLabel arguments_obj = ObjectLabel.make(f.getEntry().getFirstNode(), Kind.ARGUMENTS);
             pv.writeProperty(arguments_obj, Integer.toString(f.getParameterNames().indexOf(n.getVariableName())), v);
         }
-        m.visitPropertyWrite(n, objs, Value.makeTemporaryStr(n.getVariableName()));
-        m.visitVariableOrProperty(n.getVariableName(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
+        c.getMonitoring().visitPropertyWrite(n, objs, Value.makeTemporaryStr(n.getVariableName()));
+        c.getMonitoring().visitVariableOrProperty(n.getVariableName(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
     }
 
     /**
@@ -432,7 +429,7 @@ public class NodeTransfer implements NodeVisitor {
         // get the base value, coerce with ToObject
         Value baseval = c.getState().readRegister(n.getBaseRegister());
         baseval = UnknownValueResolver.getRealValue(baseval, c.getState());
-        m.visitPropertyAccess(n, baseval);
+        c.getMonitoring().visitPropertyAccess(n, baseval);
         Set<ObjectLabel> objlabels = Conversion.toObjectLabels(n, baseval, c);
         if (objlabels.isEmpty() && !Options.get().isPropagateDeadFlow()) {
             c.getState().setToNone();
@@ -460,13 +457,13 @@ public class NodeTransfer implements NodeVisitor {
         if (propertystr.isMaybeSingleStr()) {
             String propertyname = propertystr.getStr();
             if (c.isScanning())
-                m.visitReadProperty(n, objlabels, propertystr, maybe_undef || maybe_null || maybe_nan, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
+                c.getMonitoring().visitReadProperty(n, objlabels, propertystr, maybe_undef || maybe_null || maybe_nan, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
             v = pv.readPropertyValue(objlabels, propertyname);
-            m.visitPropertyRead(n, objlabels, propertystr, c.getState(), true);
+            c.getMonitoring().visitPropertyRead(n, objlabels, propertystr, c.getState(), true);
         } else if (!propertystr.isNotStr()) {
             if (c.isScanning())
-                m.visitReadProperty(n, objlabels, propertystr, true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
-            m.visitPropertyRead(n, objlabels, propertystr, c.getState(), true);
+                c.getMonitoring().visitReadProperty(n, objlabels, propertystr, true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
+            c.getMonitoring().visitPropertyRead(n, objlabels, propertystr, c.getState(), true);
             v = pv.readPropertyValue(objlabels, propertystr);
             read_undefined = propertystr.isMaybeStr("undefined");
             read_null = propertystr.isMaybeStr("null");
@@ -475,25 +472,25 @@ public class NodeTransfer implements NodeVisitor {
             v = Value.makeNone();
         if (maybe_undef && !read_undefined) {
             if (c.isScanning())
-                m.visitReadProperty(n, objlabels, Value.makeTemporaryStr("undefined"), true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
+                c.getMonitoring().visitReadProperty(n, objlabels, Value.makeTemporaryStr("undefined"), true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
             v = UnknownValueResolver.join(v, pv.readPropertyValue(objlabels, "undefined"), c.getState());
         }
         if (maybe_null && !read_null) {
             if (c.isScanning())
-                m.visitReadProperty(n, objlabels, Value.makeTemporaryStr("null"), true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
+                c.getMonitoring().visitReadProperty(n, objlabels, Value.makeTemporaryStr("null"), true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
             v = UnknownValueResolver.join(v, pv.readPropertyValue(objlabels, "null"), c.getState());
         }
         if (maybe_nan && !read_nan) {
             if (c.isScanning())
-                m.visitReadProperty(n, objlabels, Value.makeTemporaryStr("NaN"), true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
+                c.getMonitoring().visitReadProperty(n, objlabels, Value.makeTemporaryStr("NaN"), true, c.getState(), pv.readPropertyWithAttributes(objlabels, propertystr));
             v = UnknownValueResolver.join(v, pv.readPropertyValue(objlabels, "NaN"), c.getState());
         }
         // remove all the TAJS hooks, which are spurious if accessed through a dynamic property
         if (!n.isPropertyFixed()) {
             v = JSGlobal.removeTAJSSpecificFunctions(v);
         }
-        m.visitVariableOrProperty(n.getPropertyString(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
-        m.visitRead(n, v, c.getState());
+        c.getMonitoring().visitVariableOrProperty(n.getPropertyString(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
+        c.getMonitoring().visitRead(n, v, c.getState());
         if (v.isNotPresent() && !Options.get().isPropagateDeadFlow()) {
             c.getState().setToNone();
             return;
@@ -511,7 +508,7 @@ public class NodeTransfer implements NodeVisitor {
         // get the base value, coerce with ToObject
         Value baseval = c.getState().readRegister(n.getBaseRegister());
         baseval = UnknownValueResolver.getRealValue(baseval, c.getState());
-        m.visitPropertyAccess(n, baseval);
+        c.getMonitoring().visitPropertyAccess(n, baseval);
         Set<ObjectLabel> objlabels = Conversion.toObjectLabels(n, baseval, c);
 
         if (objlabels.isEmpty() && !Options.get().isPropagateDeadFlow()) {
@@ -563,13 +560,13 @@ public class NodeTransfer implements NodeVisitor {
         if (maybe_nan && !propertystr.isMaybeStr("NaN"))
             pt.add(() -> pv.writeProperty(objlabels, Value.makeTemporaryStr("NaN"), finalV, false, n.isDecl()));
         pt.complete();
-        m.visitPropertyWrite(n, objlabels, propertystr); // TODO: more monitoring around here?
+        c.getMonitoring().visitPropertyWrite(n, objlabels, propertystr); // TODO: more monitoring around here?
         if (Options.get().isEvalStatistics()
                 && propertystr.getStr() != null
                 && propertystr.getStr().equals("innerHTML")) {
-            m.visitInnerHTMLWrite(n, v);
+            c.getMonitoring().visitInnerHTMLWrite(n, v);
         }
-        m.visitVariableOrProperty(n.getPropertyString(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
+        c.getMonitoring().visitVariableOrProperty(n.getPropertyString(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
     }
 
     /**
@@ -580,11 +577,11 @@ public class NodeTransfer implements NodeVisitor {
         Value v;
         if (n.isVariable()) {
             v = pv.deleteVariable(n.getVariableName());
-            m.visitVariableOrProperty(n.getVariableName(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
+            c.getMonitoring().visitVariableOrProperty(n.getVariableName(), n.getSourceLocation(), v, c.getState().getContext(), c.getState());
         } else {
             Value baseval = c.getState().readRegister(n.getBaseRegister());
             baseval = UnknownValueResolver.getRealValue(baseval, c.getState());
-            m.visitPropertyAccess(n, baseval);
+            c.getMonitoring().visitPropertyAccess(n, baseval);
             if (baseval.isMaybeNull() || baseval.isMaybeUndef()) {
                 Exceptions.throwTypeError(c);
                 if (baseval.isNullOrUndef() && !Options.get().isPropagateDeadFlow()) {
@@ -627,7 +624,7 @@ public class NodeTransfer implements NodeVisitor {
             Value val = pv.readVariable(n.getVariableName(), null); // TODO: should also count as a variable read in Monitoring?
             val = UnknownValueResolver.getRealValue(val, c.getState());
             v = Operators.typeof(val, val.isMaybeAbsent());
-            m.visitVariableOrProperty(n.getVariableName(), n.getOperandSourceLocation(), val, c.getState().getContext(), c.getState());
+            c.getMonitoring().visitVariableOrProperty(n.getVariableName(), n.getOperandSourceLocation(), val, c.getState().getContext(), c.getState());
         } else {
             Value val = c.getState().readRegister(n.getArgRegister());
             val = UnknownValueResolver.getRealValue(val, c.getState());
@@ -649,7 +646,7 @@ public class NodeTransfer implements NodeVisitor {
         // do nothing (but see EdgeTransfer)
         Value val = c.getState().readRegister(n.getConditionRegister());
         val = UnknownValueResolver.getRealValue(val, c.getState());
-        m.visitIf(n, Conversion.toBoolean(val));
+        c.getMonitoring().visitIf(n, Conversion.toBoolean(val));
     }
 
     /**
@@ -657,7 +654,7 @@ public class NodeTransfer implements NodeVisitor {
      */
     @Override
     public void visit(DeclareFunctionNode n) {
-        m.visitFunction(n.getFunction());
+        c.getMonitoring().visitFunction(n.getFunction());
         UserFunctionCalls.declareFunction(n, c);
     }
 
@@ -676,10 +673,10 @@ public class NodeTransfer implements NodeVisitor {
                         // these literal invocations can not be spurious in ES5
                         switch (n.getLiteralConstructorKind()) {
                             case ARRAY:
-                                functionValue = Value.makeObject(new ObjectLabel(ECMAScriptObjects.ARRAY, Kind.FUNCTION));
+                                functionValue = Value.makeObject(ObjectLabel.make(ECMAScriptObjects.ARRAY, Kind.FUNCTION));
                                 break;
                             case REGEXP:
-                                functionValue = Value.makeObject(new ObjectLabel(ECMAScriptObjects.REGEXP, Kind.FUNCTION));
+                                functionValue = Value.makeObject(ObjectLabel.make(ECMAScriptObjects.REGEXP, Kind.FUNCTION));
                                 break;
                             default:
                                 throw new AnalysisException("Unhandled literal constructor type: " + n.getLiteralConstructorKind());
@@ -844,13 +841,13 @@ public class NodeTransfer implements NodeVisitor {
      */
     @Override
     public void visit(CatchNode n) {
-        m.visitCatch(n);
+        c.getMonitoring().visitCatch(n);
         Value v = c.getState().readRegister(AbstractNode.EXCEPTION_REG);
         c.getState().removeRegister(AbstractNode.EXCEPTION_REG);
         if (n.getValueRegister() != AbstractNode.NO_VALUE) {
             c.getState().writeRegister(n.getValueRegister(), v.makeExtendedScope());
         } else {
-            ObjectLabel objlabel = new ObjectLabel(n, Kind.OBJECT);
+            ObjectLabel objlabel = ObjectLabel.make(n, Kind.OBJECT);
             c.getState().newObject(objlabel);
             c.getState().writeInternalPrototype(objlabel, Value.makeObject(InitialStateBuilder.OBJECT_PROTOTYPE));
             pv.writePropertyWithAttributes(objlabel, n.getVariableName(), v.setAttributes(false, true, false));
@@ -912,7 +909,7 @@ public class NodeTransfer implements NodeVisitor {
 //            List<Context> specialized_contexts = newList();
             BasicBlock successor = n.getBlock().getSingleSuccessor();
             for (Value k : propertyNameValues) {
-                m.visitPropertyRead(n, objs, k, c.getState(), true);
+                c.getMonitoring().visitPropertyRead(n, objs, k, c.getState(), true);
                 if (!c.isScanning()) {
                     // 2.1 Make specialized context
                     State specialized_state = c.getState().clone();
@@ -942,7 +939,7 @@ public class NodeTransfer implements NodeVisitor {
             Set<ObjectLabel> objs = Conversion.toObjectLabels(n, v1, c);
             Properties p = c.getState().getEnumProperties(objs);
             Value proplist = p.toValue().joinNull();
-            m.visitPropertyRead(n, objs, proplist, c.getState(), true);
+            c.getMonitoring().visitPropertyRead(n, objs, proplist, c.getState(), true);
             c.getState().writeRegister(n.getPropertyListRegister(), proplist);
         }
     }
@@ -73,13 +73,13 @@ import static dk.brics.tajs.util.Collections.singleton;
 public class UserFunctionCalls {
 
     private static Logger log = Logger.getLogger(UserFunctionCalls.class);
-    public static Set<CallNode> Arg_Mismatches = newSet();
-    public static void ArgMismatch(Function f, CallInfo call) {
-        if(f.getParameterNames().size() != call.getNumberOfArgs())
-        {
-
-            Arg_Mismatches.add((CallNode) call.getSourceNode());
 
+    /**
+     * Records the call site on the callee if the number of arguments differs from the number of parameters.
+     */
+    public static void ArgMismatch(Function f, CallInfo call) {
+        if (f.getParameterNames().size() != call.getNumberOfArgs()) {
+            f.argumentMismatchCalls.add((CallNode) call.getSourceNode());
         }
     }
 
@@ -97,7 +97,7 @@ public class UserFunctionCalls {
         int result_reg = n.getResultRegister();
         // TODO: join function objects (p.72)? (if same n and same scope)
         HeapContext functionHeapContext = c.getAnalysis().getContextSensitivityStrategy().makeFunctionHeapContext(fun, c);
-        ObjectLabel fn = new ObjectLabel(fun, functionHeapContext);
+        ObjectLabel fn = ObjectLabel.make(fun, functionHeapContext);
         // 13.2 step 2 and 3
         state.newObject(fn);
         Value f = Value.makeObject(fn);
@@ -108,7 +108,7 @@ public class UserFunctionCalls {
 /// old code, for ES3 semantics
 //        if (is_expression && fun.getName() != null) {
 //            // p.79 (function expression with identifier)
-//            ObjectLabel front = new ObjectLabel(fun.getEntry().getFirstNode(), Kind.OBJECT);
+//            ObjectLabel front = ObjectLabel.make(fun.getEntry().getFirstNode(), Kind.OBJECT);
 //            state.newObject(front);
 //            scope = ScopeChain.make(Collections.singleton(front), scope);
 //            pv.writePropertyWithAttributes(front, fun.getName(), f.setAttributes(false, true, true));
@@ -130,7 +130,7 @@ public class UserFunctionCalls {
         // 13.2 step 8
         pv.writePropertyWithAttributes(fn, "length", Value.makeNum(fun.getParameterNames().size()).setAttributes(true, true, true));
         // 13.2 step 9 
-        ObjectLabel prototype = new ObjectLabel(n, Kind.OBJECT);
+        ObjectLabel prototype = ObjectLabel.make(n, Kind.OBJECT);
         System.out.println(state.getObject(fn, true).getProperties());
         state.newObject(prototype);
         state.writeInternalPrototype(prototype, Value.makeObject(InitialStateBuilder.OBJECT_PROTOTYPE));
@@ -175,7 +175,7 @@ public class UserFunctionCalls {
                         // 13.2.2.1-2 create new object
                         this_objs = newSet();
                         HeapContext thisHeapContext = c.getAnalysis().getContextSensitivityStrategy().makeConstructorHeapContext(edge_state, obj_f, call, c);
-                        ObjectLabel new_obj = new ObjectLabel(n, Kind.OBJECT, thisHeapContext);
+                        ObjectLabel new_obj = ObjectLabel.make(n, Kind.OBJECT, thisHeapContext);
                         edge_state.newObject(new_obj);
                         extra_summarized.addDefinitelySummarized(new_obj);
                         this_objs.add(new_obj);
@@ -190,10 +190,10 @@ public class UserFunctionCalls {
                     HeapContext heapContext = c.getAnalysis().getContextSensitivityStrategy().makeActivationAndArgumentsHeapContext(edge_state, obj_f, this_objs, call, c);
 
                     // 10.2.3 enter new execution context, 13.2.1 transfer parameters, 10.1.6/8 provide 'arguments' object
-                    ObjectLabel varobj = new ObjectLabel(f.getEntry().getFirstNode(), Kind.ACTIVATION, heapContext); // better to use entry than invoke here
+                    ObjectLabel varobj = ObjectLabel.make(f.getEntry().getFirstNode(), Kind.ACTIVATION, heapContext); // better to use entry than invoke here
                     edge_state.newObject(varobj);
                     extra_summarized.addDefinitelySummarized(varobj);
-                    ObjectLabel argobj = new ObjectLabel(f.getEntry().getFirstNode(), Kind.ARGUMENTS, heapContext);
+                    ObjectLabel argobj = ObjectLabel.make(f.getEntry().getFirstNode(), Kind.ARGUMENTS, heapContext);
                     edge_state.newObject(argobj);
                     extra_summarized.addDefinitelySummarized(argobj);
                     ScopeChain sc = ScopeChain.make(Collections.singleton(varobj), obj_f_sc);
@@ -366,12 +366,12 @@ public class UserFunctionCalls {
         Summarized callee_summarized = new Summarized(state.getSummarized());
         HeapContext scopeHeapContext = state.getScopeChain().getObject().iterator().next().getHeapContext();
         HeapContext heapContext = scopeHeapContext; // this should give us the activation object that was created at enterUserFunction
-        ObjectLabel activation_obj = new ObjectLabel(f.getEntry().getFirstNode(), Kind.ACTIVATION, heapContext);
+        ObjectLabel activation_obj = ObjectLabel.make(f.getEntry().getFirstNode(), Kind.ACTIVATION, heapContext);
         callee_summarized.addDefinitelySummarized(activation_obj);
-        ObjectLabel arguments_obj = new ObjectLabel(f.getEntry().getFirstNode(), Kind.ARGUMENTS, heapContext);
+        ObjectLabel arguments_obj = ObjectLabel.make(f.getEntry().getFirstNode(), Kind.ARGUMENTS, heapContext);
         callee_summarized.addDefinitelySummarized(arguments_obj);
         if (is_constructor) {
-            ObjectLabel this_obj = new ObjectLabel(node, Kind.OBJECT, heapContext);
+            ObjectLabel this_obj = ObjectLabel.make(node, Kind.OBJECT, heapContext);
             callee_summarized.addDefinitelySummarized(this_obj);
         } // FIXME: determineThis may create additional objects (wrapped primitives in toObjectLabels conversion) that should be included in callee_summarized!
         State calledge_state = c.getAnalysisLatticeElement().getCallGraph().getCallEdge(node, caller_context, f.getEntry(), edge_context).getState();
@@ -67,8 +67,9 @@ public class JSArray {
 
     /**
      * TODO: Since Array.prototype.join can call itself without using the worklist, a cyclic array can cause a StackOverflowError. This stack is used to guard against that error.
+     * There is a stack for each thread, as functions may be scanned in parallel.
      */
-    private static final Stack<Set<ObjectLabel>> cyclicJoinGuard = new Stack<>();
+    private static final ThreadLocal<Stack<Set<ObjectLabel>>> cyclicJoinGuard = ThreadLocal.withInitial(Stack::new);
 
     private JSArray() {
     }
@@ -665,7 +666,7 @@ public class JSArray {
     }
 
     public static ObjectLabel makeArray(AbstractNode allocationNode, Value length, HeapContext heapContext, Solver.SolverInterface c) {
-        ObjectLabel array = new ObjectLabel(allocationNode, Kind.ARRAY, heapContext);
+        ObjectLabel array = ObjectLabel.make(allocationNode, Kind.ARRAY, heapContext);
         c.getState().newObject(array);
         c.getState().writeInternalPrototype(array, Value.makeObject(InitialStateBuilder.ARRAY_PROTOTYPE));
         writeLength(array, length, c);
@@ -759,10 +760,10 @@ public class JSArray {
                         return Value.makeAnyStr(); // TODO make a call to toLocaleString and use that
                     }
                     try {
-                        cyclicJoinGuard.push(objlabels);
+                        cyclicJoinGuard.get().push(objlabels);
                         string = Conversion.toString(prop.restrictToNotNullNotUndef(), c).getStr();
                     } finally {
-                        cyclicJoinGuard.pop();
+                        cyclicJoinGuard.get().pop();
                     }
                 } else {
                     string = null;
@@ -776,6 +777,6 @@ public class JSArray {
     }
 
     private static boolean isMaybeCyclicJoin(Value prop) {
-        return prop.getObjectLabels().stream().anyMatch(l -> cyclicJoinGuard.stream().anyMatch(gs -> gs.contains(l)));
+        return prop.getObjectLabels().stream().anyMatch(l -> cyclicJoinGuard.get().stream().anyMatch(gs -> gs.contains(l)));
     }
 }
\ No newline at end of file
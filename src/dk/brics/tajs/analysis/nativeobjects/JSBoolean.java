@@ -52,7 +52,7 @@ public class JSBoolean {
             case BOOLEAN: {
                 Value b = Conversion.toBoolean(NativeFunctions.readParameter(call, state, 0));
                 if (call.isConstructorCall()) { // 15.6.2
-                    ObjectLabel objlabel = new ObjectLabel(call.getSourceNode(), Kind.BOOLEAN);
+                    ObjectLabel objlabel = ObjectLabel.make(call.getSourceNode(), Kind.BOOLEAN);
                     state.newObject(objlabel);
                     state.writeInternalValue(objlabel, b);
                     state.writeInternalPrototype(objlabel, Value.makeObject(InitialStateBuilder.BOOLEAN_PROTOTYPE));
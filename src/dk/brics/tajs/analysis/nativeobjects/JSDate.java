@@ -193,7 +193,7 @@ public class JSDate {
      * Creates a new Date object.
      */
     private static Value createDateObject(AbstractNode n, Value internal, State state) {
-        ObjectLabel objlabel = new ObjectLabel(n, Kind.DATE);
+        ObjectLabel objlabel = ObjectLabel.make(n, Kind.DATE);
         state.newObject(objlabel);
         state.writeInternalValue(objlabel, internal);
         state.writeInternalPrototype(objlabel, Value.makeObject(InitialStateBuilder.DATE_PROTOTYPE));
@@ -82,7 +82,7 @@ public class JSError {
      */
     private static Value createErrorObject(ObjectLabel proto, ECMAScriptObjects nativeobject, CallInfo call, Solver.SolverInterface c) {
         State state = c.getState();
-        ObjectLabel obj = new ObjectLabel(call.getSourceNode(), Kind.ERROR);
+        ObjectLabel obj = ObjectLabel.make(call.getSourceNode(), Kind.ERROR);
         state.newObject(obj);
         state.writeInternalPrototype(obj, Value.makeObject(proto));
         Value message = NativeFunctions.readParameter(call, state, 0);
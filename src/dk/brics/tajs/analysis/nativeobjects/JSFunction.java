@@ -143,7 +143,7 @@ public class JSFunction {
                             }
                         }
 
-                        String var = call.getResultRegister() == AbstractNode.NO_VALUE ? null : UnevalTools.gensym();
+                        String var = call.getResultRegister() == AbstractNode.NO_VALUE ? null : UnevalTools.gensym(currentFg);
                         String complete_function = (var == null ? "\"" : "\"" + var + " = ") + "(function (" + stringArgs + ") {" + body + "})\"";
 
                         NormalForm input = UnevalTools.rebuildNormalForm(currentFg, callNode, state, c);
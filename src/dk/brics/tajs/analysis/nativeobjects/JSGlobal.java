@@ -164,7 +164,7 @@ public class JSGlobal {
                     CallNode evalCall = (CallNode) call.getSourceNode();
                     FlowGraph currentFg = c.getFlowGraph();
                     boolean ignoreResult = evalCall.getResultRegister() == AbstractNode.NO_VALUE;
-                    String var = ignoreResult ? null : UnevalTools.gensym(); // Do we need the value of the eval call after?
+                    String var = ignoreResult ? null : UnevalTools.gensym(currentFg); // Do we need the value of the eval call after?
                     NormalForm input = UnevalTools.rebuildNormalForm(currentFg, evalCall, state, c);
 
                     // Collect special args that should be analyzed context sensitively
@@ -550,9 +550,9 @@ public class JSGlobal {
         if (callContextReceiverAllocationSites.contains(allocationSite)) {
             Map<String, Value> recursiveTagger = newMap();
             recursiveTagger.put("isRecursiveAllocation", Value.makeBool(true)); // XXX: "isRecursiveAllocation"???
-            objlabel = new ObjectLabel(call.getSourceNode(), allocationKind, HeapContext.make(null, recursiveTagger));
+            objlabel = ObjectLabel.make(call.getSourceNode(), allocationKind, HeapContext.make(null, recursiveTagger));
         } else {
-            objlabel = new ObjectLabel(call.getSourceNode(), allocationKind, HeapContext.make(funArgs, null));
+            objlabel = ObjectLabel.make(call.getSourceNode(), allocationKind, HeapContext.make(funArgs, null));
         }
         state.newObject(objlabel);
         state.writeInternalPrototype(objlabel, Value.makeObject(prototype));
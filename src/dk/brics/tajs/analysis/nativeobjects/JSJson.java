@@ -47,7 +47,7 @@ public class JSJson {
      */
     public static Value makeAnyJSONObject(Solver.SolverInterface c) {
         State s = c.getState();
-        ObjectLabel objLabel = new ObjectLabel(c.getNode(), ObjectLabel.Kind.OBJECT);
+        ObjectLabel objLabel = ObjectLabel.make(c.getNode(), ObjectLabel.Kind.OBJECT);
         s.newObject(objLabel);
         s.writeInternalPrototype(objLabel, Value.makeObject(InitialStateBuilder.OBJECT_PROTOTYPE));
 
@@ -58,7 +58,7 @@ public class JSNumber {
                 else
                     v = Value.makeNum(+0.0d);
                 if (call.isConstructorCall()) { // 15.7.2
-                    ObjectLabel objlabel = new ObjectLabel(call.getSourceNode(), Kind.NUMBER);
+                    ObjectLabel objlabel = ObjectLabel.make(call.getSourceNode(), Kind.NUMBER);
                     state.newObject(objlabel);
                     state.writeInternalValue(objlabel, v);
                     state.writeInternalPrototype(objlabel, Value.makeObject(InitialStateBuilder.NUMBER_PROTOTYPE));
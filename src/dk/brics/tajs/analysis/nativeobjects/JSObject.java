@@ -73,7 +73,7 @@ public class JSObject {
                 res = arg_maybe_other ? res.join(Conversion.toObject(call.getSourceNode(), arg2.restrictToStrBoolNum(), c)) : res;
                 if (arg.isMaybeNull() || arg.isMaybeUndef()) {
                     // 15.2.1.1 step 1 and 15.2.2.1 step 8
-                    ObjectLabel obj = new ObjectLabel(call.getSourceNode(), Kind.OBJECT);
+                    ObjectLabel obj = ObjectLabel.make(call.getSourceNode(), Kind.OBJECT);
                     state.newObject(obj);
                     state.writeInternalPrototype(obj, Value.makeObject(InitialStateBuilder.OBJECT_PROTOTYPE));
                     res = res.joinObject(obj);
@@ -84,7 +84,7 @@ public class JSObject {
             case OBJECT_CREATE: {
                 // FIXME: support second argument of Object.create
                 NativeFunctions.expectParameters(nativeobject, call, c, 1, 2);
-                ObjectLabel obj = new ObjectLabel(call.getSourceNode(), Kind.OBJECT);
+                ObjectLabel obj = ObjectLabel.make(call.getSourceNode(), Kind.OBJECT);
                 state.newObject(obj);
                 Value prototype = UnknownValueResolver.getRealValue(NativeFunctions.readParameter(call, state, 0), state);
                 if (prototype.restrictToNotNull().isMaybeOtherThanObject()) {
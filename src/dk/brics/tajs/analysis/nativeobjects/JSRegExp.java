@@ -108,7 +108,7 @@ public class JSRegExp {
                     c.getMonitoring().addMessage(c.getNode(), Severity.HIGH, "TypeError, internal RegExp property with flags not undefined");
                 }
                 if (!arg.isNotPresent()) {
-                    ObjectLabel no = new ObjectLabel(call.getSourceNode(), Kind.REGEXP);
+                    ObjectLabel no = ObjectLabel.make(call.getSourceNode(), Kind.REGEXP);
                     state.newObject(no);
                     state.writeInternalPrototype(no, Value.makeObject(InitialStateBuilder.REGEXP_PROTOTYPE));
 
@@ -94,7 +94,7 @@ public class JSString {
                 }
 
                 if (call.isConstructorCall()) { // 15.5.2
-                    ObjectLabel objlabel = new ObjectLabel(call.getSourceNode(), Kind.STRING);
+                    ObjectLabel objlabel = ObjectLabel.make(call.getSourceNode(), Kind.STRING);
                     state.newObject(objlabel);
                     state.writeInternalValue(objlabel, s);
                     state.writeInternalPrototype(objlabel, Value.makeObject(InitialStateBuilder.STRING_PROTOTYPE));
@@ -370,7 +370,7 @@ public class JSString {
         boolean isUnlimited = !origLimit.isNotUndef();
         Value limit = isUnlimited ? Value.makeNum(Math.pow(2, 32) - 1) /* limit by spec! */ : Conversion.toNumber(origLimit, c);
 
-        ObjectLabel resultArray = new ObjectLabel(call.getSourceNode(), Kind.ARRAY);
+        ObjectLabel resultArray = ObjectLabel.make(call.getSourceNode(), Kind.ARRAY);
 
         state.newObject(resultArray);
         state.writeInternalPrototype(resultArray, Value.makeObject(InitialStateBuilder.ARRAY_PROTOTYPE));
@@ -401,7 +401,7 @@ public class JSString {
             argsMap.put("<base/this>", Value.makeStr(thisStringValue.getStr()));
             argsMap.put("<arg/separator>", Value.makeStr(separator.getStr()));
             // we are precise, so allocate a unique array
-            resultArray = new ObjectLabel(call.getSourceNode(), Kind.ARRAY, HeapContext.make(null, argsMap));
+            resultArray = ObjectLabel.make(call.getSourceNode(), Kind.ARRAY, HeapContext.make(null, argsMap));
             state.newObject(resultArray);
             state.writeInternalPrototype(resultArray, Value.makeObject(InitialStateBuilder.ARRAY_PROTOTYPE));
             final List<Value> splitValues = new ArrayList<>();
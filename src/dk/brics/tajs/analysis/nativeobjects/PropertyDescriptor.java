@@ -320,7 +320,7 @@ public class PropertyDescriptor {
      */
     public Optional<ObjectLabel> newPropertyDescriptorObject(Solver.SolverInterface c) {
         PropVarOperations pv = c.getAnalysis().getPropVarOperations();
-        ObjectLabel desc = new ObjectLabel(c.getNode(), ObjectLabel.Kind.OBJECT);
+        ObjectLabel desc = ObjectLabel.make(c.getNode(), ObjectLabel.Kind.OBJECT);
         c.getState().newObject(desc);
         c.getState().writeInternalPrototype(desc, Value.makeObject(InitialStateBuilder.OBJECT_PROTOTYPE));
         if (isMaybeDataDescriptor()) {
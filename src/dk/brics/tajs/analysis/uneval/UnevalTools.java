@@ -449,13 +449,13 @@ public class UnevalTools {
         return res.isEmpty() ? null : res;
     }
 
-    private static Set<String> usedGenSyms = newSet();
-
-    public static String gensym() {
-        String gensym;
-        while (usedGenSyms.contains(gensym = "a" + Strings.randomString(10))) ;
-        usedGenSyms.add(gensym);
+    /**
+     * Returns a fresh variable name for code that is added to the given flow graph.
+     *
+     * @see FlowGraph#makeGensym()
+     */
+    public static String gensym(FlowGraph fg) {
         // technically unsound: a variable (or variable from eval!) could be this exact gensym, but it is very unlikely
-        return gensym;
+        return fg.makeGensym();
     }
 }
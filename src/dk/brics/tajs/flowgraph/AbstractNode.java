@@ -22,10 +22,14 @@ import dk.brics.tajs.flowgraph.jsnodes.ReadVariableNode;
 import dk.brics.tajs.flowgraph.jsnodes.WritePropertyNode;
 import dk.brics.tajs.flowgraph.jsnodes.WriteVariableNode;
 
+import java.io.Serializable;
+
 /**
  * Abstract base class for all nodes.
  */
-public abstract class AbstractNode implements Cloneable {
+public abstract class AbstractNode implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * Register number used for absent values.
@@ -22,6 +22,7 @@ import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Strings;
 
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -35,7 +36,9 @@ import static dk.brics.tajs.util.Collections.newSet;
  * Must be non-empty.
  * Has a unique entry node and proceeds through the sequence unless exceptions are thrown.
  */
-public class BasicBlock {
+public class BasicBlock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * Unique index of this block in the flow graph, or -1 if not belonging to a flow graph.
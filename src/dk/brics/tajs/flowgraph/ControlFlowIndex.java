@@ -0,0 +1,551 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.flowgraph;
+
+import dk.brics.tajs.flowgraph.jsnodes.IfNode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Collections.newMap;
+
+/**
+ * Structural information about the ordinary control flow of a function:
+ * predecessors, dominators, post-dominators, natural loops and the nesting of branches.
+ * <p>
+ * Exceptional edges are ignored. Blocks without ordinary predecessors (such as exception handlers)
+ * are treated as additional roots, and blocks without successors as exits.
+ * Blocks that are not reachable from a root, or from which no exit is reachable, have no
+ * dominator or post-dominator, respectively.
+ * <p>
+ * The index is built in time almost linear in the size of the function, and all queries take constant time,
+ * except the loop queries, which are linear in the loop nesting depth.
+ * It is immutable, and obtained with {@link Function#getControlFlowIndex()}.
+ */
+public final class ControlFlowIndex {
+
+    private final List<BasicBlock> blocks;
+
+    /**
+     * Positions of the blocks in <code>blocks</code>.
+     */
+    private final Map<BasicBlock, Integer> positions;
+
+    private final List<List<BasicBlock>> predecessors;
+
+    /**
+     * Blocks ordered by block index.
+     */
+    private final BasicBlock[] by_index;
+
+    /**
+     * Positions of the blocks in <code>by_index</code>.
+     */
+    private final int[] index_positions;
+
+    private final Dominators dom;
+
+    private final Dominators pdom;
+
+    /**
+     * Innermost loop header of each block, -1 if not in a loop.
+     */
+    private final int[] loop_header;
+
+    /**
+     * Header of the enclosing loop of each loop header, -1 if none.
+     */
+    private final int[] loop_parent;
+
+    /**
+     * Innermost branch block whose branch region contains each block, -1 if none.
+     */
+    private final int[] enclosing_branch;
+
+    /**
+     * Number of enclosing branch statements of each block.
+     */
+    private final int[] branch_depth;
+
+    /**
+     * Case chain length of each block (see {@link #getCaseChainLength(BasicBlock)}).
+     */
+    private final int[] case_chain;
+
+    /**
+     * Builds the index for the given function.
+     */
+    ControlFlowIndex(Function f) {
+        blocks = newList(f.getBlocks());
+        int n = blocks.size();
+        positions = newMap();
+        for (int i = 0; i < n; i++)
+            positions.put(blocks.get(i), i);
+        by_index = blocks.toArray(new BasicBlock[n]);
+        Arrays.sort(by_index, (b1, b2) -> Integer.compare(b1.getIndex(), b2.getIndex()));
+        index_positions = new int[n];
+        for (int i = 0; i < n; i++)
+            index_positions[positions.get(by_index[i])] = i;
+
+        // build the ordinary control flow graph with a virtual root and a virtual exit, both numbered n
+        List<List<Integer>> succ = newList();
+        List<List<Integer>> pred = newList();
+        for (int i = 0; i <= n; i++) {
+            succ.add(newList());
+            pred.add(newList());
+        }
+        for (int i = 0; i < n; i++)
+            for (BasicBlock s : blocks.get(i).getSuccessors()) {
+                Integer j = positions.get(s);
+                if (j != null) {
+                    succ.get(i).add(j);
+                    pred.get(j).add(i);
+                }
+            }
+        predecessors = newList();
+        for (int i = 0; i < n; i++) {
+            List<BasicBlock> ps = newList();
+            for (int j : pred.get(i))
+                ps.add(blocks.get(j));
+            predecessors.add(Collections.unmodifiableList(ps));
+        }
+        int[][] fsucc = new int[n + 1][];
+        int[][] fpred = new int[n + 1][];
+        int[][] rsucc = new int[n + 1][];
+        int[][] rpred = new int[n + 1][];
+        List<Integer> roots = newList();
+        List<Integer> exits = newList();
+        Integer entry = positions.get(f.getEntry());
+        if (entry != null)
+            roots.add(entry);
+        for (int i = 0; i < n; i++) {
+            if (pred.get(i).isEmpty() && (entry == null || i != entry))
+                roots.add(i);
+            if (succ.get(i).isEmpty())
+                exits.add(i);
+        }
+        for (int i = 0; i < n; i++) {
+            List<Integer> fp = newList(pred.get(i));
+            if (roots.contains(i))
+                fp.add(n);
+            fpred[i] = toArray(fp);
+            fsucc[i] = toArray(succ.get(i));
+            List<Integer> rs = newList(pred.get(i));
+            List<Integer> rp = newList(succ.get(i));
+            if (succ.get(i).isEmpty())
+                rp.add(n);
+            rsucc[i] = toArray(rs);
+            rpred[i] = toArray(rp);
+        }
+        fsucc[n] = toArray(roots);
+        fpred[n] = new int[0];
+        rsucc[n] = toArray(exits);
+        rpred[n] = new int[0];
+        dom = new Dominators(n, fsucc, fpred);
+        pdom = new Dominators(n, rsucc, rpred);
+
+        // find the natural loops, innermost first
+        loop_header = new int[n];
+        loop_parent = new int[n];
+        Arrays.fill(loop_header, -1);
+        Arrays.fill(loop_parent, -1);
+        int[] mark = new int[n];
+        int[] worklist = new int[n];
+        for (int k = dom.rpo.length - 1; k >= 0; k--) {
+            int h = dom.rpo[k];
+            if (h == n)
+                continue;
+            int size = 0;
+            for (int p : fpred[h])
+                if (p != n && dom.dominates(h, p) && mark[p] != h + 1) {
+                    mark[p] = h + 1;
+                    worklist[size++] = p;
+                }
+            if (size == 0)
+                continue;
+            loop_header[h] = h;
+            mark[h] = h + 1;
+            while (size > 0) {
+                int x = worklist[--size];
+                int y;
+                if (loop_header[x] == -1) {
+                    loop_header[x] = h;
+                    y = x;
+                } else {
+                    y = loop_header[x];
+                    while (loop_parent[y] != -1)
+                        y = loop_parent[y];
+                    if (y == h)
+                        continue;
+                    loop_parent[y] = h;
+                }
+                for (int p : fpred[y])
+                    if (p != n && mark[p] != h + 1 && dom.dominates(h, p)) {
+                        mark[p] = h + 1;
+                        worklist[size++] = p;
+                    }
+            }
+        }
+
+        // find the branch regions, outermost first
+        enclosing_branch = new int[n];
+        branch_depth = new int[n];
+        Arrays.fill(enclosing_branch, -1);
+        for (int x : dom.rpo) {
+            if (x == n || dom.idom[x] == n)
+                continue;
+            int d = dom.idom[x];
+            int c = isBranch(d) ? d : enclosing_branch[d];
+            while (c != -1 && !isInBranchRegion(c, x))
+                c = enclosing_branch[c];
+            enclosing_branch[x] = c;
+            if (c != -1)
+                branch_depth[x] = branch_depth[c] + (isContinuation(c) ? 0 : 1);
+        }
+
+        // find the case chains, reusing the lengths of the chains found earlier
+        case_chain = new int[n];
+        Arrays.fill(case_chain, -1);
+        for (int i = 0; i < n; i++)
+            if (case_chain[i] == -1) {
+                if (!isBranch(i)) {
+                    case_chain[i] = 0;
+                    continue;
+                }
+                List<Integer> chain = newList();
+                int x = i;
+                int length = 0;
+                while (true) {
+                    chain.add(x);
+                    case_chain[x] = 0; // guards against cycles
+                    Integer y = positions.get(((IfNode) blocks.get(x).getLastNode()).getSuccFalse());
+                    if (y == null || !isBranch(y) || blocks.get(y).getLastNode().getSourceLocation() != blocks.get(x).getLastNode().getSourceLocation())
+                        break;
+                    if (case_chain[y] != -1) {
+                        length = case_chain[y] + 1;
+                        break;
+                    }
+                    x = y;
+                }
+                for (int k = chain.size() - 1; k >= 0; k--) {
+                    case_chain[chain.get(k)] = length;
+                    length++;
+                }
+            }
+    }
+
+    private static int[] toArray(List<Integer> l) {
+        int[] a = new int[l.size()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = l.get(i);
+        return a;
+    }
+
+    private int pos(BasicBlock b) {
+        Integer i = positions.get(b);
+        if (i == null)
+            throw new IllegalArgumentException("Block does not belong to the function: " + b.getIndex());
+        return i;
+    }
+
+    private BasicBlock block(int i) {
+        return i == -1 || i == blocks.size() ? null : blocks.get(i);
+    }
+
+    private boolean isBranch(int i) {
+        return blocks.get(i).getLastNode() instanceof IfNode;
+    }
+
+    /**
+     * Checks whether the given block is in the branch region of the given branch block,
+     * i.e. it is strictly dominated by the branch block but not dominated by the convergent block.
+     */
+    private boolean isInBranchRegion(int c, int x) {
+        if (c == x || !dom.dominates(c, x))
+            return false;
+        int j = pdom.idom[c];
+        return j == -1 || j == blocks.size() || !dom.dominates(j, x);
+    }
+
+    /**
+     * Checks whether the given branch block continues the branch statement of its enclosing branch block,
+     * as an 'else if' or a 'case'.
+     */
+    private boolean isContinuation(int c) {
+        int p = enclosing_branch[c];
+        if (p == -1)
+            return false;
+        IfNode pn = (IfNode) blocks.get(p).getLastNode();
+        return pn.getSuccFalse() == blocks.get(c)
+                && (pdom.idom[c] == pdom.idom[p] || blocks.get(c).getLastNode().getSourceLocation() == pn.getSourceLocation());
+    }
+
+    /**
+     * Returns the blocks of the function.
+     */
+    public List<BasicBlock> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * Returns the ordinary predecessors of the given block.
+     */
+    public List<BasicBlock> getPredecessors(BasicBlock b) {
+        return predecessors.get(pos(b));
+    }
+
+    /**
+     * Returns the block with the smallest block index.
+     */
+    public BasicBlock getFirstBlock() {
+        return by_index.length == 0 ? null : by_index[0];
+    }
+
+    /**
+     * Returns the block whose block index is one less than the one of the given block, or null if none.
+     */
+    public BasicBlock getPreviousBlock(BasicBlock b) {
+        int i = index_positions[pos(b)];
+        return i > 0 && by_index[i - 1].getIndex() == b.getIndex() - 1 ? by_index[i - 1] : null;
+    }
+
+    /**
+     * Returns the immediate dominator of the given block, or null if it is a root or unreachable.
+     */
+    public BasicBlock getImmediateDominator(BasicBlock b) {
+        return block(dom.idom[pos(b)]);
+    }
+
+    /**
+     * Checks whether the first block dominates the second block.
+     * Every reachable block dominates itself.
+     */
+    public boolean dominates(BasicBlock b1, BasicBlock b2) {
+        return dom.dominates(pos(b1), pos(b2));
+    }
+
+    /**
+     * Returns the immediate post-dominator of the given block, or null if it is an exit or cannot reach an exit.
+     */
+    public BasicBlock getImmediatePostDominator(BasicBlock b) {
+        return block(pdom.idom[pos(b)]);
+    }
+
+    /**
+     * Checks whether the first block post-dominates the second block.
+     * Every block that can reach an exit post-dominates itself.
+     */
+    public boolean postDominates(BasicBlock b1, BasicBlock b2) {
+        return pdom.dominates(pos(b1), pos(b2));
+    }
+
+    /**
+     * Returns the block where the branches of the given branch block meet,
+     * i.e. its immediate post-dominator, or null if the branches do not meet before the exits.
+     */
+    public BasicBlock getConvergentBlock(BasicBlock b) {
+        return getImmediatePostDominator(b);
+    }
+
+    /**
+     * Checks whether the given block is the header of a natural loop.
+     */
+    public boolean isLoopHeader(BasicBlock b) {
+        int i = pos(b);
+        return loop_header[i] == i;
+    }
+
+    /**
+     * Returns the header of the innermost natural loop containing the given block, or null if none.
+     */
+    public BasicBlock getLoopHeader(BasicBlock b) {
+        return block(loop_header[pos(b)]);
+    }
+
+    /**
+     * Returns the header of the loop enclosing the loop with the given header, or null if none.
+     */
+    public BasicBlock getParentLoopHeader(BasicBlock header) {
+        return block(loop_parent[pos(header)]);
+    }
+
+    /**
+     * Checks whether the given block is in the natural loop with the given header.
+     */
+    public boolean isInLoop(BasicBlock b, BasicBlock header) {
+        int h = pos(header);
+        for (int x = loop_header[pos(b)]; x != -1; x = loop_parent[x])
+            if (x == h)
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns the number of natural loops containing the given block.
+     */
+    public int getLoopDepth(BasicBlock b) {
+        int d = 0;
+        for (int x = loop_header[pos(b)]; x != -1; x = loop_parent[x])
+            d++;
+        return d;
+    }
+
+    /**
+     * Returns the innermost branch block (ending with an {@link IfNode}) whose branches contain the given block, or null if none.
+     * The branches of a branch block are the blocks it strictly dominates, except those dominated by its convergent block.
+     */
+    public BasicBlock getEnclosingBranch(BasicBlock b) {
+        return block(enclosing_branch[pos(b)]);
+    }
+
+    /**
+     * Returns the number of branch statements (if, loop and switch statements, and conditional expressions)
+     * whose branches contain the given block.
+     * The 'else if' and 'case' branches of a statement count as the statement itself.
+     */
+    public int getBranchNestingDepth(BasicBlock b) {
+        return branch_depth[pos(b)];
+    }
+
+    /**
+     * Returns the number of branch blocks reached from the given branch block by following false successors,
+     * as long as their branch nodes have the same source location as the one of the given block,
+     * as for the cases of a switch statement.
+     */
+    public int getCaseChainLength(BasicBlock b) {
+        return case_chain[pos(b)];
+    }
+
+    /**
+     * Dominator tree, computed with the algorithm by Cooper, Harvey and Kennedy.
+     */
+    private static final class Dominators {
+
+        /**
+         * Immediate dominator of each node, the root for the root, -1 if unreachable.
+         */
+        private final int[] idom;
+
+        /**
+         * Reachable nodes in reverse postorder.
+         */
+        private final int[] rpo;
+
+        /**
+         * Preorder and postorder numbers in the dominator tree, -1 if unreachable.
+         */
+        private final int[] pre, post;
+
+        private Dominators(int root, int[][] succ, int[][] pred) {
+            int n = succ.length;
+            int[] po = new int[n]; // postorder numbers
+            Arrays.fill(po, -1);
+            int[] order = new int[n];
+            int count = 0;
+            boolean[] visited = new boolean[n];
+            int[] stack = new int[n];
+            int[] next = new int[n];
+            int sp = 0;
+            stack[sp++] = root;
+            visited[root] = true;
+            while (sp > 0) {
+                int x = stack[sp - 1];
+                if (next[x] < succ[x].length) {
+                    int y = succ[x][next[x]++];
+                    if (!visited[y]) {
+                        visited[y] = true;
+                        stack[sp++] = y;
+                    }
+                } else {
+                    sp--;
+                    po[x] = count;
+                    order[count++] = x;
+                }
+            }
+            rpo = new int[count];
+            for (int i = 0; i < count; i++)
+                rpo[i] = order[count - 1 - i];
+            idom = new int[n];
+            Arrays.fill(idom, -1);
+            idom[root] = root;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int x : rpo) {
+                    if (x == root)
+                        continue;
+                    int d = -1;
+                    for (int p : pred[x])
+                        if (idom[p] != -1)
+                            d = d == -1 ? p : intersect(p, d, po);
+                    if (d != idom[x]) {
+                        idom[x] = d;
+                        changed = true;
+                    }
+                }
+            }
+            int[] child_count = new int[n + 1];
+            for (int x : rpo)
+                if (x != root)
+                    child_count[idom[x] + 1]++;
+            for (int i = 0; i < n; i++)
+                child_count[i + 1] += child_count[i];
+            int[] children = new int[count];
+            int[] fill = Arrays.copyOf(child_count, n);
+            for (int x : rpo)
+                if (x != root)
+                    children[fill[idom[x]]++] = x;
+            pre = new int[n];
+            post = new int[n];
+            Arrays.fill(pre, -1);
+            Arrays.fill(post, -1);
+            Arrays.fill(next, 0);
+            int pre_count = 0, post_count = 0;
+            sp = 0;
+            stack[sp++] = root;
+            pre[root] = pre_count++;
+            while (sp > 0) {
+                int x = stack[sp - 1];
+                if (child_count[x] + next[x] < child_count[x + 1]) {
+                    int y = children[child_count[x] + next[x]++];
+                    pre[y] = pre_count++;
+                    stack[sp++] = y;
+                } else {
+                    sp--;
+                    post[x] = post_count++;
+                }
+            }
+        }
+
+        private int intersect(int x, int y, int[] po) {
+            while (x != y) {
+                while (po[x] < po[y])
+                    x = idom[x];
+                while (po[y] < po[x])
+                    y = idom[y];
+            }
+            return x;
+        }
+
+        private boolean dominates(int x, int y) {
+            return pre[x] != -1 && pre[y] != -1 && pre[x] <= pre[y] && post[y] <= post[x];
+        }
+    }
+}
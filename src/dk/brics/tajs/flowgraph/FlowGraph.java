@@ -18,15 +18,21 @@ package dk.brics.tajs.flowgraph;
 
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.util.AnalysisException;
+import dk.brics.tajs.util.Strings;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Collections.newMap;
 import static dk.brics.tajs.util.Collections.newSet;
 
 /**
@@ -34,12 +40,14 @@ import static dk.brics.tajs.util.Collections.newSet;
  * the main program. Each function contains blocks of nodes. Nodes represent
  * primitive instructions, edges represent control flow.
  */
-public class FlowGraph {
+public class FlowGraph implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * The functions in this flow graph.
      */
-    private static Set<Function> functions;
+    private final Set<Function> functions;
 
     /**
      * The top-level function.
@@ -66,6 +74,20 @@ public class FlowGraph {
      */
     private SyntacticHints syntacticHints;
 
+    /**
+     * Generated variable names, created on demand.
+     */
+    private transient Set<String> gensyms;
+
+    private transient Random gensym_random;
+
+    private static final Pattern LINE_BREAK = Pattern.compile("\r\n|\r|\n");
+
+    /**
+     * Lines of the source code, by URL (see {@link #addSourceCode(JavaScriptSource)}).
+     */
+    private transient Map<String, List<String>> source_lines;
+
     /**
      * Constructs a new uninitialized flow graph.
      */
@@ -104,7 +126,7 @@ public class FlowGraph {
     /**
      * Returns the functions, including the main function.
      */
-    public static Collection<Function> getFunctions() {
+    public Collection<Function> getFunctions() {
         return functions;
     }
 
@@ -132,6 +154,20 @@ public class FlowGraph {
         return main;
     }
 
+    /**
+     * Returns a fresh variable name for code that is added to this flow graph.
+     * The names are pseudo-random, but the same sequence is generated for each flow graph.
+     */
+    public String makeGensym() {
+        if (gensyms == null) {
+            gensyms = newSet();
+            gensym_random = new Random(0);
+        }
+        String gensym;
+        while (!gensyms.add(gensym = "a" + Strings.randomString(10, gensym_random))) ;
+        return gensym;
+    }
+
     /**
      * Returns the entry block of the flow graph.
      */
@@ -226,6 +262,35 @@ public class FlowGraph {
             f.check(main, seen_functions, seen_blocks, seen_nodes);
     }
 
+    /**
+     * Records the code of a source of this flow graph, such that its lines can be found with {@link #getSourceLine(SourceLocation)}.
+     * The code is not serialized with the flow graph, so it must be recorded again when a stored flow graph is loaded.
+     */
+    public void addSourceCode(JavaScriptSource js) {
+        if (js.getLocation() == null)
+            return;
+        if (source_lines == null)
+            source_lines = newMap();
+        List<String> lines = source_lines.computeIfAbsent(js.getLocation().toExternalForm(), k -> newList());
+        String[] code = LINE_BREAK.split(js.getCode(), -1);
+        while (lines.size() < js.getLineOffset() + code.length)
+            lines.add("");
+        for (int i = 0; i < code.length; i++)
+            lines.set(js.getLineOffset() + i, code[i]);
+    }
+
+    /**
+     * Returns the source code line of the given location, or null if the code has not been recorded.
+     * For code embedded in HTML, the line only contains the code.
+     */
+    public String getSourceLine(SourceLocation location) {
+        if (source_lines == null || location == null || location.getLocation() == null)
+            return null;
+        List<String> lines = source_lines.get(location.getLocation().toExternalForm());
+        int i = location.getLineNumber() - 1;
+        return lines != null && i >= 0 && i < lines.size() ? lines.get(i) : null;
+    }
+
     /**
      * Returns the syntactic hints for context sensitivity.
      */
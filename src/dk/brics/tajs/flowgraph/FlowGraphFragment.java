@@ -16,12 +16,15 @@
 
 package dk.brics.tajs.flowgraph;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 /**
  * A fragment of a flow graph.
  */
-public class FlowGraphFragment {
+public class FlowGraphFragment implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * The fragment key.
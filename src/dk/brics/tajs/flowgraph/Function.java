@@ -16,6 +16,7 @@
 
 package dk.brics.tajs.flowgraph;
 
+import dk.brics.tajs.flowgraph.jsnodes.CallNode;
 import dk.brics.tajs.flowgraph.jsnodes.DeclareFunctionNode;
 import dk.brics.tajs.flowgraph.jsnodes.ReadVariableNode;
 import dk.brics.tajs.flowgraph.jsnodes.WritePropertyNode;
@@ -25,6 +26,7 @@ import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Strings;
 
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -40,10 +42,12 @@ import static dk.brics.tajs.util.Collections.newSet;
  * Function sub-graph.
  * Whenever a function has been created or modified, {@link #complete()} must be called.
  */
-public class Function {
+public class Function implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     public int edges = 0;
-    public static Map<String, String> variableValueTypes = new HashMap<>();
+    public Map<String, String> variableValueTypes = new HashMap<>();
     public Set<String> numSet = newSet();
     public Set<String> boolSet = newSet();
     public Set<String> strSet = newSet();
@@ -56,13 +60,13 @@ public class Function {
     public Set<String> undeclaredVarStrings = newSet();
     public Set<String> declaredVariableStrings = newSet();
     public Set<String> alreadyDeclaredVariableStrings = newSet();
-    public static String[][] arrayString = new String[100][2];
     public Set<WriteVariableNode> reassignedVariables = newSet();
     public Set<String> reassignedVariableStrings = newSet();
     public Set<String> reassignedVariableStringsBuffer = newSet();
     public Set<ReadVariableNode> loopVariables = newSet();
     public Set<String> loopVariablesString = newSet();
     public Set<String> functionsAsVariables = newSet();
+    public Set<CallNode> argumentMismatchCalls = newSet();
 
     /**
      * Unique index of this function in the flow graph, or -1 if not belonging to a flow graph.
@@ -140,6 +144,11 @@ public class Function {
      */
     private final String source;
 
+    /**
+     * Control flow index, built on demand and discarded when the blocks change.
+     */
+    private transient volatile ControlFlowIndex control_flow_index;
+
     /**
      * Constructs a new function.
      * The node set is initially empty, and the entry/exit nodes are not set.
@@ -259,6 +268,7 @@ public class Function {
      */
     public void addBlock(BasicBlock bb) {
         blocks.add(bb);
+        control_flow_index = null;
     }
 
     /**
@@ -266,6 +276,20 @@ public class Function {
      */
     public void removeBlocks(Collection<BasicBlock> bbs) {
         blocks.removeAll(bbs);
+        control_flow_index = null;
+    }
+
+    /**
+     * Returns the control flow index of this function, building it if necessary.
+     * The index reflects the blocks and edges at the time of the first call after {@link #complete()}.
+     */
+    public ControlFlowIndex getControlFlowIndex() {
+        ControlFlowIndex index = control_flow_index;
+        if (index == null) {
+            index = new ControlFlowIndex(this);
+            control_flow_index = index;
+        }
+        return index;
     }
 
     /**
@@ -443,6 +467,7 @@ public class Function {
      * Sets the block orders. Call after construction or modification of the function.
      */
     public void complete() {
+        control_flow_index = null;
         // Force the ordinary and exceptional exit to be last, it produces prettier dotfiles without changing anything else
         Set<BasicBlock> topologicalBlocks = newSet(blocks);
         Set<BasicBlock> nonTopologicalBlocks = newSet(Arrays.asList(ordinary_exit, exceptional_exit));
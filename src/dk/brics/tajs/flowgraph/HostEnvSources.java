@@ -25,6 +25,8 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static dk.brics.tajs.util.Collections.newList;
 
@@ -37,6 +39,11 @@ public class HostEnvSources {
 
     private final static SourceLocation loaderDummySourceLocation = new SourceLocation(0, 0, formatFileName("loader"), null);
 
+    /**
+     * Loaded sources, by resource path. The resources never change while the JVM is running.
+     */
+    private final static Map<String, JavaScriptSource> cache = new ConcurrentHashMap<>();
+
     /**
      * Loads all host environment JavaScript models according to currently selected options.
      */
@@ -62,22 +69,26 @@ public class HostEnvSources {
         String root = "/hostenv";
         List<JavaScriptSource> sources = newList();
         for (String sourcePath : sourcePaths) {
-            try {
-                String fullSourcePath = root + "/" + sourcePath;
-                URL resource = HostEnvSources.class.getResource(fullSourcePath);
-                InputStream sourceStream = resource.openStream();
-                if (sourceStream == null) {
-                    throw new AnalysisException("Can't find resource " + fullSourcePath);
-                }
-                String code = Loader.getString(sourceStream, Charset.forName("UTF-8"));
-                sources.add(JavaScriptSource.makeFileCode(resource, formatFileName(sourcePath), code));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            sources.add(cache.computeIfAbsent(sourcePath, p -> load(root, p)));
         }
         return sources;
     }
 
+    private static JavaScriptSource load(String root, String sourcePath) {
+        try {
+            String fullSourcePath = root + "/" + sourcePath;
+            URL resource = HostEnvSources.class.getResource(fullSourcePath);
+            if (resource == null) {
+                throw new AnalysisException("Can't find resource " + fullSourcePath);
+            }
+            InputStream sourceStream = resource.openStream();
+            String code = Loader.getString(sourceStream, Charset.forName("UTF-8"));
+            return JavaScriptSource.makeFileCode(resource, formatFileName(sourcePath), code);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static String formatFileName(String fileName) {
         return String.format("%s(%s)", fileNamePrefix, fileName);
     }
@@ -16,12 +16,15 @@
 
 package dk.brics.tajs.flowgraph;
 
+import java.io.Serializable;
 import java.net.URL;
 
 /**
  * Source location.
  */
-public class SourceLocation implements Comparable<SourceLocation> {
+public class SourceLocation implements Comparable<SourceLocation>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean equals(Object o) {
@@ -16,6 +16,7 @@
 
 package dk.brics.tajs.flowgraph;
 
+import java.io.Serializable;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,7 +27,9 @@ import static dk.brics.tajs.util.Collections.newSet;
 /**
  * Syntactic hints to be used for context sensitivity.
  */
-public class SyntacticHints {
+public class SyntacticHints implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final Map<AbstractNode, Set<String>> variableDependencies;
 
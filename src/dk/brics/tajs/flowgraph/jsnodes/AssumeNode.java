@@ -27,6 +27,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class AssumeNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The different kinds of assume node.
      */
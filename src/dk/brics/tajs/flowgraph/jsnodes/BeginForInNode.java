@@ -31,6 +31,8 @@ import java.util.Collection;
  */
 public class BeginForInNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private int object_reg;
 
     private int propertylist_reg;
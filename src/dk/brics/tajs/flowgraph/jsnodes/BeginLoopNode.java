@@ -25,6 +25,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public class BeginLoopNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private final IfNode ifNode;
 
     /**
@@ -27,6 +27,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class BeginWithNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private int object_reg;
 
     /**
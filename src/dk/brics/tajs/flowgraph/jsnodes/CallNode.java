@@ -36,6 +36,8 @@ import java.util.List;
  */
 public class CallNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * This information is syntactic and allows us to:
      * 1) distinguish between [4] and Array(4) for the case where Array gets precisely one numeric argument.
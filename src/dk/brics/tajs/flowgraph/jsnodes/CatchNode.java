@@ -31,6 +31,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class CatchNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private String varname;
 
     private int value_reg = NO_VALUE;
@@ -27,6 +27,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class ConstantNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The different kinds of constant values.
      */
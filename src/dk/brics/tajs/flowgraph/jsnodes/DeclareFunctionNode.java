@@ -29,6 +29,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class DeclareFunctionNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     private Function f;
 
     private boolean expression;
@@ -28,6 +28,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class DeclareVariableNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private String varname;
 
     /**
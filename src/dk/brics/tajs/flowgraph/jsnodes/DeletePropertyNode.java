@@ -32,6 +32,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class DeletePropertyNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     private int base_reg = NO_VALUE;
 
     private int property_reg = NO_VALUE;
@@ -27,6 +27,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class EndForInNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Begin node for this block.
      */
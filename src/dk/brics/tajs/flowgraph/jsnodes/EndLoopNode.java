@@ -25,6 +25,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public class EndLoopNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private final BeginLoopNode beginNode;
 
     /**
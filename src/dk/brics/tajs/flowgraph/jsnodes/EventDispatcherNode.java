@@ -28,6 +28,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class EventDispatcherNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Different kinds of event dispatching.
      */
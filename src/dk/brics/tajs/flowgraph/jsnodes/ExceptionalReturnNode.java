@@ -25,6 +25,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public class ExceptionalReturnNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructs a new exceptional return node.
      */
@@ -27,6 +27,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class HasNextPropertyNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     private int propertylist_reg;
 
     /**
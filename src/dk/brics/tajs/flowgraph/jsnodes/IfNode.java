@@ -31,6 +31,8 @@ import java.util.Collection;
  */
 public class IfNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private int condition_reg;
 
     private BasicBlock succ_true;
@@ -27,6 +27,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public abstract class LoadNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private int result_reg;
 
     /**
@@ -25,6 +25,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public class NewObjectNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * New object node.
      *
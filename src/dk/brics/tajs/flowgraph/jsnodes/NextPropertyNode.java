@@ -27,6 +27,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class NextPropertyNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private int propertylist_reg;
 
     private int property_reg;
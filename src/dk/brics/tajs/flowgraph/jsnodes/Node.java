@@ -25,6 +25,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public abstract class Node extends AbstractNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructs a new node.
      */
@@ -23,6 +23,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public class NopNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private final String text;
 
     /**
@@ -31,6 +31,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class ReadPropertyNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     private int base_reg;
 
     private int property_reg = NO_VALUE;
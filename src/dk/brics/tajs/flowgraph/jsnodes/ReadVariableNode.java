@@ -28,6 +28,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class ReadVariableNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     private String varname;
 
     private int result_base_reg;
@@ -28,6 +28,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public class ReturnNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private int value_reg;
 
     /**
@@ -27,6 +27,8 @@ import dk.brics.tajs.flowgraph.SourceLocation;
  */
 public class ThrowNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private int value_reg;
 
     /**
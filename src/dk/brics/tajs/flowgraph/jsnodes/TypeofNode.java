@@ -30,6 +30,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class TypeofNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     private int arg_reg = NO_VALUE;
 
     private String varname;
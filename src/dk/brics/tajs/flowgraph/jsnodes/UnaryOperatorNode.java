@@ -27,6 +27,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class UnaryOperatorNode extends LoadNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The different kinds of unary operators.
      */
@@ -33,6 +33,8 @@ import dk.brics.tajs.util.AnalysisException;
  */
 public class WritePropertyNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     public enum Kind {
         GETTER,
         SETTER,
@@ -28,6 +28,8 @@ import dk.brics.tajs.util.Strings;
  */
 public class WriteVariableNode extends Node {
 
+    private static final long serialVersionUID = 1L;
+
     private String varname;
 
     private int value_reg;
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.js2flowgraph;
+
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.JavaScriptSource;
+import dk.brics.tajs.util.ContentHash;
+import dk.brics.tajs.util.LargeStack;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * On-disk cache of flow graphs, keyed by the content hashes of the sources they are built from.
+ * <p>
+ * A cached flow graph is stored after {@link FlowGraphBuilder#close()}, before any analysis has modified it,
+ * so loading it gives the same flow graph as parsing and transforming the sources again.
+ * The file starts with a magic number and a format version; files with another version, or that cannot be read
+ * (e.g. because the flow graph classes have changed), are treated as absent.
+ */
+public class FlowGraphCache {
+
+    private static Logger log = Logger.getLogger(FlowGraphCache.class);
+
+    private static final int MAGIC = 0x54414a46; // "TAJF"
+
+    private static final int VERSION = 2;
+
+    private final Path dir;
+
+    private final String key;
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param dir cache directory, created when a flow graph is stored
+     * @param key content key of the sources, see {@link #makeKey(String, List)}
+     */
+    public FlowGraphCache(Path dir, String key) {
+        this.dir = dir;
+        this.key = key;
+    }
+
+    /**
+     * Returns the content key of the given sources.
+     * The key also identifies the flow graph in checkpoints.
+     *
+     * @param options description of the options that affect the analysis
+     * @param sources sources, in the order they are given to the flow graph builder
+     */
+    public static String makeKey(String options, List<JavaScriptSource> sources) {
+        ContentHash h = new ContentHash().add(Integer.toString(VERSION)).add(options);
+        for (JavaScriptSource s : sources)
+            h.add(s.getKind().toString())
+                    .add(s.getPrettyFileName())
+                    .add(String.valueOf(s.getLocation()))
+                    .add(s.getLineOffset() + ":" + s.getColumnOffset())
+                    .add(s.getCode());
+        return h.finish();
+    }
+
+    /**
+     * Returns the content key of the sources.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Loads the cached flow graph.
+     *
+     * @return the flow graph, or null if not in the cache
+     */
+    public FlowGraph load() {
+        Path file = getFile();
+        if (!Files.isRegularFile(file))
+            return null;
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream in = new DataInputStream(is);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+            return LargeStack.call("tajs-flowgraph-cache", () -> {
+                try (ObjectInputStream oin = new ObjectInputStream(in)) {
+                    return (FlowGraph) oin.readObject();
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable cached flow graph " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given flow graph, which must have been built from the sources that have been added.
+     */
+    public void store(FlowGraph fg) {
+        Path file = getFile();
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, getKey(), ".tmp");
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                DataOutputStream out = new DataOutputStream(os);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                LargeStack.call("tajs-flowgraph-cache", () -> {
+                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    oout.writeObject(fg);
+                    oout.flush();
+                    return null;
+                });
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            log.warn("Unable to store flow graph in " + file + ": " + e);
+            try {
+                if (tmp != null)
+                    Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // best effort
+            }
+        }
+    }
+
+    private Path getFile() {
+        return dir.resolve(getKey() + ".fg");
+    }
+}
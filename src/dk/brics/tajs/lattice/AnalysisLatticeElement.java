@@ -26,6 +26,7 @@ import dk.brics.tajs.solver.IAnalysisLatticeElement;
 import dk.brics.tajs.util.AnalysisException;
 import org.apache.log4j.Logger;
 
+import java.io.Serializable;
 import java.util.Map;
 
 import static dk.brics.tajs.util.Collections.newMap;
@@ -34,7 +35,9 @@ import static dk.brics.tajs.util.Collections.newMap;
  * Global analysis lattice element.
  */
 public class AnalysisLatticeElement implements
-        IAnalysisLatticeElement<State, Context, CallEdge> {
+        IAnalysisLatticeElement<State, Context, CallEdge>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final Logger log = Logger.getLogger(AnalysisLatticeElement.class);
 
@@ -18,10 +18,14 @@ package dk.brics.tajs.lattice;
 
 import dk.brics.tajs.solver.ICallEdge;
 
+import java.io.Serializable;
+
 /**
  * Information stored at an edge in a call graph.
  */
-public class CallEdge implements ICallEdge<State> {
+public class CallEdge implements ICallEdge<State>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private State state;
 
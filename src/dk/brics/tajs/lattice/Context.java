@@ -18,15 +18,31 @@ package dk.brics.tajs.lattice;
 
 import dk.brics.tajs.flowgraph.jsnodes.BeginLoopNode;
 import dk.brics.tajs.solver.IContext;
+import dk.brics.tajs.util.WeakInterner;
 
+import java.io.Serializable;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Context for context sensitive analysis.
- * Immutable.
+ * Immutable and canonicalized, so equality is object identity.
  */
-public final class Context implements IContext<Context> { // TODO: canonicalize? (#140)
+public final class Context implements IContext<Context>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final WeakInterner<Context> cache = new WeakInterner<>(new WeakInterner.Equivalence<Context>() {
+        @Override
+        public int hash(Context c) {
+            return c.hashcode;
+        }
+
+        @Override
+        public boolean equivalent(Context c1, Context c2) {
+            return c1.equalsStructurally(c2);
+        }
+    });
 
     /**
      * Cached hashcode for immutable instance.
@@ -55,12 +71,9 @@ public final class Context implements IContext<Context> { // TODO: canonicalize?
      */
     private final Map<BeginLoopNode, Integer> loopUnrollingsAtEntry;
 
-    /**
-     * Constructs a new context object.
-     */
-    public Context(Set<ObjectLabel> thisval, ContextArguments funArgs, Map<Integer, Value> specialRegs,
+    private Context(Set<ObjectLabel> thisval, ContextArguments funArgs, Map<Integer, Value> specialRegs,
                    Map<BeginLoopNode, Integer> loopUnrolling, Map<BeginLoopNode, Integer> loopUnrollingsAtEntry) {
-        this.thisval = thisval;
+        this.thisval = ObjectLabelSet.of(thisval);
         this.funArgs = funArgs;
         this.specialRegs = specialRegs;
         this.loopUnrolling = loopUnrolling;
@@ -71,9 +84,32 @@ public final class Context implements IContext<Context> { // TODO: canonicalize?
         hashcode = 31 * hashcode + (funArgs != null ? funArgs.hashCode() : 0);
         hashcode = 31 * hashcode + (specialRegs != null ? specialRegs.hashCode() : 0);
         hashcode = 31 * hashcode + (loopUnrolling != null ? loopUnrolling.hashCode() : 0);
+        hashcode = 31 * hashcode + (loopUnrollingsAtEntry != null ? loopUnrollingsAtEntry.hashCode() : 0);
         this.hashcode = hashcode;
     }
 
+    /**
+     * Returns the canonical context object with the given contents.
+     */
+    public static Context make(Set<ObjectLabel> thisval, ContextArguments funArgs, Map<Integer, Value> specialRegs,
+                               Map<BeginLoopNode, Integer> loopUnrolling, Map<BeginLoopNode, Integer> loopUnrollingsAtEntry) {
+        return cache.intern(new Context(thisval, funArgs, specialRegs, loopUnrolling, loopUnrollingsAtEntry));
+    }
+
+    /**
+     * Returns the canonical context for a deserialized one.
+     */
+    private Object readResolve() {
+        return make(thisval, funArgs, specialRegs, loopUnrolling, loopUnrollingsAtEntry);
+    }
+
+    /**
+     * Returns the statistics of the canonicalization cache.
+     */
+    public static WeakInterner.Statistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
     /**
      * Returns the this-value.
      */
@@ -118,16 +154,17 @@ public final class Context implements IContext<Context> { // TODO: canonicalize?
         if (loopUnrollingsAtEntry != null && loopUnrollingsAtEntry.equals(loopUnrolling)) {
             return this;
         }
-        return new Context(thisval, funArgs, specialRegs, loopUnrollingsAtEntry, loopUnrollingsAtEntry);
+        return make(thisval, funArgs, specialRegs, loopUnrollingsAtEntry, loopUnrollingsAtEntry);
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (obj == this)
+        return obj == this;
+    }
+
+    private boolean equalsStructurally(Context c) {
+        if (c == this)
             return true;
-        if (!(obj instanceof Context))
-            return false;
-        Context c = (Context) obj;
         if (this.hashcode != c.hashcode) {
             return false;
         }
@@ -145,7 +182,11 @@ public final class Context implements IContext<Context> { // TODO: canonicalize?
             return false;
         if ((loopUnrolling == null) != (c.loopUnrolling == null))
             return false;
-        return !(loopUnrolling != null && !loopUnrolling.equals(c.loopUnrolling));
+        if (loopUnrolling != null && !loopUnrolling.equals(c.loopUnrolling))
+            return false;
+        if ((loopUnrollingsAtEntry == null) != (c.loopUnrollingsAtEntry == null))
+            return false;
+        return !(loopUnrollingsAtEntry != null && !loopUnrollingsAtEntry.equals(c.loopUnrollingsAtEntry));
     }
 
     @Override
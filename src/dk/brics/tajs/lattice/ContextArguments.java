@@ -18,7 +18,9 @@ package dk.brics.tajs.lattice;
 
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.util.AnalysisException;
+import dk.brics.tajs.util.WeakInterner;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,8 +33,23 @@ import static dk.brics.tajs.util.Collections.newSet;
 
 /**
  * Representation of arguments to a function.
+ * Immutable and canonicalized, so equality is object identity.
  */
-public class ContextArguments {// TODO: canonicalize? (#140)
+public class ContextArguments implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final WeakInterner<ContextArguments> cache = new WeakInterner<>(new WeakInterner.Equivalence<ContextArguments>() {
+        @Override
+        public int hash(ContextArguments a) {
+            return a.hashcode;
+        }
+
+        @Override
+        public boolean equivalent(ContextArguments a1, ContextArguments a2) {
+            return a1.equalsStructurally(a2);
+        }
+    });
 
     private final Value unknownArg;
 
@@ -42,6 +59,11 @@ public class ContextArguments {// TODO: canonicalize? (#140)
 
     private final List<Value> arguments;
 
+    /**
+     * Cached hashcode for immutable instance.
+     */
+    private final int hashcode;
+
     private ContextArguments(Value unknownArg, List<String> parameterNames, List<Value> arguments, Map<String, Value> selectedClosureVariables) { // XXX: review, compare with 19b80eac3
         List<String> relevantParameterNames = parameterNames != null ? parameterNames.subList(0, arguments == null ? 0 : Math.min(parameterNames.size(), arguments.size())) : null;
         this.unknownArg = unknownArg;
@@ -53,14 +75,20 @@ public class ContextArguments {// TODO: canonicalize? (#140)
                 throw new AnalysisException("Attempting to be context sensitive in polymorphic or unknown value");
             }
         }
+        int result = this.unknownArg != null ? this.unknownArg.hashCode() : 0;
+        result = 31 * result + (this.selectedClosureVariables != null ? this.selectedClosureVariables.hashCode() : 0);
+        result = 31 * result + (this.parameterNames != null ? this.parameterNames.hashCode() : 0);
+        result = 31 * result + (this.arguments != null ? this.arguments.hashCode() : 0);
+        this.hashcode = result;
     }
+
     /**
      * Context arguments for a function invocation with unknown arguments.
      *
      * @param unknownArg all the arguments in a single value
      */
-    public ContextArguments(Value unknownArg, Map<String, Value> selectedClosureVariables) {
-        this(unknownArg, null, null, selectedClosureVariables);
+    public static ContextArguments make(Value unknownArg, Map<String, Value> selectedClosureVariables) {
+        return cache.intern(new ContextArguments(unknownArg, null, null, selectedClosureVariables));
     }
 
     /**
@@ -70,8 +98,22 @@ public class ContextArguments {// TODO: canonicalize? (#140)
      * @param arguments      as the arguments, in the order they are provided to the function
      * @param selectedClosureVariables as the values of closure-variables
      */
-    public ContextArguments(List<String> parameterNames, List<Value> arguments, Map<String, Value> selectedClosureVariables) {
-        this(null, parameterNames, arguments, selectedClosureVariables);
+    public static ContextArguments make(List<String> parameterNames, List<Value> arguments, Map<String, Value> selectedClosureVariables) {
+        return cache.intern(new ContextArguments(null, parameterNames, arguments, selectedClosureVariables));
+    }
+
+    /**
+     * Returns the canonical context arguments for deserialized ones.
+     */
+    private Object readResolve() {
+        return cache.intern(new ContextArguments(unknownArg, parameterNames, arguments, selectedClosureVariables));
+    }
+
+    /**
+     * Returns the statistics of the canonicalization cache.
+     */
+    public static WeakInterner.Statistics getCacheStatistics() {
+        return cache.getStatistics();
     }
 
     /**
@@ -116,11 +158,12 @@ public class ContextArguments {// TODO: canonicalize? (#140)
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-
-        ContextArguments that = (ContextArguments) o;
+        return this == o;
+    }
 
+    private boolean equalsStructurally(ContextArguments that) {
+        if (this == that) return true;
+        if (hashcode != that.hashcode) return false;
         if (unknownArg != null ? !unknownArg.equals(that.unknownArg) : that.unknownArg != null) return false;
         if (selectedClosureVariables != null ? !selectedClosureVariables.equals(that.selectedClosureVariables) : that.selectedClosureVariables != null)
             return false;
@@ -131,11 +174,7 @@ public class ContextArguments {// TODO: canonicalize? (#140)
 
     @Override
     public int hashCode() {
-        int result = unknownArg != null ? unknownArg.hashCode() : 0;
-        result = 31 * result + (selectedClosureVariables != null ? selectedClosureVariables.hashCode() : 0);
-        result = 31 * result + (parameterNames != null ? parameterNames.hashCode() : 0);
-        result = 31 * result + (arguments != null ? arguments.hashCode() : 0);
-        return result;
+        return hashcode;
     }
 
     public boolean hasArguments() { // XXX: used where?
@@ -18,6 +18,7 @@ package dk.brics.tajs.lattice;
 
 import dk.brics.tajs.util.AnalysisException;
 
+import java.io.Serializable;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,7 +27,9 @@ import static dk.brics.tajs.util.Collections.newSet;
 /**
  * Abstract execution context.
  */
-public final class ExecutionContext implements Cloneable {
+public final class ExecutionContext implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private ScopeChain scope_chain;
 
@@ -16,6 +16,9 @@
 
 package dk.brics.tajs.lattice;
 
+import dk.brics.tajs.util.WeakInterner;
+
+import java.io.Serializable;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -25,11 +28,25 @@ import static dk.brics.tajs.util.Collections.newSet;
 
 /**
  * Heap context for context sensitive analysis.
- * Immutable.
+ * Immutable and canonicalized, so equality is object identity.
  */
-public final class HeapContext {// TODO: canonicalize? (#140)
+public final class HeapContext implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
-    private static HeapContext emptyHeapContext = new HeapContext(null, null);
+    private static final WeakInterner<HeapContext> cache = new WeakInterner<>(new WeakInterner.Equivalence<HeapContext>() {
+        @Override
+        public int hash(HeapContext c) {
+            return c.hashcode;
+        }
+
+        @Override
+        public boolean equivalent(HeapContext c1, HeapContext c2) {
+            return c1.equalsStructurally(c2);
+        }
+    });
+
+    private static final HeapContext emptyHeapContext = cache.intern(new HeapContext(null, null));
 
     /**
      * Values of special variables at function entry in the context where the object was created, or null if none.
@@ -65,10 +82,24 @@ public final class HeapContext {// TODO: canonicalize? (#140)
         if (funargs == null && concreteSemanticValueQualifiers == null) {
             return emptyHeapContext;
         } else {
-            return new HeapContext(funargs, concreteSemanticValueQualifiers);
+            return cache.intern(new HeapContext(funargs, concreteSemanticValueQualifiers));
         }
     }
 
+    /**
+     * Returns the canonical heap context for a deserialized one.
+     */
+    private Object readResolve() {
+        return make(funargs, concreteSemanticValueQualifiers);
+    }
+
+    /**
+     * Returns the statistics of the canonicalization cache.
+     */
+    public static WeakInterner.Statistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
     /**
      * Returns the values for the context arguments of this heap context, or null if none.
      */
@@ -94,11 +125,12 @@ public final class HeapContext {// TODO: canonicalize? (#140)
      */
     @Override
     public boolean equals(Object obj) {
-        if (obj == this)
+        return obj == this;
+    }
+
+    private boolean equalsStructurally(HeapContext x) {
+        if (x == this)
             return true;
-        if (!(obj instanceof HeapContext))
-            return false;
-        HeapContext x = (HeapContext) obj;
         if (this.hashcode != x.hashcode) {
             return false;
         }
@@ -20,21 +20,22 @@ import dk.brics.tajs.options.Options;
 import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Strings;
 
-import java.util.Collections;
+import java.io.Serializable;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import static dk.brics.tajs.util.Collections.newMap;
 import static dk.brics.tajs.util.Collections.newSet;
 import static dk.brics.tajs.util.Collections.sortedEntries;
 
 /**
  * Abstract object.
  */
-public final class Obj {
+public final class Obj implements Serializable {
 
-    private Map<String, Value> properties;
+    private static final long serialVersionUID = 1L;
+
+    private PropertyMap properties;
 
     private boolean writable_properties; // for copy-on-write (for properties, not this object)
 
@@ -52,7 +53,9 @@ public final class Obj {
 
     private boolean writable; // object is immutable if writable is false (for copy-on-write)
 
-    private int hash_code; // hash code, only used if non-writable, 0 means uninitialized
+    private transient int hash_code; // hash code, only used if non-writable, 0 means uninitialized
+
+    private transient long owner; // generation of the store that may modify this object in place, 0 if none
 
     private static int number_of_objs_created;
 
@@ -86,7 +89,7 @@ public final class Obj {
         scope = x.scope;
         scope_unknown = x.scope_unknown;
         if (Options.get().isCopyOnWriteDisabled()) {
-            properties = newMap(x.properties);
+            properties = new PropertyMap(x.properties);
         } else {
             properties = x.properties;
             x.writable_properties = writable_properties = false;
@@ -112,13 +115,30 @@ public final class Obj {
         return writable;
     }
 
+    /**
+     * Checks whether this object may be modified in place by the store with the given generation.
+     */
+    boolean isOwnedBy(long generation) {
+        return writable && owner == generation;
+    }
+
+    /**
+     * Lets the store with the given generation modify this object in place.
+     *
+     * @return this object
+     */
+    Obj setOwner(long generation) {
+        owner = generation;
+        return this;
+    }
+
     /**
      * Sets all properties to none and scope to empty.
      */
     private void setToNone() {
         checkWritable();
         default_nonarray_property = default_array_property = internal_prototype = internal_value = Value.makeNone();
-        properties = Collections.emptyMap();
+        properties = new PropertyMap();
         scope = null;
         scope_unknown = false;
         writable_properties = false;
@@ -148,7 +168,7 @@ public final class Obj {
      */
     private static Obj makeTheAbsentModified() {
         Obj obj = new Obj();
-        obj.properties = Collections.emptyMap();
+        obj.properties = new PropertyMap();
         obj.default_nonarray_property = obj.default_array_property = obj.internal_prototype = obj.internal_value = Value.makeAbsentModified();
         return obj;
     }
@@ -165,7 +185,7 @@ public final class Obj {
      */
     private static Obj makeTheNone() {
         Obj obj = new Obj();
-        obj.properties = Collections.emptyMap();
+        obj.properties = new PropertyMap();
         obj.default_nonarray_property = obj.default_array_property = obj.internal_prototype = obj.internal_value = Value.makeNone();
         return obj;
     }
@@ -182,7 +202,7 @@ public final class Obj {
      */
     private static Obj makeTheNoneModified() {
         Obj obj = new Obj();
-        obj.properties = Collections.emptyMap();
+        obj.properties = new PropertyMap();
         obj.default_nonarray_property = obj.default_array_property = obj.internal_prototype = obj.internal_value = Value.makeNoneModified();
         return obj;
     }
@@ -199,7 +219,7 @@ public final class Obj {
      */
     private static Obj makeTheUnknown() {
         Obj obj = new Obj();
-        obj.properties = Collections.emptyMap();
+        obj.properties = new PropertyMap();
         obj.default_array_property = obj.default_nonarray_property = obj.internal_prototype = obj.internal_value = Value.makeUnknown();
         obj.scope_unknown = true;
         return obj;
@@ -267,7 +287,7 @@ public final class Obj {
      */
     public Obj summarize(Summarized s) {
         Obj res = new Obj();
-        res.properties = newMap();
+        res.properties = new PropertyMap();
         for (Entry<String, Value> me : properties.entrySet())
             res.properties.put(me.getKey(), me.getValue().summarize(s));
         res.writable_properties = true;
@@ -285,7 +305,7 @@ public final class Obj {
      */
     public void replaceNonModifiedParts(Obj other) {
         checkWritable();
-        Map<String, Value> newproperties = newMap();
+        PropertyMap newproperties = new PropertyMap();
         for (Entry<String, Value> me : properties.entrySet()) {
             Value v = me.getValue();
             if (!v.isMaybeModified()) // property is definitely not modified, so replace it (don't consider the defaults here)
@@ -324,7 +344,7 @@ public final class Obj {
     private void makeWritableProperties() {
         if (writable_properties)
             return;
-        properties = newMap(properties);
+        properties = new PropertyMap(properties);
         writable_properties = true;
         number_of_makewritable_properties++;
     }
@@ -361,7 +381,7 @@ public final class Obj {
      */
     public void clearModified() {
         checkWritable();
-        Map<String, Value> new_properties = newMap();
+        PropertyMap new_properties = new PropertyMap();
         for (Entry<String, Value> me : properties.entrySet())
             new_properties.put(me.getKey(), me.getValue().restrictToNotModified());
         properties = new_properties;
@@ -410,12 +430,21 @@ public final class Obj {
         return properties;
     }
 
+    /**
+     * Checks whether this object and the given object have the same property names in the same order,
+     * without comparing the names.
+     * If false, the objects may still have the same property names.
+     */
+    public boolean hasSamePropertyNames(Obj x) {
+        return properties.hasSameShape(x.properties);
+    }
+
     /**
      * Sets the property map.
      */
     public void setProperties(Map<String, Value> properties) {
         checkWritable();
-        this.properties = properties;
+        this.properties = new PropertyMap(properties);
         writable_properties = true;
     }
 
@@ -530,7 +559,7 @@ public final class Obj {
      */
     public void replaceObjectLabel(ObjectLabel oldlabel, ObjectLabel newlabel, Map<ScopeChain, ScopeChain> cache) {
         checkWritable();
-        Map<String, Value> newproperties = newMap();
+        PropertyMap newproperties = new PropertyMap();
         for (Entry<String, Value> me : properties.entrySet())
             newproperties.put(me.getKey(), me.getValue().replaceObjectLabel(oldlabel, newlabel));
         properties = newproperties;
@@ -816,7 +845,7 @@ public final class Obj {
                 ObjectProperty.makeInternalValue(objlabel));
         internal_prototype = UnknownValueResolver.localize(internal_prototype, obj.internal_prototype, s,
                 ObjectProperty.makeInternalPrototype(objlabel));
-        Map<String, Value> new_properties = newMap();
+        PropertyMap new_properties = new PropertyMap();
         for (Entry<String, Value> me : properties.entrySet()) { // obj is writable, so materializations from defaults will appear here
             String propertyname = me.getKey();
             Value v = me.getValue();
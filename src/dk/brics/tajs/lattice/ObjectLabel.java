@@ -22,12 +22,70 @@ import dk.brics.tajs.flowgraph.SourceLocation;
 import dk.brics.tajs.options.OptionValues;
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.util.AnalysisException;
+import dk.brics.tajs.util.WeakInterner;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.TreeMap;
 
 /**
  * Label of abstract object.
  * Immutable.
  */
-public final class ObjectLabel implements Comparable<ObjectLabel> { // TODO: (#127) canonicalize?
+public final class ObjectLabel implements Comparable<ObjectLabel>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final WeakInterner<ObjectLabel> cache = new WeakInterner<>(new WeakInterner.Equivalence<ObjectLabel>() {
+        @Override
+        public int hash(ObjectLabel l) {
+            return l.hashcode;
+        }
+
+        @Override
+        public boolean equivalent(ObjectLabel l1, ObjectLabel l2) {
+            return l1.equalsStructurally(l2);
+        }
+    });
+
+    /**
+     * Table of pinned object labels, indexed by their IDs.
+     */
+    private static volatile ObjectLabel[] labels = new ObjectLabel[1024];
+
+    /**
+     * Released object labels, indexed by their IDs.
+     * An ID is recycled when its released object label has been garbage collected.
+     */
+    private static WeakReference<ObjectLabel>[] released = newReleasedTable(1024);
+
+    /**
+     * IDs that can be recycled.
+     */
+    private static final Deque<Integer> free_ids = new ArrayDeque<>();
+
+    /**
+     * Number of IDs that have been handed out.
+     */
+    private static int next_id;
+
+    /**
+     * Current pinning epoch.
+     */
+    private static volatile long epoch;
+
+    /**
+     * Number of running sessions, by the epoch they began in.
+     */
+    private static final TreeMap<Long, Integer> sessions = new TreeMap<>();
+
+    /**
+     * Runs before an ID is assigned on the current thread, see {@link #setIdAssignmentHook(Runnable)}.
+     */
+    private static final ThreadLocal<Runnable> id_assignment_hook = new ThreadLocal<>();
 
     /**
      * Source location used for host functions.
@@ -37,7 +95,7 @@ public final class ObjectLabel implements Comparable<ObjectLabel> { // TODO: (#1
     /**
      * Special object label for absent getter/setter.
      */
-    public static final ObjectLabel absent_accessor_function = new ObjectLabel(null, null, null, Kind.FUNCTION, null, false);
+    public static final ObjectLabel absent_accessor_function = make(null, null, null, Kind.FUNCTION, null, false);
 
     /**
      * Object kinds.
@@ -90,6 +148,16 @@ public final class ObjectLabel implements Comparable<ObjectLabel> { // TODO: (#1
      */
     private final int hashcode;
 
+    /**
+     * Dense ID of the canonical instance, -1 if not yet assigned.
+     */
+    private transient volatile int id = -1;
+
+    /**
+     * Epoch in which this object label was last pinned, -1 if never.
+     */
+    private transient volatile long pinned_epoch = -1;
+
     private ObjectLabel(HostObject hostobject, AbstractNode node, Function function, Kind kind, HeapContext heapContext, boolean singleton) {
         this.hostobject = hostobject;
         this.node = node;
@@ -113,48 +181,188 @@ public final class ObjectLabel implements Comparable<ObjectLabel> { // TODO: (#1
                 this.kind.ordinal() * 117; // avoids using enum hashcodes
     }
 
+    private static ObjectLabel make(HostObject hostobject, AbstractNode node, Function function, Kind kind, HeapContext heapContext, boolean singleton) {
+        return cache.intern(new ObjectLabel(hostobject, node, function, kind, heapContext, singleton));
+    }
+
+    /**
+     * Pins this canonical object label in the current epoch, and assigns it an ID if it does not have one.
+     * A pinned object label is kept alive by the label table, so its ID remains valid in the object label sets and maps
+     * that refer to it.
+     */
+    private void pin() {
+        if (id < 0) {
+            Runnable hook = id_assignment_hook.get();
+            if (hook != null)
+                hook.run();
+        }
+        synchronized (ObjectLabel.class) {
+            if (id < 0) {
+                Integer free = free_ids.poll();
+                if (free != null)
+                    id = free;
+                else {
+                    if (next_id == labels.length) {
+                        labels = Arrays.copyOf(labels, next_id * 2);
+                        released = Arrays.copyOf(released, next_id * 2);
+                    }
+                    id = next_id++;
+                }
+            }
+            ObjectLabel[] table = labels;
+            table[id] = this;
+            labels = table;
+            pinned_epoch = epoch;
+        }
+    }
+
+    /**
+     * Sets a hook that runs on the current thread before an ID is assigned to an object label, or removes it if null.
+     * The IDs determine the iteration order of object label sets, so a thread that runs ahead of its turn uses the hook
+     * to wait for its turn before assigning IDs.
+     */
+    public static void setIdAssignmentHook(Runnable hook) {
+        if (hook != null)
+            id_assignment_hook.set(hook);
+        else
+            id_assignment_hook.remove();
+    }
+
+    /**
+     * Marks the beginning of an analysis session.
+     * The object labels used by the session stay pinned until {@link #endSession(long)}.
+     *
+     * @return token for {@link #endSession(long)}
+     */
+    public static synchronized long beginSession() {
+        epoch++;
+        sessions.merge(epoch, 1, Integer::sum);
+        return epoch;
+    }
+
+    /**
+     * Marks the end of an analysis session, and releases the object labels that are not used by running sessions.
+     */
+    public static synchronized void endSession(long token) {
+        if (sessions.merge(token, -1, Integer::sum) == 0)
+            sessions.remove(token);
+        release();
+    }
+
+    /**
+     * Releases the object labels that are not used by running sessions.
+     * Their IDs are recycled once they have been garbage collected
+     * (object labels that are still in use are pinned again, with the same ID, when their ID is needed).
+     */
+    public static synchronized void reset() {
+        release();
+    }
+
+    private static void release() {
+        long oldest = sessions.isEmpty() ? Long.MAX_VALUE : sessions.firstKey();
+        ObjectLabel[] table = labels;
+        for (int i = 0; i < next_id; i++) {
+            ObjectLabel l = table[i];
+            if (l != null) {
+                if (l.pinned_epoch < oldest) {
+                    released[i] = new WeakReference<>(l);
+                    table[i] = null;
+                }
+            } else if (released[i] != null && released[i].get() == null) {
+                released[i] = null;
+                free_ids.add(i);
+            }
+        }
+        labels = table;
+        epoch++; // so that object labels in use are pinned again
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<ObjectLabel>[] newReleasedTable(int size) {
+        return (WeakReference<ObjectLabel>[]) new WeakReference<?>[size];
+    }
+
+    /**
+     * Returns the number of IDs that have been handed out, including those that can be recycled.
+     */
+    public static synchronized int getIdTableSize() {
+        return next_id;
+    }
+
+    /**
+     * Returns the dense ID of this object label, and pins it (see {@link #beginSession()}).
+     * IDs are assigned when first needed, starting from 0, and recycled after the object label has been garbage collected.
+     */
+    public int getId() {
+        if (pinned_epoch != epoch)
+            pin();
+        return id;
+    }
+
+    /**
+     * Returns the pinned object label with the given ID.
+     */
+    public static ObjectLabel getById(int id) {
+        return labels[id];
+    }
+
     /**
-     * Constructs a new object label for a user defined non-function object.
+     * Returns the canonical object label for a deserialized one.
+     * (The hash code depends on identity hash codes of flow graph objects, so it must be recomputed.)
      */
-    public ObjectLabel(AbstractNode n, Kind kind) {
-        this(null, n, null, kind, null, true);
+    private Object readResolve() {
+        return make(hostobject, node, function, kind, heapContext, singleton);
     }
 
     /**
-     * Constructs a new object label for a user defined non-function object.
+     * Returns the object label for a user defined non-function object.
+     */
+    public static ObjectLabel make(AbstractNode n, Kind kind) {
+        return make(null, n, null, kind, null, true);
+    }
+
+    /**
+     * Returns the object label for a user defined non-function object.
      * If {@link OptionValues#isRecencyDisabled()} is disabled, the object label
      * represents a single concrete object (otherwise, it may represent any
      * number of concrete objects).
      */
-    public ObjectLabel(AbstractNode n, Kind kind, HeapContext heapContext) {
-        this(null, n, null, kind, heapContext, true);
+    public static ObjectLabel make(AbstractNode n, Kind kind, HeapContext heapContext) {
+        return make(null, n, null, kind, heapContext, true);
     }
 
     /**
-     * Constructs a new object label for a user defined function object.
+     * Returns the object label for a user defined function object.
      */
-    public ObjectLabel(Function f) {
-        this(null, null, f, Kind.FUNCTION, null, true);
+    public static ObjectLabel make(Function f) {
+        return make(null, null, f, Kind.FUNCTION, null, true);
     }
 
     /**
-     * Constructs a new object label for a user defined function object.
+     * Returns the object label for a user defined function object.
      * If {@link OptionValues#isRecencyDisabled()} is disabled, the object label
      * represents a single concrete object (otherwise, it may represent any
      * number of concrete objects).
      */
-    public ObjectLabel(Function f, HeapContext heapContext) {
-        this(null, null, f, Kind.FUNCTION, heapContext, true);
+    public static ObjectLabel make(Function f, HeapContext heapContext) {
+        return make(null, null, f, Kind.FUNCTION, heapContext, true);
     }
 
     /**
-     * Constructs a new object label for a host object.
+     * Returns the object label for a host object.
      * If {@link OptionValues#isRecencyDisabled()} is disabled, the object label
      * represents a single concrete object (otherwise, it may represent any
      * number of concrete objects).
      */
-    public ObjectLabel(HostObject hostobject, Kind kind) {
-        this(hostobject, null, null, kind, null, true);
+    public static ObjectLabel make(HostObject hostobject, Kind kind) {
+        return make(hostobject, null, null, kind, null, true);
+    }
+
+    /**
+     * Returns the statistics of the canonicalization cache.
+     */
+    public static WeakInterner.Statistics getCacheStatistics() {
+        return cache.getStatistics();
     }
 
     /**
@@ -229,7 +437,7 @@ public final class ObjectLabel implements Comparable<ObjectLabel> { // TODO: (#1
     public ObjectLabel makeSummary() {
         if (!singleton && !Options.get().isRecencyDisabled())
             throw new AnalysisException("Attempt to obtain summary of non-singleton");
-        return new ObjectLabel(hostobject, node, function, kind, heapContext, false);
+        return make(hostobject, node, function, kind, heapContext, false);
     }
 
     /**
@@ -238,7 +446,7 @@ public final class ObjectLabel implements Comparable<ObjectLabel> { // TODO: (#1
     public ObjectLabel makeSingleton() {
         if (singleton)
             return this;
-        return new ObjectLabel(hostobject, node, function, kind, heapContext, true);
+        return make(hostobject, node, function, kind, heapContext, true);
     }
 
     /**
@@ -269,14 +477,16 @@ public final class ObjectLabel implements Comparable<ObjectLabel> { // TODO: (#1
 
     /**
      * Checks whether the given object label is equal to this one.
+     * Object labels are canonicalized, so this is object identity.
      */
     @Override
     public boolean equals(Object obj) {
-        if (obj == this)
+        return obj == this;
+    }
+
+    private boolean equalsStructurally(ObjectLabel x) {
+        if (x == this)
             return true;
-        if (!(obj instanceof ObjectLabel))
-            return false;
-        ObjectLabel x = (ObjectLabel) obj;
         if (this.hashcode != x.hashcode) {
             return false;
         }
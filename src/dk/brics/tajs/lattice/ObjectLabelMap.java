@@ -0,0 +1,373 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.lattice;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Map from object labels, backed by a sparse paged array indexed by the object label IDs (see {@link ObjectLabel#getId()}).
+ * <p>
+ * Each page holds the values of 64 consecutive IDs, and a presence bitmap has one word per page.
+ * Lookups and updates index directly into the pages without hashing.
+ * Copying copies only the page table: the pages are shared, and a subsequent update of either map
+ * copies the page being updated. Pages created or copied since the last copy are updated in place.
+ * {@link #forEachDifferentKey(ObjectLabelMap, Consumer)} compares two maps by visiting only the
+ * pages that are not shared.
+ * <p>
+ * Not thread-safe.
+ */
+public final class ObjectLabelMap<V> extends AbstractMap<ObjectLabel, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Object[][] NO_PAGES = new Object[0][];
+
+    private static final long[] NO_BITS = new long[0];
+
+    private static final boolean[] NO_FLAGS = new boolean[0];
+
+    /**
+     * Pages of values, indexed by ID / 64. A page is null if no key in its range is present.
+     */
+    private transient Object[][] pages;
+
+    /**
+     * Presence bitmap, one word per page.
+     */
+    private transient long[] present;
+
+    /**
+     * Pages that are not shared with other maps and may be updated in place.
+     */
+    private transient boolean[] owned;
+
+    private transient int size;
+
+    /**
+     * Constructs a new empty map.
+     */
+    public ObjectLabelMap() {
+        pages = NO_PAGES;
+        present = NO_BITS;
+        owned = NO_FLAGS;
+    }
+
+    /**
+     * Constructs a copy of the given map. The pages are shared until updated.
+     */
+    public ObjectLabelMap(ObjectLabelMap<V> m) {
+        pages = m.pages.clone();
+        present = m.present.clone();
+        owned = new boolean[pages.length];
+        size = m.size;
+        m.owned = new boolean[m.pages.length]; // the pages are now shared
+    }
+
+    /**
+     * Constructs a new map with the entries of the given map.
+     */
+    public ObjectLabelMap(Map<ObjectLabel, ? extends V> m) {
+        this();
+        putAll(m);
+    }
+
+    /**
+     * Writes the entries. (The IDs of the object labels may differ when read.)
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Entry<ObjectLabel, V> e : entrySet()) {
+            out.writeObject(e.getKey());
+            out.writeObject(e.getValue());
+        }
+    }
+
+    /**
+     * Reads the entries and rebuilds the pages.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        pages = NO_PAGES;
+        present = NO_BITS;
+        owned = NO_FLAGS;
+        int n = in.readInt();
+        for (int i = 0; i < n; i++)
+            put((ObjectLabel) in.readObject(), (V) in.readObject());
+    }
+
+    private boolean isPresent(int id) {
+        int p = id >>> 6;
+        return p < present.length && (present[p] & (1L << id)) != 0;
+    }
+
+    /**
+     * Returns the page with the given index, ready to be updated in place.
+     */
+    private Object[] writablePage(int p) {
+        if (p >= pages.length) {
+            int capacity = Math.max(p + 1, pages.length * 2);
+            pages = Arrays.copyOf(pages, capacity);
+            present = Arrays.copyOf(present, capacity);
+            owned = Arrays.copyOf(owned, capacity);
+        }
+        Object[] page = pages[p];
+        if (page == null) {
+            page = new Object[64];
+            pages[p] = page;
+            owned[p] = true;
+        } else if (!owned[p]) {
+            page = page.clone();
+            pages[p] = page;
+            owned[p] = true;
+        }
+        return page;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (!(key instanceof ObjectLabel))
+            return null;
+        int id = ((ObjectLabel) key).getId();
+        if (!isPresent(id))
+            return null;
+        return (V) pages[id >>> 6][id & 63];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof ObjectLabel && isPresent(((ObjectLabel) key).getId());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(ObjectLabel key, V value) {
+        int id = key.getId();
+        int p = id >>> 6;
+        Object[] page = writablePage(p);
+        V old = (V) page[id & 63];
+        page[id & 63] = value;
+        long bit = 1L << id;
+        if ((present[p] & bit) == 0) {
+            present[p] |= bit;
+            size++;
+        }
+        return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (!(key instanceof ObjectLabel))
+            return null;
+        int id = ((ObjectLabel) key).getId();
+        if (!isPresent(id))
+            return null;
+        int p = id >>> 6;
+        Object[] page = writablePage(p);
+        V old = (V) page[id & 63];
+        page[id & 63] = null;
+        present[p] &= ~(1L << id);
+        if (present[p] == 0)
+            pages[p] = null;
+        size--;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        pages = NO_PAGES;
+        present = NO_BITS;
+        owned = NO_FLAGS;
+        size = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super ObjectLabel, ? super V> action) {
+        for (int p = 0; p < present.length; p++) {
+            long bits = present[p];
+            while (bits != 0) {
+                int i = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                action.accept(ObjectLabel.getById((p << 6) | i), (V) pages[p][i]);
+            }
+        }
+    }
+
+    /**
+     * Calls the consumer with each key whose value is not the same object in this map and the given map
+     * (including keys that only one of the maps contains).
+     * Pages that are shared between the two maps are skipped without being visited.
+     * The consumer must not modify the maps.
+     */
+    public void forEachDifferentKey(ObjectLabelMap<V> other, Consumer<? super ObjectLabel> consumer) {
+        int n = Math.max(present.length, other.present.length);
+        for (int p = 0; p < n; p++) {
+            long bx = p < present.length ? present[p] : 0;
+            long by = p < other.present.length ? other.present[p] : 0;
+            Object[] x = bx != 0 ? pages[p] : null;
+            Object[] y = by != 0 ? other.pages[p] : null;
+            if (x == y && bx == by)
+                continue;
+            long bits = bx | by;
+            while (bits != 0) {
+                int i = Long.numberOfTrailingZeros(bits);
+                long bit = bits & -bits;
+                bits ^= bit;
+                if ((bx & by & bit) == 0 || x[i] != y[i])
+                    consumer.accept(ObjectLabel.getById((p << 6) | i));
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<ObjectLabel, V>> entrySet() {
+        return new AbstractSet<Entry<ObjectLabel, V>>() {
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<ObjectLabel, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry))
+                    return false;
+                Entry<?, ?> e = (Entry<?, ?>) o;
+                if (!containsKey(e.getKey()))
+                    return false;
+                Object v = get(e.getKey());
+                return v == null ? e.getValue() == null : v.equals(e.getValue());
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<ObjectLabel, V>> {
+
+        private int p = -1; // index of the current page
+
+        private long remaining;
+
+        private ObjectLabel last;
+
+        @Override
+        public boolean hasNext() {
+            while (remaining == 0) {
+                if (p + 1 >= present.length)
+                    return false;
+                p++;
+                remaining = present[p];
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<ObjectLabel, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int i = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            last = ObjectLabel.getById((p << 6) | i);
+            return new MapEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            ObjectLabelMap.this.remove(last);
+            last = null;
+        }
+    }
+
+    /**
+     * Map entry that reads and writes through to the map.
+     */
+    private final class MapEntry implements Entry<ObjectLabel, V> {
+
+        private final ObjectLabel key;
+
+        private MapEntry(ObjectLabel key) {
+            this.key = key;
+        }
+
+        @Override
+        public ObjectLabel getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return get(key);
+        }
+
+        @Override
+        public V setValue(V value) {
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            V v = getValue();
+            return key.equals(e.getKey()) && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            V v = getValue();
+            return key.hashCode() ^ (v == null ? 0 : v.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.lattice;
+
+import dk.brics.tajs.options.Options;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static dk.brics.tajs.util.Collections.newList;
+
+/**
+ * Set of object labels, represented as a compressed bitset over the object label IDs (see {@link ObjectLabel#getId()}).
+ * <p>
+ * Only the non-zero 64-bit words of the bitset are stored, as two parallel arrays sorted by word index.
+ * Union, intersection, difference, subset and equality checks with other object label sets
+ * are merges over these arrays, one word at a time.
+ * Iteration is in ID order.
+ */
+public final class ObjectLabelSet extends AbstractSet<ObjectLabel> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int[] NO_KEYS = new int[0];
+
+    private static final long[] NO_WORDS = new long[0];
+
+    /**
+     * Word indices (ID / 64) of the non-zero words, in increasing order.
+     */
+    private transient int[] keys;
+
+    /**
+     * The non-zero words.
+     */
+    private transient long[] words;
+
+    /**
+     * Number of non-zero words.
+     */
+    private transient int n;
+
+    /**
+     * Number of object labels.
+     */
+    private transient int size;
+
+    /**
+     * Cached hash code, valid if <code>hash_valid</code> is set.
+     */
+    private transient int hash;
+
+    private transient volatile boolean hash_valid; // volatile, as sets are shared by threads that compute the hash code lazily
+
+    /**
+     * Constructs a new empty set.
+     */
+    public ObjectLabelSet() {
+        keys = NO_KEYS;
+        words = NO_WORDS;
+    }
+
+    /**
+     * Constructs a new set containing the given object labels.
+     */
+    public ObjectLabelSet(Collection<ObjectLabel> c) {
+        if (c instanceof ObjectLabelSet) {
+            ObjectLabelSet s = (ObjectLabelSet) c;
+            keys = Arrays.copyOf(s.keys, s.n);
+            words = Arrays.copyOf(s.words, s.n);
+            n = s.n;
+            size = s.size;
+            boolean valid = s.hash_valid; // read before the hash code
+            hash = s.hash;
+            hash_valid = valid;
+        } else {
+            keys = NO_KEYS;
+            words = NO_WORDS;
+            for (ObjectLabel l : c)
+                add(l);
+        }
+    }
+
+    /**
+     * Returns the given set if it is an object label set, and otherwise a new object label set with the same elements.
+     * Returns null if the given set is null.
+     */
+    public static ObjectLabelSet of(Collection<ObjectLabel> c) {
+        if (c == null || c instanceof ObjectLabelSet)
+            return (ObjectLabelSet) c;
+        return new ObjectLabelSet(c);
+    }
+
+    private int find(int key) {
+        if (n <= 8) {
+            for (int i = 0; i < n; i++) {
+                if (keys[i] >= key)
+                    return keys[i] == key ? i : -(i + 1);
+            }
+            return -(n + 1);
+        }
+        return Arrays.binarySearch(keys, 0, n, key);
+    }
+
+    private void changed() {
+        hash_valid = false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof ObjectLabel))
+            return false;
+        int id = ((ObjectLabel) o).getId();
+        int i = find(id >>> 6);
+        return i >= 0 && (words[i] & (1L << id)) != 0;
+    }
+
+    @Override
+    public boolean add(ObjectLabel l) {
+        int id = l.getId();
+        int key = id >>> 6;
+        long bit = 1L << id;
+        int i = find(key);
+        if (i >= 0) {
+            if ((words[i] & bit) != 0)
+                return false;
+            words[i] |= bit;
+        } else {
+            i = -(i + 1);
+            if (n == keys.length) {
+                int capacity = Math.max(2, n * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                words = Arrays.copyOf(words, capacity);
+            }
+            System.arraycopy(keys, i, keys, i + 1, n - i);
+            System.arraycopy(words, i, words, i + 1, n - i);
+            keys[i] = key;
+            words[i] = bit;
+            n++;
+        }
+        size++;
+        changed();
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof ObjectLabel))
+            return false;
+        int id = ((ObjectLabel) o).getId();
+        int i = find(id >>> 6);
+        long bit = 1L << id;
+        if (i < 0 || (words[i] & bit) == 0)
+            return false;
+        words[i] &= ~bit;
+        if (words[i] == 0) {
+            System.arraycopy(keys, i + 1, keys, i, n - i - 1);
+            System.arraycopy(words, i + 1, words, i, n - i - 1);
+            n--;
+        }
+        size--;
+        changed();
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        keys = NO_KEYS;
+        words = NO_WORDS;
+        n = 0;
+        size = 0;
+        changed();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends ObjectLabel> c) {
+        if (!(c instanceof ObjectLabelSet))
+            return super.addAll(c);
+        ObjectLabelSet s = (ObjectLabelSet) c;
+        if (s.n == 0 || containsAll(s))
+            return false;
+        int[] new_keys = new int[n + s.n];
+        long[] new_words = new long[n + s.n];
+        int i = 0, j = 0, k = 0, new_size = 0;
+        while (i < n || j < s.n) {
+            long w;
+            if (j == s.n || (i < n && keys[i] < s.keys[j])) {
+                new_keys[k] = keys[i];
+                w = words[i++];
+            } else if (i == n || s.keys[j] < keys[i]) {
+                new_keys[k] = s.keys[j];
+                w = s.words[j++];
+            } else {
+                new_keys[k] = keys[i];
+                w = words[i++] | s.words[j++];
+            }
+            new_words[k++] = w;
+            new_size += Long.bitCount(w);
+        }
+        keys = new_keys;
+        words = new_words;
+        n = k;
+        size = new_size;
+        changed();
+        return true;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (!(c instanceof ObjectLabelSet))
+            return super.containsAll(c);
+        ObjectLabelSet s = (ObjectLabelSet) c;
+        if (s.size > size)
+            return false;
+        int i = 0;
+        for (int j = 0; j < s.n; j++) {
+            int key = s.keys[j];
+            while (i < n && keys[i] < key)
+                i++;
+            if (i == n || keys[i] != key || (s.words[j] & ~words[i]) != 0)
+                return false;
+            i++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (!(c instanceof ObjectLabelSet))
+            return super.retainAll(c);
+        ObjectLabelSet s = (ObjectLabelSet) c;
+        int j = 0, k = 0, new_size = 0;
+        for (int i = 0; i < n; i++) {
+            int key = keys[i];
+            while (j < s.n && s.keys[j] < key)
+                j++;
+            long w = j < s.n && s.keys[j] == key ? words[i] & s.words[j] : 0;
+            if (w != 0) {
+                keys[k] = key;
+                words[k++] = w;
+                new_size += Long.bitCount(w);
+            }
+        }
+        return compacted(k, new_size);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (!(c instanceof ObjectLabelSet))
+            return super.removeAll(c);
+        ObjectLabelSet s = (ObjectLabelSet) c;
+        int j = 0, k = 0, new_size = 0;
+        for (int i = 0; i < n; i++) {
+            int key = keys[i];
+            while (j < s.n && s.keys[j] < key)
+                j++;
+            long w = j < s.n && s.keys[j] == key ? words[i] & ~s.words[j] : words[i];
+            if (w != 0) {
+                keys[k] = key;
+                words[k++] = w;
+                new_size += Long.bitCount(w);
+            }
+        }
+        return compacted(k, new_size);
+    }
+
+    private boolean compacted(int new_n, int new_size) {
+        n = new_n;
+        if (new_size == size)
+            return false;
+        size = new_size;
+        changed();
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof ObjectLabelSet))
+            return super.equals(o);
+        ObjectLabelSet s = (ObjectLabelSet) o;
+        if (size != s.size || n != s.n || (hash_valid && s.hash_valid && hash != s.hash))
+            return false;
+        for (int i = 0; i < n; i++)
+            if (keys[i] != s.keys[i] || words[i] != s.words[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the hash code, as defined by {@link java.util.Set#hashCode()}.
+     */
+    @Override
+    public int hashCode() {
+        if (!hash_valid) {
+            int h = 0;
+            for (ObjectLabel l : this)
+                h += l.hashCode();
+            hash = h;
+            hash_valid = true;
+        }
+        return hash;
+    }
+
+    @Override
+    public Iterator<ObjectLabel> iterator() {
+        return new Iterator<ObjectLabel>() {
+
+            private int i = -1; // index of the current word
+
+            private int key;
+
+            private long remaining;
+
+            private ObjectLabel last;
+
+            @Override
+            public boolean hasNext() {
+                while (remaining == 0) {
+                    if (i + 1 >= n)
+                        return false;
+                    i++;
+                    key = keys[i];
+                    remaining = words[i];
+                }
+                return true;
+            }
+
+            @Override
+            public ObjectLabel next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                int bit = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                last = ObjectLabel.getById((key << 6) | bit);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null)
+                    throw new IllegalStateException();
+                ObjectLabelSet.this.remove(last);
+                last = null;
+                if (i >= n || keys[i] != key)
+                    i--; // the current word has been removed
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        if (Options.get().isTestEnabled()) {
+            // sorting make expected output tests more robust to iteration orders (see Collections.newSet)
+            List<ObjectLabel> sorted = newList(this);
+            sorted.sort((o1, o2) -> o2.toString().compareTo(o1.toString()));
+            return sorted.toString();
+        }
+        return super.toString();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (ObjectLabel l : this)
+            out.writeObject(l);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        keys = NO_KEYS;
+        words = NO_WORDS;
+        int count = in.readInt();
+        for (int i = 0; i < count; i++)
+            add((ObjectLabel) in.readObject()); // object labels are canonicalized when read, so IDs are those of this run
+    }
+}
@@ -18,11 +18,15 @@ package dk.brics.tajs.lattice;
 
 import dk.brics.tajs.util.AnalysisException;
 
+import java.io.Serializable;
+
 /**
  * Pair of an {@link ObjectLabel} and a {@link Property}.
  * Immutable.
  */
-public class ObjectProperty {
+public class ObjectProperty implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private ObjectLabel objlabel;
 
@@ -39,6 +43,13 @@ public class ObjectProperty {
         hashcode = (objlabel != null ? objlabel.hashCode() * 13 : 0) + (property != null ? property.hashCode() * 31 : 0);
     }
 
+    /**
+     * Returns a copy of a deserialized ObjectProperty, with the hash code recomputed.
+     */
+    private Object readResolve() {
+        return new ObjectProperty(objlabel, property);
+    }
+
     /**
      * Constructs an ObjectProperty for an ordinary property.
      */
@@ -19,11 +19,15 @@ package dk.brics.tajs.lattice;
 import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Strings;
 
+import java.io.Serializable;
+
 /**
  * An object property.
  * Immutable.
  */
-public class Property {
+public class Property implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     public static final String __PROTO__ = "__proto__";
 
@@ -61,6 +65,26 @@ public class Property {
         hashcode = kind.hashCode() * 5 + (propertyname != null ? propertyname.hashCode() * 31 : 0);
     }
 
+    /**
+     * Returns a copy of a deserialized property, with the hash code recomputed.
+     */
+    private Object readResolve() {
+        switch (kind) {
+            case ORDINARY:
+                return new Property(kind, propertyname);
+            case DEFAULT_ARRAY:
+                return theDefaultArrayProperty;
+            case DEFAULT_NONARRAY:
+                return theDefaultNonArrayProperty;
+            case INTERNAL_VALUE:
+                return theInternalValueProperty;
+            case INTERNAL_PROTOTYPE:
+                return theInternalPrototypeProperty;
+            default:
+                return theInternalScopeProperty;
+        }
+    }
+
     /**
      * Constructs an ordinary property.
      */
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.lattice;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Property map of an abstract object, represented as a shared shape and an array of values.
+ * <p>
+ * A shape is the sequence of property names in insertion order. Shapes are shared by all maps
+ * that got their properties in the same order, so maps with the same shape can be compared and
+ * joined slot by slot without looking up the names.
+ * Maps with more than {@link #MAX_SHAPE_SIZE} properties (typically arrays with many index properties)
+ * switch to an ordinary map, and so do maps where a property other than the last one is removed
+ * (rebuilding the shape would add a new chain of shapes for every such removal).
+ * Shapes are only kept alive by the maps that use them and by their extensions.
+ * <p>
+ * Iteration is in insertion order, also for maps that have switched to an ordinary map;
+ * updating the value of an existing property does not change the order.
+ * Not thread-safe, but shapes may be shared between threads.
+ */
+public final class PropertyMap extends AbstractMap<String, Value> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum number of properties in a shape.
+     */
+    private static final int MAX_SHAPE_SIZE = 64;
+
+    private static final Value[] NO_SLOTS = new Value[0];
+
+    /**
+     * Shape of the map, null if the map uses <code>dictionary</code>.
+     */
+    private transient Shape shape;
+
+    /**
+     * Values, at the indices of the property names in the shape. May be longer than the shape.
+     */
+    private transient Value[] slots;
+
+    /**
+     * Ordinary map used when the map has too many properties for a shape, otherwise null.
+     */
+    private transient Map<String, Value> dictionary;
+
+    /**
+     * Constructs a new empty property map.
+     */
+    public PropertyMap() {
+        shape = Shape.EMPTY;
+        slots = NO_SLOTS;
+    }
+
+    /**
+     * Constructs a new property map with the entries of the given map.
+     * If the given map is a property map, the shape is shared.
+     */
+    public PropertyMap(Map<String, Value> m) {
+        if (m instanceof PropertyMap) {
+            PropertyMap p = (PropertyMap) m;
+            shape = p.shape;
+            if (p.dictionary != null)
+                dictionary = new LinkedHashMap<>(p.dictionary);
+            else
+                slots = Arrays.copyOf(p.slots, p.shape.size());
+        } else {
+            shape = Shape.EMPTY;
+            slots = NO_SLOTS;
+            putAll(m);
+        }
+    }
+
+    /**
+     * Checks whether this map and the given map have the same property names in the same order,
+     * without comparing the names.
+     * If false, the maps may still have the same property names.
+     */
+    public boolean hasSameShape(PropertyMap m) {
+        return shape != null && shape == m.shape;
+    }
+
+    private void toDictionary() {
+        Map<String, Value> d = new LinkedHashMap<>();
+        for (int i = 0; i < shape.size(); i++)
+            d.put(shape.names[i], slots[i]);
+        dictionary = d;
+        shape = null;
+        slots = null;
+    }
+
+    @Override
+    public int size() {
+        return dictionary != null ? dictionary.size() : shape.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Value get(Object key) {
+        if (dictionary != null)
+            return dictionary.get(key);
+        if (!(key instanceof String))
+            return null;
+        int i = shape.indexOf((String) key);
+        return i >= 0 ? slots[i] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (dictionary != null)
+            return dictionary.containsKey(key);
+        return key instanceof String && shape.indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public Value put(String key, Value value) {
+        if (dictionary != null)
+            return dictionary.put(key, value);
+        int i = shape.indexOf(key);
+        if (i >= 0) {
+            Value old = slots[i];
+            slots[i] = value;
+            return old;
+        }
+        if (shape.size() == MAX_SHAPE_SIZE) {
+            toDictionary();
+            return dictionary.put(key, value);
+        }
+        i = shape.size();
+        shape = shape.with(key);
+        if (i == slots.length)
+            slots = Arrays.copyOf(slots, Math.max(4, i * 2));
+        slots[i] = value;
+        return null;
+    }
+
+    @Override
+    public Value remove(Object key) {
+        if (dictionary != null)
+            return dictionary.remove(key);
+        if (!(key instanceof String))
+            return null;
+        int i = shape.indexOf((String) key);
+        if (i < 0)
+            return null;
+        if (i < shape.size() - 1) {
+            toDictionary();
+            return dictionary.remove(key);
+        }
+        Value old = slots[i];
+        slots[i] = null;
+        shape = shape.parent;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        shape = Shape.EMPTY;
+        slots = NO_SLOTS;
+        dictionary = null;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Value> action) {
+        if (dictionary != null) {
+            dictionary.forEach(action);
+            return;
+        }
+        for (int i = 0; i < shape.size(); i++)
+            action.accept(shape.names[i], slots[i]);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (o instanceof PropertyMap && hasSameShape((PropertyMap) o)) {
+            Value[] other_slots = ((PropertyMap) o).slots;
+            for (int i = 0; i < shape.size(); i++)
+                if (slots[i] == null ? other_slots[i] != null : !slots[i].equals(other_slots[i]))
+                    return false;
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * Returns the hash code, as defined by {@link java.util.Map#hashCode()}.
+     */
+    @Override
+    public int hashCode() {
+        if (dictionary != null)
+            return dictionary.hashCode();
+        int h = 0;
+        for (int i = 0; i < shape.size(); i++)
+            h += shape.hashes[i] ^ (slots[i] == null ? 0 : slots[i].hashCode());
+        return h;
+    }
+
+    @Override
+    public Set<Entry<String, Value>> entrySet() {
+        if (dictionary != null)
+            return dictionary.entrySet();
+        return new AbstractSet<Entry<String, Value>>() {
+
+            @Override
+            public int size() {
+                return PropertyMap.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<String, Value>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    /**
+     * Iterator over the property names of the shape at the time the iterator was created,
+     * so it can proceed if removing an entry switches the map to an ordinary map.
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Value>> {
+
+        private final Shape s = shape;
+
+        private int next; // index of the next entry
+
+        private String last;
+
+        @Override
+        public boolean hasNext() {
+            return next < s.size();
+        }
+
+        @Override
+        public Entry<String, Value> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = s.names[next++];
+            return new MapEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            PropertyMap.this.remove(last);
+            last = null;
+        }
+    }
+
+    /**
+     * Map entry that reads and writes through to the map.
+     */
+    private final class MapEntry implements Entry<String, Value> {
+
+        private final String key;
+
+        private MapEntry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Value getValue() {
+            return get(key);
+        }
+
+        @Override
+        public Value setValue(Value value) {
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Value v = getValue();
+            return key.equals(e.getKey()) && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Value v = getValue();
+            return key.hashCode() ^ (v == null ? 0 : v.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    /**
+     * Writes the entries. (Shapes are shared per run, so they are rebuilt when read.)
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size());
+        for (Entry<String, Value> e : entrySet()) {
+            out.writeObject(e.getKey());
+            out.writeObject(e.getValue());
+        }
+    }
+
+    /**
+     * Reads the entries and rebuilds the shape.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        shape = Shape.EMPTY;
+        slots = NO_SLOTS;
+        int n = in.readInt();
+        for (int i = 0; i < n; i++)
+            put((String) in.readObject(), (Value) in.readObject());
+    }
+
+    /**
+     * Sequence of property names.
+     * Shapes form a tree of transitions from the empty shape, so two shapes are equal if and only if they are identical.
+     * A shape refers to its parent, and the transitions refer weakly to the extensions,
+     * so unused extensions can be garbage collected while the tree stays canonical.
+     */
+    private static final class Shape {
+
+        private static final Shape EMPTY = new Shape(null, new String[0]);
+
+        /**
+         * Extensions that have been garbage collected, to be removed from the transitions of their parents.
+         */
+        private static final ReferenceQueue<Shape> collected = new ReferenceQueue<>();
+
+        private final Shape parent;
+
+        private final String[] names;
+
+        private final int[] hashes;
+
+        /**
+         * Shapes obtained by adding a property name to this shape.
+         */
+        private final ConcurrentMap<String, Transition> transitions = new ConcurrentHashMap<>();
+
+        private Shape(Shape parent, String[] names) {
+            this.parent = parent;
+            this.names = names;
+            hashes = new int[names.length];
+            for (int i = 0; i < names.length; i++)
+                hashes[i] = names[i].hashCode();
+        }
+
+        private int size() {
+            return names.length;
+        }
+
+        /**
+         * Returns the index of the given property name, or -1 if absent.
+         */
+        private int indexOf(String name) {
+            int h = name.hashCode();
+            for (int i = 0; i < names.length; i++)
+                if (hashes[i] == h && names[i].equals(name))
+                    return i;
+            return -1;
+        }
+
+        /**
+         * Returns the shape with the given property name added at the end.
+         */
+        private Shape with(String name) {
+            Transition t = transitions.get(name);
+            Shape s = t != null ? t.get() : null;
+            if (s != null)
+                return s;
+            expungeCollected();
+            Shape[] res = new Shape[1];
+            transitions.compute(name, (n, old) -> {
+                Shape x = old != null ? old.get() : null;
+                if (x == null) {
+                    String[] new_names = Arrays.copyOf(names, names.length + 1);
+                    new_names[names.length] = n;
+                    x = new Shape(this, new_names);
+                    old = new Transition(this, n, x);
+                }
+                res[0] = x;
+                return old;
+            });
+            return res[0];
+        }
+
+        private static void expungeCollected() {
+            Transition t;
+            while ((t = (Transition) collected.poll()) != null)
+                t.from.transitions.remove(t.name, t);
+        }
+    }
+
+    /**
+     * Weak reference from a shape to an extension.
+     */
+    private static final class Transition extends WeakReference<Shape> {
+
+        private final Shape from;
+
+        private final String name;
+
+        private Transition(Shape from, String name, Shape to) {
+            super(to, Shape.collected);
+            this.from = from;
+            this.name = name;
+        }
+    }
+}
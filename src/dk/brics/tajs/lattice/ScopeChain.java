@@ -17,12 +17,12 @@
 package dk.brics.tajs.lattice;
 
 import dk.brics.tajs.util.Collections;
+import dk.brics.tajs.util.WeakInterner;
 
-import java.lang.ref.WeakReference;
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import static dk.brics.tajs.util.Collections.newSet;
 
@@ -30,19 +30,17 @@ import static dk.brics.tajs.util.Collections.newSet;
  * Abstract scope chain.
  * Immutable.
  */
-public final class ScopeChain {
+public final class ScopeChain implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Set<ObjectLabel> obj; // TODO: canonicalize? (#140)
 
     private ScopeChain next;
 
-    private int hashcode;
-
-    private static Map<ScopeChain, WeakReference<ScopeChain>> cache = new WeakHashMap<>();
+    private transient int hashcode; // 0 means uninitialized
 
-    private static int cache_hits;
-
-    private static int cache_misses;
+    private static final WeakInterner<ScopeChain> cache = new WeakInterner<>(WeakInterner.equalsEquivalence());
 
     /**
      * Clears the canonicalization cache.
@@ -61,23 +59,28 @@ public final class ScopeChain {
     /**
      * Returns the number of cache misses.
      */
-    public static int getNumberOfCacheMisses() {
-        return cache_misses;
+    public static long getNumberOfCacheMisses() {
+        return cache.getMisses();
     }
 
     /**
      * Returns the number of cache hits.
      */
-    public static int getNumberOfCacheHits() {
-        return cache_hits;
+    public static long getNumberOfCacheHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Returns the cache statistics.
+     */
+    public static WeakInterner.Statistics getCacheStatistics() {
+        return cache.getStatistics();
     }
 
     /**
      * Resets the cache numbers.
      */
     public static void reset() {
-        cache_hits = 0;
-        cache_misses = 0;
         clearCache();
     }
 
@@ -105,16 +108,14 @@ public final class ScopeChain {
     }
 
     private static ScopeChain canonicalize(ScopeChain e) {
-        WeakReference<ScopeChain> ref = cache.get(e);
-        ScopeChain c = ref != null ? ref.get() : null;
-        if (c == null) {
-            cache.put(e, new WeakReference<>(e));
-            cache_misses++;
-        } else {
-            e = c;
-            cache_hits++;
-        }
-        return e;
+        return cache.intern(e);
+    }
+
+    /**
+     * Returns the canonical scope chain for a deserialized one.
+     */
+    private Object readResolve() {
+        return canonicalize(this);
     }
 
     /**
@@ -267,12 +268,14 @@ public final class ScopeChain {
      */
     @Override
     public int hashCode() {
-        if (hashcode == 0) {
-            hashcode = obj.hashCode() * 17 + (next != null ? next.hashCode() : 0) * 3;
-            if (hashcode == 0)
-                hashcode = 1;
+        int h = hashcode; // read once, as scope chains are shared by threads that compute the hash code lazily
+        if (h == 0) {
+            h = obj.hashCode() * 17 + (next != null ? next.hashCode() : 0) * 3;
+            if (h == 0)
+                h = 1;
+            hashcode = h;
         }
-        return hashcode;
+        return h;
     }
 
     /**
@@ -22,12 +22,17 @@ import dk.brics.tajs.lattice.ObjectLabel.Kind;
 import dk.brics.tajs.options.OptionValues;
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.solver.BlockAndContext;
+import dk.brics.tajs.solver.Checkpoint;
 import dk.brics.tajs.solver.GenericSolver;
 import dk.brics.tajs.solver.IState;
 import dk.brics.tajs.util.AnalysisException;
+import dk.brics.tajs.util.PersistentHashMap;
 import dk.brics.tajs.util.Strings;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -39,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -52,12 +58,13 @@ import static dk.brics.tajs.util.Collections.sortedEntries;
  * Abstract state for block entries.
  * Mutable.
  */
-public class State implements IState<State, Context, CallEdge> {
+public class State implements IState<State, Context, CallEdge>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
-    public static Set<Obj> objSet = newSet();
     private static Logger log = Logger.getLogger(State.class);
 
-    private GenericSolver<State, Context, CallEdge, ?, ?>.SolverInterface c;
+    private transient GenericSolver<State, Context, CallEdge, ?, ?>.SolverInterface c; // restored from the checkpoint when deserialized
 
     /**
      * The basic block owning this state.
@@ -78,6 +85,14 @@ public class State implements IState<State, Context, CallEdge> {
 
     private boolean writable_store; // for copy-on-write
 
+    /**
+     * Generation of the store, for persistent and paged stores. Only objects owned by this generation are modified
+     * in place, other objects are copied first. Both states get a new generation when a state is cloned,
+     * so the objects that become shared are effectively frozen without visiting them.
+     * With the default store, the shared objects are frozen when a state is cloned.
+     */
+    private transient long store_generation = nextStoreGeneration(); // renewed when deserialized
+
     /**
      * Reusable immutable part of the store.
      * Entries may be overridden by 'store'.
@@ -119,6 +134,8 @@ public class State implements IState<State, Context, CallEdge> {
 
     private static int number_of_makewritable_registers; // TODO: currently not used
 
+    private static final AtomicLong store_generations = new AtomicLong();
+
     /**
      * Constructs a new none-state (representing the empty set of concrete states).
      */
@@ -142,9 +159,16 @@ public class State implements IState<State, Context, CallEdge> {
         store_default = x.store_default.freeze();
         extras = new StateExtras(x.extras);
 //        if (Options.get().isCopyOnWriteDisabled()) {
-        store = newMap();
-        for (Map.Entry<ObjectLabel, Obj> xs : x.store.entrySet())
-            store.put(xs.getKey(), xs.getValue().freeze());
+        if (isGenerationalStore(x.store)) {
+            store = newStore(x.store);
+            x.store_generation = nextStoreGeneration(); // the objects of x are now shared
+            if (Options.get().isDebugOrTestEnabled())
+                x.store.forEach((objlabel, obj) -> obj.freeze()); // so that Obj.checkWritable catches writes to shared objects
+        } else {
+            store = newStore();
+            for (Map.Entry<ObjectLabel, Obj> xs : x.store.entrySet())
+                store.put(xs.getKey(), xs.getValue().freeze());
+        }
         basis_store = x.basis_store;
         writable_store = true;
         execution_context = x.execution_context.clone();
@@ -166,6 +190,17 @@ public class State implements IState<State, Context, CallEdge> {
         number_of_states_created++;
     }
 
+    /**
+     * Reads a state from a checkpoint, and attaches it to the solver that resumes from the checkpoint.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        store_generation = nextStoreGeneration();
+        if (in instanceof Checkpoint.Input)
+            c = (GenericSolver<State, Context, CallEdge, ?, ?>.SolverInterface) ((Checkpoint.Input) in).getSolverInterface();
+    }
+
     /**
      * Constructs a new state as a copy of this state.
      */
@@ -241,7 +276,7 @@ public class State implements IState<State, Context, CallEdge> {
      */
     public void putObject(ObjectLabel objlabel, Obj obj) {
         makeWritableStore();
-        store.put(objlabel, obj);
+        store.put(objlabel, obj); // not owned, as obj may also be in other stores
     }
 
     /**
@@ -259,9 +294,9 @@ public class State implements IState<State, Context, CallEdge> {
         if (writable)
             makeWritableStore();
         Obj obj = store.get(objlabel);
-        if (obj != null && writable && !obj.isWritable()) {
+        if (obj != null && writable && !isWritableObject(obj)) {
             // object exists but isn't yet writable, make it writable
-            obj = new Obj(obj);
+            obj = new Obj(obj).setOwner(store_generation);
             store.put(objlabel, obj);
             if (log.isDebugEnabled())
                 log.debug("making writable object from store: " + objlabel);
@@ -270,7 +305,7 @@ public class State implements IState<State, Context, CallEdge> {
             // check the basis_store
             obj = basis_store.get(objlabel);
             if (obj != null && writable) {
-                obj = new Obj(obj);
+                obj = new Obj(obj).setOwner(store_generation);
                 store.put(objlabel, obj);
                 if (log.isDebugEnabled())
                     log.debug("making writable object from basis store: " + objlabel);
@@ -280,7 +315,7 @@ public class State implements IState<State, Context, CallEdge> {
             // take the default
             obj = store_default;
             if (writable) {
-                obj = new Obj(obj);
+                obj = new Obj(obj).setOwner(store_generation);
                 store.put(objlabel, obj);
                 if (log.isDebugEnabled())
                     log.debug("making writable object from store default: " + objlabel);
@@ -289,6 +324,26 @@ public class State implements IState<State, Context, CallEdge> {
         return obj;
     }
 
+    /**
+     * Checks whether the given object of this store may be modified in place.
+     */
+    boolean isWritableObject(Obj obj) {
+        if (isGenerationalStore(store))
+            return obj.isOwnedBy(store_generation);
+        return obj.isWritable();
+    }
+
+    /**
+     * Checks whether objects of the given store are shared by generation rather than by freezing them.
+     */
+    private static boolean isGenerationalStore(Map<ObjectLabel, Obj> m) {
+        return m instanceof PersistentHashMap || m instanceof ObjectLabelMap;
+    }
+
+    private static long nextStoreGeneration() {
+        return store_generations.incrementAndGet();
+    }
+
     /**
      * Returns the store default object.
      */
@@ -336,7 +391,7 @@ public class State implements IState<State, Context, CallEdge> {
     public void freezeBasisStore() {
         if (Options.get().isLazyDisabled()) {
             basis_store = store;
-            store = newMap();
+            store = newStore();
             writable_store = true;
             log.debug("freezeBasisStore()");
         }
@@ -348,11 +403,38 @@ public class State implements IState<State, Context, CallEdge> {
     public void makeWritableStore() {
         if (writable_store)
             return;
-        store = newMap(store);
+        store = newStore(store);
         writable_store = true;
         number_of_makewritable_store++;
     }
 
+    /**
+     * Makes a new empty store map.
+     */
+    private static Map<ObjectLabel, Obj> newStore() {
+        if (Options.get().isPersistentStoreEnabled())
+            return new PersistentHashMap<>();
+        if (Options.get().isPagedStoreEnabled())
+            return new ObjectLabelMap<>();
+        return newMap();
+    }
+
+    /**
+     * Makes a new store map with the contents of the given store map.
+     * For persistent stores, this takes constant time, and for paged stores, time linear in the number of pages.
+     */
+    private static Map<ObjectLabel, Obj> newStore(Map<ObjectLabel, Obj> m) {
+        if (m instanceof PersistentHashMap)
+            return new PersistentHashMap<>((PersistentHashMap<ObjectLabel, Obj>) m);
+        if (m instanceof ObjectLabelMap)
+            return new ObjectLabelMap<>((ObjectLabelMap<Obj>) m);
+        if (Options.get().isPersistentStoreEnabled())
+            return new PersistentHashMap<>(m);
+        if (Options.get().isPagedStoreEnabled())
+            return new ObjectLabelMap<>(m);
+        return newMap(m);
+    }
+
     /**
      * Makes execution_context writable (for copy-on-write).
      */
@@ -430,7 +512,7 @@ public class State implements IState<State, Context, CallEdge> {
      * Ignores the basis store.
      */
     private void clearModified() {
-        Map<ObjectLabel, Obj> new_store = newMap();
+        Map<ObjectLabel, Obj> new_store = newStore();
         for (Map.Entry<ObjectLabel, Obj> xs : store.entrySet()) {
             Obj obj = xs.getValue();
             if (obj.isSomeModified()) {
@@ -454,7 +536,7 @@ public class State implements IState<State, Context, CallEdge> {
         summarized.clear();
         extras.setToNone();
 //        if (Options.get().isCopyOnWriteDisabled()) {
-        store = newMap();
+        store = newStore();
         writable_store = true;
         registers = new ArrayList<>();
         writable_registers = true;
@@ -820,8 +902,16 @@ public class State implements IState<State, Context, CallEdge> {
         makeWritableStackedObjects();
         boolean changed = execution_context.add(s.execution_context);
         Set<ObjectLabel> labs = newSet();
-        labs.addAll(store.keySet());
-        labs.addAll(s.store.keySet());
+        if (store instanceof PersistentHashMap && s.store instanceof PersistentHashMap) {
+            // objects that are shared by the two stores need no join
+            ((PersistentHashMap<ObjectLabel, Obj>) store).forEachDifferentKey((PersistentHashMap<ObjectLabel, Obj>) s.store, labs::add);
+        } else if (store instanceof ObjectLabelMap && s.store instanceof ObjectLabelMap) {
+            // objects in pages that are shared by the two stores need no join
+            ((ObjectLabelMap<Obj>) store).forEachDifferentKey((ObjectLabelMap<Obj>) s.store, labs::add);
+        } else {
+            labs.addAll(store.keySet());
+            labs.addAll(s.store.keySet());
+        }
         for (ObjectLabel lab : labs)
             changed |= propagateObj(lab, s, lab, false);
         if (Options.get().isLazyDisabled())
@@ -897,7 +987,7 @@ public class State implements IState<State, Context, CallEdge> {
         if (obj_to.isAllNone()) { // may be a call edge or function entry state where not all properties have been propagated, so don't use isSomeNone here
             // obj_to is none, so just copy from obj_from
             makeWritableStore();
-            obj_to = new Obj(obj_from);
+            obj_to = new Obj(obj_from).setOwner(store_generation);
             store.put(objlabel_to, obj_to);
             return true;
         }
@@ -915,7 +1005,7 @@ public class State implements IState<State, Context, CallEdge> {
             if (modified)
                 default_array_property_to = default_array_property_to.joinModified();
             if (default_array_property_to != default_array_property_to_original) {
-                if (!obj_to.isWritable())
+                if (!isWritableObject(obj_to))
                     obj_to = getObject(objlabel_to, true);
                 obj_to.setDefaultArrayProperty(default_array_property_to);
                 changed = true;
@@ -933,21 +1023,23 @@ public class State implements IState<State, Context, CallEdge> {
             if (modified)
                 default_nonarray_property_to = default_nonarray_property_to.joinModified();
             if (default_nonarray_property_to != default_nonarray_property_to_original) {
-                if (!obj_to.isWritable())
+                if (!isWritableObject(obj_to))
                     obj_to = getObject(objlabel_to, true);
                 obj_to.setDefaultNonArrayProperty(default_nonarray_property_to);
                 changed = true;
             }
         }
         obj_from = state_from.getObject(objlabel_from, false); // propagating defaults may have materialized properties, so get the latest version
-        for (String propertyname : obj_from.getProperties().keySet()) {
-            if (!obj_to.getProperties().containsKey(propertyname)) {
-                Value v = Strings.isArrayIndex(propertyname) ? default_array_property_to_original : default_nonarray_property_to_original;
-                if (!obj_to.isWritable())
-                    obj_to = getObject(objlabel_to, true);
-                obj_to.setProperty(propertyname, v); // materializing from default doesn't affect 'changed'
-//                if (log.isDebugEnabled())
-//                  log.debug("Materialized " + objlabel_to + "." + propertyname + " = " + v);
+        if (!obj_to.hasSamePropertyNames(obj_from)) { // objects with the same shape need no materialization
+            for (String propertyname : obj_from.getProperties().keySet()) {
+                if (!obj_to.getProperties().containsKey(propertyname)) {
+                    Value v = Strings.isArrayIndex(propertyname) ? default_array_property_to_original : default_nonarray_property_to_original;
+                    if (!isWritableObject(obj_to))
+                        obj_to = getObject(objlabel_to, true);
+                    obj_to.setProperty(propertyname, v); // materializing from default doesn't affect 'changed'
+//                    if (log.isDebugEnabled())
+//                      log.debug("Materialized " + objlabel_to + "." + propertyname + " = " + v);
+                }
             }
         }
         for (String propertyname : newList(obj_to.getPropertyNames())) { // TODO: need newList (to avoid ConcurrentModificationException)?
@@ -963,7 +1055,7 @@ public class State implements IState<State, Context, CallEdge> {
                 if (modified)
                     v_to = v_to.joinModified();
                 if (v_to != v_to_original) {
-                    if (!obj_to.isWritable())
+                    if (!isWritableObject(obj_to))
                         obj_to = getObject(objlabel_to, true);
                     obj_to.setProperty(propertyname, v_to);
                     changed = true;
@@ -982,7 +1074,7 @@ public class State implements IState<State, Context, CallEdge> {
             if (modified)
                 internal_prototype_to = internal_prototype_to.joinModified();
             if (internal_prototype_to != internal_prototype_to_original) {
-                if (!obj_to.isWritable())
+                if (!isWritableObject(obj_to))
                     obj_to = getObject(objlabel_to, true);
                 obj_to.setInternalPrototype(internal_prototype_to);
                 changed = true;
@@ -1000,7 +1092,7 @@ public class State implements IState<State, Context, CallEdge> {
             if (modified)
                 internal_value_to = internal_value_to.joinModified();
             if (internal_value_to != internal_value_to_original) {
-                if (!obj_to.isWritable())
+                if (!isWritableObject(obj_to))
                     obj_to = getObject(objlabel_to, true);
                 obj_to.setInternalValue(internal_value_to);
                 changed = true;
@@ -1012,7 +1104,7 @@ public class State implements IState<State, Context, CallEdge> {
             ScopeChain scope_chain_from = obj_from.isScopeChainUnknown() ? UnknownValueResolver.getScopeChain(objlabel_from, state_from) : obj_from.getScopeChain();
             ScopeChain new_scope_chain = ScopeChain.add(scope_chain_to, scope_chain_from);
             if ((new_scope_chain != null && !new_scope_chain.equals(scope_chain_to)) || scopechain_to_unknown) {
-                if (!obj_to.isWritable())
+                if (!isWritableObject(obj_to))
                     obj_to = getObject(objlabel_to, true);
                 obj_to.setScopeChain(new_scope_chain);
                 changed = true;
@@ -1286,7 +1378,6 @@ public class State implements IState<State, Context, CallEdge> {
             throw new AnalysisException("Attempt to summarize object from basis store");
         makeWritableStore();
         Obj oldobj = getObject(objlabel, false);
-        objSet.add(oldobj);
         if (!Options.get().isRecencyDisabled()) {
             if (!objlabel.isSingleton())
                 throw new AnalysisException("Expected singleton object label");
@@ -1328,7 +1419,6 @@ public class State implements IState<State, Context, CallEdge> {
         } else {
             // join the empty object into oldobj (only relevant if recency abstraction is disabled)
             Obj obj = getObject(objlabel, true);
-            objSet.add(obj);
             Value old_array = UnknownValueResolver.getDefaultArrayProperty(objlabel, this);
             Value old_nonarray = UnknownValueResolver.getDefaultNonArrayProperty(objlabel, this);
             obj.setDefaultArrayProperty(old_array.joinAbsentModified());
@@ -2146,7 +2236,7 @@ public class State implements IState<State, Context, CallEdge> {
         if (!Options.get().isLazyDisabled()) {
             if (s == null) {
                 // set everything to unknown
-                store = newMap();
+                store = newStore();
                 writable_store = true;
                 store_default = Obj.makeUnknown();
             } else {
@@ -2163,7 +2253,7 @@ public class State implements IState<State, Context, CallEdge> {
                     obj.localize(other, objlabel, this);
                 }
                 // remove all-unknown objects
-                Map<ObjectLabel, Obj> new_store = newMap();
+                Map<ObjectLabel, Obj> new_store = newStore();
                 for (Map.Entry<ObjectLabel, Obj> xs : store.entrySet())
                     if (!xs.getValue().isUnknown())
                         new_store.put(xs.getKey(), xs.getValue());
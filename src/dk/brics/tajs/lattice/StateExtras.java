@@ -19,6 +19,7 @@ package dk.brics.tajs.lattice;
 import dk.brics.tajs.options.Options;
 import org.apache.log4j.Logger;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -26,17 +27,15 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Stream;
 
-import static dk.brics.tajs.util.Collections.addAllToMapSet;
 import static dk.brics.tajs.util.Collections.newMap;
-import static dk.brics.tajs.util.Collections.newMapMapSet;
-import static dk.brics.tajs.util.Collections.newMapSet;
-import static dk.brics.tajs.util.Collections.newSet;
 
 /**
  * Extra components for abstract states.
  * Can be used to keep track of registered event handlers of different kinds and special HTML elements.
  */
-public class StateExtras {
+public class StateExtras implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static Logger log = Logger.getLogger(StateExtras.class);
 
@@ -56,9 +55,9 @@ public class StateExtras {
 
     protected StateExtras(StateExtras x) {
         if (Options.get().isCopyOnWriteDisabled()) {
-            may_sets = newMapSet(x.may_sets);
-            may_maps = newMapMapSet(x.may_maps);
-            may_maps_default = newMapSet(x.may_maps_default);
+            may_sets = copyMaySets(x.may_sets);
+            may_maps = copyMayMaps(x.may_maps);
+            may_maps_default = copyMaySets(x.may_maps_default);
         } else {
             may_sets = x.may_sets;
             writable_may_sets = x.writable_may_sets = false;
@@ -68,6 +67,38 @@ public class StateExtras {
         }
     }
 
+    /**
+     * Copies a map of object label sets.
+     */
+    private static Map<String, Set<ObjectLabel>> copyMaySets(Map<String, Set<ObjectLabel>> m) {
+        Map<String, Set<ObjectLabel>> res = newMap();
+        for (Entry<String, Set<ObjectLabel>> e : m.entrySet())
+            res.put(e.getKey(), new ObjectLabelSet(e.getValue()));
+        return res;
+    }
+
+    /**
+     * Copies a map of maps of object label sets.
+     */
+    private static Map<String, Map<String, Set<ObjectLabel>>> copyMayMaps(Map<String, Map<String, Set<ObjectLabel>>> m) {
+        Map<String, Map<String, Set<ObjectLabel>>> res = newMap();
+        for (Entry<String, Map<String, Set<ObjectLabel>>> e : m.entrySet())
+            res.put(e.getKey(), copyMaySets(e.getValue()));
+        return res;
+    }
+
+    /**
+     * Adds object labels to the set with the given key, creating the set if necessary.
+     */
+    private static void addToMaySets(Map<String, Set<ObjectLabel>> m, String key, Collection<ObjectLabel> labels) {
+        Set<ObjectLabel> s = m.get(key);
+        if (s == null) {
+            s = new ObjectLabelSet();
+            m.put(key, s);
+        }
+        s.addAll(labels);
+    }
+
     /**
      * Makes the may-sets writable.
      */
@@ -75,7 +106,7 @@ public class StateExtras {
         if (writable_may_sets) {
             return;
         }
-        may_sets = newMapSet(may_sets);
+        may_sets = copyMaySets(may_sets);
         writable_may_sets = true;
     }
 
@@ -86,8 +117,8 @@ public class StateExtras {
         if (writable_may_maps) {
             return;
         }
-        may_maps = newMapMapSet(may_maps);
-        may_maps_default = newMapSet(may_maps_default);
+        may_maps = copyMayMaps(may_maps);
+        may_maps_default = copyMaySets(may_maps_default);
         writable_may_maps = true;
     }
 
@@ -134,7 +165,7 @@ public class StateExtras {
         // MaySets
         for (Entry<String, Set<ObjectLabel>> e : s.may_sets.entrySet()) {
             Set<ObjectLabel> thismayset = may_sets.get(e.getKey());
-            thismayset = (thismayset == null) ? newSet() : thismayset;
+            thismayset = (thismayset == null) ? new ObjectLabelSet() : thismayset;
             may_sets.put(e.getKey(), thismayset);
             changed |= thismayset.addAll(e.getValue());
         }
@@ -147,7 +178,7 @@ public class StateExtras {
             for (Entry<String, Set<ObjectLabel>> ee : thatMayMaps.entrySet()) {
                 Set<ObjectLabel> thismayset = thismaymap.get(ee.getKey());
                 Set<ObjectLabel> thatMaySet = ee.getValue();
-                thismayset = (thismayset == null) ? newSet() : thismayset;
+                thismayset = (thismayset == null) ? new ObjectLabelSet() : thismayset;
                 thismaymap.put(ee.getKey(), thismayset);
                 changed |= thismayset.addAll(thatMaySet);
             }
@@ -155,7 +186,7 @@ public class StateExtras {
         // MayMapsDefault
         for (Entry<String, Set<ObjectLabel>> e : s.may_maps_default.entrySet()) {
             Set<ObjectLabel> thisDefault = may_maps_default.get(e.getKey());
-            thisDefault = (thisDefault == null) ? newSet() : thisDefault;
+            thisDefault = (thisDefault == null) ? new ObjectLabelSet() : thisDefault;
             may_maps_default.put(e.getKey(), thisDefault);
             changed |= thisDefault.addAll(e.getValue());
         }
@@ -236,7 +267,7 @@ public class StateExtras {
      */
     public void addToMaySet(String name, Collection<ObjectLabel> labels) {
         makeMaySetsWritable();
-        addAllToMapSet(may_sets, name, labels);
+        addToMaySets(may_sets, name, labels);
     }
 
     /**
@@ -245,7 +276,7 @@ public class StateExtras {
     public Set<ObjectLabel> getFromMaySet(String name) {
         Set<ObjectLabel> labelset = may_sets.get(name);
         if (labelset == null) {
-            return Collections.unmodifiableSet(newSet());
+            return Collections.unmodifiableSet(new ObjectLabelSet());
         }
         return Collections.unmodifiableSet(labelset);
     }
@@ -260,7 +291,7 @@ public class StateExtras {
             maymap = newMap();
             may_maps.put(name, maymap);
         }
-        addAllToMapSet(maymap, key, labels);
+        addToMaySets(maymap, key, labels);
     }
 
     /**
@@ -268,14 +299,14 @@ public class StateExtras {
      */
     public void addToDefaultMayMap(String name, Collection<ObjectLabel> labels) {
         makeMayMapsWritable();
-        addAllToMapSet(may_maps_default, name, labels);
+        addToMaySets(may_maps_default, name, labels);
     }
 
     /**
      * Retrieves a set of object labels from the named map given the key.
      */
     public Set<ObjectLabel> getFromMayMap(String name, String key) {
-        Set<ObjectLabel> result = newSet();
+        Set<ObjectLabel> result = new ObjectLabelSet();
         Map<String, Set<ObjectLabel>> maymap = may_maps.get(name);
         if (maymap != null) {
             Set<ObjectLabel> mayset = maymap.get(key);
@@ -16,14 +16,16 @@
 
 package dk.brics.tajs.lattice;
 
+import java.io.Serializable;
 import java.util.Set;
 
-import static dk.brics.tajs.util.Collections.newSet;
 
 /**
  * Maybe/definitely summarized object label sets.
  */
-public final class Summarized {
+public final class Summarized implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * Maybe summarized objects since function entry. (Contains the singleton object labels.)
@@ -39,8 +41,8 @@ public final class Summarized {
      * Constructs a new pair of empty summarized sets.
      */
     public Summarized() {
-        maybe_summarized = newSet();
-        definitely_summarized = newSet();
+        maybe_summarized = new ObjectLabelSet();
+        definitely_summarized = new ObjectLabelSet();
     }
 
     /**
@@ -48,8 +50,8 @@ public final class Summarized {
      * The sets are copied.
      */
     public Summarized(Summarized s) {
-        maybe_summarized = newSet(s.maybe_summarized);
-        definitely_summarized = newSet(s.definitely_summarized);
+        maybe_summarized = new ObjectLabelSet(s.maybe_summarized);
+        definitely_summarized = new ObjectLabelSet(s.definitely_summarized);
     }
 
     /**
@@ -156,7 +158,7 @@ public final class Summarized {
             }
         if (!changed)
             return objlabels;
-        Set<ObjectLabel> new_objs = newSet();
+        Set<ObjectLabel> new_objs = new ObjectLabelSet();
         for (ObjectLabel ol : objlabels) {
             if (ol.isSingleton()) {
                 if (isMaybeSummarized(ol)) {
@@ -277,8 +277,19 @@ public final class UnknownValueResolver {
 
     /**
      * Generic function for recovering 'unknown' properties.
+     * Holds the lock of the analysis lattice element, as the stored states that are read and updated
+     * may be used by other threads when the functions are scanned in parallel.
      */
     private static Obj recover(State s, ObjectProperty prop, boolean partial) {
+        synchronized (s.getSolverInterface().getAnalysisLatticeElement()) {
+            return recoverUnknown(s, prop, partial);
+        }
+    }
+
+    /**
+     * Recovers the given property, see {@link #recover(State, ObjectProperty, boolean)}.
+     */
+    private static Obj recoverUnknown(State s, ObjectProperty prop, boolean partial) {
         Value value_at_s = getValue(s, prop);
         if (!partial && value_at_s != null && value_at_s.isPolymorphic() && value_at_s.isMaybeAbsent() && !value_at_s.isMaybePresent()) { // optimization only
             Obj res = s.getObject(prop.getObjectLabel(), true);
@@ -581,7 +592,7 @@ public final class UnknownValueResolver {
             }
             Value new_dst_v = src_v.join(dst_v);
             if (new_dst_v != old_dst_v) {
-                if (!dst_obj.isWritable())
+                if (!dst_s.isWritableObject(dst_obj))
                     dst_obj = dst_s.getObject(dst_prop.getObjectLabel(), true);
                 dst_obj.setValue(dst_prop, new_dst_v);
                 if (log.isDebugEnabled())
@@ -603,7 +614,7 @@ public final class UnknownValueResolver {
             if (src_v != null && !to_entry) {
                 src_v = ScopeChain.summarize(src_v, summarized);
             }
-            if (!dst_obj.isWritable())
+            if (!dst_s.isWritableObject(dst_obj))
                 dst_obj = dst_s.getObject(dst_prop.getObjectLabel(), true);
             if (dst_obj.isScopeChainUnknown()) {
                 dst_obj.setScopeChain(src_v);
@@ -771,27 +782,29 @@ public final class UnknownValueResolver {
             return v;
         if (v.isMaybeAbsent() && !v.isMaybePresent())
             return Value.makeAbsent();
-        State entry_state = getEntryState(s);
         ObjectProperty var = v.getObjectProperty();
         Value res;
-        switch (var.getKind()) {
-            case ORDINARY:
-                res = getProperty(var.getObjectLabel(), var.getPropertyName(), entry_state, false);
-                break;
-            case DEFAULT_ARRAY:
-                res = getDefaultArrayProperty(var.getObjectLabel(), entry_state);
-                break;
-            case DEFAULT_NONARRAY:
-                res = getDefaultNonArrayProperty(var.getObjectLabel(), entry_state);
-                break;
-            case INTERNAL_VALUE:
-                res = getInternalValue(var.getObjectLabel(), entry_state, false);
-                break;
-            case INTERNAL_PROTOTYPE:
-                res = getInternalPrototype(var.getObjectLabel(), entry_state, false);
-                break;
-            default:
-                throw new AnalysisException("Unexpected property reference kind");
+        synchronized (s.getSolverInterface().getAnalysisLatticeElement()) { // the entry state may be used by other threads, see recover
+            State entry_state = getEntryState(s);
+            switch (var.getKind()) {
+                case ORDINARY:
+                    res = getProperty(var.getObjectLabel(), var.getPropertyName(), entry_state, false);
+                    break;
+                case DEFAULT_ARRAY:
+                    res = getDefaultArrayProperty(var.getObjectLabel(), entry_state);
+                    break;
+                case DEFAULT_NONARRAY:
+                    res = getDefaultNonArrayProperty(var.getObjectLabel(), entry_state);
+                    break;
+                case INTERNAL_VALUE:
+                    res = getInternalValue(var.getObjectLabel(), entry_state, false);
+                    break;
+                case INTERNAL_PROTOTYPE:
+                    res = getInternalPrototype(var.getObjectLabel(), entry_state, false);
+                    break;
+                default:
+                    throw new AnalysisException("Unexpected property reference kind");
+            }
         }
         res = v.replaceValue(res.summarize(s.getSummarized()));
         // note: it is possible to have e.g. v.isMaybePolymorphicPresent() && res.isNotPresent() due to abstract gc
@@ -21,13 +21,12 @@ import dk.brics.tajs.lattice.ObjectLabel.Kind;
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Strings;
+import dk.brics.tajs.util.WeakInterner;
 
-import java.lang.ref.WeakReference;
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import static dk.brics.tajs.util.Collections.newSet;
 
@@ -35,7 +34,9 @@ import static dk.brics.tajs.util.Collections.newSet;
  * Abstract value.
  * Value objects are immutable.
  */
-public final class Value implements Undef, Null, Bool, Num, Str {
+public final class Value implements Undef, Null, Bool, Num, Str, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final static int BOOL_TRUE = 0x00000001; // true
 
@@ -109,17 +110,19 @@ public final class Value implements Undef, Null, Bool, Num, Str {
 
     private final static int PRIMITIVE = UNDEF | NULL | BOOL | NUM | STR;
 
-    private static Map<Value, WeakReference<Value>> value_cache;
-
-    private static int value_cache_hits;
-
-    private static int value_cache_misses;
-
-    private static Map<Set<ObjectLabel>, WeakReference<Set<ObjectLabel>>> objset_cache;
+    private static final WeakInterner<Value> value_cache = new WeakInterner<>(new WeakInterner.Equivalence<Value>() {
+        @Override
+        public int hash(Value v) {
+            return v.hashcode;
+        }
 
-    private static int objset_cache_hits;
+        @Override
+        public boolean equivalent(Value v1, Value v2) {
+            return v1.equalsStructurally(v2);
+        }
+    });
 
-    private static int objset_cache_misses;
+    private static final WeakInterner<Set<ObjectLabel>> objset_cache = new WeakInterner<>(WeakInterner.equalsEquivalence());
 
     private static Value theNone;
 
@@ -230,19 +233,13 @@ public final class Value implements Undef, Null, Bool, Num, Str {
      */
     private int hashcode;
 
-    private static boolean canonicalizing; // set during canonicalization
-
     static {
         init();
     }
 
-    private static void init() {
-        value_cache = new WeakHashMap<>();
-        objset_cache = new WeakHashMap<>();
-        value_cache_hits = 0;
-        value_cache_misses = 0;
-        objset_cache_hits = 0;
-        objset_cache_misses = 0;
+    private static synchronized void init() {
+        value_cache.clear();
+        objset_cache.clear();
         theNone = reallyMakeNone();
         theNoneModified = reallyMakeNoneModified();
         theUndef = reallyMakeUndef(null);
@@ -291,6 +288,13 @@ public final class Value implements Undef, Null, Bool, Num, Str {
         hashcode = v.hashcode;
     }
 
+    /**
+     * Returns the canonical value for a deserialized one.
+     */
+    private Object readResolve() {
+        return canonicalize(new Value(this));
+    }
+
     /**
      * Put the value into canoncial form.
      */
@@ -339,23 +343,13 @@ public final class Value implements Undef, Null, Bool, Num, Str {
             if (Options.get().isPolymorphicDisabled() && v.isPolymorphic())
                 throw new AnalysisException("Unexpected polymorphic value");
         }
-        canonicalizing = true;
         if (v.object_labels != null)
             v.object_labels = canonicalize(v.object_labels);
         if (v.getters != null)
             v.getters = canonicalize(v.getters);
         if (v.setters != null)
             v.setters = canonicalize(v.setters);
-        WeakReference<Value> ref2 = value_cache.get(v);
-        Value cv = ref2 != null ? ref2.get() : null;
-        if (cv == null) {
-            cv = v;
-            value_cache.put(v, new WeakReference<>(v));
-            value_cache_misses++;
-        } else
-            value_cache_hits++;
-        canonicalizing = false;
-        return cv;
+        return value_cache.intern(v);
     }
 
     /**
@@ -363,17 +357,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
      * The resulting set is immutable.
      */
     private static Set<ObjectLabel> canonicalize(Set<ObjectLabel> objlabels) { // TODO: use this method for all immutable object label sets (but only for those that are immutable!)
-        Set<ObjectLabel> res;
-        WeakReference<Set<ObjectLabel>> ref1 = objset_cache.get(objlabels);
-        Set<ObjectLabel> so = ref1 != null ? ref1.get() : null;
-        if (so == null) {
-            objset_cache.put(objlabels, new WeakReference<>(objlabels));
-            res = objlabels;
-            objset_cache_misses++;
-        } else {
-            res = so;
-            objset_cache_hits++;
-        }
+        Set<ObjectLabel> res = objset_cache.intern(ObjectLabelSet.of(objlabels));
         if (Options.get().isDebugOrTestEnabled())
             return Collections.unmodifiableSet(res);
         return res;
@@ -389,15 +373,22 @@ public final class Value implements Undef, Null, Bool, Num, Str {
     /**
      * Returns the number of value cache misses.
      */
-    public static int getNumberOfValueCacheMisses() {
-        return value_cache_misses;
+    public static long getNumberOfValueCacheMisses() {
+        return value_cache.getMisses();
     }
 
     /**
      * Returns the number of value cache hits.
      */
-    public static int getNumberOfValueCacheHits() {
-        return value_cache_hits;
+    public static long getNumberOfValueCacheHits() {
+        return value_cache.getHits();
+    }
+
+    /**
+     * Returns the value cache statistics.
+     */
+    public static WeakInterner.Statistics getValueCacheStatistics() {
+        return value_cache.getStatistics();
     }
 
     /**
@@ -410,15 +401,22 @@ public final class Value implements Undef, Null, Bool, Num, Str {
     /**
      * Returns the number of object set cache misses.
      */
-    public static int getNumberOfObjectSetCacheMisses() {
-        return objset_cache_misses;
+    public static long getNumberOfObjectSetCacheMisses() {
+        return objset_cache.getMisses();
     }
 
     /**
      * Returns the number of object set cache hits.
      */
-    public static int getNumberOfObjectSetCacheHits() {
-        return objset_cache_hits;
+    public static long getNumberOfObjectSetCacheHits() {
+        return objset_cache.getHits();
+    }
+
+    /**
+     * Returns the object set cache statistics.
+     */
+    public static WeakInterner.Statistics getObjectSetCacheStatistics() {
+        return objset_cache.getStatistics();
     }
 
     /**
@@ -1136,7 +1134,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
                     object_labels = v.object_labels;
                 } else if (!object_labels.containsAll(v.object_labels)) {
                     modified = true;
-                    object_labels = newSet(object_labels);
+                    object_labels = new ObjectLabelSet(object_labels);
                     object_labels.addAll(v.object_labels);
                 }
             }
@@ -1146,7 +1144,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
                     getters = v.getters;
                 } else if (!getters.containsAll(v.getters)) {
                     modified = true;
-                    getters = newSet(getters);
+                    getters = new ObjectLabelSet(getters);
                     getters.addAll(v.getters);
                 }
             }
@@ -1156,7 +1154,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
                     setters = v.setters;
                 } else if (!setters.containsAll(v.setters)) {
                     modified = true;
-                    setters = newSet(setters);
+                    setters = new ObjectLabelSet(setters);
                     setters.addAll(v.setters);
                 }
             }
@@ -1176,16 +1174,19 @@ public final class Value implements Undef, Null, Bool, Num, Str {
 
     /**
      * Checks whether the given object is equal to this one.
+     * Values are canonicalized, so this is object identity.
      */
     @Override
     public boolean equals(Object obj) {
-        if (!canonicalizing) // use object identity as equality, except during canonicalization
-            return obj == this;
-        if (obj == this)
+        return obj == this;
+    }
+
+    /**
+     * Checks whether the given value has the same contents as this one (used during canonicalization).
+     */
+    private boolean equalsStructurally(Value v) {
+        if (v == this)
             return true;
-        if (!(obj instanceof Value))
-            return false;
-        Value v = (Value) obj;
         //noinspection StringEquality,NumberEquality
         return flags == v.flags
                 && (var == v.var || (var != null && v.var != null && var.equals(v.var)))
@@ -1251,15 +1252,15 @@ public final class Value implements Undef, Null, Bool, Num, Str {
         Value v = new Value(this);
         v.flags &= ~old.flags; // TODO: see Value.remove above (anyway, diff is only used for debug output)
         if (v.object_labels != null && old.object_labels != null) {
-            v.object_labels = newSet(v.object_labels);
+            v.object_labels = new ObjectLabelSet(v.object_labels);
             v.object_labels.removeAll(old.object_labels);
         }
         if (v.getters != null && old.getters != null) {
-            v.getters = newSet(v.getters);
+            v.getters = new ObjectLabelSet(v.getters);
             v.getters.removeAll(old.getters);
         }
         if (v.setters != null && old.setters != null) {
-            v.setters = newSet(v.setters);
+            v.setters = new ObjectLabelSet(v.setters);
             v.setters.removeAll(old.setters);
         }
         b.append(v);
@@ -2880,7 +2881,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
         if (v == null)
             throw new NullPointerException();
         Value r = new Value();
-        r.object_labels = newSet();
+        r.object_labels = new ObjectLabelSet();
         r.object_labels.add(v);
         return canonicalize(r);
     }
@@ -2891,7 +2892,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
     public static Value makeObject(Set<ObjectLabel> v) {
         Value r = new Value();
         if (!v.isEmpty())
-            r.object_labels = newSet(v);
+            r.object_labels = new ObjectLabelSet(v);
         return canonicalize(r);
     }
 
@@ -2904,9 +2905,9 @@ public final class Value implements Undef, Null, Bool, Num, Str {
             return this;
         Value r = new Value(this);
         if (r.object_labels == null)
-            r.object_labels = newSet();
+            r.object_labels = new ObjectLabelSet();
         else
-            r.object_labels = newSet(r.object_labels);
+            r.object_labels = new ObjectLabelSet(r.object_labels);
         r.object_labels.add(objlabel);
         return canonicalize(r);
     }
@@ -2950,7 +2951,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
         if (object_labels == null)
             return this;
         Value r = new Value(this);
-        r.object_labels = newSet(r.object_labels);
+        r.object_labels = new ObjectLabelSet(r.object_labels);
         r.object_labels.removeAll(objs);
         if (r.object_labels.isEmpty())
             r.object_labels = null;
@@ -3150,7 +3151,7 @@ public final class Value implements Undef, Null, Bool, Num, Str {
             return Collections.emptySet();
         if (getters == null && setters == null)
             return getObjectLabels();
-        Set<ObjectLabel> s = newSet();
+        Set<ObjectLabel> s = new ObjectLabelSet();
         if (object_labels != null)
             s.addAll(object_labels);
         if (getters != null)
@@ -3201,19 +3202,19 @@ public final class Value implements Undef, Null, Bool, Num, Str {
             return this;
         Value r = new Value(this);
         if (object_labels != null) {
-            Set<ObjectLabel> newobjlabels = newSet(object_labels);
+            Set<ObjectLabel> newobjlabels = new ObjectLabelSet(object_labels);
             newobjlabels.remove(oldlabel);
             newobjlabels.add(newlabel);
             r.object_labels = newobjlabels;
         }
         if (getters != null) {
-            Set<ObjectLabel> newgetters = newSet(getters);
+            Set<ObjectLabel> newgetters = new ObjectLabelSet(getters);
             newgetters.remove(oldlabel);
             newgetters.add(newlabel);
             r.getters = newgetters;
         }
         if (setters != null) {
-            Set<ObjectLabel> newsetters = newSet(setters);
+            Set<ObjectLabel> newsetters = new ObjectLabelSet(setters);
             newsetters.remove(oldlabel);
             newsetters.add(newlabel);
             r.setters = newsetters;
@@ -25,5 +25,7 @@ public enum AnalysisPhase {
 
     DATAFLOW_ANALYSIS,
 
-    SCAN
+    SCAN,
+
+    LINT
 }
@@ -21,7 +21,8 @@ import dk.brics.tajs.util.AnalysisLimitationException;
 /**
  * A simple monitoring that will prevent the analysis from running more than a set time.
  * <p>
- * Ignores time spent in building flowgraph and post-processing analysis results.
+ * Ignores time spent in building flowgraph and post-processing analysis results,
+ * unless the time limit is counted from the construction of the limiter.
  */
 public class AnalysisTimeLimiter extends DefaultAnalysisMonitoring {
 
@@ -31,6 +32,8 @@ public class AnalysisTimeLimiter extends DefaultAnalysisMonitoring {
 
     private final boolean crash;
 
+    private final long startNanoTime;
+
     private long maxNanoTime = -1;
 
     private boolean analysisWasLimited = false;
@@ -40,8 +43,18 @@ public class AnalysisTimeLimiter extends DefaultAnalysisMonitoring {
      * @param crash true if an exception should be thrown when the analysis exceed the time limit
      */
     public AnalysisTimeLimiter(int secondsTimeLimit, boolean crash) {
+        this(secondsTimeLimit, crash, false);
+    }
+
+    /**
+     * @param secondsTimeLimit as the number of second the analysis is allowed to run
+     * @param crash true if an exception should be thrown when the analysis exceed the time limit
+     * @param fromNow true if the time limit counts from now, including the time spent before the dataflow analysis
+     */
+    public AnalysisTimeLimiter(int secondsTimeLimit, boolean crash, boolean fromNow) {
         this.secondsTimeLimit = secondsTimeLimit;
         this.crash = crash;
+        this.startNanoTime = fromNow ? System.nanoTime() : -1;
     }
 
     public AnalysisTimeLimiter(int secondsTimeLimit) {
@@ -68,11 +81,19 @@ public class AnalysisTimeLimiter extends DefaultAnalysisMonitoring {
         return true;
     }
 
+    /**
+     * Returns this object, as the time limit is only enforced during the dataflow analysis.
+     */
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return this;
+    }
+
     @Override
     public void beginPhase(AnalysisPhase phase) {
         if (phase == AnalysisPhase.DATAFLOW_ANALYSIS) {
             if (secondsTimeLimit != -1) {
-                long now = System.nanoTime();
+                long now = startNanoTime != -1 ? startNanoTime : System.nanoTime();
                 long delta = secondsTimeLimit * nanoFactor;
                 long future = now + delta;
                 maxNanoTime = future;
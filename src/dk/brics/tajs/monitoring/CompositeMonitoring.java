@@ -85,6 +85,27 @@ public class CompositeMonitoring implements IAnalysisMonitoring {
         return f.build(head, buildFromList(monitors, f));
     }
 
+    /**
+     * Returns a composite of the monitoring objects made by the two monitors, or null if either of them returns null.
+     */
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        IAnalysisMonitoring s1 = m1.makeScanMonitoring();
+        if (s1 == null)
+            return null;
+        IAnalysisMonitoring s2 = m2.makeScanMonitoring();
+        if (s2 == null)
+            return null;
+        return new CompositeMonitoring(s1, s2);
+    }
+
+    @Override
+    public void mergeScanMonitoring(IAnalysisMonitoring m) {
+        CompositeMonitoring c = (CompositeMonitoring) m;
+        m1.mergeScanMonitoring(c.m1);
+        m2.mergeScanMonitoring(c.m2);
+    }
+
     @Override
     public void addMessage(AbstractNode n, Message.Severity severity, String msg) {
         m1.addMessage(n, severity, msg);
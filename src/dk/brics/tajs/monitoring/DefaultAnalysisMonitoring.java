@@ -74,6 +74,19 @@ public class DefaultAnalysisMonitoring implements IAnalysisMonitoring {
 
     }
 
+    /**
+     * Returns null, so the functions are scanned on a single thread.
+     * Subclasses that do nothing in the scan phase, or only update thread-safe counters, may return this object.
+     */
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return null;
+    }
+
+    @Override
+    public void mergeScanMonitoring(IAnalysisMonitoring m) {
+    }
+
     @Override
     public Set<Message> getMessages() {
         return null;
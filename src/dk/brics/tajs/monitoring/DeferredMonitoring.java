@@ -0,0 +1,285 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.monitoring;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.CallNode;
+import dk.brics.tajs.flowgraph.jsnodes.CatchNode;
+import dk.brics.tajs.flowgraph.jsnodes.IfNode;
+import dk.brics.tajs.flowgraph.jsnodes.Node;
+import dk.brics.tajs.flowgraph.jsnodes.ReadPropertyNode;
+import dk.brics.tajs.flowgraph.jsnodes.ReadVariableNode;
+import dk.brics.tajs.lattice.CallEdge;
+import dk.brics.tajs.lattice.Context;
+import dk.brics.tajs.lattice.HostObject;
+import dk.brics.tajs.lattice.ObjectLabel;
+import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.lattice.Str;
+import dk.brics.tajs.lattice.Value;
+import dk.brics.tajs.solver.CallGraph;
+import dk.brics.tajs.solver.Message;
+import dk.brics.tajs.util.AnalysisException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static dk.brics.tajs.util.Collections.newList;
+
+/**
+ * Monitoring object that records the calls made on it, such that they can be made on another monitoring object later.
+ * Used for transferring a worklist entry on another thread ahead of its turn,
+ * where the calls are made on the monitoring object of the analysis when the entry gets its turn,
+ * so the monitoring object sees the same sequence of calls as when the entries are transferred one at a time.
+ * The arguments are recorded as they are, so states may have changed when the calls are made
+ * (the monitoring objects only look at the states in the scan phase, which does not use this class).
+ * Calls that return results or control the analysis are not supported.
+ */
+public class DeferredMonitoring implements IAnalysisMonitoring {
+
+    private final List<Consumer<IAnalysisMonitoring>> calls = newList();
+
+    /**
+     * Makes the recorded calls on the given monitoring object, in the order they were recorded.
+     */
+    public void commit(IAnalysisMonitoring m) {
+        for (Consumer<IAnalysisMonitoring> call : calls)
+            call.accept(m);
+        calls.clear();
+    }
+
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        throw new AnalysisException("Unexpected call to makeScanMonitoring");
+    }
+
+    @Override
+    public void mergeScanMonitoring(IAnalysisMonitoring m) {
+        throw new AnalysisException("Unexpected call to mergeScanMonitoring");
+    }
+
+    @Override
+    public void addMessage(AbstractNode n, Message.Severity severity, String msg) {
+        calls.add(m -> m.addMessage(n, severity, msg));
+    }
+
+    @Override
+    public void addMessage(AbstractNode n, Message.Severity severity, String key, String msg) {
+        calls.add(m -> m.addMessage(n, severity, key, msg));
+    }
+
+    @Override
+    public void addMessageInfo(AbstractNode n, Message.Severity severity, String msg) {
+        calls.add(m -> m.addMessageInfo(n, severity, msg));
+    }
+
+    @Override
+    public boolean allowNextIteration() {
+        throw new AnalysisException("Unexpected call to allowNextIteration");
+    }
+
+    @Override
+    public void beginPhase(AnalysisPhase phase) {
+        throw new AnalysisException("Unexpected call to beginPhase");
+    }
+
+    @Override
+    public void endPhase(AnalysisPhase phase) {
+        throw new AnalysisException("Unexpected call to endPhase");
+    }
+
+    @Override
+    public Set<Message> getMessages() {
+        throw new AnalysisException("Unexpected call to getMessages");
+    }
+
+    @Override
+    public Map<TypeCollector.VariableSummary, Value> getTypeInformation() {
+        throw new AnalysisException("Unexpected call to getTypeInformation");
+    }
+
+    @Override
+    public void setCallGraph(CallGraph<State, Context, CallEdge> callGraph) {
+        throw new AnalysisException("Unexpected call to setCallGraph");
+    }
+
+    @Override
+    public void visitCatch(CatchNode c) {
+        calls.add(m -> m.visitCatch(c));
+    }
+
+    @Override
+    public void setFlowgraph(FlowGraph fg) {
+        throw new AnalysisException("Unexpected call to setFlowgraph");
+    }
+
+    @Override
+    public void visitBlockTransfer(BasicBlock b, State s) {
+        calls.add(m -> m.visitBlockTransfer(b, s));
+    }
+
+    @Override
+    public void visitCall(AbstractNode n, boolean maybe_non_function, boolean maybe_function) {
+        calls.add(m -> m.visitCall(n, maybe_non_function, maybe_function));
+    }
+
+    @Override
+    public void visitEvalCall(AbstractNode n, Value v) {
+        calls.add(m -> m.visitEvalCall(n, v));
+    }
+
+    @Override
+    public void visitFunction(Function f, Collection<State> entry_states) {
+        calls.add(m -> m.visitFunction(f, entry_states));
+    }
+
+    @Override
+    public void visitIf(IfNode n, Value v) {
+        calls.add(m -> m.visitIf(n, v));
+    }
+
+    @Override
+    public void visitIn(AbstractNode n, boolean maybe_v2_object, boolean maybe_v2_nonobject) {
+        calls.add(m -> m.visitIn(n, maybe_v2_object, maybe_v2_nonobject));
+    }
+
+    @Override
+    public void visitInnerHTMLWrite(Node n, Value v) {
+        calls.add(m -> m.visitInnerHTMLWrite(n, v));
+    }
+
+    @Override
+    public void visitInstanceof(AbstractNode n, boolean maybe_v2_non_function, boolean maybe_v2_function, boolean maybe_v2_prototype_primitive, boolean maybe_v2_prototype_nonprimitive) {
+        calls.add(m -> m.visitInstanceof(n, maybe_v2_non_function, maybe_v2_function, maybe_v2_prototype_primitive, maybe_v2_prototype_nonprimitive));
+    }
+
+    @Override
+    public void visitJoin() {
+        calls.add(m -> m.visitJoin());
+    }
+
+    @Override
+    public void visitPostBlockTransfer(BasicBlock b, State state) {
+        calls.add(m -> m.visitPostBlockTransfer(b, state));
+    }
+
+    @Override
+    public void visitNativeFunctionCall(AbstractNode n, HostObject hostobject, boolean num_actuals_unknown, int num_actuals, int min, int max) {
+        calls.add(m -> m.visitNativeFunctionCall(n, hostobject, num_actuals_unknown, num_actuals, min, max));
+    }
+
+    @Override
+    public void visitNewFlow(BasicBlock b, Context c, State s, String diff, String info) {
+        calls.add(m -> m.visitNewFlow(b, c, s, diff, info));
+    }
+
+    @Override
+    public void visitNodeTransfer(AbstractNode n) {
+        calls.add(m -> m.visitNodeTransfer(n));
+    }
+
+    @Override
+    public void visitPropertyAccess(Node n, Value baseval) {
+        calls.add(m -> m.visitPropertyAccess(n, baseval));
+    }
+
+    @Override
+    public void visitPropertyRead(AbstractNode n, Set<ObjectLabel> objs, Str propertystr, State state, boolean check_unknown) {
+        calls.add(m -> m.visitPropertyRead(n, objs, propertystr, state, check_unknown));
+    }
+
+    @Override
+    public void visitPropertyWrite(Node n, Set<ObjectLabel> objs, Str propertystr) {
+        calls.add(m -> m.visitPropertyWrite(n, objs, propertystr));
+    }
+
+    @Override
+    public void visitReachableNode(AbstractNode n) {
+        calls.add(m -> m.visitReachableNode(n));
+    }
+
+    @Override
+    public void visitRead(Node n, Value v, State state) {
+        calls.add(m -> m.visitRead(n, v, state));
+    }
+
+    @Override
+    public void visitFunction(Function f) {
+        calls.add(m -> m.visitFunction(f));
+    }
+
+    @Override
+    public void visitReadNonThisVariable(ReadVariableNode n, Value v) {
+        calls.add(m -> m.visitReadNonThisVariable(n, v));
+    }
+
+    @Override
+    public void visitReadProperty(ReadPropertyNode n, Set<ObjectLabel> objlabels, Str propertystr, boolean maybe, State state, Value v) {
+        calls.add(m -> m.visitReadProperty(n, objlabels, propertystr, maybe, state, v));
+    }
+
+    @Override
+    public void visitReadThis(ReadVariableNode n, Value v, State state, ObjectLabel global_obj) {
+        calls.add(m -> m.visitReadThis(n, v, state, global_obj));
+    }
+
+    @Override
+    public void visitReadVariable(ReadVariableNode n, Value v, State state) {
+        calls.add(m -> m.visitReadVariable(n, v, state));
+    }
+
+    @Override
+    public void visitRecoveryGraph(int size) {
+        calls.add(m -> m.visitRecoveryGraph(size));
+    }
+
+    @Override
+    public void visitUnknownValueResolve(boolean partial, boolean scanning) {
+        calls.add(m -> m.visitUnknownValueResolve(partial, scanning));
+    }
+
+    @Override
+    public void visitUserFunctionCall(Function f, AbstractNode call, boolean constructor) {
+        calls.add(m -> m.visitUserFunctionCall(f, call, constructor));
+    }
+
+    @Override
+    public void visitVariableAsRead(ReadVariableNode n, Value v, State state) {
+        calls.add(m -> m.visitVariableAsRead(n, v, state));
+    }
+
+    @Override
+    public void visitVariableOrProperty(String var, SourceLocation loc, Value value, Context context, State state) {
+        calls.add(m -> m.visitVariableOrProperty(var, loc, value, context, state));
+    }
+
+    @Override
+    public void visitNativeFunctionReturn(AbstractNode node, HostObject hostObject, Value result) {
+        calls.add(m -> m.visitNativeFunctionReturn(node, hostObject, result));
+    }
+
+    @Override
+    public void parArgMismatch(CallNode n) {
+        calls.add(m -> m.parArgMismatch(n));
+    }
+}
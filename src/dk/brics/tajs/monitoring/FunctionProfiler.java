@@ -0,0 +1,284 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.monitoring;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.lattice.CallEdge;
+import dk.brics.tajs.lattice.Context;
+import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.solver.BlockAndContext;
+import dk.brics.tajs.solver.CallGraph;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Collections.newMap;
+import static dk.brics.tajs.util.Collections.newSet;
+
+/**
+ * Monitoring that attributes the cost of the dataflow analysis to functions and call chains.
+ * <p>
+ * Each block transfer, including the edge transfers and joins that follow it, is charged to the function and context
+ * of the block: wall time, node transfers, joins and recoveries of 'unknown' values.
+ * At the end of the dataflow analysis phase, a table of the most expensive functions is logged, and optionally
+ * the self time of each call chain (in microseconds) is written in collapsed stack format,
+ * as read by flamegraph.pl and speedscope.
+ * Call chains are reconstructed from the call graph, following one caller of each function entry and context:
+ * the call site (block and context) that was discovered first, so the chains do not depend on hash set iteration order.
+ * <p>
+ * The time is measured at block granularity, so the overhead is two clock readings and a map lookup per block.
+ */
+public class FunctionProfiler extends DefaultAnalysisMonitoring {
+
+    private static Logger log = Logger.getLogger(FunctionProfiler.class);
+
+    private static final int MAX_CHAIN_LENGTH = 64;
+
+    private final Path collapsed_stacks;
+
+    private final int top;
+
+    private final Map<Function, Map<Context, Cost>> costs = new HashMap<>();
+
+    private CallGraph<State, Context, CallEdge> callgraph;
+
+    private boolean active;
+
+    private Cost current; // cost of the block transfer in progress, null if none
+
+    private long current_start;
+
+    /**
+     * Cost of a function in a context.
+     */
+    private static final class Cost {
+
+        long time; // nanoseconds
+
+        int block_transfers;
+
+        int node_transfers;
+
+        int joins;
+
+        int recoveries;
+
+        void add(Cost c) {
+            time += c.time;
+            block_transfers += c.block_transfers;
+            node_transfers += c.node_transfers;
+            joins += c.joins;
+            recoveries += c.recoveries;
+        }
+    }
+
+    /**
+     * Constructs a new profiler.
+     *
+     * @param collapsed_stacks file to write collapsed stacks to, null if none
+     * @param top              number of functions in the table
+     */
+    public FunctionProfiler(Path collapsed_stacks, int top) {
+        this.collapsed_stacks = collapsed_stacks;
+        this.top = top;
+    }
+
+    @Override
+    public void setCallGraph(CallGraph<State, Context, CallEdge> callGraph) {
+        callgraph = callGraph;
+    }
+
+    @Override
+    public void beginPhase(AnalysisPhase phase) {
+        if (phase == AnalysisPhase.DATAFLOW_ANALYSIS)
+            active = true;
+    }
+
+    @Override
+    public void endPhase(AnalysisPhase phase) {
+        if (phase != AnalysisPhase.DATAFLOW_ANALYSIS)
+            return;
+        stop();
+        active = false;
+        logTable();
+        if (collapsed_stacks != null)
+            writeCollapsedStacks();
+    }
+
+    /**
+     * Returns a monitoring object that ignores the scan phase, as the profile is complete when the dataflow analysis ends.
+     */
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return new DefaultAnalysisMonitoring();
+    }
+
+    @Override
+    public boolean allowNextIteration() {
+        stop();
+        return true;
+    }
+
+    @Override
+    public void visitBlockTransfer(BasicBlock b, State s) {
+        if (!active)
+            return;
+        long now = System.nanoTime();
+        if (current != null)
+            current.time += now - current_start;
+        Map<Context, Cost> m = costs.get(b.getFunction());
+        if (m == null) {
+            m = new HashMap<>();
+            costs.put(b.getFunction(), m);
+        }
+        current = m.get(s.getContext());
+        if (current == null) {
+            current = new Cost();
+            m.put(s.getContext(), current);
+        }
+        current.block_transfers++;
+        current_start = now;
+    }
+
+    @Override
+    public void visitNodeTransfer(AbstractNode n) {
+        if (current != null)
+            current.node_transfers++;
+    }
+
+    @Override
+    public void visitJoin() {
+        if (current != null)
+            current.joins++;
+    }
+
+    @Override
+    public void visitUnknownValueResolve(boolean partial, boolean scanning) {
+        if (current != null && !scanning)
+            current.recoveries++;
+    }
+
+    /**
+     * Charges the time since the start of the current block transfer.
+     */
+    private void stop() {
+        if (current != null) {
+            current.time += System.nanoTime() - current_start;
+            current = null;
+        }
+    }
+
+    /**
+     * Logs the functions with the most time, most first.
+     */
+    private void logTable() {
+        Map<Function, Cost> totals = newMap();
+        Map<Function, Integer> contexts = newMap();
+        long total_time = 0;
+        for (Map.Entry<Function, Map<Context, Cost>> me : costs.entrySet()) {
+            Cost t = new Cost();
+            Set<Context> entry_contexts = newSet();
+            for (Map.Entry<Context, Cost> mc : me.getValue().entrySet()) {
+                t.add(mc.getValue());
+                entry_contexts.add(mc.getKey().makeEntryContext());
+            }
+            totals.put(me.getKey(), t);
+            contexts.put(me.getKey(), entry_contexts.size());
+            total_time += t.time;
+        }
+        List<Function> fs = newList(totals.keySet());
+        fs.sort((f1, f2) -> Long.compare(totals.get(f2).time, totals.get(f1).time));
+        StringBuilder b = new StringBuilder("Function profile (top " + Math.min(top, fs.size()) + " of " + fs.size() + " functions):");
+        b.append(String.format("%n%10s %6s %10s %10s %10s %10s %8s  %s", "time(ms)", "%", "blocks", "nodes", "joins", "recoveries", "contexts", "function"));
+        for (Function f : fs.subList(0, Math.min(top, fs.size()))) {
+            Cost t = totals.get(f);
+            b.append(String.format("%n%10d %6.1f %10d %10d %10d %10d %8d  %s",
+                    t.time / 1000000, total_time == 0 ? 0.0 : 100.0 * t.time / total_time,
+                    t.block_transfers, t.node_transfers, t.joins, t.recoveries, contexts.get(f), frame(f)));
+        }
+        log.info(b);
+    }
+
+    /**
+     * Writes the self time of each call chain in collapsed stack format.
+     */
+    private void writeCollapsedStacks() {
+        Map<String, Long> stacks = new HashMap<>();
+        for (Map.Entry<Function, Map<Context, Cost>> me : costs.entrySet())
+            for (Map.Entry<Context, Cost> mc : me.getValue().entrySet())
+                stacks.merge(chain(me.getKey(), mc.getKey()), mc.getValue().time / 1000, Long::sum);
+        List<String> keys = newList(stacks.keySet());
+        Collections.sort(keys);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(collapsed_stacks, StandardCharsets.UTF_8))) {
+            for (String k : keys)
+                if (stacks.get(k) > 0)
+                    out.println(k + " " + stacks.get(k));
+        } catch (IOException e) {
+            log.error("Unable to write profile " + collapsed_stacks + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the call chain leading to the given function and context, outermost first, separated by semicolons.
+     */
+    private String chain(Function f, Context c) {
+        List<String> frames = newList();
+        Set<BlockAndContext<Context>> visited = newSet();
+        while (true) {
+            frames.add(frame(f).replace(';', ','));
+            if (callgraph == null || frames.size() == MAX_CHAIN_LENGTH)
+                break;
+            BlockAndContext<Context> entry = BlockAndContext.makeEntry(f.getEntry(), c);
+            if (!visited.add(entry))
+                break; // recursion
+            CallGraph.ReverseEdge<Context> re = null;
+            int re_order = Integer.MAX_VALUE;
+            for (CallGraph.ReverseEdge<Context> e : callgraph.getSources(entry)) {
+                int order = callgraph.getBlockContextOrder(new BlockAndContext<>(e.getCallNode().getBlock(), e.getCallerContext()));
+                if (order < re_order) {
+                    re = e;
+                    re_order = order;
+                }
+            }
+            if (re == null)
+                break;
+            f = re.getCallNode().getBlock().getFunction();
+            c = re.getCallerContext();
+        }
+        Collections.reverse(frames);
+        return String.join(";", frames);
+    }
+
+    private static String frame(Function f) {
+        String name = f.isMain() ? "<main>" : f.getName() != null ? f.getName() : "<anonymous>";
+        SourceLocation loc = f.getSourceLocation();
+        return loc == null ? name : name + " (" + loc.getPrettyFileName() + ":" + loc.getLineNumber() + ")";
+    }
+}
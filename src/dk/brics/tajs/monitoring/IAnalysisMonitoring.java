@@ -81,6 +81,18 @@ public interface IAnalysisMonitoring extends ISolverMonitoring<State, Context> {
      */
     void endPhase(AnalysisPhase phase);
 
+    /**
+     * Returns a new monitoring object for scanning one of the functions on another thread, or null if this is not supported.
+     * The returned object only receives the callbacks of the scan phase, see {@link #mergeScanMonitoring(IAnalysisMonitoring)}.
+     */
+    IAnalysisMonitoring makeScanMonitoring();
+
+    /**
+     * Merges the results of a monitoring object made by {@link #makeScanMonitoring()} into this monitoring object.
+     * The monitoring objects of the functions are merged in the order of the functions, on the thread of the scan phase.
+     */
+    void mergeScanMonitoring(IAnalysisMonitoring m);
+
     /**
      * Returns the collected messages.
      * (Used by the Eclipse plugin.)
@@ -16,46 +16,31 @@
 
 package dk.brics.tajs.monitoring;
 
-import dk.brics.tajs.analysis.js.UserFunctionCalls;
 import dk.brics.tajs.flowgraph.AbstractNode;
 import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.ControlFlowIndex;
 import dk.brics.tajs.flowgraph.FlowGraph;
 import dk.brics.tajs.flowgraph.Function;
 import dk.brics.tajs.flowgraph.HostEnvSources;
 import dk.brics.tajs.flowgraph.SourceLocation;
-import dk.brics.tajs.flowgraph.jsnodes.AssumeNode;
-import dk.brics.tajs.flowgraph.jsnodes.BeginForInNode;
-import dk.brics.tajs.flowgraph.jsnodes.BeginLoopNode;
-import dk.brics.tajs.flowgraph.jsnodes.BeginWithNode;
-import dk.brics.tajs.flowgraph.jsnodes.BinaryOperatorNode;
 import dk.brics.tajs.flowgraph.jsnodes.CallNode;
 import dk.brics.tajs.flowgraph.jsnodes.CatchNode;
-import dk.brics.tajs.flowgraph.jsnodes.ConstantNode;
 import dk.brics.tajs.flowgraph.jsnodes.DeclareFunctionNode;
 import dk.brics.tajs.flowgraph.jsnodes.DeclareVariableNode;
 import dk.brics.tajs.flowgraph.jsnodes.DeletePropertyNode;
-import dk.brics.tajs.flowgraph.jsnodes.EndForInNode;
-import dk.brics.tajs.flowgraph.jsnodes.EndLoopNode;
 import dk.brics.tajs.flowgraph.jsnodes.EndWithNode;
-import dk.brics.tajs.flowgraph.jsnodes.EventDispatcherNode;
-import dk.brics.tajs.flowgraph.jsnodes.ExceptionalReturnNode;
 import dk.brics.tajs.flowgraph.jsnodes.HasNextPropertyNode;
 import dk.brics.tajs.flowgraph.jsnodes.IfNode;
-import dk.brics.tajs.flowgraph.jsnodes.NewObjectNode;
-import dk.brics.tajs.flowgraph.jsnodes.NextPropertyNode;
 import dk.brics.tajs.flowgraph.jsnodes.Node;
-import dk.brics.tajs.flowgraph.jsnodes.NodeVisitor;
-import dk.brics.tajs.flowgraph.jsnodes.NopNode;
 import dk.brics.tajs.flowgraph.jsnodes.ReadPropertyNode;
 import dk.brics.tajs.flowgraph.jsnodes.ReadVariableNode;
 import dk.brics.tajs.flowgraph.jsnodes.ReturnNode;
-import dk.brics.tajs.flowgraph.jsnodes.ThrowNode;
-import dk.brics.tajs.flowgraph.jsnodes.TypeofNode;
-import dk.brics.tajs.flowgraph.jsnodes.UnaryOperatorNode;
 import dk.brics.tajs.flowgraph.jsnodes.WritePropertyNode;
 import dk.brics.tajs.flowgraph.jsnodes.WriteVariableNode;
 import dk.brics.tajs.lattice.CallEdge;
 import dk.brics.tajs.lattice.Context;
+import dk.brics.tajs.lattice.ContextArguments;
+import dk.brics.tajs.lattice.HeapContext;
 import dk.brics.tajs.lattice.HostObject;
 import dk.brics.tajs.lattice.Obj;
 import dk.brics.tajs.lattice.ObjectLabel;
@@ -67,6 +52,9 @@ import dk.brics.tajs.lattice.UnknownValueResolver;
 import dk.brics.tajs.lattice.Value;
 import dk.brics.tajs.monitoring.ObjReadsWrites.R_Status;
 import dk.brics.tajs.monitoring.ObjReadsWrites.W_Status;
+import dk.brics.tajs.options.ExperimentalOptions;
+import dk.brics.tajs.options.ExperimentalOptions.ExperimentalOptionsManager;
+import dk.brics.tajs.options.OptionValues;
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.solver.CallGraph;
 import dk.brics.tajs.solver.Message;
@@ -76,18 +64,21 @@ import dk.brics.tajs.solver.NodeAndContext;
 import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Pair;
 import dk.brics.tajs.util.Strings;
+import dk.brics.tajs.util.WeakInterner;
 import org.apache.log4j.Logger;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
 import static dk.brics.tajs.util.Collections.addAllToMapSet;
 import static dk.brics.tajs.util.Collections.addToMapList;
@@ -101,31 +92,32 @@ import static dk.brics.tajs.util.Collections.newSet;
  */
 public class Monitoring implements IAnalysisMonitoring {
 
+    /**
+     * Default name of the smell report file, written to the working directory.
+     */
+    public static final String SMELL_REPORT_FILE = "SmellReport.txt";
+
     public Set<CallNode> parameterArgumentMismatch = newSet();
     public Set<IfNode> conditionalAssignments = newSet();
     public Set<DeclareFunctionNode> longParameterList = newSet();
     public Set<ReadVariableNode> nestedCallbackNodes = newSet();
     public Set<ReadPropertyNode> extraBindNodes = newSet();
-    public static ArrayList<Function> nested_callbacks = new ArrayList();
+    public ArrayList<Function> nested_callbacks = new ArrayList();
     public Set<CatchNode> emptyCatchNodes = newSet();
     public Set<IfNode> switchNodes = newSet();
     public Set<String> lengthyVariableNames = newSet();
-    public Set<BasicBlock> observedBlocks = newSet();
     public int lengthVariableCount;
-    String results = "";
-    public static Set<DeclareFunctionNode> longMethods = newSet();
+    public Set<DeclareFunctionNode> longMethods = newSet();
     public Set<IfNode> nestedIfs = newSet();
     public Set<CallNode> subsequentCallNodes = newSet();
-    public static Set<IfNode> conditionalIfs = newSet();
-    public static Set<String> mainGlobalVariables = newSet();
+    public Set<IfNode> conditionalIfs = newSet();
+    public Set<String> mainGlobalVariables = newSet();
     public int callNestCount;
     public Set<AbstractNode> nestedCalls = newSet();
     public Set<CallNode> constructorCalls = newSet();
     private int parameterNum;
     private int argumentNum;
-    public static Set<BasicBlock> visitedBlocks = newSet();
     public Set<BasicBlock> loopBlocks = newSet();
-    public int depthCount = 0;
     private static Logger log = Logger.getLogger(Monitoring.class);
 
     /**
@@ -298,6 +290,11 @@ public class Monitoring implements IAnalysisMonitoring {
      */
     private CallGraph<State, Context, CallEdge> callgraph;
 
+    /**
+     * The flow-insensitive smell detectors.
+     */
+    private SmellRuleEngine smell_rules;
+
     /**
      * Constructs a new monitoring object.
      */
@@ -321,57 +318,42 @@ public class Monitoring implements IAnalysisMonitoring {
         recovery_graph_sizes = newMap();
 //        next_newflow_file = 1;
         messages = null;
+        smell_rules = new SmellRuleEngine(makeSmellRules());
     }
 
-    public String reportLongMethods() {
-        String msg = "********Long Methods********\r\n";
-        msg += "Number of occurences: " + longMethods.size() + "\r\n";
+    public void reportLongMethods(SmellReportWriter report) {
+        report.beginCategory("Long Methods", "Number of occurences", longMethods.size(), false);
         for (DeclareFunctionNode dfn: longMethods) {
             addMessage(dfn, Status.CERTAIN, Severity.MEDIUM, "Method is too long");
-            msg += "Function: " + dfn.getFunction().getName() + " at line number: " + dfn.getSourceLocation().getLineNumber() + "\r\n";
+            report.finding("Function: " + dfn.getFunction().getName() + " at line number: " + dfn.getSourceLocation().getLineNumber(), dfn.getSourceLocation(), dfn.getFunction());
         }
-        return msg;
+        report.endCategory();
     }
 
-    public String reportParameterArgumentMismatch() {
-        String msg = "********Parameter Argument Mismatch********\r\n";
-        String output = "";
+    public void reportParameterArgumentMismatch(SmellReportWriter report) {
         int count = 0;
-        for(CallNode n: UserFunctionCalls.Arg_Mismatches) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Parameter/Argument Mismatch");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
-        }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+        for (Function f : flowgraph.getFunctions())
+            count += f.argumentMismatchCalls.size();
+        report.beginCategory("Parameter Argument Mismatch", "Number of occurences", count, false);
+        for (Function f : getFunctionsInOrder())
+            for (CallNode n : inOrder(f.argumentMismatchCalls)) {
+                addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Parameter/Argument Mismatch");
+                report.finding("Instance at line: " + n.getSourceLocation().getLineNumber(), n);
+            }
+        report.endCategory();
     }
 
-    public String reportNestedIfs() {
-        String msg = "********Excessive Nesting********\r\n";
-        msg += "Number of occurences: " + nestedIfs.size() + "\r\n";
+    public void reportNestedIfs(SmellReportWriter report) {
+        report.beginCategory("Excessive Nesting", "Number of occurences", nestedIfs.size(), false);
         for (IfNode n: nestedIfs) {
             addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Too many nested if/for/while statements");
-            msg += "Occurance at line number: " + n.getSourceLocation().getLineNumber() + "\r\n";
+            report.finding("Occurance at line number: " + n.getSourceLocation().getLineNumber(), n);
         }
-        return msg;
+        report.endCategory();
     }
 
     public boolean findSwitch(IfNode n) {
-        BasicBlock currentBlock = n.getBlock();
-        int caseCount = 0;
-        do{
-            if (currentBlock.getLastNode() instanceof IfNode) {
-                currentBlock = ((IfNode) currentBlock.getLastNode()).getSuccFalse();
-                if (currentBlock.getLastNode().getSourceLocation() == n.getSourceLocation())
-                    caseCount++;
-            }
-        } while (currentBlock.getLastNode() instanceof IfNode);
-        if (caseCount > 2) {
-            return true;
-        }
-        else
-            return false;
+        return n.getBlock().getFunction().getControlFlowIndex().getCaseChainLength(n.getBlock()) > 2;
     }
 
     public int findMessageDepth(ReadVariableNode n) {
@@ -416,289 +398,93 @@ public class Monitoring implements IAnalysisMonitoring {
     }
 
     /**
-     * Finds the block at which the true and false paths of an if node meet
-     * If for/while loop, returns the block of the if node-
+     * Checks whether the given if node is the condition of a loop,
+     * i.e. its true branch stays in the innermost loop containing it and its false branch leaves the loop.
      */
-    private BasicBlock findConvergentBlock (IfNode n) {
-        if (n.getSuccFalse() == n.getSuccTrue())
-            return n.getSuccFalse();
-        if (searchSucc(n.getBlock())) {
-            return n.getBlock();
-        }
-        Set<BasicBlock> trueBlocks = newSet();
-        BasicBlock currentBlock = n.getBlock();
-        do {
-            trueBlocks.add(currentBlock);
-            if (searchSucc(currentBlock))
-                currentBlock = ((IfNode)currentBlock.getLastNode()).getSuccFalse();
-            else if (currentBlock.getLastNode() instanceof IfNode)
-                currentBlock = ((IfNode) currentBlock.getLastNode()).getSuccTrue();
-            else
-                currentBlock = currentBlock.getSingleSuccessor();
-        } while (!(currentBlock.getFirstNode() instanceof ReturnNode) && !trueBlocks.contains(currentBlock));
-        currentBlock = n.getSuccFalse();
-        do {
-            if (trueBlocks.contains(currentBlock)) {
-               return currentBlock;
-            }
-            else if (currentBlock.getLastNode() instanceof IfNode)
-                currentBlock = ((IfNode)currentBlock.getLastNode()).getSuccFalse();
-            else if (currentBlock.getLastNode() instanceof ReturnNode) {
-                return currentBlock;
-            }
-            else
-                currentBlock = currentBlock.getSingleSuccessor();
-        } while (currentBlock.getSuccessors().size() != 0);
-        return n.getBlock();
-    }
-
-    /*
-    private BasicBlock findConvergentBlock (IfNode n) {
-        if (searchSucc(n.getBlock(), n.getBlock()))
-            return n.getBlock();
-        Set<BasicBlock> trueBlocks = newSet();
-        BasicBlock currentBlock = n.getSuccTrue();
-        do  {
-            if (currentBlock.getLastNode() instanceof IfNode) {
-                switch (findConditionalIfs(((IfNode)currentBlock.getLastNode()))) {
-                    case -1:
-                        currentBlock = ((IfNode) currentBlock.getLastNode()).getSuccTrue();
-                        break;
-                    case 0:
-                        currentBlock = (((IfNode)((IfNode) currentBlock.getLastNode()).getSuccFalse().getLastNode()).getSuccTrue());
-                        break;
-                    case 1:
-                        currentBlock = (((IfNode)((IfNode) currentBlock.getLastNode()).getSuccTrue().getLastNode()).getSuccTrue());
-                        break;
-                    default:
-                        break;
-                }
-            }
-            else
-                currentBlock = currentBlock.getSingleSuccessor();
-            trueBlocks.add(currentBlock);
-        } while (!(currentBlock.getFirstNode() instanceof ReturnNode) && !trueBlocks.contains(currentBlock));
-        currentBlock = n.getSuccFalse();
-        do {
-            if (currentBlock.getLastNode() instanceof IfNode)
-                currentBlock = ((IfNode) currentBlock.getLastNode()).getSuccFalse();
-            else
-                if (!(currentBlock.getLastNode() instanceof ReturnNode))
-                    currentBlock = currentBlock.getSingleSuccessor();
-            if ( trueBlocks.contains(currentBlock))
-                return currentBlock;
-        } while (!(currentBlock.getFirstNode() instanceof ReturnNode));
-        return n.getBlock();
-    }
-*/
-
-    private boolean beginFindDepth(BasicBlock keyBlock) {
-        depthCount = 0;
-        BasicBlock currentBlock = getFunctionEntryBlock(keyBlock);
-        do {
-            if (currentBlock == keyBlock)
-                return true;
-            if (currentBlock.getLastNode() instanceof IfNode) {
-                if (findDepth2(currentBlock, keyBlock)) {
-                    depthCount++;
-                    return true;
-                }
-                else
-                    currentBlock = ((IfNode)currentBlock.getLastNode()).getSuccFalse();
-            }
-            else
-                currentBlock = currentBlock.getSingleSuccessor();
-        } while (!(currentBlock.getLastNode() instanceof ReturnNode));
-        return false;
-    }
-
-    private boolean findDepth2(BasicBlock searchBlock, BasicBlock keyBlock) {
-        BasicBlock trueBlock = ((IfNode)searchBlock.getLastNode()).getSuccTrue();
-        try{
-            if (((IfNode)trueBlock.getLastNode()).getSuccTrue() == ((IfNode)trueBlock.getLastNode()).getSuccFalse())
-                return false;
-        } catch(Exception e) {}
-        try{
-            BasicBlock testBlock = ((IfNode)searchBlock.getLastNode()).getSuccFalse();
-            testBlock = ((IfNode)searchBlock.getLastNode()).getSuccFalse();
-            while (!(testBlock.getFirstNode() instanceof ReturnNode) || !(testBlock.getLastNode() instanceof IfNode)) {
-                for (AbstractNode nodes : testBlock.getNodes())
-                    if (nodes instanceof NopNode)
-                        return false;
-                testBlock = testBlock.getSingleSuccessor();
-            }
-        } catch(AnalysisException ae) {}
-        observedBlocks.add(searchBlock);
-        BasicBlock convergentBlock = findConvergentBlock((IfNode)searchBlock.getLastNode());
-        BasicBlock currentBlock = ((IfNode)searchBlock.getLastNode()).getSuccTrue();
-        while (currentBlock != convergentBlock && !observedBlocks.contains(currentBlock)) {
-            observedBlocks.add(currentBlock);
-            if (currentBlock == keyBlock) {
-                depthCount++;
-                return true;
-            }
-            if (currentBlock.getLastNode() instanceof IfNode) {
-                if (findDepth2(currentBlock, keyBlock)) {
-                    depthCount++;
-                    return true;
-                } else
-                    currentBlock = ((IfNode) currentBlock.getLastNode()).getSuccFalse();
-            } else if (currentBlock.getLastNode() instanceof ReturnNode)
-                return false;
-            else
-                currentBlock = currentBlock.getSingleSuccessor();
-        }
-        return false;
-    }
-
-
-    private boolean findDepth(BasicBlock searchBlock, BasicBlock keyBlock) {
-        BasicBlock convergentBlock = keyBlock;
-        if (searchBlock.getLastNode() instanceof IfNode) {
-            if (searchSucc(searchBlock))
-                convergentBlock = searchBlock;
-            else
-                convergentBlock = findConvergentBlock(((IfNode) searchBlock.getLastNode()));
-        }
-        if (searchBlock == keyBlock) {
-            return true;
-        }
-        BasicBlock currentBlock = searchBlock;
-        for (BasicBlock b: currentBlock.getSuccessors()) {
-            if (searchSucc(searchBlock))
-                if (b == ((IfNode)searchBlock.getLastNode()).getSuccFalse())
-                    continue;
-            currentBlock = b;
-            while (!(currentBlock.getLastNode() instanceof ReturnNode) && currentBlock != convergentBlock && !observedBlocks.contains(currentBlock)) {
-                observedBlocks.add(currentBlock);
-                //System.out.println("Current block: " + currentBlock.getIndex() + " with searchblock " + searchBlock.getIndex() + " and keyblock " + keyBlock.getIndex());
-                if (currentBlock.getLastNode() instanceof IfNode)
-                    try {
-                        if (findDepth(currentBlock, keyBlock)) {
-                            depthCount++;
-                            return true;
-                        } else
-                            currentBlock = findConvergentBlock(((IfNode) currentBlock.getLastNode()));
-                    } catch(StackOverflowError soe) {}
-                else
-                    currentBlock = currentBlock.getSingleSuccessor();
-            }
-        }
-        return false;
-    }
-
-    private boolean searchSucc(BasicBlock keyBlock) {
-        if (keyBlock.getFirstNode() instanceof HasNextPropertyNode)
+    private boolean isLoopCondition(IfNode n) {
+        BasicBlock b = n.getBlock();
+        if (b.getFirstNode() instanceof HasNextPropertyNode)
             return true;
-        if (!(keyBlock.getLastNode() instanceof IfNode))
-            return false;
-        BasicBlock currentBlock = ((IfNode) keyBlock.getLastNode()).getSuccTrue();
-        while (!(currentBlock.getLastNode() instanceof ReturnNode)) {
-            if (currentBlock.getLastNode() instanceof IfNode)
-                currentBlock = ((IfNode)currentBlock.getLastNode()).getSuccFalse();
-            else
-                currentBlock = currentBlock.getSingleSuccessor();
-            if (currentBlock == keyBlock)
-                return true;
-        }
-        return false;
+        ControlFlowIndex cfg = b.getFunction().getControlFlowIndex();
+        BasicBlock header = cfg.getLoopHeader(b);
+        return header != null && cfg.isInLoop(n.getSuccTrue(), header) && !cfg.isInLoop(n.getSuccFalse(), header);
     }
-    /*
-    private boolean searchSucc(BasicBlock keyBlock, BasicBlock searchBlock) {
-        if (loopBlocks.contains(searchBlock))
-            return false;
-        visitedBlocks.add(searchBlock);
-        try {
-            if (searchBlock.getSingleSuccessor().equals(keyBlock))
-                return true;
-            else
-            if (!visitedBlocks.contains(searchBlock.getSingleSuccessor()));
-            return searchSucc(keyBlock, searchBlock.getSingleSuccessor());
-        }
-        catch (AnalysisException ae) {
-            if (searchBlock.getSuccessors().size() == 0)
-                return false;
-            for (BasicBlock b : searchBlock.getSuccessors()) {
-                if (!visitedBlocks.contains(b))
-                    if (searchSucc(keyBlock, b))
-                        return true;
-            }
-        }
-        catch (StackOverflowError soe) {
-            return false;
-        }
-        return false;
-    } */
 
     public void reportAlreadyDeclaredVariables() {
-        for (Function f: FlowGraph.getFunctions())
-            for (AbstractNode n: f.alreadyDeclaredVariables)
+        for (Function f: getFunctionsInOrder())
+            for (AbstractNode n: inOrder(f.alreadyDeclaredVariables))
                 addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Already declared variable " + getVariableName(n));
     }
 
-    public String reportReassignedVariable() {
-        String msg = "********Variable Re-Assignment********\r\n";
-        String output = "";
+    public void reportReassignedVariable(SmellReportWriter report) {
         int count = 0;
-        for (Function f: FlowGraph.getFunctions())
-            for (WriteVariableNode n: f.reassignedVariables) {
+        for (Function f: flowgraph.getFunctions())
+            count += f.reassignedVariables.size();
+        report.beginCategory("Variable Re-Assignment", "Number of occurences", count, false);
+        for (Function f: getFunctionsInOrder())
+            for (WriteVariableNode n: inOrder(f.reassignedVariables)) {
                 addMessage(n, Status.CERTAIN, Severity.MEDIUM, n.getVariableName() + " gets type re-assigned");
-                output += "Variable " + n.getVariableName() + " gets type re-assigned at line number: " + n.getSourceLocation().getLineNumber() +  "\r\n";
-                count++;
+                report.finding("Variable " + n.getVariableName() + " gets type re-assigned at line number: " + n.getSourceLocation().getLineNumber(), n);
             }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+        report.endCategory();
+    }
+
+    private boolean isShortVariableName(String name) {
+        return name.length() <= 3;
     }
 
-    public String writeVariableNames(AbstractNode n) {
-        if (getVariableName(n).length() <= 3) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Short variable name: " + getVariableName(n));
+    private boolean isLongVariableName(String name) {
+        return name.length() >= 20;
+    }
+
+    public void writeVariableNames(AbstractNode n, SmellReportWriter report) {
+        String name = getVariableName(n);
+        if (isShortVariableName(name)) {
+            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Short variable name: " + name);
             lengthVariableCount++;
-            return "Short Variable: " + getVariableName(n) + " at line number: " + n.getSourceLocation().getLineNumber() + "\r\n";
+            report.finding("Short Variable: " + name + " at line number: " + n.getSourceLocation().getLineNumber(), n);
         }
-        else if (getVariableName(n).length() >= 20) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Lengthy variable name: " + getVariableName(n));
+        else if (isLongVariableName(name)) {
+            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Lengthy variable name: " + name);
             lengthVariableCount++;
-            return "Long Variable: " + getVariableName(n) + " at line number: " + n.getSourceLocation().getLineNumber() + "\r\n";
+            report.finding("Long Variable: " + name + " at line number: " + n.getSourceLocation().getLineNumber(), n);
         }
-        return "";
     }
 
-    public String reportVariableNames() {
-        String msg = "********Short/Long Variable Names********\r\n";
-        String output = "";
-        lengthVariableCount = 0;
-        for (Function f: FlowGraph.getFunctions()) {
-            for (AbstractNode n : f.undeclaredFunctionVariables) {
+    public void reportVariableNames(SmellReportWriter report) {
+        // the first node of each name is reported, so the nodes are visited in a fixed order
+        List<AbstractNode> candidates = newList();
+        for (Function f: getFunctionsInOrder()) {
+            for (AbstractNode n : inOrder(f.undeclaredFunctionVariables)) {
                 if (!f.loopVariablesString.contains(getVariableName(n)) && lengthyVariableNames.add(getVariableName(n)))
-                    output += writeVariableNames(n);
+                    candidates.add(n);
             }
-            for (AbstractNode n : f.declaredFunctionVariables) {
+            for (AbstractNode n : inOrder(f.declaredFunctionVariables)) {
                 if (!f.loopVariablesString.contains(getVariableName(n)) && lengthyVariableNames.add(getVariableName(n)))
-                    output += writeVariableNames(n);
+                    candidates.add(n);
             }
-            for (AbstractNode n : f.functionProperties) {
+            for (AbstractNode n : inOrder(f.functionProperties)) {
                 if (!f.loopVariablesString.contains(getVariableName(n)) && lengthyVariableNames.add(getVariableName(n)))
-                    output += writeVariableNames(n);
+                    candidates.add(n);
             }
         }
-        msg += "Number of occurences: " + lengthVariableCount + "\r\n";
-        msg += output;
-        return msg;
+        int count = 0;
+        for (AbstractNode n : candidates) {
+            String name = getVariableName(n);
+            if (isShortVariableName(name) || isLongVariableName(name))
+                count++;
+        }
+        lengthVariableCount = 0;
+        report.beginCategory("Short/Long Variable Names", "Number of occurences", count, false);
+        for (AbstractNode n : candidates)
+            writeVariableNames(n, report);
+        report.endCategory();
     }
 
     public BasicBlock getFunctionEntryBlock (BasicBlock block) {
-        int index = block.getIndex();
-        BasicBlock returnBlock = block;
-        Function f = block.getFunction();
-        for (BasicBlock b: f.getBlocks())
-            if (b.getIndex() < index) {
-                index = b.getIndex();
-                returnBlock = b;
-            }
-        return returnBlock;
+        return block.getFunction().getControlFlowIndex().getFirstBlock();
     }
+
     public String getVariableName(AbstractNode n) {
         if (n instanceof WriteVariableNode)
             return (((WriteVariableNode)n).getVariableName());
@@ -816,19 +602,7 @@ public class Monitoring implements IAnalysisMonitoring {
 
 
     public BasicBlock getPreviousBlock(BasicBlock block){
-
-        for(BasicBlock b : block.getFunction().getBlocks()) {
-            if(b.getIndex() == (block.getIndex()-1))
-            {
-                return b;
-            }
-
-        }
-        if(block.getIndex()==0)
-        {
-            return null;
-        }
-        return null;
+        return block.getFunction().getControlFlowIndex().getPreviousBlock(block);
     }
 
 
@@ -910,95 +684,40 @@ public class Monitoring implements IAnalysisMonitoring {
 
     public int globalVariableCount() {
         int count = 0;
-        for (Function f : FlowGraph.getFunctions())
+        for (Function f : flowgraph.getFunctions())
             for (AbstractNode n : f.globalFunctionVariables) {
                 count++;
             }
         return count;
     }
 
-    public String reportSwitchStatements() {
-        String msg = "********Complex Switch********\r\n";
-        String output = "";
-        int count = 0;
-        for (IfNode n: switchNodes) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Switch statement");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
-        }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+    public void reportSwitchStatements(SmellReportWriter report) {
+        reportInstances(report, "Complex Switch", switchNodes, "Switch statement");
     }
 
-    public String reportNestedCallbacks() {
-        String msg = "********Nested Callbacks********\r\n";
-        String output = "";
-        int count = 0;
-        for (ReadVariableNode n: nestedCallbackNodes) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Nested Callback");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
-        }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+    public void reportNestedCallbacks(SmellReportWriter report) {
+        reportInstances(report, "Nested Callbacks", nestedCallbackNodes, "Nested Callback");
     }
 
-    public String reportExtraBinds() {
-        String msg = "********Extra Bind********\r\n";
-        String output = "";
-        int count = 0;
-        for (ReadPropertyNode n: extraBindNodes) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Extra Bind");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
-        }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+    public void reportExtraBinds(SmellReportWriter report) {
+        reportInstances(report, "Extra Bind", extraBindNodes, "Extra Bind");
     }
 
-    public String reportLongParameterLists() {
-        String msg = "********Long Parameter List********\r\n";
-        String output = "";
-        int count = 0;
-        for (DeclareFunctionNode n: longParameterList) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Long Parameter List");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
-        }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+    public void reportLongParameterLists(SmellReportWriter report) {
+        reportInstances(report, "Long Parameter List", longParameterList, "Long Parameter List");
     }
 
-    public String reportConditionalAssignments() {
-        String msg = "********Assignment in Conditionals********\r\n";
-        String output = "";
-        int count = 0;
-        for (IfNode n: conditionalAssignments) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Assignment in Conditioinal Statement");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
-        }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+    public void reportConditionalAssignments(SmellReportWriter report) {
+        reportInstances(report, "Assignment in Conditionals", conditionalAssignments, "Assignment in Conditioinal Statement");
     }
 
     public void reportGlobalVariables() {
-        for (Function functions: FlowGraph.getFunctions())
-            try {
-            for (AbstractNode anode: functions.globalFunctionVariables) {
-                    if (functions.functionsAsVariables.contains(getVariableName(anode))) {
-                        functions.globalFunctionVariables.remove(anode);
-                    }
-                }
-            } catch (ConcurrentModificationException cme) {System.out.println("Concurrent Modification Exception. Global variable report may be innacurate.");}
+        for (Function functions: flowgraph.getFunctions())
+            functions.globalFunctionVariables.removeIf(anode -> functions.functionsAsVariables.contains(getVariableName(anode)));
+        // the first node of each name is reported, so the nodes are visited in a fixed order
         if (globalVariableCount() > 0)
-            for (Function f: FlowGraph.getFunctions())
-                for (AbstractNode n: f.globalFunctionVariables) {
+            for (Function f: getFunctionsInOrder())
+                for (AbstractNode n: inOrder(f.globalFunctionVariables)) {
                     if (mainGlobalVariables.add(getVariableName(n))) {
                         String msg = "Global variable ";
                         if (f.loopVariablesString.contains(getVariableName(n)))
@@ -1008,23 +727,13 @@ public class Monitoring implements IAnalysisMonitoring {
                 }
     }
 
-    public String reportEmptyCatchNodes() {
-        String msg = "********Empty Catch********\r\n";
-        String output = "";
-        int count = 0;
-        for (CatchNode n: emptyCatchNodes) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Empty Catch Statement");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
-        }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+    public void reportEmptyCatchNodes(SmellReportWriter report) {
+        reportInstances(report, "Empty Catch", emptyCatchNodes, "Empty Catch Statement");
     }
 
     public void reportUndeclaredVariable() {
-        for (Function f: FlowGraph.getFunctions())
-            for (AbstractNode n: f.undeclaredFunctionVariables){
+        for (Function f: getFunctionsInOrder())
+            for (AbstractNode n: inOrder(f.undeclaredFunctionVariables)){
                 String msg = "Undeclared variable ";
                 if (f.loopVariablesString.contains(getVariableName(n)))
                     msg += "(loop variable) ";
@@ -1064,18 +773,40 @@ public class Monitoring implements IAnalysisMonitoring {
         catch (AnalysisException ae) {}
     }
 
-    public String reportChainedMessages() {
-        String msg = "********Chained Message********\r\n";
-        String output = "";
-        int count = 0;
-        for (AbstractNode n: nestedCalls) {
-            addMessage(n, Status.CERTAIN, Severity.MEDIUM, "Chained message call");
-            output += "Instance at line: " + n.getSourceLocation().getLineNumber() + "\r\n";
-            count++;
+    public void reportChainedMessages(SmellReportWriter report) {
+        reportInstances(report, "Chained Message", nestedCalls, "Chained message call");
+    }
+
+    /**
+     * Reports each of the given nodes as an instance of a code smell.
+     */
+    private void reportInstances(SmellReportWriter report, String category, Collection<? extends AbstractNode> nodes, String message) {
+        report.beginCategory(category, "Number of occurences", nodes.size(), false);
+        for (AbstractNode n : inOrder(nodes)) {
+            addMessage(n, Status.CERTAIN, Severity.MEDIUM, message);
+            report.finding("Instance at line: " + n.getSourceLocation().getLineNumber(), n);
         }
-        msg += "Number of occurences: " + count + "\r\n";
-        msg += output;
-        return msg;
+        report.endCategory();
+    }
+
+    /**
+     * Returns the functions of the flow graph ordered by their indices.
+     * The sets of functions and nodes are hashed by identity, so their iteration order differs between runs,
+     * including runs that are resumed from a checkpoint.
+     */
+    private List<Function> getFunctionsInOrder() {
+        List<Function> fs = newList(flowgraph.getFunctions());
+        fs.sort(Comparator.comparingInt(Function::getIndex));
+        return fs;
+    }
+
+    /**
+     * Returns the given nodes ordered by their indices.
+     */
+    private static <T extends AbstractNode> List<T> inOrder(Collection<T> nodes) {
+        List<T> res = newList(nodes);
+        res.sort(Comparator.comparingInt(AbstractNode::getIndex));
+        return res;
     }
 
     private void reportUnreachableFunctions() {
@@ -1250,223 +981,217 @@ public class Monitoring implements IAnalysisMonitoring {
         for (Function functions: flowgraph.getFunctions())
         messages = newMap();
         scan_phase = true;
-        for (Function f : flowgraph.getFunctions())
-            for (BasicBlock b : f.getBlocks())
-                for (AbstractNode n : b.getNodes())
-                    n.visitBy((n1) -> n1.visitBy(new NodeVisitor() {
-
-                        @Override
-                        public void visit(NopNode n) {
-                        }
-
-                        @Override
-                        public void visit(DeclareVariableNode n) {
-                            Function f = n.getBlock().getFunction();
-                            if (f.declaredVariableStrings.add(getVariableName(n))) {
-                                f.declaredFunctionVariables.add(n);
-                            }
-                            if (n.getBlock().getFunction().isMain()) {
-                                n.getBlock().getFunction().globalFunctionVariables.add(n);
-                            }
-                        }
-
-                        @Override
-                        public void visit(ConstantNode n) {
-                        }
-
-                        @Override
-                        public void visit(NewObjectNode n) {
-                        }
-
-                        @Override
-                        public void visit(UnaryOperatorNode n) {
-                        }
-
-                        @Override
-                        public void visit(BinaryOperatorNode n) {
-                        }
-
-                        @Override
-                        public void visit(ReadVariableNode n) {
-                            nested_callbacks.clear();
-                            nestedCallback(n);
-                            findMessageDepth(n);
-                            if (!n.getVariableName().equals("this")) {
-                                read_variable_nodes++;
-                            }
-                        }
-
-                        @Override
-                        public void visit(WriteVariableNode n) {
-                            Function f = n.getBlock().getFunction();
-                            for (AbstractNode anode: n.getBlock().getNodes())
-                                if (anode instanceof DeclareFunctionNode)
-                                    if (((DeclareFunctionNode) anode).getResultRegister() == n.getValueRegister()) {
-                                        f.functionsAsVariables.add(n.getVariableName());
-                                    }
-                            if (n.getVariableName() != "window")
-                                if (!f.getVariableNames().contains(n.getVariableName()) && !f.getParameterNames().contains(n.getVariableName())) {
-                                    if (f.undeclaredVarStrings.add(getVariableName(n)))
-                                        f.undeclaredFunctionVariables.add(n);
-                                    if (f.globalVarStrings.add(getVariableName(n)))
-                                        f.globalFunctionVariables.add(n);
-                            }
-                        }
-
-                        @Override
-                        public void visit(ReadPropertyNode n) {
-                            if(extraBind(n)) {
-                                extraBindNodes.add(n);
-                            }
-                            property_access_nodes++;
-                            if (n.isPropertyFixed()) {
-                                read_fixed_property_nodes++;
-                            }
-                        }
-
-                        @Override
-                        public void visit(WritePropertyNode n) {
-                            property_access_nodes++;
-                            Function f = n.getBlock().getFunction();
-                            for (AbstractNode anode: n.getBlock().getNodes())
-                                if (anode instanceof DeclareFunctionNode)
-                                    if (((DeclareFunctionNode) anode).getResultRegister() == n.getValueRegister()) {
-                                        try {
-                                            f.functionsAsVariables.add(getVariableName(n));
-                                        } catch (NullPointerException npe) {}
-                                    }
-                            for (AbstractNode anode: n.getBlock().getNodes()) {
-                                if (anode instanceof ReadVariableNode)
-                                    if (((ReadVariableNode) anode).getResultRegister() == n.getBaseRegister())
-                                        if (((ReadVariableNode) anode).getVariableName() == "window" || ((ReadVariableNode) anode).getVariableName()
-                                                == "this" && f.isMain()) {
-                                            f.globalFunctionVariables.add(n);
-                                            if (!f.getVariableNames().contains(n.getPropertyString()))
-                                                f.undeclaredFunctionVariables.add(n);
-                                        }
-                            }
-                        }
+        for (Function f : getFunctionsInOrder())
+            scanFunction(f);
+        if (Options.get().isTimingEnabled())
+            log.info(smell_rules.getStatistics());
+    }
 
-                        @Override
-                        public void visit(DeletePropertyNode n) {
-                            if (!n.isVariable()) {
-                                property_access_nodes++;
-                            }
-                        }
+    /**
+     * Runs the flow-insensitive smell detectors over the nodes of the given function.
+     * Apart from this monitoring object, only the given function is modified.
+     */
+    private void scanFunction(Function f) {
+        smell_rules.run(f);
+    }
 
-                        @Override
-                        public void visit(TypeofNode n) {
-                        }
+    /**
+     * Creates the flow-insensitive smell detectors.
+     * Detectors that need information about the whole block compute it once per block.
+     */
+    private List<SmellRule> makeSmellRules() {
+        List<SmellRule> rules = newList();
 
-                        @Override
-                        public void visit(IfNode n) {
-                            //System.out.println("Block: " + n.getBlock().getIndex() + " has converging node of " + findConvergentBlock(n).getIndex());
-                            if (findSwitch(n)){
-                                switchNodes.add(n);
-                            }
-                            else {
-                                depthCount = 0;
-                                observedBlocks.clear();
-                                beginFindDepth(n.getBlock());
-                                if (depthCount > 3)
-                                    nestedIfs.add(n);
-                                visitedBlocks.clear();
-                                if (searchSucc(n.getBlock())) {
-                                    loopBlocks.add(n.getBlock());
-                                    if (n.getBlock().getFirstNode() instanceof ReadVariableNode) {
-                                        f.loopVariables.add(((ReadVariableNode) n.getBlock().getFirstNode()));
-                                        f.loopVariablesString.add(((ReadVariableNode) n.getBlock().getFirstNode()).getVariableName());
-                                    }
-                                }
-                            }
-                        }
+        rules.add(new SmellRule("Declared variables", Arrays.asList(DeclareVariableNode.class)) {
+            @Override
+            public void visit(AbstractNode n) {
+                Function f = n.getBlock().getFunction();
+                if (f.declaredVariableStrings.add(getVariableName(n))) {
+                    f.declaredFunctionVariables.add(n);
+                }
+                if (f.isMain()) {
+                    f.globalFunctionVariables.add(n);
+                }
+            }
+        });
+
+        rules.add(new SmellRule("Node counts", Arrays.asList(ReadVariableNode.class, ReadPropertyNode.class, WritePropertyNode.class, DeletePropertyNode.class, CallNode.class)) {
+            @Override
+            public void visit(AbstractNode n) {
+                if (n instanceof ReadVariableNode) {
+                    if (!((ReadVariableNode) n).getVariableName().equals("this"))
+                        read_variable_nodes++;
+                } else if (n instanceof ReadPropertyNode) {
+                    property_access_nodes++;
+                    if (((ReadPropertyNode) n).isPropertyFixed())
+                        read_fixed_property_nodes++;
+                } else if (n instanceof WritePropertyNode) {
+                    property_access_nodes++;
+                } else if (n instanceof DeletePropertyNode) {
+                    if (!((DeletePropertyNode) n).isVariable())
+                        property_access_nodes++;
+                } else {
+                    call_nodes++;
+                    //parArgMismatch(n);
+                    //if (!(constructorCalls.contains(n)) && !subsequentCallNodes.contains(n))
+                        //findCallDepth(n);
+                }
+            }
+        });
 
-                        @Override
-                        public void visit(DeclareFunctionNode n) {
-                            Function f = n.getFunction();
-                            int count = 0;
-                            if (f.getSource().length() > 0)
-                                for(int i =0; i < f.getSource().length(); ++i)
-                                {
-                                    if (f.getSource().charAt(i) == '\n') {
-                                        if(f.getSource().charAt(i+1) != '\n') {
-                                            ++count;
-                                        }
-                                    }
-                                }
-                            if (count > 50)
-                                longMethods.add(n);
-                        }
+        rules.add(new SmellRule("Nested callbacks", Arrays.asList(ReadVariableNode.class)) {
+            @Override
+            public void visit(AbstractNode n) {
+                // the callbacks found only depend on the block, so look once per block
+                if (n == n.getBlock().getFirstNode()) {
+                    nested_callbacks.clear();
+                    nestedCallback((ReadVariableNode) n);
+                }
+            }
+        });
 
-                        @Override
-                        public void visit(CallNode n) {
-                            call_nodes++;
-                            //parArgMismatch(n);
-                            //if (!(constructorCalls.contains(n)) && !subsequentCallNodes.contains(n))
-                                //findCallDepth(n);
-                        }
+        rules.add(new SmellRule("Chained messages", Arrays.asList(ReadVariableNode.class)) {
+            @Override
+            public void visit(AbstractNode n) {
+                findMessageDepth((ReadVariableNode) n);
+            }
+        });
 
-                        @Override
-                        public void visit(ReturnNode n) {
-                        }
+        rules.add(new SmellRule("Functions as variables", Arrays.asList(WriteVariableNode.class, WritePropertyNode.class)) {
 
-                        @Override
-                        public void visit(ExceptionalReturnNode n) {
-                        }
+            private Set<Integer> function_registers; // result registers of the function declarations in the current block
 
-                        @Override
-                        public void visit(ThrowNode n) {
-                        }
+            @Override
+            public void beginBlock(BasicBlock b) {
+                function_registers = null;
+            }
 
-                        @Override
-                        public void visit(CatchNode n) {
-                            if (n.getBlock().getSingleSuccessor().getFirstNode() instanceof EndWithNode)
-                                emptyCatchNodes.add(n);
+            @Override
+            public void visit(AbstractNode n) {
+                if (function_registers == null) {
+                    function_registers = newSet();
+                    for (AbstractNode anode : n.getBlock().getNodes())
+                        if (anode instanceof DeclareFunctionNode)
+                            function_registers.add(((DeclareFunctionNode) anode).getResultRegister());
+                }
+                Function f = n.getBlock().getFunction();
+                if (n instanceof WriteVariableNode) {
+                    if (function_registers.contains(((WriteVariableNode) n).getValueRegister()))
+                        f.functionsAsVariables.add(((WriteVariableNode) n).getVariableName());
+                } else if (function_registers.contains(((WritePropertyNode) n).getValueRegister())) {
+                    try {
+                        f.functionsAsVariables.add(getVariableName(n));
+                    } catch (NullPointerException npe) {}
+                }
+            }
+        });
 
-                        }
+        rules.add(new SmellRule("Global variables", Arrays.asList(WriteVariableNode.class, WritePropertyNode.class)) {
 
-                        @Override
-                        public void visit(BeginWithNode n) {
-                        }
+            private Map<Integer, List<ReadVariableNode>> variable_reads; // variable reads in the current block, by result register
 
-                        @Override
-                        public void visit(EndWithNode n) {
-                        }
+            @Override
+            public void beginBlock(BasicBlock b) {
+                variable_reads = null;
+            }
 
-                        @Override
-                        public void visit(BeginForInNode n) {
+            @Override
+            public void visit(AbstractNode n) {
+                Function f = n.getBlock().getFunction();
+                if (n instanceof WriteVariableNode) {
+                    WriteVariableNode w = (WriteVariableNode) n;
+                    if (!w.getVariableName().equals("window"))
+                        if (!f.getVariableNames().contains(w.getVariableName()) && !f.getParameterNames().contains(w.getVariableName())) {
+                            if (f.undeclaredVarStrings.add(getVariableName(w)))
+                                f.undeclaredFunctionVariables.add(w);
+                            if (f.globalVarStrings.add(getVariableName(w)))
+                                f.globalFunctionVariables.add(w);
                         }
+                    return;
+                }
+                WritePropertyNode w = (WritePropertyNode) n;
+                if (variable_reads == null) {
+                    variable_reads = newMap();
+                    for (AbstractNode anode : n.getBlock().getNodes())
+                        if (anode instanceof ReadVariableNode)
+                            addToMapList(variable_reads, ((ReadVariableNode) anode).getResultRegister(), (ReadVariableNode) anode);
+                }
+                for (ReadVariableNode r : variable_reads.getOrDefault(w.getBaseRegister(), Collections.emptyList()))
+                    if (r.getVariableName().equals("window") || r.getVariableName().equals("this") && f.isMain()) {
+                        f.globalFunctionVariables.add(w);
+                        if (!f.getVariableNames().contains(w.getPropertyString()))
+                            f.undeclaredFunctionVariables.add(w);
+                    }
+            }
+        });
 
-                        @Override
-                        public void visit(NextPropertyNode n) {
-                        }
+        rules.add(new SmellRule("Extra binds", Arrays.asList(ReadPropertyNode.class)) {
 
-                        @Override
-                        public void visit(HasNextPropertyNode n) {
-                        }
+            private Boolean extra_bind; // result of extraBind for the current block, which only depends on the block
 
-                        @Override
-                        public void visit(AssumeNode n) {
-                        }
+            @Override
+            public void beginBlock(BasicBlock b) {
+                extra_bind = null;
+            }
 
-                        @Override
-                        public void visit(EventDispatcherNode n) {
-                        }
+            @Override
+            public void visit(AbstractNode n) {
+                if (extra_bind == null)
+                    extra_bind = extraBind((ReadPropertyNode) n);
+                if (extra_bind)
+                    extraBindNodes.add((ReadPropertyNode) n);
+            }
+        });
 
-                        @Override
-                        public void visit(EndForInNode n) {
+        rules.add(new SmellRule("Nesting, switches and loops", Arrays.asList(IfNode.class)) {
+            @Override
+            public void visit(AbstractNode node) {
+                IfNode n = (IfNode) node;
+                Function f = n.getBlock().getFunction();
+                if (findSwitch(n)) {
+                    switchNodes.add(n);
+                } else {
+                    if (f.getControlFlowIndex().getBranchNestingDepth(n.getBlock()) >= 3)
+                        nestedIfs.add(n);
+                    if (isLoopCondition(n)) {
+                        loopBlocks.add(n.getBlock());
+                        if (n.getBlock().getFirstNode() instanceof ReadVariableNode) {
+                            f.loopVariables.add(((ReadVariableNode) n.getBlock().getFirstNode()));
+                            f.loopVariablesString.add(((ReadVariableNode) n.getBlock().getFirstNode()).getVariableName());
                         }
+                    }
+                }
+            }
+        });
 
-                        @Override
-                        public void visit(BeginLoopNode n) {
-
+        rules.add(new SmellRule("Long methods", Arrays.asList(DeclareFunctionNode.class)) {
+            @Override
+            public void visit(AbstractNode n) {
+                Function f = ((DeclareFunctionNode) n).getFunction();
+                int count = 0;
+                if (f.getSource().length() > 0)
+                    for(int i =0; i < f.getSource().length(); ++i)
+                    {
+                        if (f.getSource().charAt(i) == '\n') {
+                            if(f.getSource().charAt(i+1) != '\n') {
+                                ++count;
+                            }
                         }
+                    }
+                if (count > 50)
+                    longMethods.add((DeclareFunctionNode) n);
+            }
+        });
 
-                        @Override
-                        public void visit(EndLoopNode n) {
+        rules.add(new SmellRule("Empty catch blocks", Arrays.asList(CatchNode.class)) {
+            @Override
+            public void visit(AbstractNode n) {
+                if (n.getBlock().getSingleSuccessor().getFirstNode() instanceof EndWithNode)
+                    emptyCatchNodes.add((CatchNode) n);
+            }
+        });
 
-                        }
-                    }));
+        return rules;
     }
 
     private void visitEndScanPhase() {
@@ -1477,32 +1202,12 @@ public class Monitoring implements IAnalysisMonitoring {
             reportDeadAssignments();
             reportShadowing(flowgraph);
             reportGlobalVariables();
-            results += reportLongMethods();
-            results += reportLongParameterLists();
-            results += reportExtraBinds();
-            results += reportParameterArgumentMismatch();
-            results += reportNestedCallbacks();
-            results += reportNestedIfs();
-            results += reportVariableNames();
-            results += reportSwitchStatements();
-            results += reportReassignedVariable();
-            results += reportEmptyCatchNodes();
-            results += reportConditionalAssignments();
-            results += reportChainedMessages();
+            writeSmellReport();
             reportAlreadyDeclaredVariables();
-            outputResults(results);
             if (Options.get().isShowVariableInfoEnabled()) {
                 type_collector.logTypeInformation();
             }
-            // TODO: this de-duplication should happen somewhere else?
-            Set<String> emittedOutput = newSet(); // avoid redundant output
-            for (Message message : getSortedMessages()) {
-                if (HostEnvSources.isHostEnvSource(message.getNode().getSourceLocation()) || emittedOutput.contains(message.toString())) {
-                    continue;
-                }
-                message.emit();
-                emittedOutput.add(message.toString());
-            }
+            emitMessages();
         }
 
         if (Options.get().isStatisticsEnabled()) {
@@ -1510,9 +1215,8 @@ public class Monitoring implements IAnalysisMonitoring {
             log.info(callgraph.getCallGraphStatistics());
             log.info("BlockState: created=" + State.getNumberOfStatesCreated() + ", makeWritableStore=" + State.getNumberOfMakeWritableStoreCalls());
             log.info("Obj: created=" + Obj.getNumberOfObjsCreated() + ", makeWritableProperties=" + Obj.getNumberOfMakeWritablePropertiesCalls());
-            log.info("Value cache: hits=" + Value.getNumberOfValueCacheHits() + ", misses=" + Value.getNumberOfValueCacheMisses() + ", finalSize=" + Value.getValueCacheSize());
-            log.info("Value object set cache: hits=" + Value.getNumberOfObjectSetCacheHits() + ", misses=" + Value.getNumberOfObjectSetCacheMisses() + ", finalSize=" + Value.getObjectSetCacheSize());
-            log.info("ScopeChain cache: hits=" + ScopeChain.getNumberOfCacheHits() + ", misses=" + ScopeChain.getNumberOfCacheMisses() + ", finalSize=" + ScopeChain.getCacheSize());
+            for (Map.Entry<String, WeakInterner.Statistics> me : getCacheStatistics().entrySet())
+                log.info(me.getKey() + ": " + me.getValue());
             log.info("Basic blocks: " + flowgraph.getNumberOfBlocks());
         }
 
@@ -1536,20 +1240,157 @@ public class Monitoring implements IAnalysisMonitoring {
         }
     }
 
-    public static void outputResults(String results) {
-        try{
-            FileWriter fstream = new FileWriter("SmellReport.txt", false);
-            BufferedWriter out  = new BufferedWriter(fstream);
-            out.write("********Excessive Global Variables********\r\n");
-            out.write("Number of global variables: " + Monitoring.mainGlobalVariables.size() + "\r\n");
-            for (String s: Monitoring.mainGlobalVariables)
-                out.write(s + ", ");
-            out.write("\r\n");
-            out.write(results);
+    /**
+     * Emits the collected messages, skipping those in the host environment and duplicates.
+     */
+    private void emitMessages() {
+        // TODO: this de-duplication should happen somewhere else?
+        Set<String> emittedOutput = newSet(); // avoid redundant output
+        for (Message message : getSortedMessages()) {
+            if (HostEnvSources.isHostEnvSource(message.getNode().getSourceLocation()) || emittedOutput.contains(message.toString())) {
+                continue;
+            }
+            message.emit();
+            emittedOutput.add(message.toString());
+        }
+    }
+
+    /**
+     * Runs only the flow-insensitive smell detectors, without analysis results, and writes the smell report.
+     * The functions are scanned in parallel, each by a separate monitoring object,
+     * and the findings are merged in the order of the functions in the flow graph.
+     */
+    private void visitLintPhase() {
+        messages = newMap();
+        scan_phase = true;
+        OptionValues options = Options.get();
+        ExperimentalOptions experimental = ExperimentalOptionsManager.get();
+        List<Monitoring> parts = newList(flowgraph.getFunctions()).parallelStream().map(f -> {
+            OptionValues previous = Options.bind(options);
+            ExperimentalOptions previousExperimental = ExperimentalOptionsManager.bind(experimental);
+            try {
+                Monitoring m = new Monitoring();
+                m.flowgraph = flowgraph;
+                m.messages = newMap();
+                m.scan_phase = true;
+                m.scanFunction(f);
+                if (!f.isMain())
+                    m.visitFunction(f);
+                return m;
+            } finally {
+                if (previous != null)
+                    Options.bind(previous);
+                else
+                    Options.unbind();
+                if (previousExperimental != null)
+                    ExperimentalOptionsManager.bind(previousExperimental);
+                else
+                    ExperimentalOptionsManager.unbind();
+            }
+        }).collect(Collectors.toList());
+        for (Monitoring m : parts) {
+            longMethods.addAll(m.longMethods);
+            longParameterList.addAll(m.longParameterList);
+            extraBindNodes.addAll(m.extraBindNodes);
+            nestedCallbackNodes.addAll(m.nestedCallbackNodes);
+            nestedIfs.addAll(m.nestedIfs);
+            switchNodes.addAll(m.switchNodes);
+            emptyCatchNodes.addAll(m.emptyCatchNodes);
+            nestedCalls.addAll(m.nestedCalls);
+            smell_rules.addStatistics(m.smell_rules);
+            for (Message msg : m.messages.keySet()) {
+                Message mo = messages.get(msg);
+                if (mo != null)
+                    mo.join(msg);
+                else
+                    messages.put(msg, msg);
+            }
+        }
+        if (Options.get().isTimingEnabled())
+            log.info(smell_rules.getStatistics());
+        if (!Options.get().isNoMessages()) {
+            writeLintReport();
+            emitMessages();
+        }
+    }
+
+    /**
+     * Returns the path of the smell report file.
+     */
+    public static Path getSmellReportPath() {
+        String path = Options.get().getSmellReportPath();
+        return Paths.get(path != null ? path : SMELL_REPORT_FILE);
+    }
+
+    /**
+     * Returns the default smell report file name of the analysis session with the given number.
+     */
+    public static String getDefaultSmellReportFile(int session) {
+        return SMELL_REPORT_FILE.replace(".txt", "-" + session + ".txt");
+    }
+
+    /**
+     * Writes the smell report, streaming the findings of each category to the file as they are reported.
+     */
+    private void writeSmellReport() {
+        String format = Options.get().getSmellReportFormat();
+        Path path = getSmellReportPath();
+        SmellBaseline baseline = makeSmellBaseline();
+        try (SmellReportWriter report = SmellReportWriter.open(path, format != null ? SmellReportWriter.Format.parse(format) : SmellReportWriter.Format.TEXT)) {
+            report.setBaseline(baseline);
+            report.beginCategory("Excessive Global Variables", "Number of global variables", mainGlobalVariables.size(), true);
+            for (String s : mainGlobalVariables)
+                report.finding(s, null, flowgraph.getMain());
+            report.endCategory();
+            reportLongMethods(report);
+            reportLongParameterLists(report);
+            reportExtraBinds(report);
+            reportParameterArgumentMismatch(report);
+            reportNestedCallbacks(report);
+            reportNestedIfs(report);
+            reportVariableNames(report);
+            reportSwitchStatements(report);
+            reportReassignedVariable(report);
+            reportEmptyCatchNodes(report);
+            reportConditionalAssignments(report);
+            reportChainedMessages(report);
+        } catch (IOException e) {
+            log.error("Unable to write smell report " + path + ": " + e.getMessage());
+        }
+        writeSmellBaseline(baseline);
+    }
 
-            out.close();
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
+    /**
+     * Returns the smell baseline selected by the options, or null if none.
+     */
+    private SmellBaseline makeSmellBaseline() {
+        String baseline = Options.get().getSmellBaselinePath();
+        String write = Options.get().getWriteSmellBaselinePath();
+        if (baseline == null && write == null)
+            return null;
+        try {
+            return new SmellBaseline(flowgraph, baseline != null ? Paths.get(baseline) : null, write != null);
+        } catch (IOException e) {
+            log.error("Unable to read smell baseline " + baseline + ": " + e.getMessage());
+            return new SmellBaseline(flowgraph, write != null);
+        }
+    }
+
+    /**
+     * Writes the fingerprints of the reported findings as a new baseline, if selected by the options.
+     */
+    private static void writeSmellBaseline(SmellBaseline baseline) {
+        if (baseline == null)
+            return;
+        if (Options.get().getSmellBaselinePath() != null && !Options.get().isQuietEnabled())
+            log.info("New code smells: " + baseline.getNumberOfNewFindings());
+        String write = Options.get().getWriteSmellBaselinePath();
+        if (write != null) {
+            try {
+                baseline.write(Paths.get(write));
+            } catch (IOException e) {
+                log.error("Unable to write smell baseline " + write + ": " + e.getMessage());
+            }
         }
     }
 
@@ -1558,6 +1399,13 @@ public class Monitoring implements IAnalysisMonitoring {
         node_transfers++;
     }
 
+    /**
+     * Returns the number of node transfers performed.
+     */
+    public int getNumberOfNodeTransfers() {
+        return node_transfers;
+    }
+
     /**
      * Registers a block transfer occurrence.
      * Also measures memory usage if enabled.
@@ -2585,6 +2433,100 @@ public class Monitoring implements IAnalysisMonitoring {
         return type_collector.getTypeInformation();
     }
 
+    /**
+     * Writes the smell report with the categories that are found without analysis results.
+     */
+    private void writeLintReport() {
+        String format = Options.get().getSmellReportFormat();
+        Path path = getSmellReportPath();
+        SmellBaseline baseline = makeSmellBaseline();
+        try (SmellReportWriter report = SmellReportWriter.open(path, format != null ? SmellReportWriter.Format.parse(format) : SmellReportWriter.Format.TEXT)) {
+            report.setBaseline(baseline);
+            reportLongMethods(report);
+            reportLongParameterLists(report);
+            reportExtraBinds(report);
+            reportNestedCallbacks(report);
+            reportNestedIfs(report);
+            reportSwitchStatements(report);
+            reportEmptyCatchNodes(report);
+            reportChainedMessages(report);
+        } catch (IOException e) {
+            log.error("Unable to write smell report " + path + ": " + e.getMessage());
+        }
+        writeSmellBaseline(baseline);
+    }
+
+    /**
+     * Returns a new monitoring object for scanning one of the functions on another thread.
+     * It shares the flow graph, the call graph and the functions called as constructors with this monitoring object,
+     * and collects its findings separately until they are merged by {@link #mergeScanMonitoring(IAnalysisMonitoring)}.
+     */
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        Monitoring m = new Monitoring();
+        m.flowgraph = flowgraph;
+        m.callgraph = callgraph;
+        m.called_as_constructor = called_as_constructor;
+        m.messages = newMap();
+        m.scan_phase = scan_phase;
+        return m;
+    }
+
+    /**
+     * Merges the findings of a monitoring object made by {@link #makeScanMonitoring()}.
+     * Merging the monitoring objects in the order of the functions gives the same results,
+     * also the same iteration order, as when the functions are scanned by this monitoring object.
+     */
+    @Override
+    public void mergeScanMonitoring(IAnalysisMonitoring mon) {
+        Monitoring m = (Monitoring) mon;
+        node_transfers += m.node_transfers;
+        block_transfers += m.block_transfers;
+        unknown_value_resolve_analyzing_partial += m.unknown_value_resolve_analyzing_partial;
+        unknown_value_resolve_analyzing_full += m.unknown_value_resolve_analyzing_full;
+        unknown_value_resolve_scanning_partial += m.unknown_value_resolve_scanning_partial;
+        unknown_value_resolve_scanning_full += m.unknown_value_resolve_scanning_full;
+        joins += m.joins;
+        max_memory = Math.max(max_memory, m.max_memory);
+        functions.addAll(m.functions);
+        reachable_functions.addAll(m.reachable_functions);
+        reachable_nodes.addAll(m.reachable_nodes);
+        absent_variable_read.addAll(m.absent_variable_read);
+        absent_fixed_property_read.addAll(m.absent_fixed_property_read);
+        null_undef_base.addAll(m.null_undef_base);
+        call_to_non_function.addAll(m.call_to_non_function);
+        conditionalAssignments.addAll(m.conditionalAssignments);
+        longParameterList.addAll(m.longParameterList);
+        value_reads.putAll(m.value_reads);
+        for (Entry<AbstractNode, Value> me : m.eval_calls.entrySet())
+            eval_calls.merge(me.getKey(), me.getValue(), (v1, v2) -> v1.join(v2));
+        for (Entry<AbstractNode, Value> me : m.inner_html_writes.entrySet())
+            inner_html_writes.merge(me.getKey(), me.getValue(), (v1, v2) -> v1.join(v2));
+        for (Entry<Function, Set<String>> me : m.read_variables.entrySet())
+            addAllToMapSet(read_variables, me.getKey(), me.getValue());
+        for (Entry<ObjectLabel, ObjReadsWrites> me : m.obj_reads_writes.entrySet()) {
+            ObjReadsWrites i = obj_reads_writes.get(me.getKey());
+            if (i == null) {
+                i = new ObjReadsWrites();
+                obj_reads_writes.put(me.getKey(), i);
+            }
+            i.join(me.getValue());
+        }
+        for (Entry<BasicBlock, Map<Context, List<String>>> me : m.newflows.entrySet())
+            for (Entry<Context, List<String>> me2 : me.getValue().entrySet())
+                newflows.computeIfAbsent(me.getKey(), b -> newMap()).computeIfAbsent(me2.getKey(), c -> newList()).addAll(me2.getValue());
+        for (Entry<Integer, Integer> me : m.recovery_graph_sizes.entrySet())
+            recovery_graph_sizes.merge(me.getKey(), me.getValue(), Integer::sum);
+        type_collector.record(m.type_collector);
+        for (Message msg : m.messages.keySet()) {
+            Message mo = messages.get(msg);
+            if (mo != null)
+                mo.join(msg);
+            else
+                messages.put(msg, msg);
+        }
+    }
+
     @Override
     public boolean allowNextIteration() {
         return true;
@@ -2594,6 +2536,8 @@ public class Monitoring implements IAnalysisMonitoring {
     public void beginPhase(AnalysisPhase phase) {
         if (phase == AnalysisPhase.SCAN) {
             visitBeginScanPhase();
+        } else if (phase == AnalysisPhase.LINT) {
+            visitLintPhase();
         }
     }
 
@@ -2613,4 +2557,19 @@ public class Monitoring implements IAnalysisMonitoring {
     public void visitPostBlockTransfer(BasicBlock b, State state) {
         // ignore
     }
+
+    /**
+     * Returns the statistics of the canonicalization caches, which are shared by all analyses in this JVM.
+     */
+    public Map<String, WeakInterner.Statistics> getCacheStatistics() {
+        Map<String, WeakInterner.Statistics> res = new LinkedHashMap<>();
+        res.put("Value cache", Value.getValueCacheStatistics());
+        res.put("Value object set cache", Value.getObjectSetCacheStatistics());
+        res.put("ScopeChain cache", ScopeChain.getCacheStatistics());
+        res.put("Context cache", Context.getCacheStatistics());
+        res.put("ContextArguments cache", ContextArguments.getCacheStatistics());
+        res.put("HeapContext cache", HeapContext.getCacheStatistics());
+        res.put("ObjectLabel cache", ObjectLabel.getCacheStatistics());
+        return res;
+    }
 }
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import static dk.brics.tajs.util.Collections.addAllToMapSet;
 import static dk.brics.tajs.util.Collections.addToMapSet;
 import static dk.brics.tajs.util.Collections.newMap;
 import static dk.brics.tajs.util.Collections.newSet;
@@ -154,6 +155,22 @@ class ObjReadsWrites {
         unknown_write_nodes.add(write_node);
     }
 
+    /**
+     * Adds the reads and writes of the given object.
+     * The result does not depend on the order in which the reads and writes are registered.
+     */
+    public void join(ObjReadsWrites x) {
+        for (Entry<String, R_Status> me : x.reads.entrySet())
+            reads.merge(me.getKey(), me.getValue(), (r1, r2) -> r1.compareTo(r2) >= 0 ? r1 : r2);
+        for (Entry<String, W_Status> me : x.writes.entrySet())
+            writes.merge(me.getKey(), me.getValue(), (w1, w2) -> w1.compareTo(w2) >= 0 ? w1 : w2);
+        for (Entry<String, Set<AbstractNode>> me : x.definite_write_nodes.entrySet())
+            addAllToMapSet(definite_write_nodes, me.getKey(), me.getValue());
+        unknown_write_nodes.addAll(x.unknown_write_nodes);
+        unknown_read |= x.unknown_read;
+        unknown_written |= x.unknown_written;
+    }
+
     /**
      * Returns the read status of the given property.
      */
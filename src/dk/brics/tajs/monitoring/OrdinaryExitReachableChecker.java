@@ -51,6 +51,16 @@ public class OrdinaryExitReachableChecker extends DefaultAnalysisMonitoring {
         }
     }
 
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return new OrdinaryExitReachableChecker(false);
+    }
+
+    @Override
+    public void mergeScanMonitoring(IAnalysisMonitoring m) {
+        seenOrdinaryExit |= ((OrdinaryExitReachableChecker) m).seenOrdinaryExit;
+    }
+
     @Override
     public void visitPostBlockTransfer(BasicBlock b, State state) {
         if (b.getFunction().isMain() && b.getFunction().getOrdinaryExit() == b) {
@@ -85,7 +85,7 @@ public class PhaseMonitoring implements IAnalysisMonitoring {
 
     @Override
     public void beginPhase(AnalysisPhase phase) {
-        if (phase == AnalysisPhase.SCAN) {
+        if (phase == AnalysisPhase.SCAN || phase == AnalysisPhase.LINT) {
             activeMonitor = scanMonitor;
         }
         activeMonitor.beginPhase(phase);
@@ -96,6 +96,16 @@ public class PhaseMonitoring implements IAnalysisMonitoring {
         activeMonitor.endPhase(phase);
     }
 
+    @Override
+    public IAnalysisMonitoring makeScanMonitoring() {
+        return activeMonitor.makeScanMonitoring();
+    }
+
+    @Override
+    public void mergeScanMonitoring(IAnalysisMonitoring m) {
+        activeMonitor.mergeScanMonitoring(m);
+    }
+
     @Override
     public Set<Message> getMessages() {
         return activeMonitor.getMessages();
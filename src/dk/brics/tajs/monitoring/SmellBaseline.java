@@ -0,0 +1,305 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.monitoring;
+
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static dk.brics.tajs.util.Collections.newList;
+
+/**
+ * Index of code smell fingerprints, used for reporting only the findings that are new since a baseline run.
+ * <p>
+ * The fingerprint of a finding is a 64-bit hash of the smell category, the name of the enclosing function,
+ * the file name, the source line of the finding with whitespace removed (from the source code recorded in the flow graph),
+ * and the message without a trailing line number (such as "at line number: 42").
+ * Line and column numbers are not included, so findings keep their fingerprints when code above them is edited.
+ * Identical fingerprints in the same run are distinguished by their occurrence number.
+ * <p>
+ * The index file is an open addressing hash table that is memory-mapped when loaded,
+ * so each lookup reads a few slots of the file regardless of its size:
+ * <pre>
+ *     int magic, int capacity (a power of two), int count
+ *     capacity * (long fingerprint (0 if empty), long offset of description)
+ *     count * (int length, UTF-8 description)
+ * </pre>
+ * Not thread-safe.
+ */
+public class SmellBaseline {
+
+    private static Logger log = Logger.getLogger(SmellBaseline.class);
+
+    private static final int MAGIC = 0x54534232; // "TSB2"
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int SLOT_SIZE = 16;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern LINE_SUFFIX = Pattern.compile("\\s*(at )?line( number)?: \\d+$");
+
+    private final FlowGraph flowgraph; // null if unknown
+
+    private final Path path; // null if no baseline
+
+    private final ByteBuffer index; // null if no baseline
+
+    private final int capacity;
+
+    private final BitSet matched = new BitSet();
+
+    private final boolean recording;
+
+    private final List<Long> fingerprints = newList();
+
+    private final List<String> descriptions = newList();
+
+    private final Map<Long, Integer> occurrences = new HashMap<>();
+
+    private int new_findings;
+
+    /**
+     * Constructs a new empty baseline, where all findings are new.
+     *
+     * @param flowgraph flow graph with the source code of the findings, null if unknown
+     * @param recording if set, the fingerprints are recorded for {@link #write(Path)}
+     */
+    public SmellBaseline(FlowGraph flowgraph, boolean recording) {
+        this.flowgraph = flowgraph;
+        this.recording = recording;
+        path = null;
+        index = null;
+        capacity = 0;
+    }
+
+    /**
+     * Constructs a new baseline from an index file.
+     *
+     * @param flowgraph flow graph with the source code of the findings, null if unknown
+     * @param path      index file to compare with, null if none
+     * @param recording if set, the fingerprints are recorded for {@link #write(Path)}
+     */
+    public SmellBaseline(FlowGraph flowgraph, Path path, boolean recording) throws IOException {
+        this.flowgraph = flowgraph;
+        this.recording = recording;
+        this.path = path;
+        if (path != null && Files.exists(path)) {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                index = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            if (index.limit() < HEADER_SIZE || index.getInt(0) != MAGIC)
+                throw new IOException("Not a smell baseline, or written by an older version: " + path);
+            capacity = index.getInt(4);
+            if (Integer.bitCount(capacity) != 1 || index.limit() < HEADER_SIZE + (long) capacity * SLOT_SIZE)
+                throw new IOException("Corrupt smell baseline: " + path);
+        } else {
+            if (path != null)
+                log.warn("Smell baseline " + path + " not found, all findings are new");
+            index = null;
+            capacity = 0;
+        }
+    }
+
+    /**
+     * Adds a finding.
+     *
+     * @param category smell category
+     * @param text     description of the finding
+     * @param location source location, or null if unknown
+     * @param function enclosing function, or null if unknown
+     * @return true if the finding is not in the baseline
+     */
+    public boolean add(String category, String text, SourceLocation location, Function function) {
+        long fp = fingerprint(category, text, location, function);
+        int occurrence = occurrences.merge(fp, 1, Integer::sum);
+        fp = nonZero(mix(fp + occurrence));
+        if (recording) {
+            fingerprints.add(fp);
+            descriptions.add(category + ": " + text + (location != null ? " (" + location + ")" : ""));
+        }
+        int slot = lookup(fp);
+        if (slot >= 0) {
+            matched.set(slot);
+            return false;
+        }
+        new_findings++;
+        return true;
+    }
+
+    /**
+     * Returns the number of findings that are not in the baseline.
+     */
+    public int getNumberOfNewFindings() {
+        return new_findings;
+    }
+
+    /**
+     * Returns the descriptions of the baseline findings that have not been added, in index order.
+     *
+     * @throws IOException if the index file is corrupt
+     */
+    public List<String> getFixedFindings() throws IOException {
+        List<String> res = newList();
+        for (int slot = 0; slot < capacity; slot++)
+            if (index.getLong(HEADER_SIZE + slot * SLOT_SIZE) != 0 && !matched.get(slot))
+                res.add(readDescription(slot));
+        return res;
+    }
+
+    /**
+     * Writes the recorded fingerprints as a new index file.
+     * The file is replaced atomically, so it may be the file this baseline was loaded from.
+     * A replaced file keeps its permissions, and a new file is readable by all users (where POSIX permissions are supported),
+     * as a baseline is typically shared.
+     */
+    public void write(Path path) throws IOException {
+        int count = fingerprints.size();
+        int cap = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1;
+        long[] slots = new long[cap];
+        int[] slot_entry = new int[cap];
+        for (int i = 0; i < count; i++) {
+            long fp = fingerprints.get(i);
+            int slot = (int) fp & (cap - 1);
+            while (slots[slot] != 0)
+                slot = (slot + 1) & (cap - 1);
+            slots[slot] = fp;
+            slot_entry[slot] = i;
+        }
+        byte[][] texts = new byte[count][];
+        long[] offsets = new long[count];
+        long offset = HEADER_SIZE + (long) cap * SLOT_SIZE;
+        for (int i = 0; i < count; i++) {
+            texts[i] = descriptions.get(i).getBytes(StandardCharsets.UTF_8);
+            offsets[i] = offset;
+            offset += 4 + texts[i].length;
+        }
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(cap);
+            out.writeInt(count);
+            for (int slot = 0; slot < cap; slot++) {
+                out.writeLong(slots[slot]);
+                out.writeLong(slots[slot] != 0 ? offsets[slot_entry[slot]] : 0);
+            }
+            for (byte[] t : texts) {
+                out.writeInt(t.length);
+                out.write(t);
+            }
+        }
+        Set<PosixFilePermission> permissions = null;
+        if (Files.getFileAttributeView(tmp, PosixFileAttributeView.class) != null) // the temporary file is only accessible to the owner
+            permissions = Files.exists(path) ? Files.getPosixFilePermissions(path) : PosixFilePermissions.fromString("rw-r--r--");
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (permissions != null)
+            Files.setPosixFilePermissions(path, permissions);
+    }
+
+    /**
+     * Returns the slot of the given fingerprint in the index, or -1 if absent.
+     */
+    private int lookup(long fp) {
+        if (index == null)
+            return -1;
+        int slot = (int) fp & (capacity - 1);
+        for (int probes = 0; probes < capacity; probes++) { // a corrupt index may have no empty slot
+            long f = index.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+            if (f == fp)
+                return slot;
+            if (f == 0)
+                return -1;
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    private String readDescription(int slot) throws IOException {
+        long pos = index.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8);
+        if (pos < HEADER_SIZE + (long) capacity * SLOT_SIZE || pos > index.limit() - 4L)
+            throw new IOException("Corrupt smell baseline: " + path);
+        int length = index.getInt((int) pos);
+        if (length < 0 || length > index.limit() - pos - 4)
+            throw new IOException("Corrupt smell baseline: " + path);
+        byte[] b = new byte[length];
+        ByteBuffer d = index.duplicate();
+        d.position((int) pos + 4);
+        d.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes the fingerprint of a finding, without the occurrence number.
+     */
+    private long fingerprint(String category, String text, SourceLocation location, Function function) {
+        long h = 0xcbf29ce484222325L; // FNV-1a
+        h = hash(h, category);
+        h = hash(h, function == null ? "" : function.isMain() ? "<main>" : function.getName() != null ? function.getName() : "<anonymous>");
+        h = hash(h, location != null ? location.getPrettyFileName() : "");
+        String line = flowgraph != null ? flowgraph.getSourceLine(location) : null;
+        h = hash(h, line != null ? WHITESPACE.matcher(line).replaceAll("") : "");
+        h = hash(h, LINE_SUFFIX.matcher(text).replaceFirst(""));
+        return h;
+    }
+
+    private static long hash(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= 0xff; // separator
+        h *= 0x100000001b3L;
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long nonZero(long h) {
+        return h != 0 ? h : 1;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.monitoring;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.util.AnalysisException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Strings.escapeJson;
+
+/**
+ * Streaming writer for the code smell report.
+ * <p>
+ * Findings are written as they are reported, grouped in categories, through a buffered file channel.
+ * If the file name ends with <code>.gz</code>, the output is gzip-compressed.
+ * Write errors are recorded and reported by {@link #close()}.
+ * With a {@link SmellBaseline}, only the findings that are not in the baseline are written,
+ * followed by a category with the baseline findings that have been fixed.
+ */
+public abstract class SmellReportWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Report formats.
+     */
+    public enum Format {
+
+        /**
+         * Plain text, one section per category.
+         */
+        TEXT,
+
+        /**
+         * One JSON object per line for each finding.
+         */
+        JSONL,
+
+        /**
+         * SARIF 2.1.0 log with one result per finding.
+         */
+        SARIF;
+
+        /**
+         * Returns the format with the given (case insensitive) name.
+         */
+        public static Format parse(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new AnalysisException("Unknown smell report format: " + name);
+            }
+        }
+    }
+
+    private final Path path;
+
+    protected final PrintWriter out;
+
+    private String category;
+
+    private String category_count_label;
+
+    private boolean category_inline;
+
+    private SmellBaseline baseline;
+
+    private final List<String> pending_texts = newList();
+
+    private final List<SourceLocation> pending_locations = newList();
+
+    /**
+     * Constructs a new writer for the given file.
+     */
+    protected SmellReportWriter(Path path) throws IOException {
+        this.path = path;
+        OutputStream os = Channels.newOutputStream(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        if (path.getFileName().toString().endsWith(".gz"))
+            os = new GZIPOutputStream(os, BUFFER_SIZE);
+        out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    /**
+     * Opens a writer for the given file and format.
+     */
+    public static SmellReportWriter open(Path path, Format format) throws IOException {
+        switch (format) {
+            case TEXT:
+                return new Text(path);
+            case JSONL:
+                return new Jsonl(path);
+            case SARIF:
+                return new Sarif(path);
+            default:
+                throw new AnalysisException("Unexpected format: " + format);
+        }
+    }
+
+    /**
+     * Starts a category.
+     *
+     * @param name       category name
+     * @param countLabel label of the number of findings (used in the text format)
+     * @param count      number of findings that will be reported in this category
+     * @param inline     if set, findings are listed on a single line (used in the text format)
+     */
+    public void beginCategory(String name, String countLabel, int count, boolean inline) {
+        if (category != null)
+            throw new AnalysisException("Category " + category + " not ended");
+        category = name;
+        if (baseline != null) {
+            category_count_label = countLabel;
+            category_inline = inline;
+        } else
+            writeBeginCategory(name, countLabel, count, inline);
+    }
+
+    /**
+     * Sets the baseline for filtering the findings. Must be called before the first category.
+     * The new findings of each category are buffered until the end of the category,
+     * since their number is written first.
+     */
+    public void setBaseline(SmellBaseline baseline) {
+        this.baseline = baseline;
+    }
+
+    /**
+     * Reports a finding in the current category.
+     *
+     * @param text     description of the finding
+     * @param location source location, or null if unknown
+     */
+    public void finding(String text, SourceLocation location) {
+        finding(text, location, null);
+    }
+
+    /**
+     * Reports a finding at the given node in the current category.
+     *
+     * @param text description of the finding
+     * @param n    node of the finding
+     */
+    public void finding(String text, AbstractNode n) {
+        finding(text, n.getSourceLocation(), n.getBlock() != null ? n.getBlock().getFunction() : null);
+    }
+
+    /**
+     * Reports a finding in the current category.
+     *
+     * @param text     description of the finding
+     * @param location source location, or null if unknown
+     * @param function function of the finding, or null if unknown (used for the baseline fingerprint)
+     */
+    public void finding(String text, SourceLocation location, Function function) {
+        if (category == null)
+            throw new AnalysisException("No category");
+        if (baseline == null)
+            writeFinding(category, text, location);
+        else if (baseline.add(category, text, location, function)) {
+            pending_texts.add(text);
+            pending_locations.add(location);
+        }
+    }
+
+    /**
+     * Ends the current category.
+     */
+    public void endCategory() {
+        if (baseline != null) {
+            writeBeginCategory(category, "New " + category_count_label.toLowerCase(), pending_texts.size(), category_inline);
+            for (int i = 0; i < pending_texts.size(); i++)
+                writeFinding(category, pending_texts.get(i), pending_locations.get(i));
+            pending_texts.clear();
+            pending_locations.clear();
+        }
+        writeEndCategory();
+        category = null;
+    }
+
+    /**
+     * Finishes the report and closes the file.
+     *
+     * @throws IOException if any write failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (baseline != null) {
+            List<String> fixed = baseline.getFixedFindings();
+            writeBeginCategory("Fixed Findings", "Number of fixed findings", fixed.size(), false);
+            for (String f : fixed)
+                writeFinding("Fixed Findings", f, null);
+            writeEndCategory();
+        }
+        writeEnd();
+        out.close();
+        if (out.checkError())
+            throw new IOException("Error writing " + path);
+    }
+
+    protected abstract void writeBeginCategory(String name, String countLabel, int count, boolean inline);
+
+    protected abstract void writeFinding(String category, String text, SourceLocation location);
+
+    protected abstract void writeEndCategory();
+
+    protected void writeEnd() {
+        // nothing by default
+    }
+
+    /**
+     * Returns a rule identifier for the given category name.
+     */
+    static String ruleId(String category) {
+        StringBuilder b = new StringBuilder();
+        for (String w : category.split("[^A-Za-z]+"))
+            if (!w.isEmpty())
+                b.append(Character.toUpperCase(w.charAt(0))).append(w.substring(1).toLowerCase());
+        return b.toString();
+    }
+
+    /**
+     * Plain text format, as read by people.
+     */
+    private static final class Text extends SmellReportWriter {
+
+        private static final String NEWLINE = "\r\n";
+
+        private boolean inline;
+
+        Text(Path path) throws IOException {
+            super(path);
+        }
+
+        @Override
+        protected void writeBeginCategory(String name, String countLabel, int count, boolean inline) {
+            this.inline = inline;
+            out.print("********" + name + "********" + NEWLINE);
+            out.print(countLabel + ": " + count + NEWLINE);
+        }
+
+        @Override
+        protected void writeFinding(String category, String text, SourceLocation location) {
+            out.print(text);
+            out.print(inline ? ", " : NEWLINE);
+        }
+
+        @Override
+        protected void writeEndCategory() {
+            if (inline)
+                out.print(NEWLINE);
+        }
+    }
+
+    /**
+     * JSON Lines format: <code>{"category": ..., "rule": ..., "message": ..., "file": ..., "line": ..., "column": ...}</code>.
+     */
+    private static final class Jsonl extends SmellReportWriter {
+
+        Jsonl(Path path) throws IOException {
+            super(path);
+        }
+
+        @Override
+        protected void writeBeginCategory(String name, String countLabel, int count, boolean inline) {
+            // categories are implicit in the findings
+        }
+
+        @Override
+        protected void writeFinding(String category, String text, SourceLocation location) {
+            out.print("{\"category\":\"" + escapeJson(category) + "\",\"rule\":\"" + ruleId(category) + "\",\"message\":\"" + escapeJson(text) + "\"");
+            if (location != null)
+                out.print(",\"file\":\"" + escapeJson(location.getPrettyFileName()) + "\",\"line\":" + location.getLineNumber() + ",\"column\":" + location.getColumnNumber());
+            out.print("}\n");
+        }
+
+        @Override
+        protected void writeEndCategory() {
+            // categories are implicit in the findings
+        }
+    }
+
+    /**
+     * SARIF 2.1.0 format. The results are streamed; the rules are written after them.
+     */
+    private static final class Sarif extends SmellReportWriter {
+
+        private final List<String> categories = newList();
+
+        private boolean first = true;
+
+        Sarif(Path path) throws IOException {
+            super(path);
+            out.print("{\"version\":\"2.1.0\",\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"runs\":[{\"results\":[");
+        }
+
+        @Override
+        protected void writeBeginCategory(String name, String countLabel, int count, boolean inline) {
+            categories.add(name);
+        }
+
+        @Override
+        protected void writeFinding(String category, String text, SourceLocation location) {
+            if (!first)
+                out.print(",");
+            first = false;
+            out.print("\n{\"ruleId\":\"" + ruleId(category) + "\",\"level\":\"warning\",\"message\":{\"text\":\"" + escapeJson(text) + "\"}");
+            if (location != null) {
+                out.print(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"" + escapeJson(location.getPrettyFileName()) + "\"}");
+                if (location.getLineNumber() > 0) {
+                    out.print(",\"region\":{\"startLine\":" + location.getLineNumber());
+                    if (location.getColumnNumber() > 0)
+                        out.print(",\"startColumn\":" + location.getColumnNumber());
+                    out.print("}");
+                }
+                out.print("}}]");
+            }
+            out.print("}");
+        }
+
+        @Override
+        protected void writeEndCategory() {
+            // nothing
+        }
+
+        @Override
+        protected void writeEnd() {
+            out.print("\n],\"tool\":{\"driver\":{\"name\":\"TAJS\",\"rules\":[");
+            boolean firstRule = true;
+            for (String c : categories) {
+                if (!firstRule)
+                    out.print(",");
+                firstRule = false;
+                out.print("\n{\"id\":\"" + ruleId(c) + "\",\"name\":\"" + ruleId(c) + "\",\"shortDescription\":{\"text\":\"" + escapeJson(c) + "\"}}");
+            }
+            out.print("\n]}}}]}\n");
+        }
+    }
+}
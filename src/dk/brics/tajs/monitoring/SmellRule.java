@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.monitoring;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Flow-insensitive code smell detector, run by a {@link SmellRuleEngine}.
+ * <p>
+ * A rule subscribes to a set of node types and is called with each node of those types
+ * (or subtypes) in the flow graph, block by block.
+ */
+public abstract class SmellRule {
+
+    private final String name;
+
+    private final List<Class<? extends AbstractNode>> node_types;
+
+    /**
+     * Constructs a new rule.
+     *
+     * @param name       name of the rule, used in the timing statistics
+     * @param node_types node types the rule subscribes to
+     */
+    protected SmellRule(String name, List<? extends Class<? extends AbstractNode>> node_types) {
+        this.name = name;
+        this.node_types = Collections.unmodifiableList(new ArrayList<>(node_types));
+    }
+
+    /**
+     * Returns the name of this rule.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the node types this rule subscribes to.
+     */
+    public List<Class<? extends AbstractNode>> getNodeTypes() {
+        return node_types;
+    }
+
+    /**
+     * Called before the nodes of a block are visited.
+     * Rules that need information about the whole block may reset their per-block state here
+     * and compute it on demand.
+     */
+    public void beginBlock(BasicBlock b) {
+        // do nothing by default
+    }
+
+    /**
+     * Called for each node of a subscribed type.
+     */
+    public abstract void visit(AbstractNode n);
+}
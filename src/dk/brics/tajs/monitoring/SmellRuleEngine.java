@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.monitoring;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.Function;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static dk.brics.tajs.util.Collections.newList;
+
+/**
+ * Runs a set of {@link SmellRule}s in a single traversal of the blocks and nodes of each function.
+ * <p>
+ * Each node is dispatched only to the rules that subscribe to its type, using a table indexed by node class.
+ * The time spent in each rule and the number of nodes it visits are recorded.
+ * Not thread-safe.
+ */
+public class SmellRuleEngine {
+
+    private final SmellRule[] rules;
+
+    /**
+     * Indices of the subscribed rules for each node class, computed on demand.
+     */
+    private final Map<Class<?>, int[]> dispatch = new HashMap<>();
+
+    private final long[] times; // nanoseconds
+
+    private final long[] visits;
+
+    /**
+     * Constructs a new engine for the given rules.
+     */
+    public SmellRuleEngine(List<SmellRule> rules) {
+        this.rules = rules.toArray(new SmellRule[rules.size()]);
+        times = new long[this.rules.length];
+        visits = new long[this.rules.length];
+    }
+
+    /**
+     * Returns the indices of the rules that subscribe to the given node class, in rule order.
+     */
+    private int[] getRules(Class<?> c) {
+        int[] rs = dispatch.get(c);
+        if (rs == null) {
+            List<Integer> l = newList();
+            for (int i = 0; i < rules.length; i++)
+                for (Class<? extends AbstractNode> t : rules[i].getNodeTypes())
+                    if (t.isAssignableFrom(c)) {
+                        l.add(i);
+                        break;
+                    }
+            rs = new int[l.size()];
+            for (int i = 0; i < rs.length; i++)
+                rs[i] = l.get(i);
+            dispatch.put(c, rs);
+        }
+        return rs;
+    }
+
+    /**
+     * Runs the rules on the nodes of the given function.
+     */
+    public void run(Function f) {
+        for (BasicBlock b : f.getBlocks()) {
+            for (int i = 0; i < rules.length; i++) {
+                long start = System.nanoTime();
+                rules[i].beginBlock(b);
+                times[i] += System.nanoTime() - start;
+            }
+            for (AbstractNode n : b.getNodes()) {
+                for (int i : getRules(n.getClass())) {
+                    long start = System.nanoTime();
+                    rules[i].visit(n);
+                    times[i] += System.nanoTime() - start;
+                    visits[i]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the timing statistics of the given engine, which must have rules with the same names in the same order.
+     */
+    public void addStatistics(SmellRuleEngine e) {
+        for (int i = 0; i < rules.length; i++) {
+            times[i] += e.times[i];
+            visits[i] += e.visits[i];
+        }
+    }
+
+    /**
+     * Returns the time spent in each rule and the number of nodes it has visited, one line per rule.
+     */
+    public String getStatistics() {
+        StringBuilder b = new StringBuilder("Smell rules:");
+        for (int i = 0; i < rules.length; i++)
+            b.append(String.format("%n%10.3fms %10d nodes  %s", times[i] / 1e6, visits[i], rules[i].getName()));
+        return b.toString();
+    }
+}
@@ -102,6 +102,17 @@ public class TypeCollector {
         type_info_map.put(new_location, value);
     }
 
+    /**
+     * Records the type information collected by the given type collector, as if the variables were recorded in this one.
+     */
+    public void record(TypeCollector x) {
+        for (Entry<VariableSummary, Value> me : x.type_info_map.entrySet()) {
+            VariableSummary s = me.getKey();
+            Value existing_value = type_info_map.get(s);
+            type_info_map.put(s, existing_value != null ? Value.join(existing_value, me.getValue()) : me.getValue());
+        }
+    }
+
     /**
      * Returns the collected type information.
      */
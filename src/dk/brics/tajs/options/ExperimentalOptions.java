@@ -141,7 +141,13 @@ public class ExperimentalOptions implements Serializable {
 
         private static ExperimentalOptions options = null;
 
+        private static final ThreadLocal<ExperimentalOptions> threadOptions = new ThreadLocal<>();
+
         public static ExperimentalOptions get() {
+            ExperimentalOptions bound = threadOptions.get();
+            if (bound != null) {
+                return bound;
+            }
             if (options == null) {
                 options = new ExperimentalOptions();
             }
@@ -149,11 +155,40 @@ public class ExperimentalOptions implements Serializable {
         }
 
         public static void reset() {
-            options = null;
+            if (threadOptions.get() != null) {
+                threadOptions.set(new ExperimentalOptions());
+            } else {
+                options = null;
+            }
         }
 
         public static void set(ExperimentalOptions options) {
-            ExperimentalOptionsManager.options = options;
+            if (threadOptions.get() != null) {
+                threadOptions.set(options != null ? options : new ExperimentalOptions());
+            } else {
+                ExperimentalOptionsManager.options = options;
+            }
+        }
+
+        /**
+         * Binds the given options to the current thread.
+         *
+         * @return the options previously bound to the current thread, or null if none
+         * @see Options#bind(dk.brics.tajs.options.OptionValues)
+         */
+        public static ExperimentalOptions bind(ExperimentalOptions options) {
+            if (options == null)
+                throw new NullPointerException();
+            ExperimentalOptions previous = threadOptions.get();
+            threadOptions.set(options);
+            return previous;
+        }
+
+        /**
+         * Removes the options binding of the current thread.
+         */
+        public static void unbind() {
+            threadOptions.remove();
         }
     }
 }
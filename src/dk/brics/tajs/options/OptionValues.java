@@ -16,6 +16,7 @@
 
 package dk.brics.tajs.options;
 
+import dk.brics.tajs.monitoring.SmellReportWriter;
 import dk.brics.tajs.util.AnalysisException;
 import org.apache.log4j.Appender;
 import org.apache.log4j.Level;
@@ -204,6 +205,75 @@ public class OptionValues {
     @Option(name = "-async-events", usage = "Enables execution of asynchronous event handlers with TAJS_asyncListen")
     private boolean asyncEvents;
 
+    @Option(name = "-persistent-store", usage = "Use persistent hash maps with structural sharing for the abstract store")
+    private boolean persistentStore;
+
+    @Option(name = "-paged-store", usage = "Use paged arrays indexed by object label IDs for the abstract store")
+    private boolean pagedStore;
+
+    @Option(name = "-result-cache", metaVar = "PATH", usage = "Reuse the results of an earlier run from PATH if neither the options nor the sources have changed")
+    private String resultCacheDir;
+
+    @Option(name = "-flowgraph-cache", metaVar = "PATH", usage = "Reuse flow graphs built by earlier runs from PATH if the sources have not changed")
+    private String flowGraphCacheDir;
+
+    @Option(name = "-smell-report", metaVar = "PATH", usage = "Write the code smell report to PATH, gzip-compressed if PATH ends with .gz (default: SmellReport.txt)")
+    private String smellReportPath;
+
+    @Option(name = "-smell-report-format", metaVar = "FORMAT", usage = "Format of the code smell report: text, jsonl or sarif (default: text)")
+    private String smellReportFormat;
+
+    @Option(name = "-smell-baseline", metaVar = "PATH", usage = "Report only the code smells that are not in the baseline index at PATH, and the baseline code smells that are fixed")
+    private String smellBaselinePath;
+
+    @Option(name = "-write-smell-baseline", metaVar = "PATH", usage = "Write a baseline index of the code smells to PATH")
+    private String writeSmellBaselinePath;
+
+    @Option(name = "-checkpoint", metaVar = "PATH", usage = "Periodically save the fixpoint computation to PATH, and also when the analysis is terminated early")
+    private String checkpointPath;
+
+    @Option(name = "-checkpoint-interval", metaVar = "N", usage = "Seconds between checkpoints (default: 600, 0 means only when the analysis is terminated early)")
+    private int checkpointInterval = 600;
+
+    @Option(name = "-resume", metaVar = "PATH", usage = "Resume the fixpoint computation from a checkpoint saved with -checkpoint")
+    private String resumePath;
+
+    @Option(name = "-memory-budget", metaVar = "N", usage = "Reduce context sensitivity, starting with the functions that have the most contexts, when the heap exceeds 80% of N megabytes")
+    private int memoryBudget;
+
+    @Option(name = "-memory-budget-stop", usage = "Stop the dataflow analysis, keeping the partial results, when the heap exceeds the memory budget and context sensitivity cannot be reduced further")
+    private boolean memoryBudgetStop;
+
+    @Option(name = "-bucketed-worklist", usage = "Use a work list that groups entries by function and context")
+    private boolean bucketedWorklist;
+
+    @Option(name = "-telemetry", usage = "Publish live solver statistics as a JMX MBean during the dataflow analysis")
+    private boolean telemetry;
+
+    @Option(name = "-telemetry-file", metaVar = "PATH", usage = "Append a JSON line with live solver statistics to PATH periodically during the dataflow analysis")
+    private String telemetryFile;
+
+    @Option(name = "-telemetry-interval", metaVar = "N", usage = "Seconds between solver statistics snapshots (default: 10)")
+    private int telemetryInterval = 10;
+
+    @Option(name = "-profile", usage = "Attribute the cost of the dataflow analysis to functions and log the most expensive ones")
+    private boolean profile;
+
+    @Option(name = "-profile-stacks", metaVar = "PATH", usage = "Write the cost of each call chain to PATH in collapsed stack format (for flamegraph.pl or speedscope)")
+    private String profileStacksFile;
+
+    @Option(name = "-profile-top", metaVar = "N", usage = "Number of functions in the profile table (default: 20)")
+    private int profileTop = 20;
+
+    @Option(name = "-lint", usage = "Run only the flow-insensitive smell detectors, without the dataflow analysis")
+    private boolean lint;
+
+    @Option(name = "-scan-threads", metaVar = "N", usage = "Scan the functions for messages on N threads after the dataflow analysis (default: 1)")
+    private int scanThreads = 1;
+
+    @Option(name = "-solver-threads", metaVar = "N", usage = "Transfer up to N work list entries at a time in the dataflow analysis, with the same results as on one thread (default: 1)")
+    private int solverThreads = 1;
+
     @Argument
     private List<String> arguments = new ArrayList<>();
 
@@ -262,6 +332,29 @@ public class OptionValues {
         if (polyfillES6Collections != that.polyfillES6Collections) return false;
         if (polyfillTypedArrays != that.polyfillTypedArrays) return false;
         if (asyncEvents != that.asyncEvents) return false;
+        if (persistentStore != that.persistentStore) return false;
+        if (pagedStore != that.pagedStore) return false;
+        if (resultCacheDir != null ? !resultCacheDir.equals(that.resultCacheDir) : that.resultCacheDir != null) return false;
+        if (flowGraphCacheDir != null ? !flowGraphCacheDir.equals(that.flowGraphCacheDir) : that.flowGraphCacheDir != null) return false;
+        if (smellReportPath != null ? !smellReportPath.equals(that.smellReportPath) : that.smellReportPath != null) return false;
+        if (smellReportFormat != null ? !smellReportFormat.equals(that.smellReportFormat) : that.smellReportFormat != null) return false;
+        if (smellBaselinePath != null ? !smellBaselinePath.equals(that.smellBaselinePath) : that.smellBaselinePath != null) return false;
+        if (writeSmellBaselinePath != null ? !writeSmellBaselinePath.equals(that.writeSmellBaselinePath) : that.writeSmellBaselinePath != null) return false;
+        if (checkpointPath != null ? !checkpointPath.equals(that.checkpointPath) : that.checkpointPath != null) return false;
+        if (checkpointInterval != that.checkpointInterval) return false;
+        if (resumePath != null ? !resumePath.equals(that.resumePath) : that.resumePath != null) return false;
+        if (memoryBudget != that.memoryBudget) return false;
+        if (memoryBudgetStop != that.memoryBudgetStop) return false;
+        if (bucketedWorklist != that.bucketedWorklist) return false;
+        if (telemetry != that.telemetry) return false;
+        if (telemetryFile != null ? !telemetryFile.equals(that.telemetryFile) : that.telemetryFile != null) return false;
+        if (telemetryInterval != that.telemetryInterval) return false;
+        if (profile != that.profile) return false;
+        if (profileStacksFile != null ? !profileStacksFile.equals(that.profileStacksFile) : that.profileStacksFile != null) return false;
+        if (profileTop != that.profileTop) return false;
+        if (lint != that.lint) return false;
+        if (scanThreads != that.scanThreads) return false;
+        if (solverThreads != that.solverThreads) return false;
         if (ignoredLibrariesString != null ? !ignoredLibrariesString.equals(that.ignoredLibrariesString) : that.ignoredLibrariesString != null)
             return false;
         if (ignoredLibraries != null ? !ignoredLibraries.equals(that.ignoredLibraries) : that.ignoredLibraries != null)
@@ -321,6 +414,29 @@ public class OptionValues {
         result = 31 * result + (polyfillES6Collections ? 1 : 0);
         result = 31 * result + (polyfillTypedArrays ? 1 : 0);
         result = 31 * result + (asyncEvents ? 1 : 0);
+        result = 31 * result + (persistentStore ? 1 : 0);
+        result = 31 * result + (pagedStore ? 1 : 0);
+        result = 31 * result + (resultCacheDir != null ? resultCacheDir.hashCode() : 0);
+        result = 31 * result + (flowGraphCacheDir != null ? flowGraphCacheDir.hashCode() : 0);
+        result = 31 * result + (smellReportPath != null ? smellReportPath.hashCode() : 0);
+        result = 31 * result + (smellReportFormat != null ? smellReportFormat.hashCode() : 0);
+        result = 31 * result + (smellBaselinePath != null ? smellBaselinePath.hashCode() : 0);
+        result = 31 * result + (writeSmellBaselinePath != null ? writeSmellBaselinePath.hashCode() : 0);
+        result = 31 * result + (checkpointPath != null ? checkpointPath.hashCode() : 0);
+        result = 31 * result + checkpointInterval;
+        result = 31 * result + (resumePath != null ? resumePath.hashCode() : 0);
+        result = 31 * result + memoryBudget;
+        result = 31 * result + (memoryBudgetStop ? 1 : 0);
+        result = 31 * result + (bucketedWorklist ? 1 : 0);
+        result = 31 * result + (telemetry ? 1 : 0);
+        result = 31 * result + (telemetryFile != null ? telemetryFile.hashCode() : 0);
+        result = 31 * result + telemetryInterval;
+        result = 31 * result + (profile ? 1 : 0);
+        result = 31 * result + (profileStacksFile != null ? profileStacksFile.hashCode() : 0);
+        result = 31 * result + profileTop;
+        result = 31 * result + (lint ? 1 : 0);
+        result = 31 * result + scanThreads;
+        result = 31 * result + solverThreads;
         result = 31 * result + (arguments != null ? arguments.hashCode() : 0);
         return result;
     }
@@ -449,6 +565,29 @@ public class OptionValues {
         return sb.toString();
     }
 
+    /**
+     * Returns a description of the options that may affect the analysis results.
+     * The arguments and the options that only control output, caches, checkpoints, monitoring and the number of scan and solver threads are left out.
+     */
+    public String getAnalysisOptionsDescription() {
+        // not a field, as the copy constructor copies all fields
+        List<String> ignored = Arrays.asList("-callgraph", "-checkpoint", "-checkpoint-interval", "-debug", "-flowgraph",
+                "-flowgraph-cache", "-help", "-memory-usage", "-profile", "-profile-stacks", "-profile-top", "-quiet",
+                "-result-cache", "-resume", "-scan-threads", "-show-variable-info", "-smell-baseline", "-smell-report", "-smell-report-format",
+                "-solver-threads", "-states", "-statistics", "-telemetry", "-telemetry-file", "-telemetry-interval", "-timing", "-write-smell-baseline");
+        StringBuilder sb = new StringBuilder();
+        for (Entry<String, Object> me : getOptionValues().entrySet()) {
+            if (ignored.contains(me.getKey()))
+                continue;
+            if (sb.length() > 0)
+                sb.append(" ");
+            sb.append(me.getKey());
+            if (!(me.getValue() instanceof Boolean))
+                sb.append(" ").append(me.getValue());
+        }
+        return sb.toString();
+    }
+
     public void disableAjaxReturnsJson() {
         ajaxReturnsJson = false;
     }
@@ -1014,6 +1153,18 @@ public class OptionValues {
         if (arguments == null || arguments.isEmpty()) {
             throw new AnalysisException("No arguments provided!");
         }
+        if (smellReportFormat != null)
+            SmellReportWriter.Format.parse(smellReportFormat); // throws AnalysisException if unknown
+        if (persistentStore && pagedStore)
+            throw new AnalysisException("-persistent-store and -paged-store cannot be combined");
+        if (scanThreads < 1)
+            throw new AnalysisException("-scan-threads must be at least 1");
+        if (solverThreads < 1)
+            throw new AnalysisException("-solver-threads must be at least 1");
+        if (solverThreads > 1 && memoryBudget > 0) // reducing the context sensitivity changes the contexts that other threads are choosing
+            throw new AnalysisException("-solver-threads cannot be combined with -memory-budget");
+        if (resultCacheDir != null && (smellBaselinePath != null || writeSmellBaselinePath != null)) // cached results are replayed without the findings
+            throw new AnalysisException("-result-cache cannot be combined with -smell-baseline or -write-smell-baseline");
     }
 
     public void enablePolyfillMDN() {
@@ -1047,4 +1198,216 @@ public class OptionValues {
     public boolean isAsyncEventsEnabled() {
         return asyncEvents;
     }
+
+    public void enablePersistentStore() {
+        persistentStore = true;
+    }
+
+    public void disablePersistentStore() {
+        persistentStore = false;
+    }
+
+    public boolean isPersistentStoreEnabled() {
+        return persistentStore;
+    }
+
+    public void enablePagedStore() {
+        pagedStore = true;
+    }
+
+    public void disablePagedStore() {
+        pagedStore = false;
+    }
+
+    public boolean isPagedStoreEnabled() {
+        return pagedStore;
+    }
+
+    public void setResultCacheDir(String resultCacheDir) {
+        this.resultCacheDir = resultCacheDir;
+    }
+
+    public String getResultCacheDir() {
+        return resultCacheDir;
+    }
+
+    public void setFlowGraphCacheDir(String flowGraphCacheDir) {
+        this.flowGraphCacheDir = flowGraphCacheDir;
+    }
+
+    public String getFlowGraphCacheDir() {
+        return flowGraphCacheDir;
+    }
+
+    public void setSmellReportPath(String smellReportPath) {
+        this.smellReportPath = smellReportPath;
+    }
+
+    public String getSmellReportPath() {
+        return smellReportPath;
+    }
+
+    public void setSmellReportFormat(String smellReportFormat) {
+        this.smellReportFormat = smellReportFormat;
+    }
+
+    public String getSmellReportFormat() {
+        return smellReportFormat;
+    }
+
+    public void setSmellBaselinePath(String smellBaselinePath) {
+        this.smellBaselinePath = smellBaselinePath;
+    }
+
+    public String getSmellBaselinePath() {
+        return smellBaselinePath;
+    }
+
+    public void setWriteSmellBaselinePath(String writeSmellBaselinePath) {
+        this.writeSmellBaselinePath = writeSmellBaselinePath;
+    }
+
+    public String getWriteSmellBaselinePath() {
+        return writeSmellBaselinePath;
+    }
+
+    public void setCheckpointPath(String checkpointPath) {
+        this.checkpointPath = checkpointPath;
+    }
+
+    public String getCheckpointPath() {
+        return checkpointPath;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setResumePath(String resumePath) {
+        this.resumePath = resumePath;
+    }
+
+    public String getResumePath() {
+        return resumePath;
+    }
+
+    public void setMemoryBudget(int memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public int getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void enableMemoryBudgetStop() {
+        memoryBudgetStop = true;
+    }
+
+    public void disableMemoryBudgetStop() {
+        memoryBudgetStop = false;
+    }
+
+    public boolean isMemoryBudgetStopEnabled() {
+        return memoryBudgetStop;
+    }
+
+    public void enableBucketedWorklist() {
+        bucketedWorklist = true;
+    }
+
+    public void disableBucketedWorklist() {
+        bucketedWorklist = false;
+    }
+
+    public boolean isBucketedWorklistEnabled() {
+        return bucketedWorklist;
+    }
+
+    public void enableTelemetry() {
+        telemetry = true;
+    }
+
+    public void disableTelemetry() {
+        telemetry = false;
+    }
+
+    public boolean isTelemetryEnabled() {
+        return telemetry;
+    }
+
+    public void setTelemetryFile(String telemetryFile) {
+        this.telemetryFile = telemetryFile;
+    }
+
+    public String getTelemetryFile() {
+        return telemetryFile;
+    }
+
+    public void setTelemetryInterval(int telemetryInterval) {
+        this.telemetryInterval = telemetryInterval;
+    }
+
+    public int getTelemetryInterval() {
+        return telemetryInterval;
+    }
+
+    public void enableProfile() {
+        profile = true;
+    }
+
+    public void disableProfile() {
+        profile = false;
+    }
+
+    public boolean isProfileEnabled() {
+        return profile;
+    }
+
+    public void setProfileStacksFile(String profileStacksFile) {
+        this.profileStacksFile = profileStacksFile;
+    }
+
+    public String getProfileStacksFile() {
+        return profileStacksFile;
+    }
+
+    public void setProfileTop(int profileTop) {
+        this.profileTop = profileTop;
+    }
+
+    public int getProfileTop() {
+        return profileTop;
+    }
+
+    public void enableLint() {
+        lint = true;
+    }
+
+    public void disableLint() {
+        lint = false;
+    }
+
+    public boolean isLintEnabled() {
+        return lint;
+    }
+
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setSolverThreads(int solverThreads) {
+        this.solverThreads = solverThreads;
+    }
+
+    public int getSolverThreads() {
+        return solverThreads;
+    }
 }
@@ -22,6 +22,9 @@ import java.util.Map.Entry;
 
 /**
  * Global analysis options.
+ * <p>
+ * The options may be bound to the current thread (see {@link #bind(OptionValues)}),
+ * which allows multiple analyses with different options to run concurrently in the same JVM.
  */
 public class Options {
 
@@ -29,6 +32,8 @@ public class Options {
 
     private static OptionValues optionValues = new OptionValues();
 
+    private static final ThreadLocal<OptionValues> threadOptionValues = new ThreadLocal<>();
+
     private Options() {
     }
 
@@ -36,28 +41,58 @@ public class Options {
      * Sets all the options.
      */
     public static void set(OptionValues optionValues) {
-        Options.optionValues = optionValues.clone();
+        put(optionValues.clone());
     }
 
     /**
      * Gets the options.
      */
     public static OptionValues get() {
-        return optionValues;
+        OptionValues v = threadOptionValues.get();
+        return v != null ? v : optionValues;
     }
 
     /**
      * Resets all options.
      */
     public static void reset() {
-        optionValues = new OptionValues();
+        put(new OptionValues());
+    }
+
+    /**
+     * Binds the given options to the current thread.
+     * Until {@link #unbind()} is called, all option operations on this thread affect only the bound options.
+     * The options object is used directly, not cloned.
+     *
+     * @return the options previously bound to the current thread, or null if none
+     */
+    public static OptionValues bind(OptionValues optionValues) {
+        if (optionValues == null)
+            throw new NullPointerException();
+        OptionValues previous = threadOptionValues.get();
+        threadOptionValues.set(optionValues);
+        return previous;
+    }
+
+    /**
+     * Removes the options binding of the current thread, such that the global options are used again.
+     */
+    public static void unbind() {
+        threadOptionValues.remove();
+    }
+
+    /**
+     * Returns true if options are bound to the current thread.
+     */
+    public static boolean isBound() {
+        return threadOptionValues.get() != null;
     }
 
     /**
      * Prints the settings (if in debug mode).
      */
     public static void dump() {
-        for (Entry<String, Object> optionValue : optionValues.getOptionValues().entrySet()) {
+        for (Entry<String, Object> optionValue : get().getOptionValues().entrySet()) {
             log.debug(String.format("%-30s %20s", optionValue.getKey(), optionValue.getValue()));
         }
     }
@@ -66,6 +101,13 @@ public class Options {
      * Parses command line arguments <em>in addition to</em> the already set options.
      */
     public static void parse(String[] args) {
-        optionValues = new OptionValues(optionValues, args);
+        put(new OptionValues(get(), args));
+    }
+
+    private static void put(OptionValues v) {
+        if (threadOptionValues.get() != null)
+            threadOptionValues.set(v);
+        else
+            Options.optionValues = v;
     }
 }
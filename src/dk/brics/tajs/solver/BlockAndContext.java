@@ -18,10 +18,14 @@ package dk.brics.tajs.solver;
 
 import dk.brics.tajs.flowgraph.BasicBlock;
 
+import java.io.Serializable;
+
 /**
  * Pair of a basic block and a context.
  */
-public final class BlockAndContext<ContextType extends IContext<?>> {
+public final class BlockAndContext<ContextType extends IContext<?>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final BasicBlock b;
 
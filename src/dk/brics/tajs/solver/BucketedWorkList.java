@@ -0,0 +1,223 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.solver;
+
+import dk.brics.tajs.flowgraph.BasicBlock;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Work list that groups entries by function and context.
+ * <p>
+ * Groups are ordered by their priority ({@link IWorkListStrategy#getFunctionContextPriority}), and the group
+ * with the highest priority is picked first. Within a group, entries are bucketed by block order
+ * (the topological order computed by {@link dk.brics.tajs.flowgraph.BlockDependencyOrderer}, ignoring loop back edges)
+ * and picked in that order, first-in-first-out for the same block.
+ * Adding and removing entries takes near-constant time in the number of pending groups, removed entries do not linger,
+ * and a group is dropped when it becomes empty.
+ */
+public class BucketedWorkList<ContextType extends IContext<?>> implements IWorkList<ContextType> {
+
+    private static Logger log = Logger.getLogger(BucketedWorkList.class);
+
+    private final IWorkListStrategy<ContextType> worklist_strategy;
+
+    private final Set<Entry> pending_set;
+
+    private final TreeMap<Integer, Group> groups; // only nonempty groups, by priority
+
+    private int next_serial;
+
+    /**
+     * Constructs a new empty work list.
+     */
+    public BucketedWorkList(IWorkListStrategy<ContextType> w) {
+        worklist_strategy = w;
+        pending_set = new HashSet<>();
+        groups = new TreeMap<>();
+    }
+
+    @Override
+    public boolean add(BasicBlock b, ContextType c) {
+        Entry e = new Entry(b, c);
+        if (!pending_set.add(e))
+            return false;
+        groups.computeIfAbsent(worklist_strategy.getFunctionContextPriority(e), p -> new Group()).add(e);
+        if (log.isDebugEnabled())
+            log.debug("Adding worklist entry for block " + b.getIndex());
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    @Override
+    public Entry removeNext() {
+        Map.Entry<Integer, Group> me = groups.lastEntry();
+        Group g = me.getValue();
+        Entry e = g.remove();
+        if (g.isEmpty())
+            groups.remove(me.getKey());
+        pending_set.remove(e);
+        return e;
+    }
+
+    @Override
+    public int size() {
+        return pending_set.size();
+    }
+
+    @Override
+    public List<Entry> getEntries() {
+        List<Entry> res = new ArrayList<>();
+        for (Group g : groups.descendingMap().values())
+            g.addEntriesTo(res);
+        return res;
+    }
+
+    @Override
+    public List<Entry> getNextEntries(int n) {
+        List<Entry> res = new ArrayList<>();
+        for (Group g : groups.descendingMap().values()) {
+            if (res.size() >= n)
+                break;
+            g.addEntriesTo(res, n);
+        }
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return pending_set.toString();
+    }
+
+    /**
+     * Work list entry.
+     * Consists of a block and a context.
+     */
+    public final class Entry implements IWorkListStrategy.IEntry<ContextType> {
+
+        private final BasicBlock b;
+
+        private final ContextType c;
+
+        private final int serial;
+
+        private Entry(BasicBlock b, ContextType c) {
+            this.b = b;
+            this.c = c;
+            serial = next_serial++;
+        }
+
+        @Override
+        public BasicBlock getBlock() {
+            return b;
+        }
+
+        @Override
+        public ContextType getContext() {
+            return c;
+        }
+
+        @Override
+        public int getSerial() {
+            return serial;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof BucketedWorkList.Entry))
+                return false;
+            @SuppressWarnings("rawtypes")
+            BucketedWorkList.Entry p = (BucketedWorkList.Entry) obj;
+            return p.b == b && p.c.equals(c);
+        }
+
+        @Override
+        public int hashCode() {
+            return b.getIndex() + c.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(b.getIndex());
+        }
+    }
+
+    /**
+     * Pending entries of a function and context, bucketed by block order.
+     */
+    private final class Group {
+
+        private final List<ArrayDeque<Entry>> buckets = new ArrayList<>();
+
+        private final BitSet pending_buckets = new BitSet();
+
+        void add(Entry e) {
+            int order = e.getBlock().getOrder();
+            while (buckets.size() <= order)
+                buckets.add(null);
+            ArrayDeque<Entry> bucket = buckets.get(order);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>(2);
+                buckets.set(order, bucket);
+            }
+            bucket.addLast(e);
+            pending_buckets.set(order);
+        }
+
+        Entry remove() {
+            int order = pending_buckets.nextSetBit(0);
+            ArrayDeque<Entry> bucket = buckets.get(order);
+            Entry e = bucket.removeFirst();
+            if (bucket.isEmpty())
+                pending_buckets.clear(order);
+            return e;
+        }
+
+        boolean isEmpty() {
+            return pending_buckets.isEmpty();
+        }
+
+        void addEntriesTo(List<Entry> res) {
+            for (int order = pending_buckets.nextSetBit(0); order >= 0; order = pending_buckets.nextSetBit(order + 1))
+                res.addAll(buckets.get(order));
+        }
+
+        /**
+         * Adds entries in pick order until the list has the given size.
+         */
+        void addEntriesTo(List<Entry> res, int n) {
+            for (int order = pending_buckets.nextSetBit(0); order >= 0; order = pending_buckets.nextSetBit(order + 1))
+                for (Entry e : buckets.get(order)) {
+                    if (res.size() >= n)
+                        return;
+                    res.add(e);
+                }
+        }
+    }
+}
@@ -22,6 +22,9 @@ import dk.brics.tajs.util.AnalysisException;
 import dk.brics.tajs.util.Collections;
 import org.apache.log4j.Logger;
 
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,14 +38,23 @@ import static dk.brics.tajs.util.Collections.newSet;
  * A call edge is charged when new flow appears on the edge.
  * It is discharged when the callee has no blocks in the worklist, nor any outgoing charged call edges.
  * Return flow can safely ignore call edges that are not charged.
+ * <p>
+ * The set of active functions is maintained incrementally as activity levels change and call edges are charged and discharged,
+ * so {@link #isFunctionActive(BlockAndContext)} takes constant time.
+ * When a function becomes active, so do its callers along charged edges.
+ * When a function may have become inactive, only the active functions that reach it along charged edges are recomputed.
  */
-class CallDependencies<ContextType extends IContext<ContextType>> {
+class CallDependencies<ContextType extends IContext<ContextType>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static Logger log = Logger.getLogger(CallDependencies.class);
 
 //	static { org.apache.log4j.LogManager.getLogger(CallDependencies.class).setLevel(org.apache.log4j.Level.DEBUG); }
 
-    private final class Edge {
+    private final class Edge implements Serializable {
+
+        private static final long serialVersionUID = 1L;
 
         private BasicBlock caller;
 
@@ -66,6 +78,10 @@ class CallDependencies<ContextType extends IContext<ContextType>> {
             return new BlockAndContext<>(callee, callee_context);
         }
 
+        public BlockAndContext<ContextType> getCallerEntry() {
+            return BlockAndContext.makeEntry(caller, caller_context);
+        }
+
         @Override
         public int hashCode() {
             final int prime = 31;
@@ -114,16 +130,28 @@ class CallDependencies<ContextType extends IContext<ContextType>> {
      */
     private Map<BlockAndContext<ContextType>, Set<Edge>> charged_call_edges_map;
 
+    /**
+     * Map from callee to its incoming charged call edges.
+     */
+    private Map<BlockAndContext<ContextType>, Set<Edge>> charged_call_edges_reverse_map;
+
     /**
      * Number of items in the worklist for the given function entry.
      */
     private Map<BlockAndContext<ContextType>, Integer> function_activity_level;
 
+    /**
+     * Functions that are reachable along charged edges from themselves to a function with positive activity level.
+     */
+    private Set<BlockAndContext<ContextType>> active_functions;
+
     public CallDependencies() {
         if (!Options.get().isChargedCallsDisabled()) {
             charged_call_edges = newSet();
             charged_call_edges_map = newMap();
+            charged_call_edges_reverse_map = newMap();
             function_activity_level = newMap();
+            active_functions = newSet();
         }
     }
 
@@ -137,7 +165,11 @@ class CallDependencies<ContextType extends IContext<ContextType>> {
         Edge e = new Edge(caller, caller_context, edge_context, callee, callee_context);
         if (charged_call_edges.add(e)) {
             BlockAndContext<ContextType> caller_entry = BlockAndContext.makeEntry(caller, caller_context);
+            BlockAndContext<ContextType> callee_entry = e.getCallee();
             addToMapSet(charged_call_edges_map, caller_entry, e);
+            addToMapSet(charged_call_edges_reverse_map, callee_entry, e);
+            if (active_functions.contains(callee_entry))
+                markActive(caller_entry);
             if (log.isDebugEnabled())
                 log.debug("charging call edge " + e);
         }
@@ -159,6 +191,12 @@ class CallDependencies<ContextType extends IContext<ContextType>> {
             s.remove(e);
             if (s.isEmpty())
                 charged_call_edges_map.remove(caller_entry);
+            Set<Edge> r = charged_call_edges_reverse_map.get(callee);
+            r.remove(e);
+            if (r.isEmpty())
+                charged_call_edges_reverse_map.remove(callee);
+            if (active_functions.contains(callee))
+                recomputeActive(caller_entry);
             if (log.isDebugEnabled())
                 log.debug("discharging call edge " + e);
         }
@@ -182,9 +220,12 @@ class CallDependencies<ContextType extends IContext<ContextType>> {
         if (i != 0) {
             if (i < 0)
                 throw new AnalysisException("negative function activity level for " + bc);
-            function_activity_level.put(bc, i);
-        } else
+            if (function_activity_level.put(bc, i) == null)
+                markActive(bc);
+        } else {
             function_activity_level.remove(bc);
+            recomputeActive(bc);
+        }
         if (log.isDebugEnabled())
             log.debug("function activity level for " + bc + ": " + i);
     }
@@ -215,9 +256,73 @@ class CallDependencies<ContextType extends IContext<ContextType>> {
     public boolean isFunctionActive(BlockAndContext<ContextType> bc) {
         if (Options.get().isChargedCallsDisabled())
             return true;
-        return isFunctionActive(bc, Collections.<BlockAndContext<ContextType>>newSet());
+        boolean active = active_functions.contains(bc);
+        if (Options.get().isDebugOrTestEnabled()) { // cross-check against search along charged edges
+            if (active != isFunctionActive(bc, Collections.<BlockAndContext<ContextType>>newSet()))
+                throw new AnalysisException("inconsistent function activity for " + bc);
+        }
+        return active;
     }
 
+    /**
+     * Marks the given function as active, together with all functions that reach it along charged edges.
+     */
+    private void markActive(BlockAndContext<ContextType> bc) {
+        Deque<BlockAndContext<ContextType>> pending = new ArrayDeque<>();
+        if (active_functions.add(bc))
+            pending.push(bc);
+        while (!pending.isEmpty()) {
+            Set<Edge> edges = charged_call_edges_reverse_map.get(pending.pop());
+            if (edges != null)
+                for (Edge e : edges) {
+                    BlockAndContext<ContextType> caller_entry = e.getCallerEntry();
+                    if (active_functions.add(caller_entry))
+                        pending.push(caller_entry);
+                }
+        }
+    }
+
+    /**
+     * Recomputes the activity of the given function and the active functions that reach it along charged edges,
+     * after its activity level has dropped to zero or one of its outgoing charged edges has been discharged.
+     * Other functions are not affected.
+     */
+    private void recomputeActive(BlockAndContext<ContextType> bc) {
+        if (!active_functions.contains(bc))
+            return;
+        // collect the affected functions (the active functions that reach bc) and make them inactive
+        Set<BlockAndContext<ContextType>> affected = newSet();
+        Deque<BlockAndContext<ContextType>> pending = new ArrayDeque<>();
+        affected.add(bc);
+        pending.push(bc);
+        while (!pending.isEmpty()) {
+            Set<Edge> edges = charged_call_edges_reverse_map.get(pending.pop());
+            if (edges != null)
+                for (Edge e : edges) {
+                    BlockAndContext<ContextType> caller_entry = e.getCallerEntry();
+                    if (active_functions.contains(caller_entry) && affected.add(caller_entry))
+                        pending.push(caller_entry);
+                }
+        }
+        active_functions.removeAll(affected);
+        // reactivate the affected functions that still have work or a charged edge to an unaffected active function
+        for (BlockAndContext<ContextType> f : affected) {
+            boolean active = function_activity_level.containsKey(f);
+            Set<Edge> edges = charged_call_edges_map.get(f);
+            if (!active && edges != null)
+                for (Edge e : edges)
+                    if (active_functions.contains(e.getCallee())) {
+                        active = true;
+                        break;
+                    }
+            if (active)
+                markActive(f);
+        }
+    }
+
+    /**
+     * Checks whether the given function is active by searching along charged edges (used for cross-checking).
+     */
     private boolean isFunctionActive(BlockAndContext<ContextType> bc, Set<BlockAndContext<ContextType>> visited) {
         if (visited.contains(bc))
             return false;
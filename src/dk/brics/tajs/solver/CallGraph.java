@@ -25,8 +25,12 @@ import dk.brics.tajs.util.Strings;
 import org.apache.log4j.Logger;
 
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,7 +45,9 @@ import static dk.brics.tajs.util.Collections.newSet;
  */
 public class CallGraph<StateType extends IState<StateType, ContextType, CallEdgeType>,
         ContextType extends IContext<ContextType>,
-        CallEdgeType extends ICallEdge<StateType>> {
+        CallEdgeType extends ICallEdge<StateType>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static Logger log = Logger.getLogger(CallGraph.class);
 
@@ -63,7 +69,9 @@ public class CallGraph<StateType extends IState<StateType, ContextType, CallEdge
 
     private int next_block_context_order;
 
-    public static class ReverseEdge<ContextType extends IContext<?>> {
+    public static class ReverseEdge<ContextType extends IContext<?>> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
 
         AbstractNode call_node;
 
@@ -203,6 +211,44 @@ public class CallGraph<StateType extends IState<StateType, ContextType, CallEdge
         return mb;
     }
 
+    /**
+     * Adds call edges and reverse edges that have been computed for another version of the flow graph.
+     */
+    void addEdges(Map<NodeAndContext<ContextType>, Map<BlockAndContext<ContextType>, CallEdgeType>> edges,
+                  Map<BlockAndContext<ContextType>, Set<ReverseEdge<ContextType>>> sources) {
+        call_edge_info.putAll(edges);
+        for (Map.Entry<BlockAndContext<ContextType>, Set<ReverseEdge<ContextType>>> me : sources.entrySet())
+            for (ReverseEdge<ContextType> re : me.getValue())
+                addToMapSet(call_sources, me.getKey(), re);
+    }
+
+    /**
+     * Returns the (callee entry, callee context) pairs that are reachable via reverse edges from the given pairs.
+     */
+    Set<BlockAndContext<ContextType>> getReachableEntries(Collection<BlockAndContext<ContextType>> roots) {
+        Map<BlockAndContext<ContextType>, Set<BlockAndContext<ContextType>>> callees = newMap();
+        for (Map.Entry<BlockAndContext<ContextType>, Set<ReverseEdge<ContextType>>> me : call_sources.entrySet())
+            for (ReverseEdge<ContextType> re : me.getValue())
+                addToMapSet(callees, BlockAndContext.makeEntry(re.call_node.getBlock(), re.caller_context), me.getKey());
+        Set<BlockAndContext<ContextType>> reachable = newSet(roots);
+        Deque<BlockAndContext<ContextType>> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty())
+            for (BlockAndContext<ContextType> callee : callees.getOrDefault(pending.pop(), Collections.emptySet()))
+                if (reachable.add(callee))
+                    pending.push(callee);
+        return reachable;
+    }
+
+    /**
+     * Removes the edges from and to the (entry, context) pairs that are not in the given set.
+     */
+    void retainEntries(Set<BlockAndContext<ContextType>> entries) {
+        call_sources.keySet().retainAll(entries);
+        for (Set<ReverseEdge<ContextType>> res : call_sources.values())
+            res.removeIf(re -> !entries.contains(BlockAndContext.makeEntry(re.call_node.getBlock(), re.caller_context)));
+        call_edge_info.keySet().removeIf(nc -> !entries.contains(BlockAndContext.makeEntry(nc.getNode().getBlock(), nc.getContext())));
+    }
+
     /**
      * Returns a textual description of this call graph.
      * Contexts and pseudo-call-edges are disregarded in the output.
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.solver;
+
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.util.AnalysisException;
+import dk.brics.tajs.util.LargeStack;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Snapshot of an in-progress fixpoint computation.
+ * <p>
+ * A checkpoint contains the flow graph, the analysis lattice element (block entry states and call graph),
+ * the call dependencies, the pending work list entries (in priority order), and the analysis state
+ * that is not part of the lattice element. It also contains the content key of the sources and analysis options,
+ * so that a checkpoint is only resumed for the same program and options.
+ * The file starts with a magic number and a format version, followed by the Java serialization of the snapshot.
+ * The version must be increased whenever the serialized form of the snapshot changes.
+ * Canonicalized lattice values are re-canonicalized when read.
+ */
+public final class Checkpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x54414a43; // "TAJC"
+
+    private static final int VERSION = 2;
+
+    final String key;
+
+    final FlowGraph flowgraph;
+
+    final IAnalysisLatticeElement<?, ?, ?> lattice;
+
+    final CallDependencies<?> deps;
+
+    final List<? extends BlockAndContext<?>> worklist;
+
+    final Serializable analysis_state;
+
+    Checkpoint(String key, FlowGraph flowgraph, IAnalysisLatticeElement<?, ?, ?> lattice, CallDependencies<?> deps,
+               List<? extends BlockAndContext<?>> worklist, Serializable analysis_state) {
+        this.key = key;
+        this.flowgraph = flowgraph;
+        this.lattice = lattice;
+        this.deps = deps;
+        this.worklist = worklist;
+        this.analysis_state = analysis_state;
+    }
+
+    /**
+     * Writes this checkpoint to the given file.
+     * The file is replaced atomically, so an interrupted write leaves any previous checkpoint intact.
+     */
+    void write(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                DataOutputStream out = new DataOutputStream(os);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                LargeStack.call("tajs-checkpoint", () -> {
+                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    oout.writeObject(this);
+                    oout.flush();
+                    return null;
+                });
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            Files.deleteIfExists(tmp);
+            if (e instanceof IOException)
+                throw (IOException) e;
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads a checkpoint from the given file.
+     *
+     * @param c solver interface to attach to the abstract states
+     * @throws AnalysisException if the file is not a checkpoint, or was written by an incompatible version
+     */
+    static Checkpoint read(Path file, GenericSolver<?, ?, ?, ?, ?>.SolverInterface c) throws IOException {
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(is);
+            if (in.readInt() != MAGIC)
+                throw new AnalysisException("Not a checkpoint: " + file);
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new AnalysisException("Incompatible checkpoint " + file + ": format version " + version + ", expected " + VERSION);
+            return LargeStack.call("tajs-checkpoint", () -> {
+                try (Input oin = new Input(in, c)) {
+                    return (Checkpoint) oin.readObject();
+                }
+            });
+        } catch (ObjectStreamException | ClassNotFoundException | ClassCastException e) {
+            // the classes of the snapshot have changed since the checkpoint was written
+            throw new AnalysisException("Incompatible checkpoint " + file + ": " + e, e);
+        } catch (EOFException e) {
+            throw new AnalysisException("Truncated checkpoint " + file, e);
+        } catch (IOException | AnalysisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AnalysisException("Unable to read checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Object input stream for reading checkpoints and stored fixpoints.
+     * Gives deserialized abstract states access to the solver interface.
+     */
+    public static final class Input extends ObjectInputStream {
+
+        private final GenericSolver<?, ?, ?, ?, ?>.SolverInterface c;
+
+        private final FlowGraphKeys keys; // null if the flow graph is part of the stream
+
+        private Input(InputStream in, GenericSolver<?, ?, ?, ?, ?>.SolverInterface c) throws IOException {
+            this(in, c, null);
+        }
+
+        /**
+         * Constructs a stream where references to flow graph elements are resolved in the flow graph with the given keys.
+         */
+        Input(InputStream in, GenericSolver<?, ?, ?, ?, ?>.SolverInterface c, FlowGraphKeys keys) throws IOException {
+            super(in);
+            this.c = c;
+            this.keys = keys;
+            if (keys != null)
+                enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof FlowGraphKeys.Ref)
+                return keys.resolve((FlowGraphKeys.Ref) obj);
+            return obj;
+        }
+
+        /**
+         * Returns the solver interface of the solver that resumes from the checkpoint.
+         */
+        public GenericSolver<?, ?, ?, ?, ?>.SolverInterface getSolverInterface() {
+            return c;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.solver;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.jsnodes.WriteVariableNode;
+import dk.brics.tajs.util.AnalysisException;
+import dk.brics.tajs.util.LargeStack;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static dk.brics.tajs.util.Collections.addToMapSet;
+import static dk.brics.tajs.util.Collections.newMap;
+import static dk.brics.tajs.util.Collections.newSet;
+
+/**
+ * Fixpoint of a completed analysis, stored per function so that the results of unchanged functions can be reused
+ * when another version of the program is analyzed.
+ * <p>
+ * For each function, identified by its {@link FlowGraphKeys key}, a fixpoint contains the keys of the functions that call it
+ * and a unit with the block entry states of the function, the call edges from its call nodes, the corresponding reverse edges,
+ * and the variable types that the transfer functions have recorded in the function.
+ * Functions, blocks and nodes are stored as references that are resolved in the flow graph of the other version
+ * when a unit is loaded, so a unit that refers to a changed function cannot be loaded.
+ * The fixpoint also contains a key of the analysis options and environment, so that it is only reused for the same options.
+ * Like a checkpoint, the file starts with a magic number and a format version, followed by the Java serialization of the fixpoint.
+ */
+final class Fixpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static Logger log = Logger.getLogger(Fixpoint.class);
+
+    private static final int MAGIC = 0x54414a52; // "TAJR"
+
+    private static final int VERSION = 1;
+
+    final String key;
+
+    /**
+     * Map from function key to the keys of its callers.
+     */
+    final Map<String, Set<String>> callers;
+
+    /**
+     * Map from function key to serialized unit.
+     */
+    final Map<String, byte[]> units;
+
+    /**
+     * Analysis results of a single function.
+     */
+    static final class Unit<StateType extends IState<StateType, ContextType, CallEdgeType>,
+            ContextType extends IContext<ContextType>,
+            CallEdgeType extends ICallEdge<StateType>> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final Map<BasicBlock, Map<ContextType, StateType>> states = newMap();
+
+        final Map<NodeAndContext<ContextType>, Map<BlockAndContext<ContextType>, CallEdgeType>> call_edges = newMap();
+
+        final Map<BlockAndContext<ContextType>, Set<CallGraph.ReverseEdge<ContextType>>> call_sources = newMap();
+
+        /**
+         * Variable types observed by the transfer functions, see {@link Function#variableValueTypes}.
+         */
+        final Map<String, String> variable_value_types = newMap();
+
+        final Set<String> reassigned_variable_names = newSet();
+
+        final Set<WriteVariableNode> reassigned_variables = newSet();
+
+        /**
+         * Stores the results of this unit in the given function.
+         */
+        void restoreFunction(Function f) {
+            f.variableValueTypes.putAll(variable_value_types);
+            f.reassignedVariableStrings.addAll(reassigned_variable_names);
+            f.reassignedVariables.addAll(reassigned_variables);
+        }
+    }
+
+    private Fixpoint(String key, Map<String, Set<String>> callers, Map<String, byte[]> units) {
+        this.key = key;
+        this.callers = callers;
+        this.units = units;
+    }
+
+    /**
+     * Constructs a fixpoint from the given analysis lattice element.
+     * Functions whose results refer to flow graph elements without keys are omitted.
+     */
+    static <StateType extends IState<StateType, ContextType, CallEdgeType>,
+            ContextType extends IContext<ContextType>,
+            CallEdgeType extends ICallEdge<StateType>>
+    Fixpoint make(String key, FlowGraph fg, FlowGraphKeys keys, IAnalysisLatticeElement<StateType, ContextType, CallEdgeType> lattice) throws Exception {
+        Map<Function, Unit<StateType, ContextType, CallEdgeType>> function_units = newMap();
+        for (Function f : fg.getFunctions()) {
+            Unit<StateType, ContextType, CallEdgeType> unit = new Unit<>();
+            for (BasicBlock b : f.getBlocks()) {
+                Map<ContextType, StateType> m = lattice.getStates(b);
+                if (!m.isEmpty())
+                    unit.states.put(b, m);
+            }
+            unit.variable_value_types.putAll(f.variableValueTypes);
+            unit.reassigned_variable_names.addAll(f.reassignedVariableStrings);
+            unit.reassigned_variables.addAll(f.reassignedVariables);
+            function_units.put(f, unit);
+        }
+        CallGraph<StateType, ContextType, CallEdgeType> cg = lattice.getCallGraph();
+        for (Map.Entry<NodeAndContext<ContextType>, Map<BlockAndContext<ContextType>, CallEdgeType>> me : cg.getCallEdgeInfo().entrySet())
+            function_units.get(me.getKey().getNode().getBlock().getFunction()).call_edges.put(me.getKey(), me.getValue());
+        Map<String, Set<String>> callers = newMap();
+        for (Map.Entry<BlockAndContext<ContextType>, Set<CallGraph.ReverseEdge<ContextType>>> me : cg.getCallSources().entrySet()) {
+            Function callee = me.getKey().getBlock().getFunction();
+            for (CallGraph.ReverseEdge<ContextType> re : me.getValue()) {
+                Function caller = re.getCallNode().getBlock().getFunction();
+                addToMapSet(function_units.get(caller).call_sources, me.getKey(), re);
+                if (caller != callee)
+                    addToMapSet(callers, keys.getKey(callee), keys.getKey(caller));
+            }
+        }
+        Map<String, byte[]> units = newMap();
+        LargeStack.call("tajs-fixpoint", () -> {
+            for (Map.Entry<Function, Unit<StateType, ContextType, CallEdgeType>> me : function_units.entrySet()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (Output out = new Output(new DeflaterOutputStream(bytes), keys)) {
+                    out.writeObject(me.getValue());
+                } catch (NotSerializableException e) {
+                    log.debug("Not storing the results of " + me.getKey() + ": " + e.getMessage());
+                    continue;
+                }
+                units.put(keys.getKey(me.getKey()), bytes.toByteArray());
+            }
+            return null;
+        });
+        return new Fixpoint(key, callers, units);
+    }
+
+    /**
+     * Writes this fixpoint to the given file.
+     * The file is replaced atomically, so an interrupted write leaves any previous fixpoint intact.
+     */
+    void write(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                DataOutputStream out = new DataOutputStream(os);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                ObjectOutputStream oout = new ObjectOutputStream(out);
+                oout.writeObject(this);
+                oout.flush();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a fixpoint from the given file.
+     * The units are not loaded until {@link #load(String, FlowGraphKeys, GenericSolver.SolverInterface)} is called.
+     *
+     * @throws AnalysisException if the file is not a fixpoint, or was written by an incompatible version
+     */
+    static Fixpoint read(Path file) throws IOException {
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(is);
+            if (in.readInt() != MAGIC)
+                throw new AnalysisException("Not a stored fixpoint: " + file);
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new AnalysisException("Incompatible stored fixpoint " + file + ": format version " + version + ", expected " + VERSION);
+            try (ObjectInputStream oin = new ObjectInputStream(in)) {
+                return (Fixpoint) oin.readObject();
+            }
+        } catch (ObjectStreamException | ClassNotFoundException | ClassCastException e) {
+            throw new AnalysisException("Incompatible stored fixpoint " + file + ": " + e, e);
+        } catch (EOFException e) {
+            throw new AnalysisException("Truncated stored fixpoint " + file, e);
+        }
+    }
+
+    /**
+     * Loads the unit of the given function, resolving the flow graph elements with the given keys.
+     * Deserialization recurses along the object graph, so this should be called in a thread with a large stack.
+     *
+     * @param c solver interface to attach to the abstract states
+     * @throws IOException if the unit refers to a flow graph element that does not exist, or cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    <StateType extends IState<StateType, ContextType, CallEdgeType>,
+            ContextType extends IContext<ContextType>,
+            CallEdgeType extends ICallEdge<StateType>>
+    Unit<StateType, ContextType, CallEdgeType> load(String function, FlowGraphKeys keys, GenericSolver<?, ?, ?, ?, ?>.SolverInterface c) throws IOException {
+        try (Checkpoint.Input in = new Checkpoint.Input(new InflaterInputStream(new ByteArrayInputStream(units.get(function))), c, keys)) {
+            return (Unit<StateType, ContextType, CallEdgeType>) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns the keys of the functions whose results depend on the results of the given functions,
+     * including the given functions.
+     */
+    Set<String> getDependents(Set<String> functions) {
+        Set<String> res = newSet(functions);
+        Deque<String> pending = new ArrayDeque<>(functions);
+        while (!pending.isEmpty())
+            for (String caller : callers.getOrDefault(pending.pop(), Collections.emptySet()))
+                if (res.add(caller))
+                    pending.push(caller);
+        return res;
+    }
+
+    /**
+     * Object output stream that writes references instead of flow graph elements.
+     */
+    private static final class Output extends ObjectOutputStream {
+
+        private final FlowGraphKeys keys;
+
+        Output(OutputStream out, FlowGraphKeys keys) throws IOException {
+            super(out);
+            this.keys = keys;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            if (obj instanceof AbstractNode || obj instanceof BasicBlock || obj instanceof Function) {
+                FlowGraphKeys.Ref ref = keys.getRef(obj);
+                if (ref == null)
+                    throw new NotSerializableException("Flow graph element without key: " + obj);
+                return ref;
+            }
+            if (obj instanceof FlowGraph)
+                throw new NotSerializableException("Flow graph");
+            return obj;
+        }
+    }
+}
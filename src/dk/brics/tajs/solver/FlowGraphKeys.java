@@ -0,0 +1,222 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.solver;
+
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.EndForInNode;
+import dk.brics.tajs.flowgraph.jsnodes.IfNode;
+import dk.brics.tajs.util.ContentHash;
+
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Collections.newMap;
+
+/**
+ * Keys of the functions, blocks and nodes of a flow graph that are stable across flow graphs built from different
+ * versions of the sources.
+ * <p>
+ * The key of a function is a content hash of its own code: the nodes of its blocks with the source lines they appear in,
+ * the edges between the blocks, and the variable names. Nested functions only contribute their names and parameters,
+ * and line numbers are not included, so the key does not change when code elsewhere changes.
+ * The top-level code of the main function is split into one group of nodes per file,
+ * so that the nodes of a file keep their keys when another file changes.
+ * A block or node is identified by the key of its function (or group) and its ordinal therein.
+ */
+final class FlowGraphKeys {
+
+    /**
+     * Reference to a function, block or node of a flow graph.
+     */
+    static final class Ref implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final char kind;
+
+        private final String key;
+
+        private final int ordinal;
+
+        private Ref(char kind, String key, int ordinal) {
+            this.kind = kind;
+            this.key = key;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Ref))
+                return false;
+            Ref r = (Ref) obj;
+            return kind == r.kind && key.equals(r.key) && ordinal == r.ordinal;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, key, ordinal);
+        }
+
+        @Override
+        public String toString() {
+            return kind + ":" + key + "#" + ordinal;
+        }
+    }
+
+    private static final Pattern INDICES = Pattern.compile("(block|node):\\d+");
+
+    private final Map<Function, String> function_keys;
+
+    private final Map<Object, Ref> refs;
+
+    private final Map<Ref, Object> elements;
+
+    /**
+     * Computes the keys of the given flow graph.
+     * The source code must have been added to the flow graph, otherwise only the nodes are used.
+     */
+    FlowGraphKeys(FlowGraph fg) {
+        function_keys = newMap();
+        refs = newMap();
+        elements = newMap();
+        List<Function> functions = newList(fg.getFunctions());
+        functions.sort(Comparator.comparingInt(Function::getIndex));
+        Map<String, Integer> occurrences = newMap();
+        for (Function f : functions) {
+            List<BasicBlock> blocks = sortedBlocks(f);
+            ContentHash h = new ContentHash().add(f.toString()).add(getFile(f.getSourceLocation()))
+                    .add(String.valueOf(new TreeSet<>(f.getVariableNames())))
+                    .add(String.valueOf(f.getClosureVariableNames() != null ? new TreeSet<>(f.getClosureVariableNames()) : null))
+                    .add(f.isUsesThis() + " " + f.getMaxRegister());
+            Map<String, List<AbstractNode>> groups = newMap();
+            for (BasicBlock b : blocks) {
+                h.add(describeBlock(b, blocks));
+                for (AbstractNode n : b.getNodes()) {
+                    String group = f.isMain() ? getFile(n.getSourceLocation()) : "";
+                    groups.computeIfAbsent(group, k -> newList()).add(n);
+                }
+            }
+            Map<String, String> group_keys = newMap();
+            for (Map.Entry<String, List<AbstractNode>> me : groups.entrySet()) {
+                ContentHash g = new ContentHash().add(me.getKey());
+                for (AbstractNode n : me.getValue())
+                    g.add(describeNode(n, blocks, fg));
+                group_keys.put(me.getKey(), g.finish());
+                h.add(me.getKey()).add(group_keys.get(me.getKey()));
+            }
+            String key = h.finish();
+            key += "-" + occurrences.merge(key, 1, Integer::sum);
+            function_keys.put(f, key);
+            add(f, new Ref('F', key, 0));
+            for (int i = 0; i < blocks.size(); i++)
+                add(blocks.get(i), new Ref('B', key, i));
+            for (Map.Entry<String, List<AbstractNode>> me : groups.entrySet()) {
+                String group_key = f.isMain() ? group_keys.get(me.getKey()) : key;
+                List<AbstractNode> nodes = me.getValue();
+                for (int i = 0; i < nodes.size(); i++)
+                    add(nodes.get(i), new Ref('N', group_key, i));
+            }
+        }
+    }
+
+    private void add(Object element, Ref ref) {
+        refs.put(element, ref);
+        elements.put(ref, element);
+    }
+
+    private static List<BasicBlock> sortedBlocks(Function f) {
+        List<BasicBlock> blocks = newList(f.getBlocks());
+        blocks.sort(Comparator.comparingInt(BasicBlock::getOrder));
+        return blocks;
+    }
+
+    private static String getFile(SourceLocation loc) {
+        if (loc == null)
+            return "";
+        return loc.getLocation() != null ? loc.getLocation().toExternalForm() : String.valueOf(loc.getPrettyFileName());
+    }
+
+    private static String describeBlock(BasicBlock b, List<BasicBlock> blocks) {
+        StringBuilder s = new StringBuilder();
+        s.append("block ").append(b.getNodes().size()).append(" ->");
+        for (BasicBlock succ : b.getSuccessors())
+            s.append(' ').append(blocks.indexOf(succ));
+        s.append(" exc ").append(blocks.indexOf(b.getExceptionHandler()))
+                .append(" entry ").append(blocks.indexOf(b.getEntryBlock()))
+                .append(" pred ").append(blocks.indexOf(b.getEntryPredecessorBlock()));
+        return s.toString();
+    }
+
+    private static String describeNode(AbstractNode n, List<BasicBlock> blocks, FlowGraph fg) {
+        String line = fg.getSourceLine(n.getSourceLocation());
+        // blocks and nodes are referred to relative to the block of the node instead of by their indices in the flow graph
+        String s = INDICES.matcher(n.toString()).replaceAll("$1");
+        int block = blocks.indexOf(n.getBlock());
+        if (n instanceof IfNode)
+            s += " " + (blocks.indexOf(((IfNode) n).getSuccTrue()) - block) + "," + (blocks.indexOf(((IfNode) n).getSuccFalse()) - block);
+        else if (n instanceof EndForInNode)
+            s += " " + (blocks.indexOf(((EndForInNode) n).getBeginNode().getBlock()) - block);
+        return n.getClass().getSimpleName() + " " + s + (n.isArtificial() ? " artificial" : "")
+                + (n.getDuplicateOf() != null ? " duplicate" : "") + (n.getImplicitAfterCall() != null ? " implicit" : "")
+                + " | " + (line != null ? line.trim() : "");
+    }
+
+    /**
+     * Returns the keys of all functions.
+     */
+    Set<String> getFunctionKeys() {
+        return new TreeSet<>(function_keys.values());
+    }
+
+    /**
+     * Returns the key of the given function, or null if the function is not part of the flow graph.
+     */
+    String getKey(Function f) {
+        return function_keys.get(f);
+    }
+
+    /**
+     * Returns the reference to the given function, block or node, or null if it is not part of the flow graph.
+     */
+    Ref getRef(Object element) {
+        return refs.get(element);
+    }
+
+    /**
+     * Returns the function, block or node that the given reference refers to.
+     *
+     * @throws InvalidObjectException if the flow graph contains no such element
+     */
+    Object resolve(Ref ref) throws InvalidObjectException {
+        Object element = elements.get(ref);
+        if (element == null)
+            throw new InvalidObjectException("No flow graph element " + ref);
+        return element;
+    }
+}
@@ -20,17 +20,38 @@ import dk.brics.tajs.flowgraph.AbstractNode;
 import dk.brics.tajs.flowgraph.BasicBlock;
 import dk.brics.tajs.flowgraph.FlowGraph;
 import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.options.ExperimentalOptions;
+import dk.brics.tajs.options.ExperimentalOptions.ExperimentalOptionsManager;
+import dk.brics.tajs.options.OptionValues;
 import dk.brics.tajs.options.Options;
 import dk.brics.tajs.solver.IAnalysisLatticeElement.MergeResult;
 import dk.brics.tajs.util.AnalysisException;
+import dk.brics.tajs.util.LargeStack;
 import net.htmlparser.jericho.Source;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Collections.newMap;
+import static dk.brics.tajs.util.Collections.newSet;
+
 /**
  * Generic fixpoint solver for flow graphs.
  */
@@ -42,17 +63,25 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
 
     private static Logger log = Logger.getLogger(GenericSolver.class);
 
+    /**
+     * Maximum number of speculations per solver thread besides the main thread.
+     * Most speculations wait for their turn, as they need it before the end of the block.
+     */
+    private static final int SPECULATIONS_PER_THREAD = 4;
+
     private final AnalysisType analysis;
 
     private final SolverSynchronizer sync;
 
     private FlowGraph flowgraph;
 
+    private String checkpoint_key; // identifies the sources and options in checkpoints, null if unknown
+
     private BasicBlock global_entry_block;
 
     private IAnalysisLatticeElement<StateType, ContextType, CallEdgeType> the_analysis_lattice_element;
 
-    private WorkList<ContextType> worklist;
+    private IWorkList<ContextType> worklist;
 
     private CallDependencies<ContextType> deps;
 
@@ -65,8 +94,246 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
      */
     private boolean messages_enabled;
 
+    private boolean fixpoint_reached;
+
+    private int reused_functions;
+
     private SolverInterface c;
 
+    /**
+     * Set while the functions are scanned on several threads, see {@link #scan()},
+     * or work list entries are transferred on several threads, see {@link #solve()}.
+     */
+    private boolean parallel;
+
+    private final ThreadLocal<Worker> worker = new ThreadLocal<>();
+
+    /**
+     * Work list entries that are being transferred on other threads ahead of their turn.
+     */
+    private final Map<BlockAndContext<ContextType>, Speculation> speculations = newMap();
+
+    /**
+     * Analysis lattice element given to the transfer functions while work list entries are transferred on several threads, null otherwise.
+     */
+    private GuardedLatticeElement guarded_lattice_element;
+
+    /**
+     * Current node, current state and monitoring object of a thread that works while other threads work on other parts of the analysis.
+     */
+    private class Worker {
+
+        private AbstractNode node;
+
+        private StateType state;
+
+        MonitoringType monitoring;
+
+        private Worker(MonitoringType monitoring) {
+            this.monitoring = monitoring;
+        }
+
+        /**
+         * Waits until this worker may read and update more than its current state.
+         */
+        void awaitTurn() {
+            // scanning only reads the stored states
+        }
+    }
+
+    /**
+     * Thrown on the thread of a speculation that is cancelled while waiting for its turn.
+     */
+    private static final class SpeculationCancelled extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private SpeculationCancelled() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Work list entry that is transferred on another thread ahead of its turn.
+     * Until the entry gets its turn, the transfer works on a copy of the entry state that was made when the speculation was started,
+     * and the calls on the monitoring object are recorded.
+     * Anything else, in particular the stored states, the call graph, the call dependencies and choices that depend on the order of the entries,
+     * is only read and updated after the entry has got its turn (see {@link SolverInterface#awaitTurn()}),
+     * and the recorded calls are then made on the monitoring object of the analysis.
+     * The speculation is cancelled if the entry states of the block are accessed before the entry gets its turn, as they may change,
+     * and the solver then transfers the entry itself.
+     * Otherwise, the solver gives the entry its turn when it picks the entry, and waits for the transfer to finish,
+     * so the results are the same as when the entries are transferred one at a time.
+     */
+    private class Speculation extends Worker implements Runnable, ForkJoinPool.ManagedBlocker {
+
+        private final BasicBlock block;
+
+        private final ContextType context;
+
+        private final StateType entry_state;
+
+        private final StateType entry_state_copy;
+
+        private final OptionValues options;
+
+        private final ExperimentalOptions experimental;
+
+        private final CountDownLatch turn = new CountDownLatch(1);
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final AtomicBoolean started = new AtomicBoolean(); // set by the thread that transfers the entry
+
+        private volatile boolean cancelled;
+
+        private boolean has_turn;
+
+        private boolean failed; // set if the transfer failed before the entry got its turn
+
+        private Throwable exception; // set if the transfer failed after the entry got its turn
+
+        private int node_transfers;
+
+        private Speculation(BasicBlock block, ContextType context, StateType entry_state) {
+            super(analysis.makeDeferredMonitoring());
+            this.block = block;
+            this.context = context;
+            this.entry_state = entry_state;
+            entry_state_copy = entry_state.clone();
+            options = Options.get();
+            experimental = ExperimentalOptionsManager.get();
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true))
+                return;
+            OptionValues previous = Options.bind(options);
+            ExperimentalOptions previousExperimental = ExperimentalOptionsManager.bind(experimental);
+            worker.set(this);
+            analysis.setTurnHook(this::awaitTurn);
+            try {
+                if (!cancelled) {
+                    node_transfers = transferBlock(block, context, entry_state, entry_state_copy);
+                    awaitTurn();
+                }
+            } catch (SpeculationCancelled e) {
+                // the solver transfers the entry itself, if it is still pending
+            } catch (RuntimeException | Error e) {
+                if (has_turn)
+                    exception = e;
+                else
+                    failed = true; // the transfer may have depended on the missing turn, so the solver transfers the entry itself
+            } finally {
+                analysis.setTurnHook(null);
+                worker.remove();
+                if (previous != null)
+                    Options.bind(previous);
+                else
+                    Options.unbind();
+                if (previousExperimental != null)
+                    ExperimentalOptionsManager.bind(previousExperimental);
+                else
+                    ExperimentalOptionsManager.unbind();
+                done.countDown();
+            }
+        }
+
+        @Override
+        void awaitTurn() {
+            if (has_turn)
+                return;
+            try {
+                ForkJoinPool.managedBlock(this); // the pool may start another thread meanwhile
+            } catch (InterruptedException e) {
+                throw new SpeculationCancelled();
+            }
+            if (cancelled)
+                throw new SpeculationCancelled();
+            has_turn = true;
+            analysis.commitDeferredMonitoring(monitoring);
+            monitoring = analysis.getMonitoring();
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            turn.await();
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return turn.getCount() == 0;
+        }
+
+        /**
+         * Gives this entry its turn and waits for the transfer to finish.
+         * The transfer is not started if it has not started yet, as all threads of the pool may be waiting for their turns.
+         *
+         * @return false if the transfer has not started or failed before the entry got its turn, so the solver must transfer the entry itself
+         */
+        private boolean finish() {
+            if (started.compareAndSet(false, true))
+                return false;
+            turn.countDown();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AnalysisException("Interrupted while waiting for a work list entry to be transferred", e);
+            }
+            if (exception instanceof RuntimeException)
+                throw (RuntimeException) exception;
+            if (exception instanceof Error)
+                throw (Error) exception;
+            return !failed;
+        }
+
+        /**
+         * Cancels this speculation.
+         */
+        private void cancel() {
+            cancelled = true;
+            turn.countDown();
+        }
+    }
+
+    /**
+     * Analysis lattice element that cancels the speculations for the blocks whose entry states are accessed.
+     */
+    private class GuardedLatticeElement implements IAnalysisLatticeElement<StateType, ContextType, CallEdgeType> {
+
+        @Override
+        public StateType getState(BasicBlock block, ContextType context) {
+            cancelSpeculations(block);
+            return the_analysis_lattice_element.getState(block, context);
+        }
+
+        @Override
+        public StateType getState(BlockAndContext<ContextType> bc) {
+            cancelSpeculations(bc.getBlock());
+            return the_analysis_lattice_element.getState(bc);
+        }
+
+        @Override
+        public Map<ContextType, StateType> getStates(BasicBlock block) {
+            cancelSpeculations(block);
+            return the_analysis_lattice_element.getStates(block);
+        }
+
+        @Override
+        public CallGraph<StateType, ContextType, CallEdgeType> getCallGraph() {
+            return the_analysis_lattice_element.getCallGraph();
+        }
+
+        @Override
+        public MergeResult propagate(StateType s, BasicBlock b, ContextType c, boolean localize) {
+            cancelSpeculations(b);
+            return the_analysis_lattice_element.propagate(s, b, c, localize);
+        }
+    }
+
     /**
      * Interface to solver used while evaluating transfer functions.
      * Provides callbacks from transfer functions to solver state.
@@ -80,33 +347,40 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
          * Returns the node currently being visited.
          */
         public AbstractNode getNode() {
-            if (current_node == null)
+            Worker w = getWorker();
+            AbstractNode n = w != null ? w.node : current_node;
+            if (n == null)
                 throw new AnalysisException("Unexpected call to getNode");
-            return current_node;
+            return n;
         }
 
         /**
          * Returns the current abstract state.
          */
         public StateType getState() {
-            return current_state;
+            Worker w = getWorker();
+            return w != null ? w.state : current_state;
         }
 
         /**
          * Sets the current abstract state.
          */
         public void setState(StateType state) {
-            current_state = state;
+            Worker w = getWorker();
+            if (w != null)
+                w.state = state;
+            else
+                current_state = state;
         }
 
         /**
          * Runs the given supplier function with the given state set to current.
          */
         public <T> T withState(StateType state, Supplier<T> fun) {
-            StateType old = current_state;
-            current_state = state;
+            StateType old = getState();
+            setState(state);
             T res = fun.get();
-            current_state = old;
+            setState(old);
             return res;
         }
 
@@ -138,14 +412,36 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
          * Returns the analysis lattice element.
          */
         public IAnalysisLatticeElement<StateType, ContextType, CallEdgeType> getAnalysisLatticeElement() {
-            return the_analysis_lattice_element;
+            awaitTurn();
+            return guarded_lattice_element != null ? guarded_lattice_element : the_analysis_lattice_element;
         }
 
         /**
          * Returns the monitoring object of the analysis.
          */
         public MonitoringType getMonitoring() {
-            return analysis.getMonitoring();
+            Worker w = getWorker();
+            return w != null ? w.monitoring : analysis.getMonitoring();
+        }
+
+        /**
+         * Waits until the work list entry that is being transferred on this thread has its turn,
+         * if it is transferred ahead of its turn (see {@link GenericSolver#solve()}).
+         * Must be called before the transfer functions read or update anything but the current state and the monitoring object
+         * that is not accessed through this interface, for example the state of the native functions.
+         */
+        public void awaitTurn() {
+            Worker w = getWorker();
+            if (w != null)
+                w.awaitTurn();
+        }
+
+        /**
+         * Returns the number of pending work list entries.
+         */
+        public int getWorkListSize() {
+            awaitTurn();
+            return worklist.size();
         }
 
         /**
@@ -164,6 +460,7 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
         public void propagateToBasicBlock(StateType state, BasicBlock block, ContextType context) {
             if (messages_enabled)
                 return;
+            awaitTurn();
             propagate(state, block, context, false);
         }
 
@@ -174,6 +471,7 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
             MergeResult res = the_analysis_lattice_element.propagate(state, block, context, localize);
             the_analysis_lattice_element.getCallGraph().registerBlockContext(block, context);
             if (res != null) {
+                cancelSpeculations(block);
                 addToWorklist(block, context);
                 if (sync != null)
                     sync.markPendingBlock(block);
@@ -189,7 +487,8 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
          * Adds the given location to the worklist.
          */
         public void addToWorklist(BasicBlock block, ContextType context) {
-            if (worklist.add(worklist.new Entry(block, context)))
+            awaitTurn();
+            if (worklist.add(block, context))
                 deps.incrementFunctionActivityLevel(BlockAndContext.makeEntry(block, context));
         }
 
@@ -203,25 +502,25 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
                                              ContextType edge_context, BasicBlock callee_entry, boolean implicit) {
             if (messages_enabled)
                 return;
+            awaitTurn();
             CallGraph<StateType, ContextType, CallEdgeType> cg = the_analysis_lattice_element.getCallGraph();
             // add to existing call edge
             if (cg.addTarget(call_node, caller_context, callee_entry, edge_context, edge_state, sync, analysis)) {
                 // new flow at call edge, transform it relative to the function entry states and contexts
                 ContextType callee_context = edge_state.transform(cg.getCallEdge(call_node, caller_context, callee_entry, edge_context),
-                        edge_context, the_analysis_lattice_element.getStates(callee_entry), callee_entry);
+                        edge_context, getAnalysisLatticeElement().getStates(callee_entry), callee_entry);
                 cg.addSource(call_node, caller_context, callee_entry, callee_context, edge_context, implicit);
                 // propagate transformed state into function entry
                 propagate(edge_state, callee_entry, callee_context, true);
                 // charge the call edge  
                 deps.chargeCallEdge(call_node.getBlock(), caller_context, edge_context, callee_entry, callee_context);
                 // process existing ordinary/exceptional return flow
-                StateType stored_state = current_state;
-                AbstractNode stored_node = current_node;
-                current_state = null;
-                current_node = null;
+                StateType stored_state = getState();
+                AbstractNode stored_node = setNode(null);
+                setState(null);
                 analysis.getNodeTransferFunctions().transferReturn(call_node, callee_entry, caller_context, callee_context, edge_context, implicit);
-                current_state = stored_state;
-                current_node = stored_node;
+                setState(stored_state);
+                setNode(stored_node);
             }
         }
 
@@ -230,6 +529,7 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
          */
         public void returnFromFunctionExit(StateType return_state, AbstractNode call_node, ContextType caller_context,
                                            BasicBlock callee_entry, ContextType edge_context, boolean implicit) {
+            awaitTurn();
             CallEdgeType edge = the_analysis_lattice_element.getCallGraph().getCallEdge(call_node, caller_context, callee_entry, edge_context);
             if (return_state.transformInverse(edge, callee_entry, return_state.getContext())) {
                 // need to re-process the incoming flow at function entry
@@ -243,6 +543,7 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
          */
         public boolean isCallEdgeCharged(BasicBlock caller, ContextType caller_context, ContextType edge_context,
                                          BlockAndContext<ContextType> callee_entry) {
+            awaitTurn();
             return deps.isCallEdgeCharged(caller, caller_context, edge_context, callee_entry.getBlock(), callee_entry.getContext());
         }
     }
@@ -271,154 +572,547 @@ public class GenericSolver<StateType extends IState<StateType, ContextType, Call
         analysis.setSolverInterface(c);
 
         // initialize worklist
-        worklist = new WorkList<>(analysis.getWorklistStrategy());
+        worklist = makeWorkList();
         deps = new CallDependencies<>();
         current_node = global_entry_block.getFirstNode();
         analysis.getInitialStateBuilder().addInitialState(global_entry_block, c, document);
     }
 
+    /**
+     * Constructs a new empty work list, as selected by the options.
+     */
+    private IWorkList<ContextType> makeWorkList() {
+        if (Options.get().isBucketedWorklistEnabled())
+            return new BucketedWorkList<>(analysis.getWorklistStrategy());
+        return new WorkList<>(analysis.getWorklistStrategy());
+    }
+
+    /**
+     * Sets the key that identifies the analyzed sources and the analysis options in checkpoints.
+     * When resuming, a checkpoint with another key is rejected.
+     */
+    public void setCheckpointKey(String key) {
+        checkpoint_key = key;
+    }
+
+    /**
+     * Initializes the solver from a checkpoint written by {@link #writeCheckpoint(Path)}.
+     * Used instead of {@link #init(FlowGraph, Source)}.
+     *
+     * @throws AnalysisException if the checkpoint is incompatible with this version, or was written for other sources or options
+     */
+    @SuppressWarnings("unchecked")
+    public void resume(Path file) throws IOException {
+        if (the_analysis_lattice_element != null)
+            throw new IllegalStateException("resume() called after init()");
+        c = new SolverInterface();
+        Checkpoint cp = Checkpoint.read(file, c);
+        if (!Objects.equals(checkpoint_key, cp.key))
+            throw new AnalysisException("Checkpoint " + file + " was written for other sources or options");
+        flowgraph = cp.flowgraph;
+        global_entry_block = flowgraph.getEntryBlock();
+        the_analysis_lattice_element = (IAnalysisLatticeElement<StateType, ContextType, CallEdgeType>) cp.lattice;
+        analysis.restoreCheckpointState(cp.analysis_state);
+        analysis.setSolverInterface(c);
+        worklist = makeWorkList();
+        for (BlockAndContext<?> bc : cp.worklist)
+            worklist.add(bc.getBlock(), (ContextType) bc.getContext());
+        deps = (CallDependencies<ContextType>) cp.deps;
+        current_node = null;
+    }
+
+    /**
+     * Writes a checkpoint of the fixpoint computation to the given file.
+     * Must not be called during a block transfer.
+     */
+    public void writeCheckpoint(Path file) {
+        if (the_analysis_lattice_element == null)
+            throw new IllegalStateException("writeCheckpoint() called before init()");
+        long time = System.currentTimeMillis();
+        List<BlockAndContext<ContextType>> entries = newList();
+        for (IWorkListStrategy.IEntry<ContextType> e : worklist.getEntries())
+            entries.add(new BlockAndContext<>(e.getBlock(), e.getContext()));
+        try {
+            new Checkpoint(checkpoint_key, flowgraph, the_analysis_lattice_element, deps, entries, analysis.getCheckpointState()).write(file);
+            if (!Options.get().isQuietEnabled())
+                log.info("Wrote checkpoint " + file + " (" + entries.size() + " pending work list entries, "
+                        + (System.currentTimeMillis() - time) + "ms)");
+        } catch (IOException e) {
+            log.error("Unable to write checkpoint " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the fixpoint per function, such that {@link #reuseFixpoint(Path, String)} can reuse the results of unchanged functions
+     * when another version of the program is analyzed.
+     * {@link #solve()} must be called first.
+     *
+     * @param key identifies the analysis options and environment
+     */
+    public void storeFixpoint(Path file, String key) {
+        if (!fixpoint_reached) {
+            log.warn("Not storing the fixpoint, as the fixpoint computation has not completed");
+            return;
+        }
+        long time = System.currentTimeMillis();
+        try {
+            Fixpoint fp = Fixpoint.make(key, flowgraph, new FlowGraphKeys(flowgraph), the_analysis_lattice_element);
+            fp.write(file);
+            if (!Options.get().isQuietEnabled())
+                log.info("Stored fixpoint " + file + " (" + fp.units.size() + " functions, " + (System.currentTimeMillis() - time) + "ms)");
+        } catch (Exception e) {
+            log.warn("Unable to store fixpoint " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reuses the results of the unchanged functions from a fixpoint that has been stored by {@link #storeFixpoint(Path, String)}
+     * for another version of the program.
+     * Must be called after {@link #init(FlowGraph, Source)} and before {@link #solve()}.
+     * <p>
+     * The results of a function are reused if neither the function nor any function it calls (directly or transitively) has changed,
+     * and all functions, blocks and nodes that the results refer to still exist.
+     * The other functions start from the empty state, and are analyzed again from the program entry.
+     * A reused state may contain flow from a caller that has changed since, so the resulting fixpoint is sound,
+     * but may be less precise than a fixpoint computed from scratch.
+     * The contexts that are no longer reachable are removed when the fixpoint has been reached.
+     *
+     * @param key identifies the analysis options and environment, the stored fixpoint is ignored if it has another key
+     * @return number of functions whose results are reused
+     */
+    public int reuseFixpoint(Path file, String key) {
+        if (the_analysis_lattice_element == null)
+            throw new IllegalStateException("reuseFixpoint() called before init()");
+        if (!Files.isRegularFile(file))
+            return 0;
+        long time = System.currentTimeMillis();
+        Fixpoint fp;
+        try {
+            fp = Fixpoint.read(file);
+        } catch (IOException | AnalysisException e) {
+            log.warn("Unable to read stored fixpoint " + file + ": " + e.getMessage());
+            return 0;
+        }
+        if (!fp.key.equals(key))
+            return 0;
+        FlowGraphKeys keys = new FlowGraphKeys(flowgraph);
+        Set<String> current = keys.getFunctionKeys();
+        Set<String> changed = newSet();
+        for (String k : current)
+            if (!fp.units.containsKey(k))
+                changed.add(k);
+        for (String k : fp.units.keySet())
+            if (!current.contains(k))
+                changed.add(k);
+        Map<String, Fixpoint.Unit<StateType, ContextType, CallEdgeType>> units = newMap();
+        try {
+            LargeStack.call("tajs-fixpoint", () -> {
+                boolean failed;
+                do {
+                    // the results of a function depend on the results of its callees, so invalidate the callers of changed functions
+                    Set<String> invalid = fp.getDependents(changed);
+                    units.keySet().removeAll(invalid);
+                    failed = false;
+                    for (String k : current)
+                        if (!invalid.contains(k) && !units.containsKey(k)) {
+                            try {
+                                units.put(k, fp.load(k, keys, c));
+                            } catch (IOException e) {
+                                if (log.isDebugEnabled())
+                                    log.debug("Not reusing the results of " + k + ": " + e.getMessage());
+                                changed.add(k);
+                                failed = true;
+                            }
+                        }
+                } while (failed);
+                return null;
+            });
+        } catch (Exception e) {
+            throw new AnalysisException(e);
+        }
+        List<Function> functions = newList(flowgraph.getFunctions());
+        functions.sort(Comparator.comparingInt(Function::getIndex));
+        CallGraph<StateType, ContextType, CallEdgeType> cg = the_analysis_lattice_element.getCallGraph();
+        for (Function f : functions) {
+            Fixpoint.Unit<StateType, ContextType, CallEdgeType> unit = units.get(keys.getKey(f));
+            if (unit == null)
+                continue;
+            List<BasicBlock> blocks = newList(unit.states.keySet());
+            blocks.sort(Comparator.comparingInt(BasicBlock::getOrder));
+            for (BasicBlock b : blocks) {
+                Map<ContextType, StateType> m = the_analysis_lattice_element.getStates(b);
+                for (Entry<ContextType, StateType> me : unit.states.get(b).entrySet()) {
+                    m.put(me.getKey(), me.getValue());
+                    cg.registerBlockContext(b, me.getKey());
+                }
+            }
+            cg.addEdges(unit.call_edges, unit.call_sources);
+            unit.restoreFunction(f);
+        }
+        reused_functions = units.size();
+        if (!Options.get().isQuietEnabled())
+            log.info("Reusing the results of " + reused_functions + " of " + functions.size() + " functions from " + file
+                    + " (" + (System.currentTimeMillis() - time) + "ms)");
+        return reused_functions;
+    }
+
+    /**
+     * Removes the states and call edges of the contexts that are not reachable from the program entry.
+     */
+    private void removeUnreachableContexts() {
+        CallGraph<StateType, ContextType, CallEdgeType> cg = the_analysis_lattice_element.getCallGraph();
+        List<BlockAndContext<ContextType>> roots = newList();
+        for (ContextType context : the_analysis_lattice_element.getStates(global_entry_block).keySet())
+            roots.add(BlockAndContext.makeEntry(global_entry_block, context));
+        Set<BlockAndContext<ContextType>> reachable = cg.getReachableEntries(roots);
+        for (Function f : flowgraph.getFunctions())
+            for (BasicBlock b : f.getBlocks())
+                the_analysis_lattice_element.getStates(b).keySet().removeIf(context -> !reachable.contains(BlockAndContext.makeEntry(b, context)));
+        cg.retainEntries(reachable);
+    }
+
     /**
      * Runs the solver.
+     * With more than one solver thread, the next work list entries are transferred on other threads ahead of their turn,
+     * see {@link Speculation}, unless a solver synchronizer is used or the unevalizer is enabled, as it may extend the flow graph.
      */
     public void solve() {
         int nodeTransfers = 0;
         boolean terminatedEarly = false;
-        // iterate until fixpoint
-        block_loop:
-        while (!worklist.isEmpty()) {
-            if (!analysis.getMonitoring().allowNextIteration()) {
-                if (!Options.get().isQuietEnabled()) {
-                    log.warn("Terminating fixpoint solver early and unsoundly");
+        Path checkpoint = Options.get().getCheckpointPath() != null ? Paths.get(Options.get().getCheckpointPath()) : null;
+        long checkpoint_interval = Options.get().getCheckpointInterval() * 1000L;
+        long next_checkpoint = System.currentTimeMillis() + checkpoint_interval;
+        int threads = Options.get().getSolverThreads();
+        ForkJoinPool pool = null;
+        if (threads > 1 && sync == null && !Options.get().isUnevalizerEnabled()) {
+            pool = new ForkJoinPool(threads - 1);
+            guarded_lattice_element = new GuardedLatticeElement();
+            parallel = true;
+        }
+        try {
+            // iterate until fixpoint
+            while (!worklist.isEmpty()) {
+                if (!analysis.getMonitoring().allowNextIteration()) {
+                    if (!Options.get().isQuietEnabled()) {
+                        log.warn("Terminating fixpoint solver early and unsoundly");
+                    }
+                    if (checkpoint != null)
+                        writeCheckpoint(checkpoint);
+                    terminatedEarly = true;
+                    break;
                 }
-                terminatedEarly = true;
-                break;
-            }
-            if (sync != null) {
-                if (sync.isSingleStep())
-                    if (log.isDebugEnabled())
-                        log.debug("Worklist: " + worklist);
-                sync.waitIfSingleStep();
+                if (checkpoint != null && checkpoint_interval > 0 && System.currentTimeMillis() >= next_checkpoint) {
+                    writeCheckpoint(checkpoint);
+                    next_checkpoint = System.currentTimeMillis() + checkpoint_interval;
+                }
+                if (sync != null) {
+                    if (sync.isSingleStep())
+                        if (log.isDebugEnabled())
+                            log.debug("Worklist: " + worklist);
+                    sync.waitIfSingleStep();
+                }
+                // pick a pending entry
+                IWorkListStrategy.IEntry<ContextType> p = worklist.removeNext();
+                if (p == null)
+                    continue; // entry may have been removed
+                BasicBlock block = p.getBlock();
+                ContextType context = p.getContext();
+                if (sync != null)
+                    sync.markActiveBlock(block);
+                deps.decrementFunctionActivityLevel(BlockAndContext.makeEntry(block, context));
+                StateType state = the_analysis_lattice_element.getState(block, p.getContext());
+                if (state == null)
+                    throw new AnalysisException();
+                if (log.isDebugEnabled()) {
+                    log.debug("Selecting worklist entry for block " + block.getIndex() + " at " + block.getSourceLocation());
+                    log.debug("Worklist: " + worklist);
+                    log.debug("Visiting " + block);
+//    			    log.debug("Number of abstract states at this block: " + the_analysis_lattice_element.getSize(block));
+                    log.debug("Context: " + context);
+                } else if (!Options.get().isQuietEnabled() && !Options.get().isTestEnabled() && !Options.get().isTelemetryEnabled() && Options.get().getTelemetryFile() == null && log.isInfoEnabled()) { // telemetry replaces per-block progress
+//    			    if (block.isEntry())
+//    				    log.debug("Entering " + block.getFunction() + " at " + block.getFunction().getSourceLocation());
+//    			    if (block.isOrdinaryExit())
+//    				    log.debug("Returning from " + block.getFunction() + " at " + block.getFunction().getSourceLocation());
+//    			    if (block.isExceptionalExit())
+//    				    log.debug("Exception from " + block.getFunction() + " at " + block.getFunction().getSourceLocation());
+                    log.info(//"block " + block.getIndex() + " at " +
+                            block.getSourceLocation() +
+//    					    ", context " + context +
+                                    " (node transfers: " + (nodeTransfers + 1) +
+//    					    " (avg/node: " + ((float) ((analysis.getMonitoring().getTotalNumberOfNodeTransfers() + 1) * 1000 / flowgraph.getNumberOfNodes())) / 1000 + ")" +
+                                    ", worklist size: " + (worklist.size() + 1) +
+//    					    ", contexts: " + the_analysis_lattice_element.getSize(block) +
+                                    ")");
+                }
+                Speculation speculation = speculations.remove(new BlockAndContext<>(block, context));
+                if (pool != null)
+                    speculate(pool, SPECULATIONS_PER_THREAD * (threads - 1));
+                if (speculation != null && speculation.finish()) {
+                    nodeTransfers += speculation.node_transfers;
+                    continue;
+                }
+                // basic block transfer
+                nodeTransfers += transferBlock(block, context, state, state.clone());
             }
-            // pick a pending entry
-            WorkList<ContextType>.Entry p = worklist.removeNext();
-            if (p == null)
-                continue; // entry may have been removed
-            BasicBlock block = p.getBlock();
-            ContextType context = p.getContext();
-            if (sync != null)
-                sync.markActiveBlock(block);
-            deps.decrementFunctionActivityLevel(BlockAndContext.makeEntry(block, context));
-            StateType state = the_analysis_lattice_element.getState(block, p.getContext());
+        } finally {
+            cancelSpeculations(); // if a transfer has failed, the speculations are not needed
+            if (pool != null)
+                pool.shutdown();
+            guarded_lattice_element = null;
+            parallel = false;
+        }
+        if (!terminatedEarly) {
+            deps.assertEmpty();
+            if (reused_functions > 0)
+                removeUnreachableContexts();
+            fixpoint_reached = true;
+        }
+        messages_enabled = true;
+    }
+
+    /**
+     * Starts speculations for the next work list entries on the given pool, such that there are at most the given number of speculations.
+     * The entry states are copied now.
+     */
+    private void speculate(ForkJoinPool pool, int n) {
+        if (speculations.size() >= n)
+            return;
+        for (IWorkListStrategy.IEntry<ContextType> e : worklist.getNextEntries(n)) {
+            BlockAndContext<ContextType> bc = new BlockAndContext<>(e.getBlock(), e.getContext());
+            if (speculations.containsKey(bc))
+                continue;
+            StateType state = the_analysis_lattice_element.getState(bc);
             if (state == null)
-                throw new AnalysisException();
-            if (log.isDebugEnabled()) {
-                log.debug("Selecting worklist entry for block " + block.getIndex() + " at " + block.getSourceLocation());
-                log.debug("Worklist: " + worklist);
-                log.debug("Visiting " + block);
-//    			log.debug("Number of abstract states at this block: " + the_analysis_lattice_element.getSize(block));
-                log.debug("Context: " + context);
-            } else if (!Options.get().isQuietEnabled() && !Options.get().isTestEnabled() && log.isInfoEnabled()) {
-//    			if (block.isEntry())
-//    				log.debug("Entering " + block.getFunction() + " at " + block.getFunction().getSourceLocation());
-//    			if (block.isOrdinaryExit())
-//    				log.debug("Returning from " + block.getFunction() + " at " + block.getFunction().getSourceLocation());
-//    			if (block.isExceptionalExit())
-//    				log.debug("Exception from " + block.getFunction() + " at " + block.getFunction().getSourceLocation());
-                log.info(//"block " + block.getIndex() + " at " +
-                        block.getSourceLocation() +
-//    					", context " + context +
-                                " (node transfers: " + (nodeTransfers + 1) +
-//    					" (avg/node: " + ((float) ((analysis.getMonitoring().getTotalNumberOfNodeTransfers() + 1) * 1000 / flowgraph.getNumberOfNodes())) / 1000 + ")" + 
-                                ", worklist size: " + (worklist.size() + 1) +
-//    					", contexts: " + the_analysis_lattice_element.getSize(block) +
-                                ")");
+                break; // the solver fails when it picks the entry
+            Speculation s = new Speculation(e.getBlock(), e.getContext(), state);
+            speculations.put(bc, s);
+            pool.execute(s);
+            if (speculations.size() >= n)
+                break;
+        }
+    }
+
+    /**
+     * Cancels the speculations for the given block, if any.
+     */
+    private void cancelSpeculations(BasicBlock block) {
+        if (speculations.isEmpty())
+            return;
+        for (Iterator<Speculation> i = speculations.values().iterator(); i.hasNext(); ) {
+            Speculation s = i.next();
+            if (s.block == block) {
+                s.cancel();
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Cancels all speculations.
+     * The speculations that are running stop when they would need their turn, and until then only work on their own copies of the entry states.
+     */
+    private void cancelSpeculations() {
+        for (Speculation s : speculations.values())
+            s.cancel();
+        speculations.clear();
+    }
+
+    /**
+     * Transfers the given block in the given context, and propagates the resulting state to the successor blocks.
+     * The transfer uses the current node, current state and monitoring object of the worker of this thread, if any.
+     *
+     * @param state stored entry state
+     * @param current copy of the entry state to transfer
+     * @return the number of node transfers
+     */
+    private int transferBlock(BasicBlock block, ContextType context, StateType state, StateType current) {
+        c.getMonitoring().visitBlockTransfer(block, state);
+        c.setState(current);
+        if (global_entry_block == block)
+            current.localize(null); // use *localized* initial state
+        if (Options.get().isIntermediateStatesEnabled())
+            if (log.isDebugEnabled())
+                log.debug("Before block transfer: " + current);
+        int nodeTransfers = 0;
+        for (AbstractNode n : block.getNodes()) {
+            nodeTransfers++;
+            setNode(n);
+            if (log.isDebugEnabled())
+                log.debug("Visiting node " + n.getIndex() + ": "
+                        + n + " at " + n.getSourceLocation());
+            analysis.getNodeTransferFunctions().transfer(n);
+            c.getMonitoring().visitNodeTransfer(n);
+            if (c.getState().isNone()) {
+                log.debug("No non-exceptional flow");
+                return nodeTransfers;
             }
-            // basic block transfer
-            analysis.getMonitoring().visitBlockTransfer(block, state);
-            current_state = state.clone();
-            if (global_entry_block == block)
-                current_state.localize(null); // use *localized* initial state
             if (Options.get().isIntermediateStatesEnabled())
                 if (log.isDebugEnabled())
-                    log.debug("Before block transfer: " + current_state);
-            for (AbstractNode n : block.getNodes()) {
-                nodeTransfers++;
-                current_node = n;
-                if (log.isDebugEnabled())
-                    log.debug("Visiting node " + current_node.getIndex() + ": "
-                            + current_node + " at " + current_node.getSourceLocation());
-                analysis.getNodeTransferFunctions().transfer(current_node);
-                analysis.getMonitoring().visitNodeTransfer(current_node);
-                if (current_state.isNone()) {
-                    log.debug("No non-exceptional flow");
-                    continue block_loop;
-                }
-                if (Options.get().isIntermediateStatesEnabled())
-                    if (log.isDebugEnabled())
-                        log.debug("After node transfer: " + current_state.toStringBrief());
-            }
-            analysis.getMonitoring().visitPostBlockTransfer(block, current_state);
-            // edge transfer
-            for (Iterator<BasicBlock> i = block.getSuccessors().iterator(); i.hasNext(); ) {
-                BasicBlock succ = i.next();
-                StateType s = i.hasNext() ? current_state.clone() : current_state;
-                ContextType new_context = analysis.getEdgeTransferFunctions().transfer(block, succ, s);
-                if (new_context != null) {
-                    c.propagateToBasicBlock(s, succ, new_context);
-                }
+                    log.debug("After node transfer: " + c.getState().toStringBrief());
+        }
+        c.awaitTurn();
+        c.getMonitoring().visitPostBlockTransfer(block, c.getState());
+        // edge transfer
+        for (Iterator<BasicBlock> i = block.getSuccessors().iterator(); i.hasNext(); ) {
+            BasicBlock succ = i.next();
+            StateType s = i.hasNext() ? c.getState().clone() : c.getState();
+            ContextType new_context = analysis.getEdgeTransferFunctions().transfer(block, succ, s);
+            if (new_context != null) {
+                c.propagateToBasicBlock(s, succ, new_context);
             }
-            if (!deps.isFunctionActive(BlockAndContext.makeEntry(block, context)))
-                for (CallGraph.ReverseEdge<ContextType> re : the_analysis_lattice_element.getCallGraph().getSources(BlockAndContext.makeEntry(block, context))) {
-                    // callee has become inactive, so discharge the call edge
-                    deps.dischargeCallEdge(re.getCallNode().getBlock(), re.getCallerContext(), re.getEdgeContext(), BlockAndContext.makeEntry(block, context));
-                }
         }
-        if (!terminatedEarly)
-            deps.assertEmpty();
-        messages_enabled = true;
+        if (!deps.isFunctionActive(BlockAndContext.makeEntry(block, context)))
+            for (CallGraph.ReverseEdge<ContextType> re : the_analysis_lattice_element.getCallGraph().getSources(BlockAndContext.makeEntry(block, context))) {
+                // callee has become inactive, so discharge the call edge
+                deps.dischargeCallEdge(re.getCallNode().getBlock(), re.getCallerContext(), re.getEdgeContext(), BlockAndContext.makeEntry(block, context));
+            }
+        return nodeTransfers;
+    }
+
+    /**
+     * Returns the worker of the current thread, or null if the current thread is not a worker.
+     */
+    private Worker getWorker() {
+        return parallel ? worker.get() : null;
     }
 
     /**
      * Scans for messages. Takes one round through all nodes and all contexts without invoking <code>propagate</code>.
+     * The functions are scanned on the number of threads selected by the options, unless the monitoring object does not support it
+     * or the unevalizer is enabled, as it may extend the flow graph.
      * {@link #solve()} must be called first.
      */
     public void scan() {
         if (the_analysis_lattice_element == null)
             throw new IllegalStateException("scan() called before solve()");
-        // visit each block
-        for (Function function : flowgraph.getFunctions()) {
-            if (log.isDebugEnabled())
-                log.debug("Scanning " + function + " at " + function.getSourceLocation());
-            analysis.getMonitoring().visitFunction(function, the_analysis_lattice_element.getStates(function.getEntry()).values());
-            for (BasicBlock block : function.getBlocks()) {
-                if (log.isDebugEnabled())
-                    log.debug("Scanning " + block + " at " + block.getSourceLocation());
-                block_loop:
-                for (Entry<ContextType, StateType> me : the_analysis_lattice_element.getStates(block).entrySet()) {
-                    current_state = me.getValue().clone();
-                    ContextType context = me.getKey();
-                    if (global_entry_block == block)
-                        current_state.localize(null); // use *localized* initial state
-                    if (log.isDebugEnabled()) {
-                        log.debug("Context: " + context);
-                        if (Options.get().isIntermediateStatesEnabled())
-                            log.debug("Before block transfer: " + current_state);
-                    }
-                    for (AbstractNode node : block.getNodes()) {
-                        current_node = node;
-                        if (log.isDebugEnabled())
-                            log.debug("node " + current_node.getIndex() + ": " + current_node);
-                        if (current_state.isNone())
-                            continue block_loop; // unreachable, so skip the rest of the block
-                        analysis.getMonitoring().visitReachableNode(node);
-                        analysis.getNodeTransferFunctions().transfer(node);
+        List<Function> functions = newList(flowgraph.getFunctions());
+        int threads = Options.get().getScanThreads();
+        if (threads > 1 && functions.size() > 1 && !Options.get().isUnevalizerEnabled()) {
+            MonitoringType first = analysis.makeScanMonitoring();
+            if (first != null) {
+                scanInParallel(functions, threads, first);
+                return;
+            }
+        }
+        for (Function function : functions)
+            scanFunction(function);
+    }
+
+    /**
+     * Scans the given functions on a pool of the given number of threads, one task per function.
+     * Each task binds the options of this thread and has its own current node, current state and monitoring object,
+     * where the first function uses the given monitoring object.
+     * The monitoring objects are merged in the order of the functions, so the results are the same as when scanning on one thread.
+     */
+    private void scanInParallel(List<Function> functions, int threads, MonitoringType first) {
+        // add the missing entries now, such that the tasks do not modify the maps of stored states
+        for (Function function : functions)
+            for (BasicBlock block : function.getBlocks())
+                the_analysis_lattice_element.getStates(block);
+        OptionValues options = Options.get();
+        ExperimentalOptions experimental = ExperimentalOptionsManager.get();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        parallel = true;
+        List<ForkJoinTask<MonitoringType>> tasks = newList();
+        try {
+            for (Function function : functions) {
+                MonitoringType monitoring = tasks.isEmpty() ? first : analysis.makeScanMonitoring();
+                tasks.add(pool.submit(() -> {
+                    OptionValues previous = Options.bind(options);
+                    ExperimentalOptions previousExperimental = ExperimentalOptionsManager.bind(experimental);
+                    worker.set(new Worker(monitoring));
+                    try {
+                        scanFunction(function);
+                        return monitoring;
+                    } finally {
+                        worker.remove();
+                        if (previous != null)
+                            Options.bind(previous);
+                        else
+                            Options.unbind();
+                        if (previousExperimental != null)
+                            ExperimentalOptionsManager.bind(previousExperimental);
+                        else
+                            ExperimentalOptionsManager.unbind();
                     }
-                    analysis.getMonitoring().visitPostBlockTransfer(block, current_state);
+                }));
+            }
+            for (ForkJoinTask<MonitoringType> t : tasks)
+                analysis.mergeScanMonitoring(t.join());
+        } finally {
+            for (ForkJoinTask<MonitoringType> t : tasks)
+                t.cancel(false); // if a task has failed, the others are not needed
+            pool.shutdown();
+        }
+        parallel = false; // still set if a task has failed, as the tasks that are running may use their workers
+    }
+
+    /**
+     * Scans the blocks of the given function in all contexts.
+     * The stored states may be read and updated by unknown value recovery while other functions are scanned,
+     * so they are only accessed while holding the lock of the analysis lattice element.
+     */
+    private void scanFunction(Function function) {
+        if (log.isDebugEnabled())
+            log.debug("Scanning " + function + " at " + function.getSourceLocation());
+        synchronized (the_analysis_lattice_element) {
+            c.getMonitoring().visitFunction(function, the_analysis_lattice_element.getStates(function.getEntry()).values());
+        }
+        for (BasicBlock block : function.getBlocks()) {
+            if (log.isDebugEnabled())
+                log.debug("Scanning " + block + " at " + block.getSourceLocation());
+            List<Entry<ContextType, StateType>> states;
+            synchronized (the_analysis_lattice_element) {
+                states = newList(the_analysis_lattice_element.getStates(block).entrySet());
+            }
+            block_loop:
+            for (Entry<ContextType, StateType> me : states) {
+                StateType state;
+                synchronized (the_analysis_lattice_element) {
+                    state = me.getValue().clone();
+                }
+                c.setState(state);
+                ContextType context = me.getKey();
+                if (global_entry_block == block)
+                    state.localize(null); // use *localized* initial state
+                if (log.isDebugEnabled()) {
+                    log.debug("Context: " + context);
+                    if (Options.get().isIntermediateStatesEnabled())
+                        log.debug("Before block transfer: " + state);
                 }
+                for (AbstractNode node : block.getNodes()) {
+                    setNode(node);
+                    if (log.isDebugEnabled())
+                        log.debug("node " + node.getIndex() + ": " + node);
+                    if (c.getState().isNone())
+                        continue block_loop; // unreachable, so skip the rest of the block
+                    c.getMonitoring().visitReachableNode(node);
+                    analysis.getNodeTransferFunctions().transfer(node);
+                }
+                c.getMonitoring().visitPostBlockTransfer(block, c.getState());
             }
         }
     }
 
+    /**
+     * Sets the node currently being visited.
+     *
+     * @return the previous node
+     */
+    private AbstractNode setNode(AbstractNode node) {
+        Worker w = getWorker();
+        AbstractNode previous;
+        if (w != null) {
+            previous = w.node;
+            w.node = node;
+        } else {
+            previous = current_node;
+            current_node = node;
+        }
+        return previous;
+    }
+
     /**
      * Returns the analysis lattice element.
      * {@link #solve()} must be called first.
@@ -18,6 +18,8 @@ package dk.brics.tajs.solver;
 
 import dk.brics.tajs.flowgraph.FlowGraph;
 
+import java.io.Serializable;
+
 /**
  * Interface for analyses on flow graphs.
  */
@@ -62,6 +64,36 @@ public interface IAnalysis<StateType extends IState<StateType, ContextType, Call
      */
     MonitoringType getMonitoring();
 
+    /**
+     * Returns a new monitoring object for scanning one of the functions on another thread,
+     * or null if the monitoring object does not support this.
+     * The scan phase must have begun.
+     */
+    MonitoringType makeScanMonitoring();
+
+    /**
+     * Merges the results of a monitoring object made by {@link #makeScanMonitoring()} into the monitoring object.
+     */
+    void mergeScanMonitoring(MonitoringType m);
+
+    /**
+     * Returns a new monitoring object that records the calls made while a worklist entry is transferred ahead of its turn
+     * on another thread, see {@link #commitDeferredMonitoring}.
+     */
+    MonitoringType makeDeferredMonitoring();
+
+    /**
+     * Makes the calls recorded by a monitoring object made by {@link #makeDeferredMonitoring()} on the monitoring object.
+     */
+    void commitDeferredMonitoring(MonitoringType m);
+
+    /**
+     * Sets a hook that the analysis runs on the current thread before it makes a choice that depends on the order
+     * in which worklist entries are transferred, or removes the hook if null.
+     * A worklist entry that is transferred ahead of its turn uses the hook to wait for its turn.
+     */
+    void setTurnHook(Runnable hook);
+
     /**
      * Sets the current solver interface.
      */
@@ -72,4 +104,15 @@ public interface IAnalysis<StateType extends IState<StateType, ContextType, Call
      */
     CallEdgeType makeCallEdge(StateType edge_state);
 
+    /**
+     * Returns the analysis state that is not part of the analysis lattice element, for checkpoints.
+     */
+    Serializable getCheckpointState();
+
+    /**
+     * Restores the analysis state from a checkpoint.
+     * Used instead of {@link #initContextSensitivity(FlowGraph)} when resuming from a checkpoint.
+     */
+    void restoreCheckpointState(Serializable state);
+
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.solver;
+
+import dk.brics.tajs.flowgraph.BasicBlock;
+
+import java.util.List;
+
+/**
+ * Interface for work lists used by the solver.
+ */
+public interface IWorkList<ContextType extends IContext<?>> {
+
+    /**
+     * Adds an entry for the given block and context.
+     *
+     * @return true if changed
+     */
+    boolean add(BasicBlock b, ContextType c);
+
+    /**
+     * Checks whether the work list is empty.
+     */
+    boolean isEmpty();
+
+    /**
+     * Picks and removes the next entry.
+     * Returns null if the entry has been removed.
+     */
+    IWorkListStrategy.IEntry<ContextType> removeNext();
+
+    /**
+     * Returns the number of entries in the work list.
+     */
+    int size();
+
+    /**
+     * Returns the entries in the work list, in the order they will be picked.
+     */
+    List<? extends IWorkListStrategy.IEntry<ContextType>> getEntries();
+
+    /**
+     * Returns at most the given number of entries in the work list, in the order they will be picked
+     * if no entries are added in the meantime.
+     */
+    List<? extends IWorkListStrategy.IEntry<ContextType>> getNextEntries(int n);
+}
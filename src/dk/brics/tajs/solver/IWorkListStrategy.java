@@ -31,6 +31,13 @@ public interface IWorkListStrategy<ContextType extends IContext<?>> {
      */
     int compare(IEntry<ContextType> e1, IEntry<ContextType> e2);
 
+    /**
+     * Returns the priority of the function and context of the given entry.
+     * Used by work lists that group entries by function and context, see {@link BucketedWorkList}.
+     * Groups with higher priority are picked first. This must be stable.
+     */
+    int getFunctionContextPriority(IEntry<ContextType> e);
+
     /**
      * Interface for work list entries.
      */
@@ -18,10 +18,14 @@ package dk.brics.tajs.solver;
 
 import dk.brics.tajs.flowgraph.AbstractNode;
 
+import java.io.Serializable;
+
 /**
  * Pair of an abstract node and a context.
  */
-public final class NodeAndContext<ContextType extends IContext<?>> {
+public final class NodeAndContext<ContextType extends IContext<?>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private AbstractNode n;
 
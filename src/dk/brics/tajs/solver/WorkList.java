@@ -19,20 +19,22 @@ package dk.brics.tajs.solver;
 import dk.brics.tajs.flowgraph.BasicBlock;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
  * Work list used by solver.
  */
-public class WorkList<ContextType extends IContext<?>> {
+public class WorkList<ContextType extends IContext<?>> implements IWorkList<ContextType> {
 
     private static Logger log = Logger.getLogger(WorkList.class);
 
     // invariant: pending_set is a subset of pending_queue (not necessarily equal)
 
-    private static int next_serial;
+    private int next_serial;
 
     private Set<Entry> pending_set;
 
@@ -49,6 +51,11 @@ public class WorkList<ContextType extends IContext<?>> {
         pending_queue = new PriorityQueue<>();
     }
 
+    @Override
+    public boolean add(BasicBlock b, ContextType c) {
+        return add(new Entry(b, c));
+    }
+
     /**
      * Adds an entry.
      *
@@ -67,6 +74,7 @@ public class WorkList<ContextType extends IContext<?>> {
     /**
      * Checks whether the work list is empty.
      */
+    @Override
     public boolean isEmpty() {
         return pending_queue.isEmpty();
     }
@@ -75,6 +83,7 @@ public class WorkList<ContextType extends IContext<?>> {
      * Picks and removes the next entry.
      * Returns null if the entry has been removed.
      */
+    @Override
     public Entry removeNext() {
         Entry p = pending_queue.remove();
         if (!pending_set.remove(p)) {
@@ -88,10 +97,33 @@ public class WorkList<ContextType extends IContext<?>> {
     /**
      * Returns the number of entries in the work list.
      */
+    @Override
     public int size() {
         return pending_set.size();
     }
 
+    /**
+     * Returns the entries in the work list, in the order they will be picked.
+     */
+    @Override
+    public List<Entry> getEntries() {
+        PriorityQueue<Entry> queue = new PriorityQueue<>(pending_queue);
+        Set<Entry> seen = new HashSet<>();
+        List<Entry> res = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Entry e = queue.remove();
+            if (pending_set.contains(e) && seen.add(e))
+                res.add(e);
+        }
+        return res;
+    }
+
+    @Override
+    public List<Entry> getNextEntries(int n) {
+        List<Entry> res = getEntries();
+        return res.size() > n ? new ArrayList<>(res.subList(0, n)) : res;
+    }
+
 //    /**
 //     * Removes the given entry.
 //     */
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hash of a sequence of strings, in hexadecimal.
+ * The strings are separated, so ("ab", "c") and ("a", "bc") have different hashes.
+ */
+public final class ContentHash {
+
+    private final MessageDigest md;
+
+    /**
+     * Constructs a new hash of the empty sequence.
+     */
+    public ContentHash() {
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    /**
+     * Returns the hash of the given string.
+     */
+    public static String of(String s) {
+        return new ContentHash().add(s).finish();
+    }
+
+    /**
+     * Appends a string.
+     */
+    public ContentHash add(String s) {
+        md.update(s.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        return this;
+    }
+
+    /**
+     * Returns the hash. This object cannot be used afterwards.
+     */
+    public String finish() {
+        byte[] bytes = md.digest();
+        StringBuilder b = new StringBuilder(bytes.length * 2);
+        for (byte x : bytes)
+            b.append(Character.forDigit((x >> 4) & 0xF, 16)).append(Character.forDigit(x & 0xF, 16));
+        return b.toString();
+    }
+}
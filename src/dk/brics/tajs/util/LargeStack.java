@@ -0,0 +1,65 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.util;
+
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs computations in a thread with a large stack.
+ * Used for Java (de)serialization of flow graphs and analysis states, which recurses along the object graph.
+ */
+public final class LargeStack {
+
+    private static final long STACK_SIZE = 512L * 1024 * 1024;
+
+    private LargeStack() {
+    }
+
+    /**
+     * Runs the given computation in a new thread with a large stack and waits for it to finish.
+     * The options of the current thread are also used in the new thread.
+     *
+     * @throws Exception the exception thrown by the computation
+     */
+    public static <T> T call(String name, Callable<T> c) throws Exception {
+        Object[] result = new Object[1];
+        Exception[] exception = new Exception[1];
+        OptionValues options = Options.get();
+        Thread t = new Thread(null, () -> {
+            Options.bind(options);
+            try {
+                result[0] = c.call();
+            } catch (Exception e) {
+                exception[0] = e;
+            } catch (StackOverflowError e) {
+                exception[0] = new AnalysisException(e);
+            } finally {
+                Options.unbind();
+            }
+        }, name, STACK_SIZE);
+        t.start();
+        t.join();
+        if (exception[0] != null)
+            throw exception[0];
+        @SuppressWarnings("unchecked")
+        T res = (T) result[0];
+        return res;
+    }
+}
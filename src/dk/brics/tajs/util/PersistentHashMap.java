@@ -0,0 +1,588 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Map backed by a hash array mapped trie with structural sharing.
+ * <p>
+ * Copying takes constant time: the copy and the original share all trie nodes, and
+ * a subsequent update of either map only copies the path to the updated entry.
+ * Nodes created since the last copy are updated in place.
+ * {@link #forEachDifferentKey(PersistentHashMap, Consumer)} compares two maps by walking only the
+ * subtries that are not shared.
+ * <p>
+ * Null keys are not supported. Not thread-safe.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final int MAX_DEPTH = 8; // 7 bitmap levels (5 bits each) + a collision node
+
+    private transient Node root; // null if empty
+
+    private transient int size;
+
+    /**
+     * Nodes owned by this token may be updated in place.
+     */
+    private transient Object edit = new Object();
+
+    /**
+     * Constructs a new empty map.
+     */
+    public PersistentHashMap() {
+    }
+
+    /**
+     * Constructs a copy of the given map, in constant time.
+     */
+    public PersistentHashMap(PersistentHashMap<K, V> m) {
+        root = m.root;
+        size = m.size;
+        m.edit = new Object(); // the nodes are now shared
+    }
+
+    /**
+     * Constructs a new map with the entries of the given map.
+     */
+    public PersistentHashMap(Map<? extends K, ? extends V> m) {
+        putAll(m);
+    }
+
+    /**
+     * Writes the entries. (The trie layout depends on the hash codes of the keys, which may differ when read.)
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Entry<K, V> e : entrySet()) {
+            out.writeObject(e.getKey());
+            out.writeObject(e.getValue());
+        }
+    }
+
+    /**
+     * Reads the entries and rebuilds the trie.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        edit = new Object();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++)
+            put((K) in.readObject(), (V) in.readObject());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null)
+            return null;
+        Object v = root.find(0, hash(key), key);
+        return v == NOT_FOUND ? null : (V) v;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Box box = new Box();
+        Node r = root != null ? root : new BitmapNode(edit, 0, new Object[0]);
+        root = r.assoc(edit, 0, hash(key), key, value, box);
+        if (box.added)
+            size++;
+        return (V) box.old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (root == null)
+            return null;
+        Box box = new Box();
+        root = root.without(edit, 0, hash(key), key, box);
+        if (!box.removed)
+            return null;
+        size--;
+        return (V) box.old;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null)
+            root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry))
+                    return false;
+                Entry<?, ?> e = (Entry<?, ?>) o;
+                if (root == null || e.getKey() == null)
+                    return false;
+                Object v = root.find(0, hash(e.getKey()), e.getKey());
+                return v != NOT_FOUND && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+            }
+        };
+    }
+
+    /**
+     * Calls the consumer with each key whose value is not the same object in this map and the given map
+     * (including keys that only one of the maps contains).
+     * Subtries that are shared between the two maps are skipped without being visited.
+     * The consumer must not modify the maps.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachDifferentKey(PersistentHashMap<K, V> other, Consumer<? super K> consumer) {
+        diff(root, other.root, 0, (Consumer<Object>) consumer);
+    }
+
+    private static void diff(Node a, Node b, int shift, Consumer<Object> c) {
+        if (a == b)
+            return;
+        if (a == null) {
+            b.forEach((k, v) -> c.accept(k));
+            return;
+        }
+        if (b == null) {
+            a.forEach((k, v) -> c.accept(k));
+            return;
+        }
+        if (a instanceof BitmapNode && b instanceof BitmapNode) {
+            BitmapNode x = (BitmapNode) a;
+            BitmapNode y = (BitmapNode) b;
+            int all = x.bitmap | y.bitmap;
+            while (all != 0) {
+                int bit = all & -all;
+                all ^= bit;
+                boolean inX = (x.bitmap & bit) != 0;
+                boolean inY = (y.bitmap & bit) != 0;
+                if (inX && inY) {
+                    int ix = 2 * x.index(bit);
+                    int iy = 2 * y.index(bit);
+                    Object kx = x.array[ix], vx = x.array[ix + 1];
+                    Object ky = y.array[iy], vy = y.array[iy + 1];
+                    if (kx == null && ky == null) {
+                        diff((Node) vx, (Node) vy, shift + 5, c);
+                    } else if (kx != null && ky != null) {
+                        if (kx.equals(ky)) {
+                            if (vx != vy)
+                                c.accept(kx);
+                        } else {
+                            c.accept(kx);
+                            c.accept(ky);
+                        }
+                    } else if (kx != null) {
+                        diffLeaf(kx, vx, (Node) vy, shift + 5, c);
+                    } else {
+                        diffLeaf(ky, vy, (Node) vx, shift + 5, c);
+                    }
+                } else {
+                    BitmapNode z = inX ? x : y;
+                    int i = 2 * z.index(bit);
+                    if (z.array[i] == null)
+                        ((Node) z.array[i + 1]).forEach((k, v) -> c.accept(k));
+                    else
+                        c.accept(z.array[i]);
+                }
+            }
+            return;
+        }
+        a.forEach((k, v) -> {
+            if (b.find(shift, hash(k), k) != v)
+                c.accept(k);
+        });
+        b.forEach((k, v) -> {
+            if (a.find(shift, hash(k), k) == NOT_FOUND)
+                c.accept(k);
+        });
+    }
+
+    private static void diffLeaf(Object key, Object value, Node n, int shift, Consumer<Object> c) {
+        n.forEach((k, v) -> {
+            if (!(v == value && k.equals(key)))
+                c.accept(k);
+        });
+        if (n.find(shift, hash(key), key) == NOT_FOUND)
+            c.accept(key);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    private static Node createNode(Object edit, int shift, Object key1, Object val1, int key2hash, Object key2, Object val2) {
+        int key1hash = hash(key1);
+        if (key1hash == key2hash)
+            return new CollisionNode(edit, key1hash, new Object[]{key1, val1, key2, val2});
+        Box box = new Box();
+        return new BitmapNode(edit, 0, new Object[0])
+                .assoc(edit, shift, key1hash, key1, val1, box)
+                .assoc(edit, shift, key2hash, key2, val2, box);
+    }
+
+    private static Object[] removePair(Object[] array, int i) {
+        Object[] a = new Object[array.length - 2];
+        System.arraycopy(array, 0, a, 0, 2 * i);
+        System.arraycopy(array, 2 * (i + 1), a, 2 * i, a.length - 2 * i);
+        return a;
+    }
+
+    /**
+     * Result of an update.
+     */
+    private static final class Box {
+
+        Object old;
+
+        boolean added;
+
+        boolean removed;
+    }
+
+    private static abstract class Node {
+
+        final Object edit;
+
+        Object[] array; // key/value pairs; a null key means that the value is a sub-node
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node assoc(Object edit, int shift, int hash, Object key, Object val, Box box);
+
+        abstract Node without(Object edit, int shift, int hash, Object key, Box box);
+
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null)
+                    ((Node) array[i + 1]).forEach(action);
+                else
+                    action.accept(array[i], array[i + 1]);
+            }
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+
+        int bitmap;
+
+        BitmapNode(Object edit, int bitmap, Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0)
+                return NOT_FOUND;
+            int i = 2 * index(bit);
+            Object k = array[i];
+            if (k == null)
+                return ((Node) array[i + 1]).find(shift + 5, hash, key);
+            return key.equals(k) ? array[i + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object val, Box box) {
+            int bit = bitpos(hash, shift);
+            int idx = index(bit);
+            int i = 2 * idx;
+            if ((bitmap & bit) != 0) {
+                Object k = array[i];
+                Object v = array[i + 1];
+                if (k == null) {
+                    Node n = ((Node) v).assoc(edit, shift + 5, hash, key, val, box);
+                    return n == v ? this : set(edit, i + 1, n);
+                }
+                if (key.equals(k)) {
+                    box.old = v;
+                    return v == val ? this : set(edit, i + 1, val);
+                }
+                box.added = true;
+                BitmapNode e = editable(edit);
+                e.array[i] = null;
+                e.array[i + 1] = createNode(edit, shift + 5, k, v, hash, key, val);
+                return e;
+            }
+            box.added = true;
+            int n = Integer.bitCount(bitmap);
+            Object[] a = new Object[2 * (n + 1)];
+            System.arraycopy(array, 0, a, 0, i);
+            a[i] = key;
+            a[i + 1] = val;
+            System.arraycopy(array, i, a, i + 2, 2 * (n - idx));
+            if (this.edit == edit) {
+                array = a;
+                bitmap |= bit;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap | bit, a);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, Box box) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            int idx = index(bit);
+            int i = 2 * idx;
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node n = ((Node) v).without(edit, shift + 5, hash, key, box);
+                if (n == v)
+                    return this;
+                if (n != null)
+                    return set(edit, i + 1, n);
+            } else if (key.equals(k)) {
+                box.removed = true;
+                box.old = v;
+            } else {
+                return this;
+            }
+            if (bitmap == bit)
+                return null;
+            Object[] a = removePair(array, idx);
+            if (this.edit == edit) {
+                array = a;
+                bitmap ^= bit;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap ^ bit, a);
+        }
+
+        private BitmapNode editable(Object edit) {
+            if (this.edit == edit)
+                return this;
+            return new BitmapNode(edit, bitmap, array.clone());
+        }
+
+        private BitmapNode set(Object edit, int i, Object x) {
+            BitmapNode e = editable(edit);
+            e.array[i] = x;
+            return e;
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+
+        final int hash;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2)
+                if (key.equals(array[i]))
+                    return i;
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : array[i + 1];
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object val, Box box) {
+            if (hash != this.hash) {
+                // nest this node in a bitmap node and retry
+                return new BitmapNode(edit, bitpos(this.hash, shift), new Object[]{null, this})
+                        .assoc(edit, shift, hash, key, val, box);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                box.old = array[i + 1];
+                if (array[i + 1] == val)
+                    return this;
+                Object[] a = this.edit == edit ? array : array.clone();
+                a[i + 1] = val;
+                return this.edit == edit ? this : new CollisionNode(edit, hash, a);
+            }
+            box.added = true;
+            Object[] a = new Object[array.length + 2];
+            System.arraycopy(array, 0, a, 0, array.length);
+            a[array.length] = key;
+            a[array.length + 1] = val;
+            if (this.edit == edit) {
+                array = a;
+                return this;
+            }
+            return new CollisionNode(edit, hash, a);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, Box box) {
+            int i = indexOf(key);
+            if (i < 0)
+                return this;
+            box.removed = true;
+            box.old = array[i + 1];
+            if (array.length == 2)
+                return null;
+            Object[] a = removePair(array, i / 2);
+            if (this.edit == edit) {
+                array = a;
+                return this;
+            }
+            return new CollisionNode(edit, hash, a);
+        }
+    }
+
+    /**
+     * Iterator over a snapshot of the trie. Removal goes through the map, so the snapshot is not affected.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+
+        private final int[] positions = new int[MAX_DEPTH];
+
+        private int depth = -1;
+
+        private Object nextKey;
+
+        private Object nextValue;
+
+        private Object lastKey;
+
+        EntryIterator() {
+            edit = new Object(); // the snapshot must not be updated in place
+            if (root != null)
+                push(root);
+            advance();
+        }
+
+        private void push(Node n) {
+            depth++;
+            arrays[depth] = n.array;
+            positions[depth] = 0;
+        }
+
+        private void advance() {
+            nextKey = null;
+            while (depth >= 0) {
+                Object[] a = arrays[depth];
+                int p = positions[depth];
+                if (p >= a.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+                positions[depth] = p + 2;
+                if (a[p] == null) {
+                    push((Node) a[p + 1]);
+                } else {
+                    nextKey = a[p];
+                    nextValue = a[p + 1];
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (nextKey == null)
+                throw new NoSuchElementException();
+            Entry<K, V> e = new SimpleImmutableEntry<>((K) nextKey, (V) nextValue);
+            lastKey = nextKey;
+            advance();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null)
+                throw new IllegalStateException();
+            PersistentHashMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.util;
+
+import dk.brics.tajs.solver.Message;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static dk.brics.tajs.util.Collections.newList;
+import static dk.brics.tajs.util.Collections.newMap;
+
+/**
+ * On-disk cache of analysis results, keyed by the content hashes of the analyzed sources.
+ * <p>
+ * A cache entry consists of the messages emitted during the scan phase and the smell report.
+ * If neither the options, the host environment, nor any source has changed since an earlier run,
+ * the results of that run are replayed instead of analyzing the program again,
+ * and the sources are only read for hashing, not parsed.
+ * Otherwise the changed sources are reported, and the program is analyzed again, reusing the results of
+ * the unchanged functions from the fixpoint that is stored for the options and environment
+ * (see {@link dk.brics.tajs.solver.GenericSolver#reuseFixpoint(Path, String)}).
+ * The fixpoint is only stored by runs that have not reused results, so that results are reused from a fixpoint
+ * that has been computed from scratch; deleting the cache directory gives a result computed from scratch.
+ * Smell baselines are not supported, as the findings are not part of a cache entry.
+ */
+public class ResultCache {
+
+    private static Logger log = Logger.getLogger(ResultCache.class);
+
+    private static final String FORMAT = "tajs-result-cache-1";
+
+    private static final String MESSAGES = "messages.txt";
+
+    private static final String SOURCES = "sources.txt";
+
+    private static final String FIXPOINT = "fixpoint.bin";
+
+    private static final Charset UTF8 = StandardCharsets.UTF_8;
+
+    private final Path dir;
+
+    private final String options;
+
+    private final List<String> environment;
+
+    private final Map<String, String> sources;
+
+    private List<String> recorded;
+
+    private List<String> cached; // null if not looked up or not found
+
+    /**
+     * Constructs a new cache for an analysis with the given options.
+     *
+     * @param dir     cache directory, created when results are stored
+     * @param options description of the options that affect the results
+     */
+    public ResultCache(Path dir, String options) {
+        this.dir = dir;
+        this.options = options;
+        this.environment = newList();
+        this.sources = newMap();
+    }
+
+    /**
+     * Adds a source that is part of the analysis environment (e.g. a host model), but not of the analyzed program.
+     */
+    public void addEnvironment(String name, String code) {
+        environment.add(new ContentHash().add(name).add(code).finish());
+    }
+
+    /**
+     * Adds a source of the analyzed program.
+     */
+    public void addSource(String name, String code) {
+        String hash = ContentHash.of(code);
+        String previous = sources.get(name);
+        sources.put(name, previous == null ? hash : new ContentHash().add(previous).add(hash).finish());
+    }
+
+    /**
+     * Returns the cache key of the results for the current options, environment and sources.
+     */
+    public String getKey() {
+        ContentHash h = new ContentHash().add(getEnvironmentKey());
+        for (Entry<String, String> me : sources.entrySet())
+            h.add(me.getKey()).add(me.getValue());
+        return h.finish();
+    }
+
+    /**
+     * Returns the key of the current options and environment, which does not depend on the sources.
+     */
+    public String getEnvironmentKey() {
+        ContentHash h = new ContentHash().add(FORMAT).add(options);
+        for (String e : environment)
+            h.add(e);
+        return h.finish();
+    }
+
+    /**
+     * Returns the file of the fixpoint that is stored for the current options and environment.
+     */
+    public Path getFixpointFile() {
+        return dir.resolve(getEnvironmentKey() + "-" + FIXPOINT);
+    }
+
+    /**
+     * Looks up the cached results for the current key.
+     * Must be called after all sources have been added.
+     *
+     * @return true if the results were found, so they can be replayed instead of analyzing the program
+     */
+    public boolean lookup() {
+        Path messages = dir.resolve(getKey()).resolve(MESSAGES);
+        cached = null;
+        if (!Files.isRegularFile(messages))
+            return false;
+        try {
+            cached = Files.readAllLines(messages, UTF8);
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to read cached results from " + messages + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether {@link #lookup()} found the results.
+     */
+    public boolean isHit() {
+        return cached != null;
+    }
+
+    /**
+     * Replays the results found by {@link #lookup()}.
+     */
+    public void replay(Path smellReport) {
+        if (cached == null)
+            throw new AnalysisException("No cached results have been found");
+        Path report = dir.resolve(getKey()).resolve(smellReport.getFileName());
+        try {
+            if (Files.isRegularFile(report))
+                Files.copy(report, smellReport, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Unable to copy cached smell report " + report + ": " + e.getMessage());
+        }
+        Logger messageLog = Logger.getLogger(Message.class);
+        for (String line : cached)
+            messageLog.info(line);
+    }
+
+    /**
+     * Returns the sources that have been added, removed or changed since the last stored run with the same options.
+     */
+    public List<String> getChangedSources() {
+        List<String> changed = newList();
+        Map<String, String> previous = readSources();
+        if (previous == null) {
+            changed.addAll(sources.keySet());
+            return changed;
+        }
+        for (Entry<String, String> me : sources.entrySet()) {
+            if (!me.getValue().equals(previous.get(me.getKey())))
+                changed.add(me.getKey());
+        }
+        for (String name : previous.keySet()) {
+            if (!sources.containsKey(name))
+                changed.add(name);
+        }
+        return changed;
+    }
+
+    /**
+     * Starts recording the messages emitted by the current thread.
+     */
+    public Runnable startRecording() {
+        recorded = newList();
+        Thread thread = Thread.currentThread();
+        Logger messageLog = Logger.getLogger(Message.class);
+        AppenderSkeleton appender = new AppenderSkeleton() {
+            @Override
+            protected void append(LoggingEvent event) {
+                if (Thread.currentThread() == thread)
+                    recorded.add(event.getRenderedMessage());
+            }
+
+            @Override
+            public void close() {
+                // nothing to release
+            }
+
+            @Override
+            public boolean requiresLayout() {
+                return false;
+            }
+        };
+        messageLog.addAppender(appender);
+        return () -> messageLog.removeAppender(appender);
+    }
+
+    /**
+     * Stores the recorded messages and the given smell report (if it exists) as the results for the current key.
+     */
+    public void store(Path smellReport) {
+        if (recorded == null)
+            throw new AnalysisException("No results have been recorded");
+        Path entry = dir.resolve(getKey());
+        try {
+            Files.createDirectories(entry);
+            if (Files.isRegularFile(smellReport))
+                Files.copy(smellReport, entry.resolve(smellReport.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            Path tmp = Files.createTempFile(entry, MESSAGES, ".tmp");
+            Files.write(tmp, recorded, UTF8);
+            Files.move(tmp, entry.resolve(MESSAGES), StandardCopyOption.REPLACE_EXISTING);
+            writeSources();
+        } catch (IOException e) {
+            log.warn("Unable to store results in " + entry + ": " + e.getMessage());
+        }
+    }
+
+    private Path getSourcesFile() {
+        return dir.resolve(ContentHash.of(options) + "-" + SOURCES);
+    }
+
+    private Map<String, String> readSources() {
+        Path file = getSourcesFile();
+        if (!Files.isRegularFile(file))
+            return null;
+        try {
+            Map<String, String> res = newMap();
+            for (String line : Files.readAllLines(file, UTF8)) {
+                int i = line.indexOf(' ');
+                if (i > 0)
+                    res.put(line.substring(i + 1), line.substring(0, i));
+            }
+            return res;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeSources() throws IOException {
+        List<String> lines = newList();
+        for (Entry<String, String> me : sources.entrySet())
+            lines.add(me.getValue() + " " + me.getKey());
+        Path tmp = Files.createTempFile(dir, SOURCES, ".tmp");
+        Files.write(tmp, lines, UTF8);
+        Files.move(tmp, getSourcesFile(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -26,8 +26,6 @@ public class Strings {
 
     static private final String AB = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
 
-    static private Random rnd;
-
     static private final Pattern NUMBER =
             Pattern.compile("\\-?(([0-9]+(\\.[0-9]*)?|\\.[0-9]+)([eE][-+][0-9]+)?|Infinity)|NaN"); // TODO: check that this over-approximates the possible output of Number.toString
 
@@ -43,20 +41,9 @@ public class Strings {
 
     // TODO: what about Unicode escape sequences in IDENTIFIER and IDENTIFIERPARTS?
 
-    static {
-        reset();
-    }
-
     private Strings() {
     }
 
-    /**
-     * Resets the random string generator.
-     */
-    public static void reset() {
-        rnd = new Random(0);
-    }
-
     /**
      * Escapes special characters in the given string.
      * Special characters are all Unicode chars except 0x20-0x7e but including \, ", {, and }.
@@ -116,6 +103,43 @@ public class Strings {
         return b.toString();
     }
 
+    /**
+     * Escapes the given string for use in a JSON string literal (without the surrounding quotes).
+     */
+    public static String escapeJson(String s) {
+        StringBuilder b = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    b.append("\\\"");
+                    break;
+                case '\\':
+                    b.append("\\\\");
+                    break;
+                case '\n':
+                    b.append("\\n");
+                    break;
+                case '\r':
+                    b.append("\\r");
+                    break;
+                case '\t':
+                    b.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        b.append("\\u");
+                        String t = Integer.toHexString(c);
+                        for (int j = 0; j + t.length() < 4; j++)
+                            b.append('0');
+                        b.append(t);
+                    } else
+                        b.append(c);
+            }
+        }
+        return b.toString();
+    }
+
     /**
      * Escapes quotes and special characters in the (Javascript source) string.
      */
@@ -303,7 +327,7 @@ public class Strings {
     /**
      * Generates a random string of the given length containing digits and letters.
      */
-    public static String randomString(int len) {
+    public static String randomString(int len, Random rnd) {
         StringBuilder sb = new StringBuilder(len);
         for (int i = 0; i < len; i++)
             sb.append(AB.charAt(rnd.nextInt(AB.length())));
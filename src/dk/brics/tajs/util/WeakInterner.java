@@ -0,0 +1,305 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe canonicalization table with weak references.
+ * <p>
+ * The table is divided into independently locked stripes selected by hash code, so threads interning
+ * unrelated objects rarely contend. Entries disappear when their object is no longer strongly reachable.
+ * Equivalence is given explicitly, which allows interned objects to use identity as their ordinary equality.
+ * A weak reference is only allocated when a new object is added.
+ */
+public class WeakInterner<T> {
+
+    /**
+     * Equivalence relation used for interning.
+     */
+    public interface Equivalence<T> {
+
+        /**
+         * Hash code consistent with {@link #equivalent(Object, Object)}.
+         */
+        int hash(T x);
+
+        /**
+         * Checks whether the two objects are equivalent.
+         */
+        boolean equivalent(T x, T y);
+    }
+
+    /**
+     * Equivalence given by {@link Object#equals(Object)} and {@link Object#hashCode()}.
+     */
+    public static <T> Equivalence<T> equalsEquivalence() {
+        return new Equivalence<T>() {
+            @Override
+            public int hash(T x) {
+                return x.hashCode();
+            }
+
+            @Override
+            public boolean equivalent(T x, T y) {
+                return x.equals(y);
+            }
+        };
+    }
+
+    /**
+     * Snapshot of the table statistics.
+     */
+    public static final class Statistics {
+
+        private final long hits;
+
+        private final long misses;
+
+        private final int size;
+
+        private Statistics(long hits, long misses, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.size = size;
+        }
+
+        /**
+         * Returns the number of lookups that found an existing object.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Returns the number of lookups that added a new object.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Returns the number of (possibly stale) entries.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", finalSize=" + size;
+        }
+    }
+
+    private static final int DEFAULT_STRIPES = 32;
+
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    private final Equivalence<? super T> equivalence;
+
+    private final Stripe<T>[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a new table with the default number of stripes.
+     */
+    public WeakInterner(Equivalence<? super T> equivalence) {
+        this(equivalence, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructs a new table.
+     *
+     * @param stripes number of stripes, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public WeakInterner(Equivalence<? super T> equivalence, int stripes) {
+        this.equivalence = equivalence;
+        int n = 1;
+        while (n < stripes)
+            n <<= 1;
+        this.stripes = (Stripe<T>[]) new Stripe<?>[n];
+        for (int i = 0; i < n; i++)
+            this.stripes[i] = new Stripe<>();
+    }
+
+    /**
+     * Returns the canonical object equivalent to the given one.
+     * If no such object exists, the given object becomes canonical.
+     */
+    public T intern(T x) {
+        int h = spread(equivalence.hash(x));
+        Stripe<T> s = stripes[h & (stripes.length - 1)];
+        T c;
+        synchronized (s) {
+            c = s.intern(x, h >>> 8, equivalence);
+        }
+        if (c == x)
+            misses.increment();
+        else
+            hits.increment();
+        return c;
+    }
+
+    /**
+     * Returns the number of entries, including entries whose objects have been collected but not yet expunged.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<T> s : stripes) {
+            synchronized (s) {
+                size += s.count;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups that found an existing object.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that added a new object.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns a snapshot of the statistics.
+     */
+    public Statistics getStatistics() {
+        return new Statistics(getHits(), getMisses(), size());
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public void clear() {
+        for (Stripe<T> s : stripes) {
+            synchronized (s) {
+                s.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    private static int spread(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+
+    /**
+     * Hash table for one stripe. Guarded by its own monitor.
+     */
+    private static final class Stripe<T> {
+
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+        private Entry<T>[] table = newTable(INITIAL_STRIPE_CAPACITY);
+
+        private int count;
+
+        T intern(T x, int h, Equivalence<? super T> equivalence) {
+            expungeStale();
+            int i = h & (table.length - 1);
+            for (Entry<T> e = table[i]; e != null; e = e.next) {
+                if (e.hash == h) {
+                    T y = e.get();
+                    if (y != null && (y == x || equivalence.equivalent(y, x)))
+                        return y;
+                }
+            }
+            table[i] = new Entry<>(x, h, table[i], queue);
+            if (++count > table.length - (table.length >>> 2))
+                resize();
+            return x;
+        }
+
+        void clear() {
+            while (queue.poll() != null) {
+                // discard
+            }
+            table = newTable(INITIAL_STRIPE_CAPACITY);
+            count = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void expungeStale() {
+            Entry<T> stale;
+            while ((stale = (Entry<T>) queue.poll()) != null) {
+                int i = stale.hash & (table.length - 1);
+                Entry<T> prev = null;
+                for (Entry<T> e = table[i]; e != null; prev = e, e = e.next) {
+                    if (e == stale) {
+                        if (prev == null)
+                            table[i] = e.next;
+                        else
+                            prev.next = e.next;
+                        count--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void resize() {
+            Entry<T>[] old = table;
+            Entry<T>[] t = newTable(old.length << 1);
+            for (Entry<T> head : old) {
+                Entry<T> e = head;
+                while (e != null) {
+                    Entry<T> next = e.next;
+                    int i = e.hash & (t.length - 1);
+                    e.next = t[i];
+                    t[i] = e;
+                    e = next;
+                }
+            }
+            table = t;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Entry<T>[] newTable(int capacity) {
+            return (Entry<T>[]) new Entry<?>[capacity];
+        }
+    }
+
+    private static final class Entry<T> extends WeakReference<T> {
+
+        private final int hash;
+
+        private Entry<T> next;
+
+        Entry(T referent, int hash, Entry<T> next, ReferenceQueue<T> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.solver;
+
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.NopNode;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that {@link CallDependencies} tracks the active functions incrementally,
+ * by comparison with a search along the charged call edges.
+ * (In this package since CallDependencies is package private.)
+ */
+public class TestCallDependencies {
+
+    private static final class TestContext implements IContext<TestContext> {
+
+        private final int id;
+
+        TestContext(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public TestContext makeEntryContext() {
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof TestContext && ((TestContext) obj).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "c" + id;
+        }
+    }
+
+    /**
+     * Charged call edge of the model.
+     */
+    private static final class ModelEdge {
+
+        final BasicBlock caller;
+
+        final TestContext caller_context;
+
+        final TestContext edge_context;
+
+        final BlockAndContext<TestContext> callee;
+
+        ModelEdge(BasicBlock caller, TestContext caller_context, TestContext edge_context, BlockAndContext<TestContext> callee) {
+            this.caller = caller;
+            this.caller_context = caller_context;
+            this.edge_context = edge_context;
+            this.callee = callee;
+        }
+
+        BlockAndContext<TestContext> getCallerEntry() {
+            return BlockAndContext.makeEntry(caller, caller_context);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ModelEdge))
+                return false;
+            ModelEdge e = (ModelEdge) obj;
+            return e.caller == caller && e.caller_context.equals(caller_context) && e.edge_context.equals(edge_context) && e.callee.equals(callee);
+        }
+
+        @Override
+        public int hashCode() {
+            return caller.getIndex() * 31 + caller_context.hashCode() * 7 + edge_context.hashCode() * 3 + callee.hashCode();
+        }
+    }
+
+    @Before
+    public void init() {
+        Options.bind(new OptionValues());
+    }
+
+    @After
+    public void unbind() {
+        Options.unbind();
+    }
+
+    /**
+     * Makes functions consisting of an entry block and a call block, and returns the call blocks.
+     */
+    private static List<BasicBlock> makeCallBlocks(int n) {
+        SourceLocation loc = new SourceLocation(1, 1, "test.js", null);
+        Function main = new Function(null, Collections.emptyList(), null, loc);
+        FlowGraph fg = new FlowGraph(main);
+        List<BasicBlock> res = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Function f = i == 0 ? main : new Function("f" + i, Collections.emptyList(), main, loc);
+            fg.addFunction(f);
+            BasicBlock entry = new BasicBlock(f);
+            entry.addNode(new NopNode(loc));
+            BasicBlock call = new BasicBlock(f);
+            call.addNode(new NopNode(loc));
+            entry.addSuccessor(call);
+            f.setEntry(entry);
+            f.setOrdinaryExit(call);
+            f.setExceptionalExit(call);
+            for (BasicBlock b : new BasicBlock[]{entry, call}) {
+                b.setEntryBlock(entry);
+                fg.addBlock(b);
+            }
+            res.add(call);
+        }
+        return res;
+    }
+
+    private static boolean isActive(BlockAndContext<TestContext> f, Map<BlockAndContext<TestContext>, Integer> levels, Set<ModelEdge> edges, Set<BlockAndContext<TestContext>> visited) {
+        if (!visited.add(f))
+            return false;
+        if (levels.containsKey(f))
+            return true;
+        for (ModelEdge e : edges)
+            if (e.getCallerEntry().equals(f) && isActive(e.callee, levels, edges, visited))
+                return true;
+        return false;
+    }
+
+    @Test
+    public void modelCheck() {
+        List<BasicBlock> calls = makeCallBlocks(6);
+        List<TestContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+            contexts.add(new TestContext(i));
+        List<BlockAndContext<TestContext>> functions = new ArrayList<>();
+        for (BasicBlock b : calls)
+            for (TestContext c : contexts)
+                functions.add(BlockAndContext.makeEntry(b, c));
+        CallDependencies<TestContext> deps = new CallDependencies<>();
+        Map<BlockAndContext<TestContext>, Integer> levels = new HashMap<>();
+        Set<ModelEdge> edges = new HashSet<>();
+        Random rnd = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            BlockAndContext<TestContext> f = functions.get(rnd.nextInt(functions.size()));
+            switch (rnd.nextInt(4)) {
+                case 0:
+                    deps.incrementFunctionActivityLevel(f);
+                    levels.merge(f, 1, Integer::sum);
+                    break;
+                case 1:
+                    if (!levels.isEmpty()) {
+                        BlockAndContext<TestContext> g = new ArrayList<>(levels.keySet()).get(rnd.nextInt(levels.size()));
+                        deps.decrementFunctionActivityLevel(g);
+                        if (levels.merge(g, -1, Integer::sum) == 0)
+                            levels.remove(g);
+                    }
+                    break;
+                case 2: {
+                    BasicBlock caller = calls.get(rnd.nextInt(calls.size()));
+                    TestContext caller_context = contexts.get(rnd.nextInt(contexts.size()));
+                    TestContext edge_context = contexts.get(rnd.nextInt(contexts.size()));
+                    deps.chargeCallEdge(caller, caller_context, edge_context, f.getBlock(), f.getContext());
+                    edges.add(new ModelEdge(caller, caller_context, edge_context, f));
+                    break;
+                }
+                default:
+                    if (!edges.isEmpty()) {
+                        ModelEdge e = new ArrayList<>(edges).get(rnd.nextInt(edges.size()));
+                        deps.dischargeCallEdge(e.caller, e.caller_context, e.edge_context, e.callee);
+                        edges.remove(e);
+                    }
+            }
+            for (int j = 0; j < functions.size(); j++) {
+                BlockAndContext<TestContext> g = functions.get(j);
+                assertEquals("function " + j + " after step " + i, isActive(g, levels, edges, new HashSet<>()), deps.isFunctionActive(g));
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.solver.TestCallDependencies;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+/**
+ * Fast regression tests, run with <code>ant test</code>.
+ */
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+        TestBucketedWorkList.class,
+        TestCallDependencies.class,
+        TestCheckpoint.class,
+        TestControlFlowIndex.class,
+        TestFlowGraphCache.class,
+        TestObjectLabelMap.class,
+        TestObjectLabelSet.class,
+        TestParallelScan.class,
+        TestParallelSolver.class,
+        TestPersistentHashMap.class,
+        TestPropertyMap.class,
+        TestResultCache.class,
+        TestSmellBaseline.class,
+        TestStateCopyOnWrite.class,
+        TestWeakInterner.class
+})
+public class RunFast {
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.NopNode;
+import dk.brics.tajs.solver.BucketedWorkList;
+import dk.brics.tajs.solver.IContext;
+import dk.brics.tajs.solver.IWorkListStrategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link BucketedWorkList}.
+ */
+public class TestBucketedWorkList {
+
+    private static final int PRIORITIES = 7;
+
+    private static final class TestContext implements IContext<TestContext> {
+
+        private final int id;
+
+        TestContext(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public TestContext makeEntryContext() {
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof TestContext && ((TestContext) obj).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "c" + id;
+        }
+    }
+
+    private static final IWorkListStrategy<TestContext> STRATEGY = new IWorkListStrategy<TestContext>() {
+
+        @Override
+        public int compare(IEntry<TestContext> e1, IEntry<TestContext> e2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getFunctionContextPriority(IEntry<TestContext> e) {
+            return e.getContext().id % PRIORITIES;
+        }
+    };
+
+    /**
+     * Model of a pending entry, with the position it must be picked in.
+     */
+    private static final class Pending {
+
+        final BasicBlock b;
+
+        final TestContext c;
+
+        final int seq;
+
+        Pending(BasicBlock b, TestContext c, int seq) {
+            this.b = b;
+            this.c = c;
+            this.seq = seq;
+        }
+
+        boolean matches(BasicBlock b, TestContext c) {
+            return this.b == b && this.c.equals(c);
+        }
+    }
+
+    private static final Comparator<Pending> PICK_ORDER = Comparator
+            .comparingInt((Pending p) -> -(p.c.id % PRIORITIES))
+            .thenComparingInt(p -> p.b.getOrder())
+            .thenComparingInt(p -> p.seq);
+
+    private static List<BasicBlock> makeBlocks(int n) {
+        SourceLocation loc = new SourceLocation(1, 1, "test.js", null);
+        Function main = new Function(null, Collections.emptyList(), null, loc);
+        FlowGraph fg = new FlowGraph(main);
+        fg.addFunction(main);
+        List<BasicBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            BasicBlock b = new BasicBlock(main);
+            b.addNode(new NopNode(loc));
+            if (i > 0)
+                blocks.get(i - 1).addSuccessor(b);
+            blocks.add(b);
+        }
+        main.setEntry(blocks.get(0));
+        main.setOrdinaryExit(blocks.get(n - 2));
+        main.setExceptionalExit(blocks.get(n - 1));
+        for (BasicBlock b : blocks) {
+            b.setEntryBlock(blocks.get(0));
+            fg.addBlock(b);
+        }
+        fg.complete();
+        Collections.shuffle(blocks, new Random(0));
+        return blocks;
+    }
+
+    private static void assertSameOrder(List<Pending> expected, List<? extends IWorkListStrategy.IEntry<TestContext>> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertTrue(expected.get(i).matches(actual.get(i).getBlock(), actual.get(i).getContext()));
+    }
+
+    @Test
+    public void modelCheck() {
+        List<BasicBlock> blocks = makeBlocks(20);
+        BucketedWorkList<TestContext> worklist = new BucketedWorkList<>(STRATEGY);
+        List<Pending> model = new ArrayList<>();
+        Random rnd = new Random(1);
+        int seq = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (rnd.nextInt(3) > 0) {
+                BasicBlock b = blocks.get(rnd.nextInt(blocks.size()));
+                TestContext c = new TestContext(rnd.nextInt(20));
+                boolean pending = model.stream().anyMatch(p -> p.matches(b, c));
+                assertEquals(!pending, worklist.add(b, c));
+                if (!pending)
+                    model.add(new Pending(b, c, seq++));
+            } else if (!model.isEmpty()) {
+                model.sort(PICK_ORDER);
+                if (rnd.nextInt(10) == 0)
+                    assertSameOrder(model, worklist.getEntries());
+                Pending p = model.remove(0);
+                IWorkListStrategy.IEntry<TestContext> e = worklist.removeNext();
+                assertTrue(p.matches(e.getBlock(), e.getContext()));
+            }
+            assertEquals(model.size(), worklist.size());
+            assertEquals(model.isEmpty(), worklist.isEmpty());
+        }
+    }
+
+    @Test
+    public void entriesCanBeAddedAgainAfterRemoval() {
+        List<BasicBlock> blocks = makeBlocks(3);
+        BucketedWorkList<TestContext> worklist = new BucketedWorkList<>(STRATEGY);
+        TestContext c = new TestContext(1);
+        assertTrue(worklist.add(blocks.get(0), c));
+        assertFalse(worklist.add(blocks.get(0), c));
+        worklist.removeNext();
+        assertTrue(worklist.isEmpty());
+        assertTrue(worklist.add(blocks.get(0), c));
+        assertEquals(1, worklist.size());
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.Main;
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.flowgraph.AbstractNode;
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.ConstantNode;
+import dk.brics.tajs.flowgraph.jsnodes.ExceptionalReturnNode;
+import dk.brics.tajs.flowgraph.jsnodes.ReturnNode;
+import dk.brics.tajs.flowgraph.jsnodes.WriteVariableNode;
+import dk.brics.tajs.monitoring.Monitoring;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+import dk.brics.tajs.solver.Message;
+import dk.brics.tajs.util.AnalysisException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for checkpoints of the fixpoint computation.
+ */
+public class TestCheckpoint {
+
+    @Before
+    public void init() {
+        Main.initLogging();
+        OptionValues options = new OptionValues();
+        options.enableQuiet();
+        Options.bind(options);
+    }
+
+    @After
+    public void unbind() {
+        Options.unbind();
+    }
+
+    private static FlowGraph makeFlowGraph() {
+        SourceLocation loc = new SourceLocation(1, 1, "test.js", null);
+        Function main = new Function(null, Collections.emptyList(), null, loc);
+        FlowGraph fg = new FlowGraph(main);
+        fg.addFunction(main);
+        main.addVariableName("x");
+        BasicBlock entry = new BasicBlock(main);
+        entry.addNode(ConstantNode.makeNumber(1, 1, loc));
+        entry.addNode(new WriteVariableNode(1, "x", loc));
+        BasicBlock exit = new BasicBlock(main);
+        exit.addNode(new ReturnNode(AbstractNode.NO_VALUE, loc));
+        BasicBlock exceptional_exit = new BasicBlock(main);
+        exceptional_exit.addNode(new ExceptionalReturnNode(loc));
+        entry.addSuccessor(exit);
+        main.setEntry(entry);
+        main.setOrdinaryExit(exit);
+        main.setExceptionalExit(exceptional_exit);
+        for (BasicBlock b : Arrays.asList(entry, exit, exceptional_exit)) {
+            b.setEntryBlock(entry);
+            fg.addBlock(b);
+        }
+        fg.complete();
+        return fg;
+    }
+
+    private static Analysis makeAnalysis(String key) {
+        Analysis analysis = new Analysis(new Monitoring(), null);
+        analysis.getSolver().setCheckpointKey(key);
+        return analysis;
+    }
+
+    private static Path writeCheckpoint(String key) throws IOException {
+        Analysis analysis = makeAnalysis(key);
+        analysis.getSolver().init(makeFlowGraph(), null);
+        Path file = Files.createTempFile("tajs-checkpoint", ".bin");
+        analysis.getSolver().writeCheckpoint(file);
+        return file;
+    }
+
+    private static String describeResult(Analysis analysis) {
+        FlowGraph fg = analysis.getSolver().getFlowGraph();
+        return analysis.getSolver().getAnalysisLatticeElement().getStates(fg.getMain().getOrdinaryExit()).toString();
+    }
+
+    @Test
+    public void resumedAnalysisReachesTheSameFixpoint() throws IOException {
+        Path file = writeCheckpoint("key");
+        Analysis resumed = makeAnalysis("key");
+        resumed.getSolver().resume(file);
+        resumed.getSolver().solve();
+        Analysis direct = makeAnalysis("key");
+        direct.getSolver().init(makeFlowGraph(), null);
+        direct.getSolver().solve();
+        assertTrue(describeResult(direct).contains("x"));
+        assertEquals(describeResult(direct), describeResult(resumed));
+    }
+
+    /**
+     * Monitoring that terminates the fixpoint computation after the given number of block transfers.
+     */
+    private static class InterruptingMonitoring extends Monitoring {
+
+        private int remaining;
+
+        InterruptingMonitoring(int iterations) {
+            remaining = iterations;
+        }
+
+        @Override
+        public boolean allowNextIteration() {
+            return remaining-- > 0 && super.allowNextIteration();
+        }
+    }
+
+    /**
+     * Analyzes the corpus program with the given options, and returns the messages and the smell report.
+     */
+    private static List<String> analyzeEvents(Monitoring monitoring, Path dir, String... options) throws IOException {
+        Main.reset();
+        Path report = dir.resolve("report.txt");
+        List<String> args = new ArrayList<>(Arrays.asList("-quiet", "-smell-report", report.toString()));
+        args.addAll(Arrays.asList(options));
+        args.add("benchmark/corpus/events.js");
+        Analysis analysis = Main.init(args.toArray(new String[0]), monitoring, null);
+        Main.run(analysis);
+        Set<String> messages = new TreeSet<>();
+        for (Message m : monitoring.getMessages())
+            messages.add(m.toString());
+        List<String> res = new ArrayList<>(messages);
+        res.addAll(Files.readAllLines(report));
+        Files.delete(report);
+        return res;
+    }
+
+    @Test
+    public void resumedRunReportsTheSameAsUninterruptedRun() throws IOException {
+        Path dir = Files.createTempDirectory("tajs-checkpoint-test");
+        Path file = dir.resolve("checkpoint.bin");
+        try {
+            List<String> uninterrupted = analyzeEvents(new Monitoring(), dir);
+            analyzeEvents(new InterruptingMonitoring(50), dir, "-checkpoint", file.toString());
+            List<String> resumed = analyzeEvents(new Monitoring(), dir, "-resume", file.toString());
+            assertTrue(uninterrupted.stream().anyMatch(s -> s.contains("Short variable name: n")));
+            assertEquals(uninterrupted, resumed);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+            Main.reset();
+        }
+    }
+
+    @Test
+    public void otherKeyIsRejected() throws IOException {
+        Path file = writeCheckpoint("key");
+        try {
+            makeAnalysis("other key").getSolver().resume(file);
+            fail("checkpoint for other sources accepted");
+        } catch (AnalysisException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("other sources or options"));
+        }
+    }
+
+    @Test
+    public void otherVersionIsRejected() throws IOException {
+        Path file = writeCheckpoint("key");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[7]++; // format version
+        Files.write(file, bytes);
+        try {
+            makeAnalysis("key").getSolver().resume(file);
+            fail("checkpoint with other version accepted");
+        } catch (AnalysisException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Incompatible checkpoint"));
+        }
+    }
+
+    @Test
+    public void truncatedCheckpointIsRejected() throws IOException {
+        Path file = writeCheckpoint("key");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        try {
+            makeAnalysis("key").getSolver().resume(file);
+            fail("truncated checkpoint accepted");
+        } catch (AnalysisException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.ControlFlowIndex;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.IfNode;
+import dk.brics.tajs.flowgraph.jsnodes.NopNode;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ControlFlowIndex}.
+ * The dominators and loops of random control flow graphs are compared with their definitions,
+ * and the branch nesting is checked on graphs shaped like those of nested statements.
+ */
+public class TestControlFlowIndex {
+
+    private static SourceLocation makeLocation() {
+        return new SourceLocation(1, 1, "test.js", null);
+    }
+
+    /**
+     * Makes a function with the given number of blocks, the first one being the entry.
+     */
+    private static List<BasicBlock> makeBlocks(int n) {
+        Function f = new Function(null, Collections.emptyList(), null, makeLocation());
+        List<BasicBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            BasicBlock b = new BasicBlock(f);
+            b.setIndex(i);
+            blocks.add(b);
+            f.addBlock(b);
+        }
+        f.setEntry(blocks.get(0));
+        return blocks;
+    }
+
+    private static void jump(BasicBlock from, BasicBlock to) {
+        from.addNode(new NopNode(makeLocation()));
+        from.addSuccessor(to);
+    }
+
+    private static void branch(BasicBlock from, BasicBlock succ_true, BasicBlock succ_false, SourceLocation loc) {
+        IfNode n = new IfNode(1, loc);
+        n.setSuccessors(succ_true, succ_false);
+        from.addNode(n);
+        from.addSuccessor(succ_true);
+        from.addSuccessor(succ_false);
+    }
+
+    private static void exit(BasicBlock b) {
+        b.addNode(new NopNode(makeLocation()));
+    }
+
+    private static ControlFlowIndex index(List<BasicBlock> blocks) {
+        return blocks.get(0).getFunction().getControlFlowIndex();
+    }
+
+    /**
+     * Finds the blocks reachable from the given blocks without passing the excluded block, following successors or predecessors.
+     */
+    private static Set<BasicBlock> reach(Set<BasicBlock> from, BasicBlock excluded, boolean backwards, List<BasicBlock> blocks) {
+        Set<BasicBlock> visited = new HashSet<>();
+        Deque<BasicBlock> pending = new ArrayDeque<>();
+        for (BasicBlock b : from)
+            if (b != excluded && visited.add(b))
+                pending.add(b);
+        while (!pending.isEmpty()) {
+            BasicBlock b = pending.remove();
+            for (BasicBlock s : backwards ? predecessors(b, blocks) : b.getSuccessors())
+                if (s != excluded && visited.add(s))
+                    pending.add(s);
+        }
+        return visited;
+    }
+
+    private static Set<BasicBlock> predecessors(BasicBlock b, List<BasicBlock> blocks) {
+        Set<BasicBlock> res = new HashSet<>();
+        for (BasicBlock p : blocks)
+            if (p.getSuccessors().contains(b))
+                res.add(p);
+        return res;
+    }
+
+    /**
+     * Checks the index of the given graph against the definitions of dominators, post-dominators and natural loops.
+     */
+    private static void check(List<BasicBlock> blocks) {
+        ControlFlowIndex cfg = index(blocks);
+        Set<BasicBlock> roots = new HashSet<>();
+        Set<BasicBlock> exits = new HashSet<>();
+        for (BasicBlock b : blocks) {
+            assertEquals(predecessors(b, blocks), new HashSet<>(cfg.getPredecessors(b)));
+            if (b == blocks.get(0) || predecessors(b, blocks).isEmpty())
+                roots.add(b);
+            if (b.getSuccessors().isEmpty())
+                exits.add(b);
+        }
+        Set<BasicBlock> reachable = reach(roots, null, false, blocks);
+        Set<BasicBlock> exiting = reach(exits, null, true, blocks);
+        boolean[][] dom = new boolean[blocks.size()][blocks.size()];
+        for (BasicBlock b1 : blocks) {
+            Set<BasicBlock> avoiding = reach(roots, b1, false, blocks);
+            Set<BasicBlock> exiting_avoiding = reach(exits, b1, true, blocks);
+            for (BasicBlock b2 : blocks) {
+                dom[b1.getIndex()][b2.getIndex()] = reachable.contains(b2) && (b1 == b2 || !avoiding.contains(b2));
+                assertEquals(dom[b1.getIndex()][b2.getIndex()], cfg.dominates(b1, b2));
+                assertEquals(exiting.contains(b2) && (b1 == b2 || !exiting_avoiding.contains(b2)), cfg.postDominates(b1, b2));
+            }
+        }
+        for (BasicBlock b : blocks) {
+            BasicBlock idom = null;
+            if (reachable.contains(b) && !roots.contains(b))
+                for (BasicBlock d : blocks)
+                    if (d != b && dom[d.getIndex()][b.getIndex()] && (idom == null || dom[idom.getIndex()][d.getIndex()]))
+                        idom = d;
+            assertSame(idom, cfg.getImmediateDominator(b));
+        }
+
+        // natural loop of each header: the header and the blocks it dominates that reach a back edge without passing the header
+        List<Set<BasicBlock>> loops = new ArrayList<>();
+        for (BasicBlock h : blocks) {
+            Set<BasicBlock> back = new HashSet<>();
+            for (BasicBlock p : predecessors(h, blocks))
+                if (dom[h.getIndex()][p.getIndex()])
+                    back.add(p);
+            Set<BasicBlock> body = new HashSet<>();
+            if (!back.isEmpty()) {
+                body.add(h);
+                for (BasicBlock y : reach(back, h, true, blocks))
+                    if (dom[h.getIndex()][y.getIndex()])
+                        body.add(y);
+            }
+            loops.add(body);
+            assertEquals(!back.isEmpty(), cfg.isLoopHeader(h));
+        }
+        for (BasicBlock b : blocks) {
+            BasicBlock innermost = null;
+            int depth = 0;
+            for (BasicBlock h : blocks) {
+                boolean in = loops.get(h.getIndex()).contains(b);
+                if (cfg.isLoopHeader(h))
+                    assertEquals(in, cfg.isInLoop(b, h));
+                if (in) {
+                    depth++;
+                    if (innermost == null || loops.get(h.getIndex()).size() < loops.get(innermost.getIndex()).size())
+                        innermost = h;
+                }
+            }
+            assertSame(innermost, cfg.getLoopHeader(b));
+            assertEquals(depth, cfg.getLoopDepth(b));
+            if (cfg.isLoopHeader(b)) {
+                BasicBlock parent = null;
+                for (BasicBlock h : blocks)
+                    if (h != b && loops.get(h.getIndex()).contains(b) && (parent == null || loops.get(h.getIndex()).size() < loops.get(parent.getIndex()).size()))
+                        parent = h;
+                assertSame(parent, cfg.getParentLoopHeader(b));
+            }
+        }
+    }
+
+    @Test
+    public void randomGraphs() {
+        Random rnd = new Random(1);
+        for (int round = 0; round < 2000; round++) {
+            int n = 1 + rnd.nextInt(12);
+            List<BasicBlock> blocks = makeBlocks(n);
+            for (BasicBlock b : blocks) {
+                int k = rnd.nextInt(5);
+                BasicBlock s1 = blocks.get(rnd.nextInt(n));
+                BasicBlock s2 = blocks.get(rnd.nextInt(n));
+                if (k == 0)
+                    exit(b);
+                else if (k <= 2 || s1 == s2)
+                    jump(b, s1);
+                else
+                    branch(b, s1, s2, makeLocation());
+            }
+            check(blocks);
+        }
+    }
+
+    @Test
+    public void nestedIfs() {
+        // if (a) { if (b) { if (c) { if (d) { ... } } } }
+        List<BasicBlock> b = makeBlocks(8);
+        branch(b.get(0), b.get(1), b.get(7), makeLocation());
+        branch(b.get(1), b.get(2), b.get(6), makeLocation());
+        branch(b.get(2), b.get(3), b.get(5), makeLocation());
+        branch(b.get(3), b.get(4), b.get(5), makeLocation());
+        jump(b.get(4), b.get(5));
+        jump(b.get(5), b.get(6));
+        jump(b.get(6), b.get(7));
+        exit(b.get(7));
+        check(b);
+        ControlFlowIndex cfg = index(b);
+        int[] depths = {0, 1, 2, 3, 4, 2, 1, 0};
+        int[] enclosing = {-1, 0, 1, 2, 3, 1, 0, -1};
+        for (int i = 0; i < 8; i++) {
+            assertEquals("block " + i, depths[i], cfg.getBranchNestingDepth(b.get(i)));
+            assertSame("block " + i, enclosing[i] == -1 ? null : b.get(enclosing[i]), cfg.getEnclosingBranch(b.get(i)));
+        }
+        assertSame(b.get(5), cfg.getConvergentBlock(b.get(2)));
+        assertSame(b.get(0), cfg.getFirstBlock());
+        assertSame(b.get(3), cfg.getPreviousBlock(b.get(4)));
+        assertNull(cfg.getPreviousBlock(b.get(0)));
+    }
+
+    @Test
+    public void elseIfCountsAsEnclosingStatement() {
+        // if (a) { ... } else if (b) { ... } else { ... }
+        List<BasicBlock> b = makeBlocks(6);
+        branch(b.get(0), b.get(1), b.get(2), makeLocation());
+        jump(b.get(1), b.get(5));
+        branch(b.get(2), b.get(3), b.get(4), makeLocation());
+        jump(b.get(3), b.get(5));
+        jump(b.get(4), b.get(5));
+        exit(b.get(5));
+        check(b);
+        ControlFlowIndex cfg = index(b);
+        assertSame(b.get(0), cfg.getEnclosingBranch(b.get(2)));
+        assertSame(b.get(2), cfg.getEnclosingBranch(b.get(3)));
+        assertEquals(1, cfg.getBranchNestingDepth(b.get(1)));
+        assertEquals(1, cfg.getBranchNestingDepth(b.get(3)));
+        assertEquals(1, cfg.getBranchNestingDepth(b.get(4)));
+        assertEquals(0, cfg.getBranchNestingDepth(b.get(5)));
+    }
+
+    @Test
+    public void switchCases() {
+        // switch (x) { case 1: ... case 2: ... case 3: ... default: ... }
+        SourceLocation loc = makeLocation();
+        List<BasicBlock> b = makeBlocks(8);
+        branch(b.get(0), b.get(1), b.get(2), loc);
+        branch(b.get(2), b.get(3), b.get(4), loc);
+        branch(b.get(4), b.get(5), b.get(6), loc);
+        for (int i : new int[]{1, 3, 5, 6})
+            jump(b.get(i), b.get(7));
+        exit(b.get(7));
+        check(b);
+        ControlFlowIndex cfg = index(b);
+        assertEquals(2, cfg.getCaseChainLength(b.get(0)));
+        assertEquals(1, cfg.getCaseChainLength(b.get(2)));
+        assertEquals(0, cfg.getCaseChainLength(b.get(4)));
+        assertEquals(0, cfg.getCaseChainLength(b.get(1)));
+        for (int i : new int[]{1, 3, 5, 6})
+            assertEquals("block " + i, 1, cfg.getBranchNestingDepth(b.get(i)));
+    }
+
+    @Test
+    public void whileLoop() {
+        // while (c) { if (d) { ... } }
+        List<BasicBlock> b = makeBlocks(6);
+        jump(b.get(0), b.get(1));
+        branch(b.get(1), b.get(2), b.get(5), makeLocation());
+        branch(b.get(2), b.get(3), b.get(4), makeLocation());
+        jump(b.get(3), b.get(4));
+        jump(b.get(4), b.get(1));
+        exit(b.get(5));
+        check(b);
+        ControlFlowIndex cfg = index(b);
+        assertTrue(cfg.isLoopHeader(b.get(1)));
+        assertFalse(cfg.isLoopHeader(b.get(2)));
+        assertSame(b.get(1), cfg.getLoopHeader(b.get(3)));
+        assertNull(cfg.getLoopHeader(b.get(5)));
+        assertNull(cfg.getParentLoopHeader(b.get(1)));
+        assertEquals(2, cfg.getBranchNestingDepth(b.get(3)));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.flowgraph.BasicBlock;
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.JavaScriptSource;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.NopNode;
+import dk.brics.tajs.flowgraph.jsnodes.WriteVariableNode;
+import dk.brics.tajs.js2flowgraph.FlowGraphCache;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link FlowGraphCache}.
+ */
+public class TestFlowGraphCache {
+
+    private static FlowGraph makeFlowGraph() {
+        SourceLocation loc = new SourceLocation(1, 1, "test.js", null);
+        Function main = new Function(null, Collections.emptyList(), null, loc);
+        FlowGraph fg = new FlowGraph(main);
+        fg.addFunction(main);
+        BasicBlock entry = new BasicBlock(main);
+        entry.addNode(new WriteVariableNode(1, "x", loc));
+        BasicBlock exit = new BasicBlock(main);
+        exit.addNode(new NopNode(loc));
+        entry.addSuccessor(exit);
+        main.setEntry(entry);
+        main.setOrdinaryExit(exit);
+        main.setExceptionalExit(exit);
+        fg.addBlock(entry);
+        fg.addBlock(exit);
+        main.variableValueTypes.put("x", "Number");
+        return fg;
+    }
+
+    private static FlowGraphCache makeCache(Path dir, String code) {
+        return new FlowGraphCache(dir, FlowGraphCache.makeKey("options", Collections.singletonList(JavaScriptSource.makeFileCode(null, "test.js", code))));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("tajs-fg-cache");
+        FlowGraph fg = makeFlowGraph();
+        assertNull(makeCache(dir, "x = 1").load());
+        makeCache(dir, "x = 1").store(fg);
+        FlowGraph loaded = makeCache(dir, "x = 1").load();
+        assertNotNull(loaded);
+        assertEquals(fg.toString(), loaded.toString());
+        assertEquals(fg.getNumberOfBlocks(), loaded.getNumberOfBlocks());
+        assertEquals(fg.getNumberOfNodes(), loaded.getNumberOfNodes());
+        // deserialized strings are not interned, so they must be compared with equals
+        assertEquals("Number", loaded.getMain().variableValueTypes.get("x"));
+        assertNull(makeCache(dir, "x = 2").load());
+    }
+
+    @Test
+    public void corruptFileIsIgnored() throws IOException {
+        Path dir = Files.createTempDirectory("tajs-fg-cache");
+        FlowGraphCache cache = makeCache(dir, "x = 1");
+        cache.store(makeFlowGraph());
+        Files.write(dir.resolve(cache.getKey() + ".fg"), new byte[]{0x54, 0x41, 0x4a, 0x46, 0, 0, 0, 1, 1, 2, 3});
+        assertNull(makeCache(dir, "x = 1").load());
+    }
+}
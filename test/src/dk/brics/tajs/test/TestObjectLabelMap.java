@@ -0,0 +1,179 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.analysis.dom.DOMObjects;
+import dk.brics.tajs.lattice.ObjectLabel;
+import dk.brics.tajs.lattice.ObjectLabelMap;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+import dk.brics.tajs.util.AnalysisException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ObjectLabelMap}.
+ */
+public class TestObjectLabelMap {
+
+    @Before
+    public void init() {
+        Options.bind(new OptionValues());
+    }
+
+    @After
+    public void unbind() {
+        Options.unbind();
+    }
+
+    private static void check(Map<ObjectLabel, String> model, ObjectLabelMap<String> m) {
+        assertEquals(model.size(), m.size());
+        assertEquals(model.isEmpty(), m.isEmpty());
+        assertEquals(model, m);
+        assertEquals(m, model);
+        assertEquals(model.hashCode(), m.hashCode());
+        Map<ObjectLabel, String> visited = new HashMap<>();
+        m.forEach((k, v) -> assertTrue(visited.put(k, v) == null));
+        assertEquals(model, visited);
+    }
+
+    private static Set<ObjectLabel> differentKeys(Map<ObjectLabel, String> x, Map<ObjectLabel, String> y) {
+        Set<ObjectLabel> res = new HashSet<>();
+        for (ObjectLabel l : x.keySet())
+            if (!y.containsKey(l) || x.get(l) != y.get(l))
+                res.add(l);
+        for (ObjectLabel l : y.keySet())
+            if (!x.containsKey(l))
+                res.add(l);
+        return res;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T x) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(x);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    @Test
+    public void modelCheck() throws IOException, ClassNotFoundException {
+        List<ObjectLabel> labels = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+            labels.add(ObjectLabel.make(DOMObjects.values()[i], ObjectLabel.Kind.ARRAY));
+        List<ObjectLabelMap<String>> maps = new ArrayList<>();
+        List<Map<ObjectLabel, String>> models = new ArrayList<>();
+        maps.add(new ObjectLabelMap<>());
+        models.add(new HashMap<>());
+        Random rnd = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            int j = rnd.nextInt(maps.size());
+            ObjectLabelMap<String> m = maps.get(j);
+            Map<ObjectLabel, String> model = models.get(j);
+            ObjectLabel l = labels.get(rnd.nextInt(labels.size()));
+            String v = String.valueOf(i);
+            switch (rnd.nextInt(10)) {
+                case 0:
+                    if (maps.size() < 20) { // copy, sharing the pages
+                        maps.add(new ObjectLabelMap<>(m));
+                        models.add(new HashMap<>(model));
+                    }
+                    break;
+                case 1:
+                case 2:
+                case 3:
+                    assertEquals(model.put(l, v), m.put(l, v));
+                    break;
+                case 4:
+                    assertEquals(model.remove(l), m.remove(l));
+                    break;
+                case 5:
+                    assertEquals(model.get(l), m.get(l));
+                    assertEquals(model.containsKey(l), m.containsKey(l));
+                    break;
+                case 6:
+                    for (Iterator<Map.Entry<ObjectLabel, String>> it = m.entrySet().iterator(); it.hasNext(); ) {
+                        Map.Entry<ObjectLabel, String> e = it.next();
+                        int r = rnd.nextInt(4);
+                        if (r == 0) {
+                            it.remove();
+                            model.remove(e.getKey());
+                        } else if (r == 1) {
+                            e.setValue(v);
+                            model.put(e.getKey(), v);
+                        }
+                    }
+                    break;
+                case 7: {
+                    int k = rnd.nextInt(maps.size());
+                    Set<ObjectLabel> different = new HashSet<>();
+                    m.forEachDifferentKey(maps.get(k), different::add);
+                    assertEquals(differentKeys(model, models.get(k)), different);
+                    break;
+                }
+                case 8:
+                    if (rnd.nextInt(50) == 0) {
+                        m.clear();
+                        model.clear();
+                    }
+                    break;
+                default:
+                    if (rnd.nextInt(20) == 0)
+                        check(model, roundTrip(m));
+            }
+            check(model, m);
+        }
+        for (int j = 0; j < maps.size(); j++)
+            check(models.get(j), maps.get(j));
+    }
+
+    @Test
+    public void persistentAndPagedStoresCannotBeCombined() {
+        OptionValues options = new OptionValues();
+        options.getArguments().add("test.js");
+        options.enablePersistentStore();
+        options.enablePagedStore();
+        try {
+            options.checkConsistency();
+            fail("inconsistent store options accepted");
+        } catch (AnalysisException e) {
+            // expected
+        }
+    }
+}
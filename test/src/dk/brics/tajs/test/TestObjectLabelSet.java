@@ -0,0 +1,198 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.analysis.dom.DOMObjects;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.flowgraph.jsnodes.NopNode;
+import dk.brics.tajs.lattice.ObjectLabel;
+import dk.brics.tajs.lattice.ObjectLabelSet;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ObjectLabelSet} and the object label IDs.
+ */
+public class TestObjectLabelSet {
+
+    private static final SourceLocation loc = new SourceLocation(1, 1, "test.js", null);
+
+    @Before
+    public void init() {
+        Options.bind(new OptionValues());
+    }
+
+    @After
+    public void unbind() {
+        Options.unbind();
+    }
+
+    private static List<ObjectLabel> makeLabels() {
+        List<ObjectLabel> labels = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+            labels.add(ObjectLabel.make(DOMObjects.values()[i], i % 2 == 0 ? ObjectLabel.Kind.OBJECT : ObjectLabel.Kind.FUNCTION));
+        return labels;
+    }
+
+    private static void check(Set<ObjectLabel> model, ObjectLabelSet s) {
+        assertEquals(model.size(), s.size());
+        assertEquals(model.isEmpty(), s.isEmpty());
+        assertEquals(model, s);
+        assertEquals(s, model);
+        assertEquals(new ObjectLabelSet(model), s);
+        assertEquals(model.hashCode(), s.hashCode());
+        int last = -1;
+        for (ObjectLabel l : s) {
+            assertTrue(l.getId() > last); // iteration in ID order
+            last = l.getId();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T x) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(x);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    @Test
+    public void modelCheck() throws IOException, ClassNotFoundException {
+        List<ObjectLabel> labels = makeLabels();
+        Random rnd = new Random(1);
+        ObjectLabelSet a = new ObjectLabelSet();
+        ObjectLabelSet b = new ObjectLabelSet();
+        Set<ObjectLabel> ma = new HashSet<>();
+        Set<ObjectLabel> mb = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            ObjectLabel l = labels.get(rnd.nextInt(labels.size()));
+            switch (rnd.nextInt(12)) {
+                case 0:
+                case 1:
+                case 2:
+                    assertEquals(ma.add(l), a.add(l));
+                    break;
+                case 3:
+                case 4:
+                    assertEquals(mb.add(l), b.add(l));
+                    break;
+                case 5:
+                    assertEquals(ma.remove(l), a.remove(l));
+                    break;
+                case 6:
+                    assertEquals(ma.contains(l), a.contains(l));
+                    assertEquals(ma.containsAll(mb), a.containsAll(b));
+                    break;
+                case 7:
+                    if (rnd.nextInt(10) == 0)
+                        assertEquals(ma.addAll(mb), a.addAll(b));
+                    break;
+                case 8:
+                    assertEquals(ma.removeAll(mb), a.removeAll(b));
+                    break;
+                case 9:
+                    assertEquals(ma.retainAll(mb), a.retainAll(b));
+                    break;
+                case 10:
+                    for (Iterator<ObjectLabel> it = a.iterator(); it.hasNext(); ) {
+                        ObjectLabel x = it.next();
+                        if (rnd.nextInt(3) == 0) {
+                            it.remove();
+                            ma.remove(x);
+                        }
+                    }
+                    break;
+                default:
+                    if (rnd.nextInt(20) == 0)
+                        check(ma, roundTrip(a));
+            }
+            check(ma, a);
+            check(mb, b);
+        }
+    }
+
+    @Test
+    public void idsAreRecycledAfterSessionsEnd() {
+        long session = ObjectLabel.beginSession();
+        List<ObjectLabel> labels = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            labels.add(ObjectLabel.make(new NopNode(loc), ObjectLabel.Kind.OBJECT));
+        ObjectLabelSet s = new ObjectLabelSet(labels);
+        int size = ObjectLabel.getIdTableSize();
+        ObjectLabel.endSession(session);
+        labels = null;
+        s = null;
+        collectGarbage();
+        ObjectLabel.reset();
+        session = ObjectLabel.beginSession();
+        labels = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            labels.add(ObjectLabel.make(new NopNode(loc), ObjectLabel.Kind.OBJECT));
+        s = new ObjectLabelSet(labels);
+        assertEquals(size, ObjectLabel.getIdTableSize());
+        assertEquals(new HashSet<>(labels), s);
+        ObjectLabel.endSession(session);
+    }
+
+    @Test
+    public void labelsOfRunningSessionsAreKept() {
+        long session = ObjectLabel.beginSession();
+        ObjectLabelSet s = new ObjectLabelSet();
+        for (int i = 0; i < 1000; i++)
+            s.add(ObjectLabel.make(new NopNode(loc), ObjectLabel.Kind.OBJECT)); // only the set refers to the IDs
+        ObjectLabel.endSession(ObjectLabel.beginSession());
+        collectGarbage();
+        ObjectLabel.endSession(ObjectLabel.beginSession());
+        int count = 0;
+        for (ObjectLabel l : s) {
+            assertNotNull(l);
+            count++;
+        }
+        assertEquals(1000, count);
+        ObjectLabel.endSession(session);
+    }
+
+    private static void collectGarbage() {
+        WeakReference<Object> probe = new WeakReference<>(new Object());
+        for (int i = 0; i < 10 && probe.get() != null; i++)
+            System.gc();
+        System.gc();
+    }
+}
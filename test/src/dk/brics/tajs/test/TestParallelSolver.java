@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.Main;
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.monitoring.Monitoring;
+import dk.brics.tajs.solver.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests that solving on several threads gives the same results as solving on one thread.
+ */
+public class TestParallelSolver {
+
+    private Path dir;
+
+    @BeforeClass
+    public static void initLogging() {
+        Main.initLogging();
+    }
+
+    @Before
+    public void init() throws IOException {
+        dir = Files.createTempDirectory("tajs-parallel-solver-test");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Main.reset();
+        for (Path p : Files.list(dir).toArray(Path[]::new))
+            Files.delete(p);
+        Files.delete(dir);
+    }
+
+    private static class Result {
+
+        final Set<String> messages;
+
+        final List<String> report;
+
+        Result(Set<String> messages, List<String> report) {
+            this.messages = messages;
+            this.report = report;
+        }
+    }
+
+    private Result analyze(String report, String... options) throws IOException {
+        Main.reset();
+        Path path = dir.resolve(report);
+        List<String> args = new ArrayList<>(Arrays.asList("-quiet", "-smell-report", path.toString()));
+        args.addAll(Arrays.asList(options));
+        args.add("benchmark/corpus/shapes.js");
+        args.add("benchmark/corpus/events.js");
+        Analysis analysis = Main.init(args.toArray(new String[0]), null);
+        Main.run(analysis);
+        Set<String> messages = new TreeSet<>();
+        for (Message m : ((Monitoring) analysis.getMonitoring()).getMessages())
+            messages.add(m.toString());
+        return new Result(messages, Files.readAllLines(path));
+    }
+
+    @Test
+    public void parallelSolverMatchesSerialSolver() throws IOException {
+        Result serial = analyze("serial.txt");
+        assertFalse(serial.messages.isEmpty());
+        assertFalse(serial.report.isEmpty());
+        for (String threads : new String[]{"2", "4"}) {
+            Result parallel = analyze("parallel" + threads + ".txt", "-solver-threads", threads);
+            assertEquals(threads + " threads", serial.messages, parallel.messages);
+            assertEquals(threads + " threads", serial.report, parallel.report);
+        }
+    }
+}
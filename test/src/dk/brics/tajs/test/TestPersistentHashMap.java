@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.util.PersistentHashMap;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PersistentHashMap}, using {@link HashMap} as the model.
+ */
+public class TestPersistentHashMap {
+
+    /**
+     * Key with few distinct hash codes, to exercise collision nodes.
+     */
+    private static final class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 37;
+        }
+
+        @Override
+        public String toString() {
+            return "k" + id;
+        }
+    }
+
+    private static void assertSameContents(Map<?, ?> model, Map<?, ?> m) {
+        assertEquals(model.size(), m.size());
+        assertEquals(model, m);
+        assertEquals(model.hashCode(), m.hashCode());
+        Map<Object, Object> iterated = new HashMap<>();
+        m.forEach(iterated::put);
+        assertEquals(model, iterated);
+    }
+
+    private static void randomOperations(Map<Object, Object> model, Map<Object, Object> m, Random rnd, int n, boolean colliding) {
+        for (int i = 0; i < n; i++) {
+            int k = rnd.nextInt(500);
+            Object key = colliding ? new Key(k) : Integer.valueOf(k);
+            switch (rnd.nextInt(4)) {
+                case 0:
+                case 1:
+                    Integer v = rnd.nextInt(10);
+                    assertEquals(model.put(key, v), m.put(key, v));
+                    break;
+                case 2:
+                    assertEquals(model.remove(key), m.remove(key));
+                    break;
+                default:
+                    assertEquals(model.get(key), m.get(key));
+                    assertEquals(model.containsKey(key), m.containsKey(key));
+            }
+        }
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        for (boolean colliding : new boolean[]{false, true}) {
+            Random rnd = new Random(colliding ? 2 : 1);
+            Map<Object, Object> model = new HashMap<>();
+            Map<Object, Object> m = new PersistentHashMap<>();
+            randomOperations(model, m, rnd, 20000, colliding);
+            assertSameContents(model, m);
+        }
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        Random rnd = new Random(3);
+        Map<Object, Object> model1 = new HashMap<>();
+        PersistentHashMap<Object, Object> m1 = new PersistentHashMap<>();
+        randomOperations(model1, m1, rnd, 5000, true);
+        Map<Object, Object> model2 = new HashMap<>(model1);
+        PersistentHashMap<Object, Object> m2 = new PersistentHashMap<>(m1);
+        randomOperations(model2, m2, rnd, 5000, true);
+        randomOperations(model1, m1, rnd, 5000, true);
+        assertSameContents(model1, m1);
+        assertSameContents(model2, m2);
+    }
+
+    @Test
+    public void iteratorRemove() {
+        Map<Object, Object> model = new HashMap<>();
+        Map<Object, Object> m = new PersistentHashMap<>();
+        randomOperations(model, m, new Random(4), 5000, true);
+        for (Iterator<Map.Entry<Object, Object>> it = m.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Object, Object> e = it.next();
+            if (((Integer) e.getValue()) % 2 == 0) {
+                it.remove();
+                model.remove(e.getKey());
+            }
+        }
+        assertSameContents(model, m);
+    }
+
+    @Test
+    public void forEachDifferentKeyFindsChangedKeys() {
+        Random rnd = new Random(5);
+        PersistentHashMap<Object, Object> m1 = new PersistentHashMap<>();
+        randomOperations(new HashMap<>(), m1, rnd, 5000, false);
+        PersistentHashMap<Object, Object> m2 = new PersistentHashMap<>(m1);
+        Set<Object> expected = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            Integer k = rnd.nextInt(600);
+            if (rnd.nextBoolean()) {
+                Object v = new Object();
+                m2.put(k, v);
+            } else if (m2.remove(k) == null)
+                continue;
+            expected.add(k);
+        }
+        Set<Object> actual = new HashSet<>();
+        m1.forEachDifferentKey(m2, actual::add);
+        assertTrue("missing keys", actual.containsAll(expected));
+        for (Object k : actual)
+            assertFalse("unchanged key " + k, m1.get(k) == m2.get(k) && m1.containsKey(k) == m2.containsKey(k));
+        Set<Object> none = new HashSet<>();
+        m1.forEachDifferentKey(new PersistentHashMap<>(m1), none::add);
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void serializationRoundTrip() throws IOException, ClassNotFoundException {
+        Map<Object, Object> model = new HashMap<>();
+        Map<Object, Object> m = new PersistentHashMap<>();
+        randomOperations(model, m, new Random(6), 5000, true);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(m);
+        }
+        Map<Object, Object> read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (Map<Object, Object>) in.readObject();
+        }
+        assertSameContents(model, read);
+        randomOperations(model, read, new Random(7), 2000, true);
+        assertSameContents(model, read);
+    }
+}
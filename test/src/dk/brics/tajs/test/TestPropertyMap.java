@@ -0,0 +1,160 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.lattice.PropertyMap;
+import dk.brics.tajs.lattice.Value;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PropertyMap} and its shapes.
+ */
+public class TestPropertyMap {
+
+    @Before
+    public void init() {
+        Options.bind(new OptionValues());
+    }
+
+    @After
+    public void unbind() {
+        Options.unbind();
+    }
+
+    private static void check(Map<String, Value> model, PropertyMap m) {
+        assertEquals(model.size(), m.size());
+        assertEquals(model, m);
+        assertEquals(m, model);
+        assertEquals(model.hashCode(), m.hashCode());
+        assertEquals(new ArrayList<>(model.entrySet()), new ArrayList<>(m.entrySet())); // insertion order
+        List<String> visited = new ArrayList<>();
+        m.forEach((k, v) -> visited.add(k));
+        assertEquals(new ArrayList<>(model.keySet()), visited);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T x) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(x);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    @Test
+    public void modelCheck() throws IOException, ClassNotFoundException {
+        Random rnd = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            PropertyMap m = new PropertyMap();
+            Map<String, Value> model = new LinkedHashMap<>();
+            int names = round % 2 == 0 ? 10 : 100; // the latter exceeds the maximum shape size
+            for (int i = 0; i < 300; i++) {
+                String name = "p" + rnd.nextInt(names);
+                switch (rnd.nextInt(8)) {
+                    case 0:
+                        assertEquals(model.remove(name), m.remove(name));
+                        break;
+                    case 1:
+                        assertEquals(model.get(name), m.get(name));
+                        assertEquals(model.containsKey(name), m.containsKey(name));
+                        break;
+                    case 2:
+                        for (Iterator<Map.Entry<String, Value>> it = m.entrySet().iterator(); it.hasNext(); ) {
+                            Map.Entry<String, Value> e = it.next();
+                            if (rnd.nextInt(10) == 0) {
+                                it.remove();
+                                model.remove(e.getKey());
+                            }
+                        }
+                        break;
+                    case 3:
+                        if (rnd.nextInt(10) == 0)
+                            check(model, roundTrip(m));
+                        else {
+                            PropertyMap copy = new PropertyMap(m);
+                            check(model, copy);
+                            copy.put(name, Value.makeNum(-1)); // copies are independent
+                        }
+                        break;
+                    default: {
+                        Value v = Value.makeNum(i);
+                        assertEquals(model.put(name, v), m.put(name, v));
+                    }
+                }
+                check(model, m);
+            }
+        }
+    }
+
+    @Test
+    public void sameInsertionOrderGivesSameShape() {
+        PropertyMap m1 = new PropertyMap();
+        PropertyMap m2 = new PropertyMap();
+        PropertyMap m3 = new PropertyMap();
+        for (String name : new String[]{"a", "b", "c"}) {
+            m1.put(name, Value.makeNum(1));
+            m2.put(name, Value.makeNum(2));
+        }
+        for (String name : new String[]{"b", "a", "c"})
+            m3.put(name, Value.makeNum(1));
+        assertTrue(m1.hasSameShape(m2));
+        assertFalse(m1.hasSameShape(m3));
+        assertEquals(m1, m3);
+        m1.put("d", Value.makeNum(1));
+        m1.remove("d"); // removing the last property goes back to the previous shape
+        assertTrue(m1.hasSameShape(m2));
+    }
+
+    @Test
+    public void unusedShapesAreCollected() {
+        String name = new String("unused" + System.nanoTime());
+        WeakReference<String> ref = new WeakReference<>(name);
+        PropertyMap m = new PropertyMap();
+        m.put(name, Value.makeNum(1));
+        m = null;
+        name = null;
+        for (int i = 0; i < 10 && ref.get() != null; i++) {
+            System.gc();
+            new PropertyMap().put("fresh" + System.nanoTime(), Value.makeNum(1)); // removes collected shapes from the transitions
+        }
+        assertNull(ref.get());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.Main;
+import dk.brics.tajs.analysis.Analysis;
+import dk.brics.tajs.monitoring.Monitoring;
+import dk.brics.tajs.solver.Message;
+import dk.brics.tajs.util.ResultCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ResultCache} and the reuse of the results of unchanged functions.
+ */
+public class TestResultCache {
+
+    private static final String LIB =
+            "function leaf(o) {\n" +
+            "    return o.x;\n" +
+            "}\n" +
+            "function mid(o) {\n" +
+            "    return leaf(o) + 1;\n" +
+            "}\n" +
+            "function greet(s) {\n" +
+            "    var parts = [];\n" +
+            "    for (var i = 0; i < s.length; i++)\n" +
+            "        parts.push(s.charAt(i).toUpperCase());\n" +
+            "    return parts.join(\"-\");\n" +
+            "}\n";
+
+    private static final String APP =
+            "var r = mid({x: 1});\n" +
+            "var t = greet(\"hello\");\n" +
+            "var u = greet(\"world\") + r;\n";
+
+    private Path dir;
+
+    private Path lib;
+
+    private Path app;
+
+    private static class Result {
+
+        final Set<String> messages;
+
+        final int transfers;
+
+        Result(Set<String> messages, int transfers) {
+            this.messages = messages;
+            this.transfers = transfers;
+        }
+    }
+
+    @BeforeClass
+    public static void initLogging() {
+        Main.initLogging();
+    }
+
+    @Before
+    public void init() throws IOException {
+        dir = Files.createTempDirectory("tajs-result-cache-test");
+        lib = dir.resolve("lib.js");
+        app = dir.resolve("app.js");
+        Files.write(lib, LIB.getBytes());
+        Files.write(app, APP.getBytes());
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Main.reset();
+        delete(dir);
+    }
+
+    private static void delete(Path path) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> s = Files.walk(path)) {
+            paths = s.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path p : paths)
+            Files.delete(p);
+    }
+
+    private Result analyze(String... options) {
+        Main.reset();
+        List<String> args = new ArrayList<>(Arrays.asList("-quiet", "-smell-report", dir.resolve("report.txt").toString()));
+        args.addAll(Arrays.asList(options));
+        args.add(lib.toString());
+        args.add(app.toString());
+        Analysis analysis = Main.init(args.toArray(new String[0]), null);
+        Main.run(analysis);
+        Monitoring monitoring = (Monitoring) analysis.getMonitoring();
+        Set<String> messages = new TreeSet<>();
+        for (Message m : monitoring.getMessages())
+            messages.add(m.toString());
+        return new Result(messages, monitoring.getNumberOfNodeTransfers());
+    }
+
+    private Result analyzeWithCache() {
+        return analyze("-result-cache", dir.resolve("cache").toString());
+    }
+
+    /**
+     * Deletes the cached results, but not the stored fixpoint.
+     */
+    private void deleteCachedResults() throws IOException {
+        try (Stream<Path> s = Files.list(dir.resolve("cache"))) {
+            for (Path p : s.filter(Files::isDirectory).collect(Collectors.toList()))
+                delete(p);
+        }
+    }
+
+    @Test
+    public void unchangedFunctionsAreNotAnalyzedAgain() throws IOException {
+        Result scratch = analyzeWithCache();
+        deleteCachedResults();
+        Result warm = analyzeWithCache();
+        assertEquals(scratch.messages, warm.messages);
+        assertTrue(warm.transfers + " transfers", warm.transfers * 10 < scratch.transfers);
+    }
+
+    @Test
+    public void changedFunctionsAndTheirCallersAreAnalyzedAgain() throws IOException {
+        analyzeWithCache();
+        Files.write(lib, LIB.replace("o.x", "o.y").getBytes());
+        Result warm = analyzeWithCache();
+        Result scratch = analyze();
+        assertEquals(scratch.messages, warm.messages);
+        assertTrue(warm.messages.stream().anyMatch(m -> m.contains("lib.js:2:")));
+        assertTrue(warm.transfers + " of " + scratch.transfers + " transfers", warm.transfers < scratch.transfers);
+        assertTrue(warm.transfers + " transfers", warm.transfers > 0);
+    }
+
+    @Test
+    public void fixpointIsNotReusedForOtherOptions() throws IOException {
+        analyzeWithCache();
+        deleteCachedResults();
+        Result scratch = analyze("-no-polymorphic");
+        Result warm = analyze("-no-polymorphic", "-result-cache", dir.resolve("cache").toString());
+        assertEquals(scratch.transfers, warm.transfers);
+        assertFalse(warm.messages.isEmpty());
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.flowgraph.FlowGraph;
+import dk.brics.tajs.flowgraph.Function;
+import dk.brics.tajs.flowgraph.JavaScriptSource;
+import dk.brics.tajs.flowgraph.SourceLocation;
+import dk.brics.tajs.monitoring.SmellBaseline;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.util.AnalysisException;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link SmellBaseline}.
+ */
+public class TestSmellBaseline {
+
+    private static final String CATEGORY = "Long Variable Names";
+
+    private Path dir;
+
+    @Before
+    public void init() throws IOException {
+        dir = Files.createTempDirectory("tajs-baseline-test");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        for (Path p : Files.list(dir).toArray(Path[]::new))
+            Files.delete(p);
+        Files.delete(dir);
+    }
+
+    /**
+     * Makes a flow graph with the given source code, from a file that does not exist.
+     */
+    private static FlowGraph makeFlowGraph(URL url, String code) {
+        Function main = new Function(null, Collections.emptyList(), null, new SourceLocation(0, 0, "test.js", url));
+        FlowGraph fg = new FlowGraph(main);
+        fg.addFunction(main);
+        fg.addSourceCode(JavaScriptSource.makeFileCode(url, "test.js", code));
+        return fg;
+    }
+
+    private static URL makeURL() throws IOException {
+        return new URL("file:/nonexistent/test.js");
+    }
+
+    private static SourceLocation line(URL url, int line) {
+        return new SourceLocation(line, 1, "test.js", url);
+    }
+
+    private Path write(SmellBaseline baseline) throws IOException {
+        Path path = dir.resolve("baseline.idx");
+        baseline.write(path);
+        return path;
+    }
+
+    @Test
+    public void findingsKeepTheirFingerprintsWhenLinesMove() throws IOException {
+        URL url = makeURL();
+        FlowGraph before = makeFlowGraph(url, "var a;\nvar longVariableName = 1;\n");
+        SmellBaseline recording = new SmellBaseline(before, null, true);
+        assertTrue(recording.add(CATEGORY, "Long Variable: longVariableName at line number: 2", line(url, 2), before.getMain()));
+        Path path = write(recording);
+        FlowGraph after = makeFlowGraph(url, "var a;\n\n// comment\n  var  longVariableName = 1;\n");
+        SmellBaseline baseline = new SmellBaseline(after, path, false);
+        assertFalse(baseline.add(CATEGORY, "Long Variable: longVariableName at line number: 4", line(url, 4), after.getMain()));
+        assertEquals(0, baseline.getNumberOfNewFindings());
+        assertTrue(baseline.getFixedFindings().isEmpty());
+    }
+
+    @Test
+    public void sourceLinesAreTakenFromTheFlowGraph() throws IOException {
+        URL url = makeURL();
+        FlowGraph before = makeFlowGraph(url, "var longVariableName = 1;\n");
+        SmellBaseline recording = new SmellBaseline(before, null, true);
+        recording.add(CATEGORY, "Long Variable: longVariableName at line number: 1", line(url, 1), before.getMain());
+        Path path = write(recording);
+        FlowGraph after = makeFlowGraph(url, "var longVariableName = 2;\n");
+        SmellBaseline baseline = new SmellBaseline(after, path, false);
+        assertTrue(baseline.add(CATEGORY, "Long Variable: longVariableName at line number: 1", line(url, 1), after.getMain()));
+        assertEquals(1, baseline.getFixedFindings().size());
+    }
+
+    @Test
+    public void onlyTheLineNumberIsRemovedFromMessages() throws IOException {
+        URL url = makeURL();
+        FlowGraph fg = makeFlowGraph(url, "f(x1, x2);\n");
+        SmellBaseline recording = new SmellBaseline(fg, null, true);
+        recording.add(CATEGORY, "Short Variable: x1 at line number: 1", line(url, 1), fg.getMain());
+        Path path = write(recording);
+        SmellBaseline baseline = new SmellBaseline(fg, path, false);
+        assertTrue(baseline.add(CATEGORY, "Short Variable: x2 at line number: 1", line(url, 1), fg.getMain()));
+        assertFalse(baseline.add(CATEGORY, "Short Variable: x1 at line number: 7", line(url, 1), fg.getMain()));
+    }
+
+    @Test
+    public void modelCheck() throws IOException {
+        URL url = makeURL();
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 50; i++)
+            code.append("var v").append(i).append(" = ").append(i % 7).append(";\n");
+        FlowGraph fg = makeFlowGraph(url, code.toString());
+        Random rnd = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            // a finding is identified by its variable and line, and may occur several times
+            List<String> recorded = new ArrayList<>();
+            SmellBaseline recording = new SmellBaseline(fg, null, true);
+            int n = rnd.nextInt(300);
+            for (int i = 0; i < n; i++) {
+                String finding = "v" + rnd.nextInt(20) + ":" + (1 + rnd.nextInt(50));
+                recording.add(CATEGORY, text(finding), location(url, finding), fg.getMain());
+                recorded.add(finding);
+            }
+            Path path = write(recording);
+            Map<String, Integer> model = new HashMap<>();
+            for (String finding : recorded)
+                model.merge(finding, 1, Integer::sum);
+            Map<String, Integer> remaining = new HashMap<>(model);
+            Map<String, Integer> added = new HashMap<>();
+            SmellBaseline baseline = new SmellBaseline(fg, path, false);
+            int new_findings = 0;
+            n = rnd.nextInt(300);
+            for (int i = 0; i < n; i++) {
+                String finding = "v" + rnd.nextInt(25) + ":" + (1 + rnd.nextInt(50));
+                int occurrence = added.merge(finding, 1, Integer::sum);
+                boolean expected_new = occurrence > model.getOrDefault(finding, 0);
+                if (expected_new)
+                    new_findings++;
+                else
+                    remaining.merge(finding, -1, Integer::sum);
+                assertEquals(finding, expected_new, baseline.add(CATEGORY, text(finding), location(url, finding), fg.getMain()));
+            }
+            assertEquals(new_findings, baseline.getNumberOfNewFindings());
+            int fixed = 0;
+            for (int count : remaining.values())
+                fixed += count;
+            assertEquals(fixed, baseline.getFixedFindings().size());
+        }
+    }
+
+    private static String text(String finding) {
+        String[] parts = finding.split(":");
+        return "Long Variable: " + parts[0] + " at line number: " + parts[1];
+    }
+
+    private static SourceLocation location(URL url, String finding) {
+        return line(url, Integer.parseInt(finding.split(":")[1]));
+    }
+
+    @Test
+    public void corruptDescriptionOffsetsAreRejected() throws IOException {
+        URL url = makeURL();
+        FlowGraph fg = makeFlowGraph(url, "var longVariableName = 1;\n");
+        SmellBaseline recording = new SmellBaseline(fg, null, true);
+        recording.add(CATEGORY, "Long Variable: longVariableName at line number: 1", line(url, 1), fg.getMain());
+        Path path = write(recording);
+        for (long offset : new long[]{1L << 40, -1, 0, Files.size(path)}) {
+            ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(path));
+            int capacity = b.getInt(4);
+            for (int slot = 0; slot < capacity; slot++)
+                if (b.getLong(12 + slot * 16) != 0)
+                    b.putLong(12 + slot * 16 + 8, offset);
+            Path corrupt = dir.resolve("corrupt.idx");
+            Files.write(corrupt, b.array());
+            SmellBaseline baseline = new SmellBaseline(fg, corrupt, false);
+            try {
+                baseline.getFixedFindings();
+                fail("offset " + offset);
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Corrupt smell baseline"));
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException {
+        Path path = dir.resolve("other.idx");
+        Files.write(path, "not a baseline".getBytes());
+        new SmellBaseline(null, path, false);
+    }
+
+    @Test
+    public void writtenBaselinesAreReadableByAll() throws IOException {
+        Assume.assumeNotNull(Files.getFileAttributeView(dir, PosixFileAttributeView.class));
+        URL url = makeURL();
+        FlowGraph fg = makeFlowGraph(url, "var longVariableName = 1;\n");
+        SmellBaseline recording = new SmellBaseline(fg, null, true);
+        recording.add(CATEGORY, "Long Variable: longVariableName at line number: 1", line(url, 1), fg.getMain());
+        Path path = write(recording);
+        assertEquals(PosixFilePermissions.fromString("rw-r--r--"), Files.getPosixFilePermissions(path));
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-rw-r--"));
+        write(new SmellBaseline(fg, path, true));
+        assertEquals(PosixFilePermissions.fromString("rw-rw-r--"), Files.getPosixFilePermissions(path));
+    }
+
+    @Test
+    public void resultCacheCannotBeCombinedWithBaselines() {
+        for (String[] args : new String[][]{{"-smell-baseline", "a.idx"}, {"-write-smell-baseline", "a.idx"}}) {
+            OptionValues options = new OptionValues(new String[]{"-result-cache", "cache", args[0], args[1], "test.js"});
+            try {
+                options.checkConsistency();
+                fail(args[0] + " accepted");
+            } catch (AnalysisException e) {
+                // expected
+            }
+        }
+    }
+}
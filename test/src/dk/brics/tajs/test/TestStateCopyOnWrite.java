@@ -0,0 +1,147 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.analysis.dom.DOMObjects;
+import dk.brics.tajs.lattice.Obj;
+import dk.brics.tajs.lattice.ObjectLabel;
+import dk.brics.tajs.lattice.State;
+import dk.brics.tajs.lattice.Value;
+import dk.brics.tajs.options.OptionValues;
+import dk.brics.tajs.options.Options;
+import dk.brics.tajs.util.AnalysisException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests that cloned states do not share modifications of their stores.
+ */
+public class TestStateCopyOnWrite {
+
+    @After
+    public void unbind() {
+        Options.unbind();
+    }
+
+    private static void check(OptionValues options) {
+        Options.bind(options);
+        List<ObjectLabel> labels = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            labels.add(ObjectLabel.make(DOMObjects.values()[i], ObjectLabel.Kind.OBJECT));
+        List<State> states = new ArrayList<>();
+        List<int[]> models = new ArrayList<>();
+        State s = new State(null, null);
+        for (ObjectLabel l : labels) {
+            Obj obj = new Obj(Obj.makeAbsentModified());
+            obj.setProperty("p", Value.makeNum(0));
+            s.putObject(l, obj);
+        }
+        states.add(s);
+        models.add(new int[labels.size()]);
+        Random rnd = new Random(1);
+        for (int i = 1; i < 2000; i++) {
+            int j = rnd.nextInt(states.size());
+            State x = states.get(j);
+            int[] model = models.get(j);
+            if (rnd.nextInt(4) == 0) {
+                x = x.clone();
+                model = model.clone();
+                states.add(x);
+                models.add(model);
+            }
+            int k = rnd.nextInt(labels.size());
+            x.getObject(labels.get(k), true).setProperty("p", Value.makeNum(i));
+            model[k] = i;
+        }
+        for (int j = 0; j < states.size(); j++)
+            for (int k = 0; k < labels.size(); k++)
+                assertEquals(Value.makeNum(models.get(j)[k]), states.get(j).getObject(labels.get(k), false).getProperty("p"));
+    }
+
+    @Test
+    public void hashMapStore() {
+        check(new OptionValues());
+    }
+
+    @Test
+    public void persistentStore() {
+        OptionValues options = new OptionValues();
+        options.enablePersistentStore();
+        check(options);
+    }
+
+    @Test
+    public void pagedStore() {
+        OptionValues options = new OptionValues();
+        options.enablePagedStore();
+        check(options);
+    }
+
+    /**
+     * Checks that an object that has become shared by a clone cannot be modified in place.
+     */
+    private static void checkSharedObjectIsFrozen(OptionValues options) {
+        Options.bind(options);
+        ObjectLabel l = ObjectLabel.make(DOMObjects.values()[0], ObjectLabel.Kind.OBJECT);
+        State s = new State(null, null);
+        Obj obj = s.getObject(l, true);
+        s.clone();
+        obj.setProperty("p", Value.makeNum(1));
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void hashMapStoreFreezesSharedObjects() {
+        checkSharedObjectIsFrozen(new OptionValues());
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void persistentStoreFreezesSharedObjectsInTestMode() {
+        OptionValues options = new OptionValues();
+        options.enablePersistentStore();
+        options.enableTest();
+        checkSharedObjectIsFrozen(options);
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void pagedStoreFreezesSharedObjectsInTestMode() {
+        OptionValues options = new OptionValues();
+        options.enablePagedStore();
+        options.enableTest();
+        checkSharedObjectIsFrozen(options);
+    }
+
+    @Test
+    public void cloneCopiesOnFirstWrite() {
+        Options.bind(new OptionValues());
+        ObjectLabel l = ObjectLabel.make(DOMObjects.values()[0], ObjectLabel.Kind.OBJECT);
+        State s = new State(null, null);
+        Obj obj = s.getObject(l, true);
+        State c = s.clone();
+        Obj copy = c.getObject(l, true);
+        assertNotSame(obj, copy);
+        assertSame(copy, c.getObject(l, true)); // owned now, so not copied again
+        assertNotSame(obj, s.getObject(l, true)); // the original is shared, so it is copied too
+    }
+}
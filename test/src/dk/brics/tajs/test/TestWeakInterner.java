@@ -0,0 +1,132 @@
+/*
+ * Copyright 2009-2016 Aarhus University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dk.brics.tajs.test;
+
+import dk.brics.tajs.util.WeakInterner;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link WeakInterner}.
+ */
+public class TestWeakInterner {
+
+    @Test
+    public void internMatchesHashMap() {
+        WeakInterner<String> interner = new WeakInterner<>(WeakInterner.equalsEquivalence(), 4);
+        Map<String, String> model = new HashMap<>();
+        Random rnd = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            String s = new String("s" + rnd.nextInt(2000)); // fresh object with the same contents
+            String expected = model.computeIfAbsent(s, k -> k);
+            assertSame(expected, interner.intern(s));
+        }
+        assertEquals(model.size(), interner.getMisses());
+        assertEquals(20000 - model.size(), interner.getHits());
+        assertEquals(model.size(), interner.size());
+    }
+
+    @Test
+    public void explicitEquivalence() {
+        WeakInterner<String> interner = new WeakInterner<>(new WeakInterner.Equivalence<String>() {
+            @Override
+            public int hash(String x) {
+                return x.toLowerCase().hashCode();
+            }
+
+            @Override
+            public boolean equivalent(String x, String y) {
+                return x.equalsIgnoreCase(y);
+            }
+        });
+        String a = interner.intern("abc");
+        assertSame(a, interner.intern("ABC"));
+        assertSame(a, interner.intern("aBc"));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void clearResets() {
+        WeakInterner<String> interner = new WeakInterner<>(WeakInterner.equalsEquivalence());
+        interner.intern("x");
+        interner.intern("x");
+        interner.clear();
+        assertEquals(0, interner.size());
+        assertEquals(0, interner.getHits());
+        assertEquals(0, interner.getMisses());
+    }
+
+    @Test
+    public void unreachableEntriesAreExpunged() throws InterruptedException {
+        WeakInterner<Object> interner = new WeakInterner<>(WeakInterner.equalsEquivalence(), 1);
+        for (int i = 0; i < 10000; i++)
+            interner.intern(new Object());
+        for (int attempt = 0; attempt < 50 && interner.size() > 100; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            interner.intern(new Object()); // expunges stale entries
+        }
+        assertTrue("stale entries remain: " + interner.size(), interner.size() <= 100);
+    }
+
+    @Test
+    public void concurrentInterningAgrees() throws Exception {
+        WeakInterner<String> interner = new WeakInterner<>(WeakInterner.equalsEquivalence());
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                results.add(pool.submit(() -> {
+                    String[] canonical = new String[1000];
+                    Random rnd = new Random(seed);
+                    for (int i = 0; i < 20000; i++) {
+                        int k = rnd.nextInt(canonical.length);
+                        String c = interner.intern(new String("k" + k));
+                        if (canonical[k] == null)
+                            canonical[k] = c;
+                        else if (canonical[k] != c)
+                            throw new AssertionError("two canonical objects for k" + k);
+                    }
+                    return canonical;
+                }));
+            }
+            String[] first = results.get(0).get();
+            for (Future<String[]> f : results) {
+                String[] other = f.get();
+                for (int k = 0; k < first.length; k++)
+                    if (first[k] != null && other[k] != null)
+                        assertSame(first[k], other[k]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}